@@ -0,0 +1,67 @@
+package com.softwareverde.http;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares HttpHeaders::getValue against the toLowerCase scan HttpRequest::getHeaderValue performed before HttpHeaders.
+ *  Run with `./gradlew benchmark`; it is not part of the test suite.
+ */
+public class HttpHeadersBenchmark {
+    protected static String _getHeaderValueWithToLowerCase(final String key, final Map<String, List<String>> headers) {
+        for (final String headerKey : headers.keySet()) {
+            if (key.toLowerCase().equals(headerKey.toLowerCase())) {
+                final List<String> headerValues = headers.get(headerKey);
+                if (headerValues.isEmpty()) { continue; }
+                return headerValues.get(0);
+            }
+        }
+        return null;
+    }
+
+    public static void main(final String[] arguments) {
+        final String[] names = { "Date", "Server", "Content-Type", "Content-Length", "Connection", "Cache-Control", "ETag", "Last-Modified", "Vary", "X-Request-Id" };
+        final String[] lookups = { "content-length", "X-REQUEST-ID", "etag", "Content-Encoding" };
+
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        final Map<String, List<String>> hashMapHeaders = new HashMap<String, List<String>>();
+        for (final String name : names) {
+            httpHeaders.add(name, "value-" + name);
+
+            final List<String> values = new ArrayList<String>(1);
+            values.add("value-" + name);
+            hashMapHeaders.put(name, values);
+        }
+
+        final int warmupIterationCount = 100000;
+        final int iterationCount = 1000000;
+        int matchCount = 0;
+        for (int i = 0; i < warmupIterationCount; ++i) {
+            final String lookup = lookups[i % lookups.length];
+            if (httpHeaders.getValue(lookup) != null) { matchCount += 1; }
+            if (_getHeaderValueWithToLowerCase(lookup, hashMapHeaders) != null) { matchCount += 1; }
+        }
+
+        final long httpHeadersStartTime = System.nanoTime();
+        int httpHeadersMatchCount = 0;
+        for (int i = 0; i < iterationCount; ++i) {
+            if (httpHeaders.getValue(lookups[i % lookups.length]) != null) { httpHeadersMatchCount += 1; }
+        }
+        final long httpHeadersElapsed = (System.nanoTime() - httpHeadersStartTime);
+
+        final long toLowerCaseStartTime = System.nanoTime();
+        int toLowerCaseMatchCount = 0;
+        for (int i = 0; i < iterationCount; ++i) {
+            if (_getHeaderValueWithToLowerCase(lookups[i % lookups.length], hashMapHeaders) != null) { toLowerCaseMatchCount += 1; }
+        }
+        final long toLowerCaseElapsed = (System.nanoTime() - toLowerCaseStartTime);
+
+        if (httpHeadersMatchCount != toLowerCaseMatchCount) {
+            throw new IllegalStateException("Lookups disagree: " + httpHeadersMatchCount + " != " + toLowerCaseMatchCount);
+        }
+
+        System.out.println("HttpHeaders: " + (httpHeadersElapsed / iterationCount) + "ns/lookup, toLowerCase: " + (toLowerCaseElapsed / iterationCount) + "ns/lookup (" + matchCount + " warmup matches)");
+    }
+}
@@ -2,31 +2,84 @@ package com.softwareverde.api;
 
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.http.HttpClient;
 import com.softwareverde.http.HttpMethod;
 import com.softwareverde.http.HttpRequest;
 import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTimings;
+import com.softwareverde.http.hedge.HedgePolicy;
+import com.softwareverde.http.retry.RetryPolicy;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.logging.LoggerInstance;
 import com.softwareverde.util.Util;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
 public abstract class ApiCall<REQUEST extends ApiRequest, RESPONSE extends ApiResponse> {
     private final LoggerInstance _logger = Logger.getInstance(getClass());
 
     private final ApiConfiguration _configuration;
 
+    private Boolean _compressesRequests = null;
+    private Long _requestCompressionThreshold = null;
+    private Integer _requestCompressionLevel = null;
+    private RetryPolicy _retryPolicy = null;
+    private HedgePolicy _hedgePolicy = null;
+    private HttpClient _httpClient = null;
+
     public ApiCall(final ApiConfiguration configuration) {
         _configuration = configuration;
     }
 
+    /**
+     * When enabled, request bodies of at least requestCompressionThreshold bytes are gzip-compressed as they are sent (see HttpRequest::setCompressesRequestBody).
+     *  The API must accept "Content-Encoding: gzip" request bodies.
+     *  If unset (or null), the HttpClient's setting (or the request's default) is used; the same applies to the compression threshold and level.
+     */
+    public void setCompressesRequests(final Boolean compressesRequests) {
+        _compressesRequests = compressesRequests;
+    }
+
+    public void setRequestCompressionThreshold(final Long requestCompressionThreshold) {
+        _requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    public void setRequestCompressionLevel(final Integer requestCompressionLevel) {
+        _requestCompressionLevel = requestCompressionLevel;
+    }
+
+    /**
+     * Sets the RetryPolicy applied to each request made by the call (see HttpRequest::setRetryPolicy).
+     *  If unset (or null), the HttpClient's RetryPolicy (if any) is used.
+     */
+    public void setRetryPolicy(final RetryPolicy retryPolicy) {
+        _retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Sets the HedgePolicy applied to each (idempotent) request made by the call (see HttpRequest::setHedgePolicy).
+     *  The policy's observed latencies are shared by every request made by the call.
+     */
+    public void setHedgePolicy(final HedgePolicy hedgePolicy) {
+        _hedgePolicy = hedgePolicy;
+    }
+
+    /**
+     * Sets the HttpClient that creates (and configures) each request made by the call.
+     *  If unset (or null), requests use HttpRequest's defaults.
+     */
+    public void setHttpClient(final HttpClient httpClient) {
+        _httpClient = httpClient;
+    }
+
     protected ApiConfiguration _getConfiguration() {
         return _configuration;
     }
 
     public abstract RESPONSE call(final REQUEST request) throws Exception;
 
-    protected HttpResponse _call(final String requestPath, final HttpMethod requestMethod, final REQUEST request) throws Exception {
-        long startTime = System.currentTimeMillis();
-        final HttpRequest httpRequest;
+    protected HttpRequest _buildHttpRequest(final String requestPath, final HttpMethod requestMethod, final REQUEST request) {
         try {
             final ApiConfiguration apiConfiguration = _getConfiguration();
             final String baseUrl = apiConfiguration.getApiUrl();
@@ -34,19 +87,54 @@ public abstract class ApiCall<REQUEST extends ApiRequest, RESPONSE extends ApiRe
 
             final ByteArray requestData = MutableByteArray.wrap(request.toBytes());
 
-            httpRequest = new HttpRequest();
+            final HttpClient httpClient = _httpClient;
+            final HttpRequest httpRequest = (httpClient != null ? httpClient.newRequest() : new HttpRequest());
             httpRequest.setUrl(fullUrl);
             httpRequest.setMethod(requestMethod);
             httpRequest.setRequestData(requestData);
-            httpRequest.setFollowsRedirects(apiConfiguration.followsRedirects());
+            final Boolean followsRedirects = apiConfiguration.followsRedirects();
+            if (followsRedirects != null) {
+                httpRequest.setFollowsRedirects(followsRedirects);
+            }
+            if (_compressesRequests != null) {
+                httpRequest.setCompressesRequestBody(_compressesRequests);
+            }
+            if (_requestCompressionThreshold != null) {
+                httpRequest.setRequestCompressionThreshold(_requestCompressionThreshold);
+            }
+            if (_requestCompressionLevel != null) {
+                httpRequest.setRequestCompressionLevel(_requestCompressionLevel);
+            }
+            if (_retryPolicy != null) {
+                httpRequest.setRetryPolicy(_retryPolicy);
+            }
+            if (_hedgePolicy != null) {
+                httpRequest.setHedgePolicy(_hedgePolicy);
+            }
             for (final String header : request.getHeaderNames()) {
                 final String value = request.getHeader(header);
                 httpRequest.setHeader(header, value);
             }
+            return httpRequest;
         }
         catch (final Exception exception) {
             throw new RuntimeException("Unable to build HTTP request for " + request.getClass().getSimpleName(), exception);
         }
+    }
+
+    protected void _logResponse(final HttpRequest httpRequest, final HttpResponse httpResponse, final long startTime) {
+        if (httpResponse == null) { return; }
+
+        final long duration = System.currentTimeMillis() - startTime;
+        final String httpResponseString = httpResponse.getResponseCode() + " " + httpResponse.getResponseMessage();
+        final HttpTimings timings = httpResponse.getTimings();
+        final String timingsString = (timings != null ? (" (" + timings + ")") : "");
+        _logger.info(httpRequest.getMethod().name() + " | " + httpRequest.getUrl() + " | " + httpResponseString + " | " + duration + " ms" + timingsString);
+    }
+
+    protected HttpResponse _call(final String requestPath, final HttpMethod requestMethod, final REQUEST request) throws Exception {
+        final long startTime = System.currentTimeMillis();
+        final HttpRequest httpRequest = _buildHttpRequest(requestPath, requestMethod, request);
 
         HttpResponse httpResponse = null;
         try {
@@ -54,12 +142,35 @@ public abstract class ApiCall<REQUEST extends ApiRequest, RESPONSE extends ApiRe
             return httpResponse;
         }
         finally {
-            if (httpResponse != null) {
-                long duration = System.currentTimeMillis() - startTime;
-                final String httpResponseString = httpResponse.getResponseCode() + " " + httpResponse.getResponseMessage();
-                _logger.info(requestMethod.name() + " | " + httpRequest.getUrl() + " | " + httpResponseString + " | " + duration + " ms");
-            }
+            _logResponse(httpRequest, httpResponse, startTime);
         }
     }
 
+    /**
+     * Asynchronous variant of ApiCall::_call.
+     *  The returned future completes exceptionally with the cause of the failure if the request could not be completed,
+     *  and cancelling the returned future cancels the underlying HttpRequest.
+     */
+    protected CompletableFuture<HttpResponse> _callAsync(final String requestPath, final HttpMethod requestMethod, final REQUEST request) {
+        final long startTime = System.currentTimeMillis();
+
+        final HttpRequest httpRequest;
+        try {
+            httpRequest = _buildHttpRequest(requestPath, requestMethod, request);
+        }
+        catch (final Exception exception) {
+            final CompletableFuture<HttpResponse> failedFuture = new CompletableFuture<HttpResponse>();
+            failedFuture.completeExceptionally(exception);
+            return failedFuture;
+        }
+
+        final CompletableFuture<HttpResponse> responseFuture = httpRequest.executeAsync();
+        responseFuture.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(final HttpResponse httpResponse, final Throwable throwable) {
+                _logResponse(httpRequest, httpResponse, startTime);
+            }
+        });
+        return responseFuture;
+    }
 }
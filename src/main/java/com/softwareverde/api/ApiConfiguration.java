@@ -2,5 +2,8 @@ package com.softwareverde.api;
 
 public interface ApiConfiguration {
     String getApiUrl();
+    /**
+     * Returns whether requests follow redirects, or null to use the HttpClient's setting (or the request's default).
+     */
     Boolean followsRedirects();
 }
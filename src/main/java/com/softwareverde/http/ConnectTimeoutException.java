@@ -0,0 +1,10 @@
+package com.softwareverde.http;
+
+/**
+ * Indicates a connection to the server could not be established (including the TLS handshake, and waiting for a pooled connection) within the request's connect timeout.
+ */
+public class ConnectTimeoutException extends RequestTimeoutException {
+    public ConnectTimeoutException(final String message) {
+        super(message);
+    }
+}
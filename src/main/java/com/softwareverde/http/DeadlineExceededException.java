@@ -0,0 +1,10 @@
+package com.softwareverde.http;
+
+/**
+ * Indicates the request (including its redirects, and for streamed responses, reading its body) did not complete before its deadline.
+ */
+public class DeadlineExceededException extends RequestTimeoutException {
+    public DeadlineExceededException(final String message) {
+        super(message);
+    }
+}
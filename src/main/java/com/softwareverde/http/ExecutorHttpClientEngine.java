@@ -0,0 +1,208 @@
+package com.softwareverde.http;
+
+import com.softwareverde.logging.Logger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An HttpClientEngine backed by an Executor.
+ *  The number of submissions that may be pending (queued or executing) at once is bounded by maxPendingCount;
+ *  submissions beyond that limit are handled according to the engine's RejectionPolicy.
+ */
+public class ExecutorHttpClientEngine implements HttpClientEngine {
+    public static final Integer DEFAULT_THREAD_COUNT = 256;
+    public static final Integer DEFAULT_MAX_PENDING_COUNT = 8192;
+
+    protected static final AtomicLong NEXT_THREAD_ID = new AtomicLong(1L);
+    protected static ExecutorHttpClientEngine DEFAULT_ENGINE = null;
+
+    protected static ThreadFactory _newThreadFactory(final String threadNamePrefix) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable);
+                thread.setName(threadNamePrefix + NEXT_THREAD_ID.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Returns the engine used by HttpRequests that have not been assigned an engine.
+     */
+    public static synchronized ExecutorHttpClientEngine getDefault() {
+        if (DEFAULT_ENGINE == null) {
+            DEFAULT_ENGINE = ExecutorHttpClientEngine.newThreadPoolEngine(DEFAULT_THREAD_COUNT, DEFAULT_MAX_PENDING_COUNT, RejectionPolicy.ABORT);
+        }
+        return DEFAULT_ENGINE;
+    }
+
+    /**
+     * Creates an engine backed by a pool of up to threadCount daemon threads.
+     *  Idle threads are released after 60 seconds.
+     */
+    public static ExecutorHttpClientEngine newThreadPoolEngine(final Integer threadCount, final Integer maxPendingCount, final RejectionPolicy rejectionPolicy) {
+        final ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threadCount, threadCount, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), _newThreadFactory("HttpClientEngine-"));
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        return new ExecutorHttpClientEngine(threadPoolExecutor, maxPendingCount, rejectionPolicy, true);
+    }
+
+    /**
+     * Returns true if the runtime supports virtual threads (JDK 21+).
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        }
+        catch (final Exception exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates an engine that executes each submission on its own virtual thread.
+     *  If the runtime does not support virtual threads, a thread pool engine with the default thread count is returned instead.
+     */
+    public static ExecutorHttpClientEngine newVirtualThreadEngine(final Integer maxPendingCount, final RejectionPolicy rejectionPolicy) {
+        try {
+            final Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            final ExecutorService executorService = (ExecutorService) method.invoke(null);
+            return new ExecutorHttpClientEngine(executorService, maxPendingCount, rejectionPolicy, true);
+        }
+        catch (final Exception exception) {
+            Logger.debug("Virtual threads are not supported by this runtime; falling back to a thread pool.", exception);
+            return ExecutorHttpClientEngine.newThreadPoolEngine(DEFAULT_THREAD_COUNT, maxPendingCount, rejectionPolicy);
+        }
+    }
+
+    protected final Executor _executor;
+    protected final Boolean _ownsExecutor;
+    protected final RejectionPolicy _rejectionPolicy;
+    protected final Semaphore _pendingPermits;
+
+    protected final AtomicInteger _pendingCount = new AtomicInteger(0);
+    protected final AtomicInteger _activeCount = new AtomicInteger(0);
+
+    protected ExecutorHttpClientEngine(final Executor executor, final Integer maxPendingCount, final RejectionPolicy rejectionPolicy, final Boolean ownsExecutor) {
+        _executor = executor;
+        _ownsExecutor = ownsExecutor;
+        _rejectionPolicy = rejectionPolicy;
+        _pendingPermits = new Semaphore(maxPendingCount, true);
+    }
+
+    /**
+     * Creates an engine that dispatches onto the caller-supplied executor.
+     *  The executor is not shut down when the engine is shut down.
+     */
+    public ExecutorHttpClientEngine(final Executor executor, final Integer maxPendingCount, final RejectionPolicy rejectionPolicy) {
+        this(executor, maxPendingCount, rejectionPolicy, false);
+    }
+
+    protected boolean _acquirePermit() {
+        if (_rejectionPolicy == RejectionPolicy.BLOCK) {
+            try {
+                _pendingPermits.acquire();
+                return true;
+            }
+            catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        return _pendingPermits.tryAcquire();
+    }
+
+    protected void _runOnCallerThread(final Runnable runnable) {
+        _activeCount.incrementAndGet();
+        try {
+            runnable.run();
+        }
+        finally {
+            _activeCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Submits the runnable to the executor; the caller must have acquired a pending permit, which is released once the runnable completes.
+     *  Returns false (and releases the permit) if the executor rejects the runnable.
+     */
+    protected boolean _submit(final Runnable runnable) {
+        _pendingCount.incrementAndGet();
+        try {
+            _executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    _pendingCount.decrementAndGet();
+                    _activeCount.incrementAndGet();
+                    try {
+                        runnable.run();
+                    }
+                    finally {
+                        _activeCount.decrementAndGet();
+                        _pendingPermits.release();
+                    }
+                }
+            });
+            return true;
+        }
+        catch (final RejectedExecutionException exception) {
+            _pendingCount.decrementAndGet();
+            _pendingPermits.release();
+            return false;
+        }
+    }
+
+    @Override
+    public void execute(final Runnable runnable) throws RejectedExecutionException {
+        if ( _acquirePermit() && _submit(runnable) ) { return; }
+
+        if (_rejectionPolicy == RejectionPolicy.CALLER_RUNS) {
+            _runOnCallerThread(runnable);
+            return;
+        }
+
+        throw new RejectedExecutionException("HttpClientEngine is saturated.");
+    }
+
+    @Override
+    public Boolean tryExecute(final Runnable runnable) {
+        if (! _pendingPermits.tryAcquire()) { return false; }
+        return _submit(runnable);
+    }
+
+    @Override
+    public Integer getActiveCount() {
+        return _activeCount.get();
+    }
+
+    @Override
+    public Integer getQueuedCount() {
+        return _pendingCount.get();
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return _rejectionPolicy;
+    }
+
+    @Override
+    public void shutdown() {
+        if (! _ownsExecutor) { return; }
+
+        if (_executor instanceof ExecutorService) {
+            ((ExecutorService) _executor).shutdown();
+        }
+    }
+}
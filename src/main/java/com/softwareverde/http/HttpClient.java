@@ -0,0 +1,491 @@
+package com.softwareverde.http;
+
+import com.softwareverde.http.breaker.CircuitBreakerRegistry;
+import com.softwareverde.http.cache.HttpCache;
+import com.softwareverde.http.coalesce.RequestCoalescer;
+import com.softwareverde.http.connection.DeflaterPool;
+import com.softwareverde.http.connection.HttpConnectionPool;
+import com.softwareverde.http.connection.HttpConnector;
+import com.softwareverde.http.connection.InflaterPool;
+import com.softwareverde.http.connection.TlsContext;
+import com.softwareverde.http.dns.CachingDnsResolver;
+import com.softwareverde.http.dns.DnsResolver;
+import com.softwareverde.http.hedge.HedgePolicy;
+import com.softwareverde.http.http2.Http2Mode;
+import com.softwareverde.http.intercept.Interceptor;
+import com.softwareverde.http.intercept.NetworkInterceptor;
+import com.softwareverde.http.limit.ConcurrencyLimiter;
+import com.softwareverde.http.metrics.HttpClientMetrics;
+import com.softwareverde.http.retry.RetryPolicy;
+import com.softwareverde.http.timer.TimerWheel;
+import com.softwareverde.http.trace.Tracer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * The configuration (and shared resources, e.g. the engine, connection pool, TLS context, and cache) common to many requests, built once via HttpClient.Builder.
+ *  An HttpClient is immutable and thread-safe; each request it creates (see HttpClient::newRequest) references its resources rather than copying or creating them,
+ *  and may still override any of them for itself (e.g. HttpRequest::setReadTimeout).
+ *  Configuration left unset uses the request's own default (e.g. no RetryPolicy, and HttpRequest.DEFAULT_CONNECT_TIMEOUT);
+ *  there are no process-wide request defaults, so configuration shared by many requests is shared via an HttpClient.
+ *  Resources created by the Builder (rather than provided to it) are owned by the client, and are released by HttpClient::close.
+ */
+public class HttpClient implements AutoCloseable {
+    public static class Builder {
+        protected HttpClientEngine _engine = null;
+        protected Integer _threadCount = null;
+        protected HttpConnectionPool _connectionPool = null;
+        protected TlsContext _tlsContext = null;
+        protected Integer _maxConnectionsPerRoute = null;
+        protected Long _maxIdleTime = null;
+        protected Long _maxLifetime = null;
+        protected DnsResolver _dnsResolver = null;
+        protected TimerWheel _timerWheel = null;
+        protected Long _connectTimeout = null;
+        protected Long _readTimeout = null;
+        protected Long _deadline = null;
+        protected ConcurrencyLimiter _concurrencyLimiter = null;
+        protected RetryPolicy _retryPolicy = null;
+        protected HedgePolicy _hedgePolicy = null;
+        protected CircuitBreakerRegistry _circuitBreakerRegistry = null;
+        protected HttpCache _httpCache = null;
+        protected RequestCoalescer _requestCoalescer = null;
+        protected HttpEventListener _eventListener = null;
+        protected HttpClientMetrics _metrics = null;
+        protected Tracer _tracer = null;
+        protected final List<Interceptor> _interceptors = new ArrayList<Interceptor>();
+        protected final List<NetworkInterceptor> _networkInterceptors = new ArrayList<NetworkInterceptor>();
+        protected InflaterPool _inflaterPool = null;
+        protected DeflaterPool _deflaterPool = null;
+        protected final Map<String, String> _headers = new LinkedHashMap<String, String>();
+        protected Boolean _followsRedirects = false;
+        protected Integer _maxRedirectCount = 10;
+        protected Boolean _validatesSslCertificates = true;
+        protected Boolean _pipeliningEnabled = false;
+        protected Http2Mode _http2Mode = Http2Mode.NEGOTIATE;
+        protected Boolean _acceptsCompressedResponses = true;
+        protected Boolean _decodesCompressedResponses = true;
+        protected Boolean _compressesRequestBody = false;
+        protected Long _requestCompressionThreshold = HttpRequest.DEFAULT_REQUEST_COMPRESSION_THRESHOLD;
+        protected Integer _requestCompressionLevel = Deflater.DEFAULT_COMPRESSION;
+        protected HttpRequest.WebSocketFactory _webSocketFactory = HttpRequest.DEFAULT_WEB_SOCKET_FACTORY;
+
+        public Builder() { }
+
+        public Builder setEngine(final HttpClientEngine engine) {
+            _engine = engine;
+            return this;
+        }
+
+        /**
+         * Creates (and owns) a thread pool engine of threadCount threads, unless an engine is provided via Builder::setEngine.
+         */
+        public Builder setThreadCount(final Integer threadCount) {
+            _threadCount = threadCount;
+            return this;
+        }
+
+        /**
+         * Sets a (possibly shared) connection pool; the pool's HttpConnector determines the TLS context and DnsResolver used by the client's requests.
+         *  If unset, and any of the TLS context or the pool's limits are set, the client creates (and owns) a pool; otherwise the default pool is used.
+         *  The TLS context, DnsResolver, and pool limits may not be set along with a connection pool (see Builder::build).
+         */
+        public Builder setConnectionPool(final HttpConnectionPool connectionPool) {
+            _connectionPool = connectionPool;
+            return this;
+        }
+
+        public Builder setTlsContext(final TlsContext tlsContext) {
+            _tlsContext = tlsContext;
+            return this;
+        }
+
+        public Builder setMaxConnectionsPerRoute(final Integer maxConnectionsPerRoute) {
+            _maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time (in milliseconds) a connection of the client's pool may remain idle, and the maximum time it may be reused.
+         */
+        public Builder setConnectionLifetimes(final Long maxIdleTime, final Long maxLifetime) {
+            _maxIdleTime = maxIdleTime;
+            _maxLifetime = maxLifetime;
+            return this;
+        }
+
+        public Builder setDnsResolver(final DnsResolver dnsResolver) {
+            _dnsResolver = dnsResolver;
+            return this;
+        }
+
+        public Builder setTimerWheel(final TimerWheel timerWheel) {
+            _timerWheel = timerWheel;
+            return this;
+        }
+
+        public Builder setConnectTimeout(final Long connectTimeout) {
+            _connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder setReadTimeout(final Long readTimeout) {
+            _readTimeout = readTimeout;
+            return this;
+        }
+
+        public Builder setDeadline(final Long deadline) {
+            _deadline = deadline;
+            return this;
+        }
+
+        public Builder setConcurrencyLimiter(final ConcurrencyLimiter concurrencyLimiter) {
+            _concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        public Builder setRetryPolicy(final RetryPolicy retryPolicy) {
+            _retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder setHedgePolicy(final HedgePolicy hedgePolicy) {
+            _hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        public Builder setCircuitBreakerRegistry(final CircuitBreakerRegistry circuitBreakerRegistry) {
+            _circuitBreakerRegistry = circuitBreakerRegistry;
+            return this;
+        }
+
+        public Builder setHttpCache(final HttpCache httpCache) {
+            _httpCache = httpCache;
+            return this;
+        }
+
+        public Builder setRequestCoalescer(final RequestCoalescer requestCoalescer) {
+            _requestCoalescer = requestCoalescer;
+            return this;
+        }
+
+        public Builder setEventListener(final HttpEventListener eventListener) {
+            _eventListener = eventListener;
+            return this;
+        }
+
+        public Builder setMetrics(final HttpClientMetrics metrics) {
+            _metrics = metrics;
+            return this;
+        }
+
+        public Builder setTracer(final Tracer tracer) {
+            _tracer = tracer;
+            return this;
+        }
+
+        /**
+         * Appends an application Interceptor; interceptors run in the order they are added.
+         */
+        public Builder addInterceptor(final Interceptor interceptor) {
+            _interceptors.add(interceptor);
+            return this;
+        }
+
+        /**
+         * Appends a NetworkInterceptor; interceptors run in the order they are added.
+         */
+        public Builder addNetworkInterceptor(final NetworkInterceptor networkInterceptor) {
+            _networkInterceptors.add(networkInterceptor);
+            return this;
+        }
+
+        public Builder setInflaterPool(final InflaterPool inflaterPool) {
+            _inflaterPool = inflaterPool;
+            return this;
+        }
+
+        public Builder setDeflaterPool(final DeflaterPool deflaterPool) {
+            _deflaterPool = deflaterPool;
+            return this;
+        }
+
+        /**
+         * Sets a header sent by each request (e.g. User-Agent), unless the request sets its own value.
+         */
+        public Builder setHeader(final String name, final String value) {
+            _headers.put(name, value);
+            return this;
+        }
+
+        public Builder setFollowsRedirects(final Boolean followsRedirects) {
+            _followsRedirects = followsRedirects;
+            return this;
+        }
+
+        public Builder setMaxRedirectCount(final Integer maxRedirectCount) {
+            _maxRedirectCount = maxRedirectCount;
+            return this;
+        }
+
+        public Builder setValidateSslCertificates(final Boolean validatesSslCertificates) {
+            _validatesSslCertificates = validatesSslCertificates;
+            return this;
+        }
+
+        public Builder setPipeliningEnabled(final Boolean pipeliningEnabled) {
+            _pipeliningEnabled = pipeliningEnabled;
+            return this;
+        }
+
+        public Builder setHttp2Mode(final Http2Mode http2Mode) {
+            _http2Mode = http2Mode;
+            return this;
+        }
+
+        public Builder setAcceptsCompressedResponses(final Boolean acceptsCompressedResponses) {
+            _acceptsCompressedResponses = acceptsCompressedResponses;
+            return this;
+        }
+
+        public Builder setDecodesCompressedResponses(final Boolean decodesCompressedResponses) {
+            _decodesCompressedResponses = decodesCompressedResponses;
+            return this;
+        }
+
+        /**
+         * Enables gzip-compression of request bodies of at least requestCompressionThreshold bytes (see HttpRequest::setCompressesRequestBody).
+         */
+        public Builder setCompressesRequestBody(final Boolean compressesRequestBody, final Long requestCompressionThreshold, final Integer requestCompressionLevel) {
+            _compressesRequestBody = compressesRequestBody;
+            _requestCompressionThreshold = requestCompressionThreshold;
+            _requestCompressionLevel = requestCompressionLevel;
+            return this;
+        }
+
+        public Builder setWebSocketFactory(final HttpRequest.WebSocketFactory webSocketFactory) {
+            _webSocketFactory = webSocketFactory;
+            return this;
+        }
+
+        /**
+         * Builds the HttpClient.
+         *  Throws an IllegalStateException if a connection pool is set along with a TLS context, DnsResolver, or pool limits, since those configure the pool.
+         */
+        public HttpClient build() {
+            if (_connectionPool != null) {
+                final boolean configuresConnectionPool = ( (_tlsContext != null) || (_dnsResolver != null) || (_maxConnectionsPerRoute != null) || (_maxIdleTime != null) || (_maxLifetime != null) );
+                if (configuresConnectionPool) {
+                    throw new IllegalStateException("The TLS context, DnsResolver, and pool limits configure the connection pool, and may not be set along with a connection pool.");
+                }
+            }
+
+            return new HttpClient(this);
+        }
+    }
+
+    protected final HttpClientEngine _engine;
+    protected final Boolean _ownsEngine;
+    protected final HttpConnectionPool _connectionPool;
+    protected final Boolean _ownsConnectionPool;
+    protected final DnsResolver _dnsResolver;
+    protected final TimerWheel _timerWheel;
+    protected final Long _connectTimeout;
+    protected final Long _readTimeout;
+    protected final Long _deadline;
+    protected final ConcurrencyLimiter _concurrencyLimiter;
+    protected final RetryPolicy _retryPolicy;
+    protected final HedgePolicy _hedgePolicy;
+    protected final CircuitBreakerRegistry _circuitBreakerRegistry;
+    protected final HttpCache _httpCache;
+    protected final RequestCoalescer _requestCoalescer;
+    protected final HttpEventListener _eventListener;
+    protected final HttpClientMetrics _metrics;
+    protected final Tracer _tracer;
+    protected final List<Interceptor> _interceptors;
+    protected final List<NetworkInterceptor> _networkInterceptors;
+    protected final InflaterPool _inflaterPool;
+    protected final DeflaterPool _deflaterPool;
+    protected final Map<String, String> _headers;
+    protected final Boolean _followsRedirects;
+    protected final Integer _maxRedirectCount;
+    protected final Boolean _validatesSslCertificates;
+    protected final Boolean _pipeliningEnabled;
+    protected final Http2Mode _http2Mode;
+    protected final Boolean _acceptsCompressedResponses;
+    protected final Boolean _decodesCompressedResponses;
+    protected final Boolean _compressesRequestBody;
+    protected final Long _requestCompressionThreshold;
+    protected final Integer _requestCompressionLevel;
+    protected final HttpRequest.WebSocketFactory _webSocketFactory;
+
+    protected HttpClient(final Builder builder) {
+        if ( (builder._engine == null) && (builder._threadCount != null) ) {
+            _engine = ExecutorHttpClientEngine.newThreadPoolEngine(builder._threadCount, ExecutorHttpClientEngine.DEFAULT_MAX_PENDING_COUNT, HttpClientEngine.RejectionPolicy.ABORT);
+            _ownsEngine = true;
+        }
+        else {
+            _engine = builder._engine;
+            _ownsEngine = false;
+        }
+
+        final boolean configuresConnectionPool = ( (builder._tlsContext != null) || (builder._maxConnectionsPerRoute != null) || (builder._maxIdleTime != null) || (builder._maxLifetime != null) );
+        if ( (builder._connectionPool == null) && configuresConnectionPool ) {
+            final TlsContext tlsContext = (builder._tlsContext != null ? builder._tlsContext : TlsContext.getDefault());
+            final DnsResolver dnsResolver = (builder._dnsResolver != null ? builder._dnsResolver : CachingDnsResolver.getDefault());
+            final Integer maxConnectionsPerRoute = (builder._maxConnectionsPerRoute != null ? builder._maxConnectionsPerRoute : HttpConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+            final Long maxIdleTime = (builder._maxIdleTime != null ? builder._maxIdleTime : HttpConnectionPool.DEFAULT_MAX_IDLE_TIME_MS);
+            final Long maxLifetime = (builder._maxLifetime != null ? builder._maxLifetime : HttpConnectionPool.DEFAULT_MAX_LIFETIME_MS);
+            _connectionPool = new HttpConnectionPool(new HttpConnector(tlsContext, dnsResolver), maxConnectionsPerRoute, maxIdleTime, maxLifetime);
+            _ownsConnectionPool = true;
+        }
+        else {
+            _connectionPool = builder._connectionPool;
+            _ownsConnectionPool = false;
+        }
+
+        _dnsResolver = builder._dnsResolver;
+        _timerWheel = builder._timerWheel;
+        _connectTimeout = builder._connectTimeout;
+        _readTimeout = builder._readTimeout;
+        _deadline = builder._deadline;
+        _concurrencyLimiter = builder._concurrencyLimiter;
+        _retryPolicy = builder._retryPolicy;
+        _hedgePolicy = builder._hedgePolicy;
+        _circuitBreakerRegistry = builder._circuitBreakerRegistry;
+        _httpCache = builder._httpCache;
+        _requestCoalescer = builder._requestCoalescer;
+        _eventListener = builder._eventListener;
+        _metrics = builder._metrics;
+        _tracer = builder._tracer;
+        _interceptors = (builder._interceptors.isEmpty() ? null : Collections.unmodifiableList(new ArrayList<Interceptor>(builder._interceptors)));
+        _networkInterceptors = (builder._networkInterceptors.isEmpty() ? null : Collections.unmodifiableList(new ArrayList<NetworkInterceptor>(builder._networkInterceptors)));
+        _inflaterPool = builder._inflaterPool;
+        _deflaterPool = builder._deflaterPool;
+        _headers = Collections.unmodifiableMap(new LinkedHashMap<String, String>(builder._headers));
+        _followsRedirects = builder._followsRedirects;
+        _maxRedirectCount = builder._maxRedirectCount;
+        _validatesSslCertificates = builder._validatesSslCertificates;
+        _pipeliningEnabled = builder._pipeliningEnabled;
+        _http2Mode = builder._http2Mode;
+        _acceptsCompressedResponses = builder._acceptsCompressedResponses;
+        _decodesCompressedResponses = builder._decodesCompressedResponses;
+        _compressesRequestBody = builder._compressesRequestBody;
+        _requestCompressionThreshold = builder._requestCompressionThreshold;
+        _requestCompressionLevel = builder._requestCompressionLevel;
+        _webSocketFactory = builder._webSocketFactory;
+    }
+
+    /**
+     * Applies the client's configuration to the request (e.g. a subclass of HttpRequest created by the caller).
+     *  Only references are assigned, so configuring a request does not create (or copy) any of the client's resources.
+     */
+    public void configure(final HttpRequest httpRequest) {
+        httpRequest._engine = _engine;
+        httpRequest._connectionPool = _connectionPool;
+        httpRequest._dnsResolver = _dnsResolver;
+        httpRequest._timerWheel = _timerWheel;
+        httpRequest._connectTimeout = _connectTimeout;
+        httpRequest._readTimeout = _readTimeout;
+        httpRequest._deadline = _deadline;
+        httpRequest._concurrencyLimiter = _concurrencyLimiter;
+        httpRequest._retryPolicy = _retryPolicy;
+        httpRequest._hedgePolicy = _hedgePolicy;
+        httpRequest._circuitBreakerRegistry = _circuitBreakerRegistry;
+        httpRequest._httpCache = _httpCache;
+        httpRequest._requestCoalescer = _requestCoalescer;
+        httpRequest._eventListener = _eventListener;
+        httpRequest._metrics = _metrics;
+        httpRequest._tracer = _tracer;
+        httpRequest._interceptors = _interceptors;
+        httpRequest._networkInterceptors = _networkInterceptors;
+        httpRequest._inflaterPool = _inflaterPool;
+        httpRequest._deflaterPool = _deflaterPool;
+        httpRequest._followsRedirects = _followsRedirects;
+        httpRequest._maxRedirectCount = _maxRedirectCount;
+        httpRequest._validateSslCertificates = _validatesSslCertificates;
+        httpRequest._pipeliningEnabled = _pipeliningEnabled;
+        httpRequest._http2Mode = _http2Mode;
+        httpRequest._acceptsCompressedResponses = _acceptsCompressedResponses;
+        httpRequest._decodesCompressedResponses = _decodesCompressedResponses;
+        httpRequest._compressesRequestBody = _compressesRequestBody;
+        httpRequest._requestCompressionThreshold = _requestCompressionThreshold;
+        httpRequest._requestCompressionLevel = _requestCompressionLevel;
+        httpRequest._webSocketFactory = _webSocketFactory;
+
+        for (final Map.Entry<String, String> header : _headers.entrySet()) {
+            httpRequest.setHeader(header.getKey(), header.getValue());
+        }
+    }
+
+    /**
+     * Returns a new request configured by the client.
+     */
+    public HttpRequest newRequest() {
+        final HttpRequest httpRequest = new HttpRequest();
+        configure(httpRequest);
+        return httpRequest;
+    }
+
+    public HttpRequest newRequest(final HttpMethod method, final String url) {
+        final HttpRequest httpRequest = newRequest();
+        httpRequest.setMethod(method);
+        httpRequest.setUrl(url);
+        return httpRequest;
+    }
+
+    public WebRequest newWebRequest() {
+        final WebRequest webRequest = new WebRequest();
+        configure(webRequest);
+        return webRequest;
+    }
+
+    /**
+     * Returns the engine, or null if the client's requests use the default engine.
+     */
+    public HttpClientEngine getEngine() {
+        return _engine;
+    }
+
+    /**
+     * Returns the connection pool, or null if the client's requests use the default pool.
+     */
+    public HttpConnectionPool getConnectionPool() {
+        return _connectionPool;
+    }
+
+    public HttpCache getHttpCache() {
+        return _httpCache;
+    }
+
+    public List<Interceptor> getInterceptors() {
+        return (_interceptors != null ? _interceptors : Collections.<Interceptor>emptyList());
+    }
+
+    public List<NetworkInterceptor> getNetworkInterceptors() {
+        return (_networkInterceptors != null ? _networkInterceptors : Collections.<NetworkInterceptor>emptyList());
+    }
+
+    public Map<String, String> getHeaders() {
+        return _headers;
+    }
+
+    /**
+     * Shuts down the engine and closes the connection pool, if they were created by the client; resources provided to the Builder are not released.
+     */
+    @Override
+    public void close() {
+        if (_ownsEngine) {
+            _engine.shutdown();
+        }
+
+        if (_ownsConnectionPool) {
+            _connectionPool.close();
+        }
+    }
+}
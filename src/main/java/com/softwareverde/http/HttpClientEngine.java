@@ -0,0 +1,50 @@
+package com.softwareverde.http;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Dispatches asynchronous HttpRequest executions.
+ *  Implementations are shared across requests so that executing a request does not require creating a new Thread.
+ */
+public interface HttpClientEngine {
+    enum RejectionPolicy {
+        /**
+         * The request is rejected; its callback is invoked with a null response.
+         */
+        ABORT,
+
+        /**
+         * The request is executed on the thread that submitted it.
+         */
+        CALLER_RUNS,
+
+        /**
+         * The submitting thread waits until the engine has capacity for the request.
+         */
+        BLOCK
+    }
+
+    /**
+     * Schedules the runnable for execution.
+     *  Throws a RejectedExecutionException if the engine is saturated (or shut down) and its RejectionPolicy is ABORT.
+     */
+    void execute(Runnable runnable) throws RejectedExecutionException;
+
+    /**
+     * Schedules the runnable for execution if the engine has capacity, regardless of its RejectionPolicy; returns false if it does not.
+     *  Never blocks, and never runs the runnable on the calling thread, so it may be invoked from threads that must not block (e.g. the TimerWheel's).
+     */
+    Boolean tryExecute(Runnable runnable);
+
+    /**
+     * Returns the number of submissions currently being executed.
+     */
+    Integer getActiveCount();
+
+    /**
+     * Returns the number of submissions accepted by the engine that have not yet started executing.
+     */
+    Integer getQueuedCount();
+
+    void shutdown();
+}
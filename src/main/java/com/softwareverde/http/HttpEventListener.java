@@ -0,0 +1,40 @@
+package com.softwareverde.http;
+
+/**
+ * Receives the phases of each request's execution (see HttpRequest::setEventListener); all times are from System::nanoTime.
+ *  The connection phases (DNS, connect, and TLS) are reported once the connection is established, and only for connections established for the request.
+ *  A request that is redirected (or retried) reports the phases of each exchange.
+ *  Listeners are invoked by the thread executing the request (or, for a streamed body, the thread reading it), so they should not block.
+ */
+public interface HttpEventListener {
+    /**
+     * Invoked when the request is executed, before it waits for an execution thread (or a ConcurrencyLimiter permit).
+     */
+    void onQueued(HttpRequest httpRequest, Long queuedAt);
+
+    void onDnsComplete(HttpRequest httpRequest, Long startedAt, Long completedAt);
+
+    void onConnectComplete(HttpRequest httpRequest, Long startedAt, Long completedAt);
+
+    void onTlsComplete(HttpRequest httpRequest, Long startedAt, Long completedAt);
+
+    /**
+     * Invoked once the request (including its body) has been written; responses served from an HttpCache are not written.
+     */
+    void onRequestWritten(HttpRequest httpRequest, Long writtenAt);
+
+    /**
+     * Invoked once the response's head has been received.
+     */
+    void onFirstByte(HttpRequest httpRequest, Long receivedAt);
+
+    /**
+     * Invoked once the response's body has been read (or, if the body is streamed, once the caller has read or closed it).
+     */
+    void onBodyComplete(HttpRequest httpRequest, HttpResponse httpResponse, Long completedAt);
+
+    /**
+     * Invoked when an exchange fails; the request may still succeed if the failure is retried.
+     */
+    void onFailed(HttpRequest httpRequest, Throwable exception, Long failedAt);
+}
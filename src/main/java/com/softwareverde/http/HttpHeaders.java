@@ -0,0 +1,389 @@
+package com.softwareverde.http;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An ordered, multi-valued collection of HTTP headers, whose names are case-insensitive.
+ *  Headers are stored as a flat array of name/value pairs; lookups fold ASCII case in place rather than allocating lower-cased copies.
+ *  Well-known header names are interned, so headers parsed from the wire share their canonical name and usually compare by identity.
+ *  Names added via HttpHeaders::add and HttpHeaders::set keep the caller's spelling (which is what is sent on the wire);
+ *  the canonical instance is only substituted when the spelling is identical.
+ *  HttpHeaders is also a Map of each distinct name to its values, for compatibility with code written against Map<String, List<String>>;
+ *  the Map view allocates, so hot paths should prefer HttpHeaders::getValue, HttpHeaders::contains, and the indexed accessors.
+ *  HttpHeaders is not thread-safe.
+ */
+public class HttpHeaders extends AbstractMap<String, List<String>> {
+    protected static final String[] WELL_KNOWN_NAMES = {
+        "Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language", "Accept-Ranges", "Access-Control-Allow-Origin",
+        "Age", "Allow", "Alt-Svc", "Authorization", "Cache-Control", "Charset", "Connection", "Content-Disposition",
+        "Content-Encoding", "Content-Language", "Content-Length", "Content-Location", "Content-Range", "Content-Type",
+        "Cookie", "Date", "ETag", "Expect", "Expires", "Host", "If-Match", "If-Modified-Since", "If-None-Match", "If-Range",
+        "If-Unmodified-Since", "Keep-Alive", "Last-Modified", "Link", "Location", "Origin", "Pragma", "Proxy-Authenticate",
+        "Proxy-Authorization", "Range", "Referer", "Retry-After", "Sec-WebSocket-Accept", "Sec-WebSocket-Extensions",
+        "Sec-WebSocket-Key", "Sec-WebSocket-Protocol", "Sec-WebSocket-Version", "Server", "Set-Cookie",
+        "Strict-Transport-Security", "TE", "Trailer", "Transfer-Encoding", "Upgrade", "User-Agent", "Vary", "Via",
+        "WWW-Authenticate", "Warning", "X-Content-Type-Options", "X-Forwarded-For", "X-Frame-Options", "X-Requested-With",
+        "traceparent", "tracestate"
+    };
+
+    protected static final int INTERN_TABLE_SIZE = 256; // NOTE: Must be a power of two, and comfortably larger than WELL_KNOWN_NAMES.
+    protected static final String[] INTERN_TABLE = new String[INTERN_TABLE_SIZE];
+
+    static {
+        for (final String name : WELL_KNOWN_NAMES) {
+            int index = (_hashIgnoreAsciiCase(name, 0, name.length()) & (INTERN_TABLE_SIZE - 1));
+            while (INTERN_TABLE[index] != null) {
+                index = ((index + 1) & (INTERN_TABLE_SIZE - 1));
+            }
+            INTERN_TABLE[index] = name;
+        }
+    }
+
+    protected static char _toLowerAscii(final char c) {
+        return ( (c >= 'A') && (c <= 'Z') ? (char) (c + ('a' - 'A')) : c );
+    }
+
+    protected static int _hashIgnoreAsciiCase(final String string, final int startIndex, final int endIndex) {
+        int hash = 0;
+        for (int i = startIndex; i < endIndex; ++i) {
+            hash = ((31 * hash) + _toLowerAscii(string.charAt(i)));
+        }
+        return (hash ^ (hash >>> 16));
+    }
+
+    protected static boolean _regionEqualsIgnoreAsciiCase(final String string, final int startIndex, final int endIndex, final String name) {
+        if ((endIndex - startIndex) != name.length()) { return false; }
+        for (int i = 0; i < name.length(); ++i) {
+            final char a = string.charAt(startIndex + i);
+            final char b = name.charAt(i);
+            if ( (a != b) && (_toLowerAscii(a) != _toLowerAscii(b)) ) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the strings are equal, ignoring the case of ASCII letters.
+     *  Unlike String::toLowerCase, no copies are made; header names are ASCII tokens (RFC 7230 Section 3.2).
+     */
+    public static boolean equalsIgnoreCase(final String string0, final String string1) {
+        if (string0 == string1) { return true; }
+        if ( (string0 == null) || (string1 == null) ) { return false; }
+        return _regionEqualsIgnoreAsciiCase(string0, 0, string0.length(), string1);
+    }
+
+    /**
+     * Returns the canonical instance of the header name if it is well-known, otherwise returns the name itself.
+     */
+    public static String intern(final String name) {
+        if (name == null) { return null; }
+        final String internedName = _findInternedName(name, 0, name.length());
+        return (internedName != null ? internedName : name);
+    }
+
+    /**
+     * Returns the canonical header name for the region of the string, without copying the region if the name is well-known.
+     */
+    public static String intern(final String string, final int startIndex, final int endIndex) {
+        final String internedName = _findInternedName(string, startIndex, endIndex);
+        return (internedName != null ? internedName : string.substring(startIndex, endIndex));
+    }
+
+    protected static String _findInternedName(final String string, final int startIndex, final int endIndex) {
+        int index = (_hashIgnoreAsciiCase(string, startIndex, endIndex) & (INTERN_TABLE_SIZE - 1));
+        while (true) {
+            final String name = INTERN_TABLE[index];
+            if (name == null) { return null; }
+            if (_regionEqualsIgnoreAsciiCase(string, startIndex, endIndex, name)) { return name; }
+            index = ((index + 1) & (INTERN_TABLE_SIZE - 1));
+        }
+    }
+
+    /**
+     * Returns a copy of the headers.
+     */
+    public static HttpHeaders copyOf(final Map<String, List<String>> headers) {
+        if (headers instanceof HttpHeaders) {
+            return new HttpHeaders((HttpHeaders) headers, false);
+        }
+
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+            for (final String value : header.getValue()) {
+                httpHeaders.add(header.getKey(), value);
+            }
+        }
+        return httpHeaders;
+    }
+
+    protected String[] _namesAndValues;
+    protected int _count = 0;
+    protected final Boolean _isReadOnly;
+    protected Set<Map.Entry<String, List<String>>> _entrySet;
+
+    protected HttpHeaders(final HttpHeaders httpHeaders, final Boolean isReadOnly) {
+        _namesAndValues = new String[Math.max(16, httpHeaders._count * 2)];
+        System.arraycopy(httpHeaders._namesAndValues, 0, _namesAndValues, 0, httpHeaders._count * 2);
+        _count = httpHeaders._count;
+        _isReadOnly = isReadOnly;
+    }
+
+    protected void _assertIsWritable() {
+        if (_isReadOnly) {
+            throw new UnsupportedOperationException("Headers are read-only.");
+        }
+    }
+
+    protected int _indexOf(final String name, final int startIndex) {
+        for (int i = startIndex; i < _count; ++i) {
+            if (HttpHeaders.equalsIgnoreCase(_namesAndValues[i * 2], name)) { return i; }
+        }
+        return -1;
+    }
+
+    protected void _removeAt(final int index) {
+        final int tailLength = ((_count - index - 1) * 2);
+        if (tailLength > 0) {
+            System.arraycopy(_namesAndValues, (index + 1) * 2, _namesAndValues, index * 2, tailLength);
+        }
+        _count -= 1;
+        _namesAndValues[_count * 2] = null;
+        _namesAndValues[(_count * 2) + 1] = null;
+    }
+
+    protected Boolean _removeAll(final String name) {
+        boolean wasRemoved = false;
+        int index = _indexOf(name, 0);
+        while (index >= 0) {
+            _removeAt(index);
+            wasRemoved = true;
+            index = _indexOf(name, index);
+        }
+        return wasRemoved;
+    }
+
+    public HttpHeaders() {
+        this(16);
+    }
+
+    public HttpHeaders(final Integer initialCapacity) {
+        _namesAndValues = new String[Math.max(2, initialCapacity * 2)];
+        _isReadOnly = false;
+    }
+
+    /**
+     * Appends the header, retaining any existing headers with the same name.
+     *  The name is stored as spelled by the caller; lookups are case-insensitive regardless.
+     */
+    public void add(final String name, final String value) {
+        _assertIsWritable();
+        if ((_count * 2) == _namesAndValues.length) {
+            final String[] namesAndValues = new String[_namesAndValues.length * 2];
+            System.arraycopy(_namesAndValues, 0, namesAndValues, 0, _namesAndValues.length);
+            _namesAndValues = namesAndValues;
+        }
+        final String internedName = HttpHeaders.intern(name);
+        _namesAndValues[_count * 2] = ( ((internedName != null) && internedName.equals(name)) ? internedName : name );
+        _namesAndValues[(_count * 2) + 1] = value;
+        _count += 1;
+    }
+
+    /**
+     * Sets the header, replacing any existing headers with the same name.
+     */
+    public void set(final String name, final String value) {
+        _assertIsWritable();
+        _removeAll(name);
+        add(name, value);
+    }
+
+    /**
+     * Returns the first value of the header, or null if the header is not present.
+     */
+    public String getValue(final String name) {
+        final int index = _indexOf(name, 0);
+        return (index >= 0 ? _namesAndValues[(index * 2) + 1] : null);
+    }
+
+    /**
+     * Returns every value of the header, in the order they were added, or an empty list if the header is not present.
+     */
+    public List<String> getValues(final String name) {
+        int index = _indexOf(name, 0);
+        if (index < 0) { return Collections.emptyList(); }
+
+        final List<String> values = new ArrayList<String>(1);
+        while (index >= 0) {
+            values.add(_namesAndValues[(index * 2) + 1]);
+            index = _indexOf(name, index + 1);
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    public Boolean contains(final String name) {
+        return (_indexOf(name, 0) >= 0);
+    }
+
+    /**
+     * Returns true if any value of the header equals the value, ignoring case.
+     */
+    public Boolean containsValue(final String name, final String value) {
+        int index = _indexOf(name, 0);
+        while (index >= 0) {
+            if (HttpHeaders.equalsIgnoreCase(_namesAndValues[(index * 2) + 1], value)) { return true; }
+            index = _indexOf(name, index + 1);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of name/value pairs, counting each value of a repeated header.
+     */
+    public Integer getCount() {
+        return _count;
+    }
+
+    public String getNameAt(final Integer index) {
+        if ( (index < 0) || (index >= _count) ) { throw new IndexOutOfBoundsException(String.valueOf(index)); }
+        return _namesAndValues[index * 2];
+    }
+
+    public String getValueAt(final Integer index) {
+        if ( (index < 0) || (index >= _count) ) { throw new IndexOutOfBoundsException(String.valueOf(index)); }
+        return _namesAndValues[(index * 2) + 1];
+    }
+
+    /**
+     * Returns a read-only copy of the headers.
+     */
+    public HttpHeaders asReadOnly() {
+        if (_isReadOnly) { return this; }
+        return new HttpHeaders(this, true);
+    }
+
+    public Boolean isReadOnly() {
+        return _isReadOnly;
+    }
+
+    @Override
+    public int size() {
+        int distinctNameCount = 0;
+        for (int i = 0; i < _count; ++i) {
+            if (_indexOf(_namesAndValues[i * 2], 0) == i) {
+                distinctNameCount += 1;
+            }
+        }
+        return distinctNameCount;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (_count == 0);
+    }
+
+    @Override
+    public boolean containsKey(final Object name) {
+        if (! (name instanceof String)) { return false; }
+        return (_indexOf((String) name, 0) >= 0);
+    }
+
+    @Override
+    public List<String> get(final Object name) {
+        if (! (name instanceof String)) { return null; }
+        if (_indexOf((String) name, 0) < 0) { return null; }
+        return getValues((String) name);
+    }
+
+    @Override
+    public List<String> put(final String name, final List<String> values) {
+        _assertIsWritable();
+        final List<String> previousValues = get(name);
+        _removeAll(name);
+        for (final String value : values) {
+            add(name, value);
+        }
+        return previousValues;
+    }
+
+    @Override
+    public List<String> remove(final Object name) {
+        if (! (name instanceof String)) { return null; }
+        _assertIsWritable();
+        final List<String> previousValues = get(name);
+        _removeAll((String) name);
+        return previousValues;
+    }
+
+    @Override
+    public void clear() {
+        _assertIsWritable();
+        for (int i = 0; i < (_count * 2); ++i) {
+            _namesAndValues[i] = null;
+        }
+        _count = 0;
+    }
+
+    /**
+     * Returns each distinct header name, with its values, in the order the names were first added.
+     */
+    @Override
+    public Set<Map.Entry<String, List<String>>> entrySet() {
+        if (_entrySet == null) {
+            _entrySet = new AbstractSet<Map.Entry<String, List<String>>>() {
+                @Override
+                public Iterator<Map.Entry<String, List<String>>> iterator() {
+                    return new Iterator<Map.Entry<String, List<String>>>() {
+                        protected int _nextIndex = _findNextDistinctIndex(0);
+                        protected int _lastIndex = -1;
+
+                        protected int _findNextDistinctIndex(final int startIndex) {
+                            for (int i = startIndex; i < _count; ++i) {
+                                if (_indexOf(_namesAndValues[i * 2], 0) == i) { return i; }
+                            }
+                            return -1;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return (_nextIndex >= 0);
+                        }
+
+                        @Override
+                        public Map.Entry<String, List<String>> next() {
+                            if (_nextIndex < 0) { throw new NoSuchElementException(); }
+
+                            final String name = _namesAndValues[_nextIndex * 2];
+                            _lastIndex = _nextIndex;
+                            _nextIndex = _findNextDistinctIndex(_nextIndex + 1);
+                            return new AbstractMap.SimpleImmutableEntry<String, List<String>>(name, getValues(name));
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (_lastIndex < 0) { throw new IllegalStateException(); }
+                            _assertIsWritable();
+
+                            // NOTE: Every occurrence of the name is at or after its first index, so the headers before _lastIndex are unaffected.
+                            _removeAll(_namesAndValues[_lastIndex * 2]);
+                            _nextIndex = _findNextDistinctIndex(_lastIndex);
+                            _lastIndex = -1;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return HttpHeaders.this.size();
+                }
+            };
+        }
+        return _entrySet;
+    }
+}
@@ -3,33 +3,52 @@ package com.softwareverde.http;
 import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
 import com.softwareverde.cryptography.util.HashUtil;
+import com.softwareverde.http.breaker.CircuitBreakerRegistry;
+import com.softwareverde.http.cache.HttpCache;
+import com.softwareverde.http.coalesce.RequestCoalescer;
+import com.softwareverde.http.connection.DeflaterPool;
+import com.softwareverde.http.connection.HttpConnectionPool;
+import com.softwareverde.http.connection.InflaterPool;
+import com.softwareverde.http.dns.DnsResolver;
+import com.softwareverde.http.hedge.HedgePolicy;
+import com.softwareverde.http.http2.Http2Mode;
+import com.softwareverde.http.intercept.Interceptor;
+import com.softwareverde.http.intercept.NetworkInterceptor;
+import com.softwareverde.http.limit.ConcurrencyLimiter;
+import com.softwareverde.http.metrics.HttpClientMetrics;
+import com.softwareverde.http.retry.RetryPolicy;
+import com.softwareverde.http.timer.TimerWheel;
+import com.softwareverde.http.trace.TraceContext;
+import com.softwareverde.http.trace.Tracer;
 import com.softwareverde.http.websocket.ConnectionLayer;
 import com.softwareverde.http.websocket.WebSocket;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.util.Base64Util;
-import com.softwareverde.util.Container;
 import com.softwareverde.util.StringUtil;
 import com.softwareverde.util.Util;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLSession;
-import javax.net.ssl.X509ExtendedTrustManager;
 import java.net.Socket;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.zip.Deflater;
 
 public class HttpRequest {
-    static {
-        // Allow for HttpUrlConnection to set non-trivial headers (required for WebSockets).
-        System.setProperty("sun.net.http.allowRestrictedHeaders", "true");
-    }
-
     public static final String SEC_WEB_SOCKET_KEY = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    public static final Long DEFAULT_REQUEST_COMPRESSION_THRESHOLD = 1024L;
+    public static final Long DEFAULT_CONNECT_TIMEOUT = 30000L;
+
+    protected static final WebSocketFactory DEFAULT_WEB_SOCKET_FACTORY = new DefaultWebSocketFactory();
 
     public interface Callback {
         void run(HttpResponse response);
@@ -39,6 +58,90 @@ public class HttpRequest {
         WebSocket newWebSocket(Socket socket);
     }
 
+    /**
+     * The future returned when the request is executed through application interceptors (see HttpRequest::setInterceptors).
+     *  Cancelling the future cancels each execution the interceptors proceeded with.
+     */
+    protected static class InterceptedResponseFuture extends CompletableFuture<HttpResponse> {
+        protected final List<HttpResponseFuture> _responseFutures = new ArrayList<HttpResponseFuture>(1);
+
+        protected void addResponseFuture(final HttpResponseFuture responseFuture) {
+            synchronized (_responseFutures) {
+                _responseFutures.add(responseFuture);
+            }
+
+            if (isCancelled()) {
+                responseFuture.cancel(true);
+            }
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean wasCancelled = super.cancel(mayInterruptIfRunning);
+
+            final List<HttpResponseFuture> responseFutures;
+            synchronized (_responseFutures) {
+                responseFutures = new ArrayList<HttpResponseFuture>(_responseFutures);
+            }
+            for (final HttpResponseFuture responseFuture : responseFutures) {
+                responseFuture.cancel(mayInterruptIfRunning);
+            }
+            return wasCancelled;
+        }
+    }
+
+    protected static class InterceptorChain implements Interceptor.Chain {
+        protected final List<Interceptor> _interceptors;
+        protected final Integer _index;
+        protected final HttpRequest _httpRequest;
+        protected final Boolean _runOnCallingThread;
+        protected final InterceptedResponseFuture _interceptedResponseFuture;
+
+        public InterceptorChain(final List<Interceptor> interceptors, final Integer index, final HttpRequest httpRequest, final Boolean runOnCallingThread, final InterceptedResponseFuture interceptedResponseFuture) {
+            _interceptors = interceptors;
+            _index = index;
+            _httpRequest = httpRequest;
+            _runOnCallingThread = runOnCallingThread;
+            _interceptedResponseFuture = interceptedResponseFuture;
+        }
+
+        @Override
+        public HttpRequest getRequest() {
+            return _httpRequest;
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse> proceed(final HttpRequest httpRequest) {
+            if (_index >= _interceptors.size()) {
+                if (httpRequest != _httpRequest) {
+                    httpRequest._preExecute();
+                }
+
+                final HttpResponseFuture responseFuture = httpRequest._execute(_runOnCallingThread);
+                _interceptedResponseFuture.addResponseFuture(responseFuture);
+                return responseFuture;
+            }
+
+            final Interceptor interceptor = _interceptors.get(_index);
+            final CompletableFuture<HttpResponse> responseFuture;
+            try {
+                responseFuture = interceptor.intercept(new InterceptorChain(_interceptors, (_index + 1), httpRequest, _runOnCallingThread, _interceptedResponseFuture));
+            }
+            catch (final RuntimeException exception) {
+                final CompletableFuture<HttpResponse> failedFuture = new CompletableFuture<HttpResponse>();
+                failedFuture.completeExceptionally(exception);
+                return failedFuture;
+            }
+
+            if (responseFuture == null) {
+                final CompletableFuture<HttpResponse> failedFuture = new CompletableFuture<HttpResponse>();
+                failedFuture.completeExceptionally(new IllegalStateException("Interceptor returned null: " + interceptor.getClass().getName()));
+                return failedFuture;
+            }
+            return responseFuture;
+        }
+    }
+
     public static class DefaultWebSocketFactory implements WebSocketFactory {
         private static final AtomicLong NEXT_WEB_SOCKET_ID = new AtomicLong(1L);
 
@@ -49,18 +152,156 @@ public class HttpRequest {
         }
     }
 
-    protected static final HostnameVerifier NAIVE_HOSTNAME_VERIFIER = new HostnameVerifier() {
+    /**
+     * The future returned by HttpRequest::executeAsync.
+     *  Cancelling the future cancels the in-flight execution (including any redirect being followed, retry, or hedge).
+     *  NOTE: Cancelling a dependent stage (e.g. the result of thenApply) does not cancel the request.
+     */
+    protected static class HttpResponseFuture extends CompletableFuture<HttpResponse> {
+        protected final List<HttpRequestExecutionThread> _executionThreads = new ArrayList<HttpRequestExecutionThread>(1); // The current thread of each attempt (i.e. the original attempt and any hedge).
+        protected volatile TimerWheel.Timeout _deadlineTimeout;
+        protected volatile DeadlineExceededException _deadlineException;
+        protected volatile Integer _attemptCount = 1;
+        protected final Long _queuedAt = System.nanoTime();
+        protected volatile HttpClientMetrics.RequestTracker _requestTracker;
+        protected volatile TraceContext _parentTraceContext;
+        protected volatile Boolean _isFailureShared = true;
+
+        protected List<HttpRequestExecutionThread> _getExecutionThreads() {
+            synchronized (_executionThreads) {
+                return new ArrayList<HttpRequestExecutionThread>(_executionThreads);
+            }
+        }
+
+        protected void _onExecutionThreadAdded(final HttpRequestExecutionThread executionThread) {
+            if (isCancelled()) {
+                executionThread.cancel();
+            }
+
+            final DeadlineExceededException deadlineException = _deadlineException;
+            if (deadlineException != null) {
+                executionThread.abort(deadlineException);
+            }
+        }
+
+        /**
+         * Adds an independent attempt of the request (i.e. the original attempt, or a hedge).
+         */
+        protected void addExecutionThread(final HttpRequestExecutionThread executionThread) {
+            synchronized (_executionThreads) {
+                _executionThreads.add(executionThread);
+            }
+            _onExecutionThreadAdded(executionThread);
+        }
+
+        /**
+         * Replaces the thread of an attempt that continues on another thread (i.e. a redirect or a retry).
+         */
+        protected void replaceExecutionThread(final HttpRequestExecutionThread previousExecutionThread, final HttpRequestExecutionThread executionThread) {
+            synchronized (_executionThreads) {
+                final int index = _executionThreads.indexOf(previousExecutionThread);
+                if (index >= 0) {
+                    _executionThreads.set(index, executionThread);
+                }
+                else {
+                    _executionThreads.add(executionThread);
+                }
+            }
+            _onExecutionThreadAdded(executionThread);
+        }
+
+        /**
+         * Invoked when an attempt fails (and is not retried).
+         *  Returns true if no other attempt is pending, in which case the future should be completed with the attempt's failure.
+         */
+        protected Boolean onAttemptFailed(final HttpRequestExecutionThread executionThread) {
+            synchronized (_executionThreads) {
+                _executionThreads.remove(executionThread);
+                return _executionThreads.isEmpty();
+            }
+        }
+
+        /**
+         * Cancels every attempt other than the attempt that completed the future.
+         */
+        protected void cancelOtherAttempts(final HttpRequestExecutionThread winningExecutionThread) {
+            for (final HttpRequestExecutionThread executionThread : _getExecutionThreads()) {
+                if (executionThread != winningExecutionThread) {
+                    executionThread.cancel();
+                }
+            }
+        }
+
+        /**
+         * Fails the future with a DeadlineExceededException if the request (including redirects and reading a streamed body) is not complete within the deadline.
+         */
+        protected void scheduleDeadline(final TimerWheel timerWheel, final Long deadline, final String url) {
+            _deadlineTimeout = timerWheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    final DeadlineExceededException deadlineException = new DeadlineExceededException("Request to " + url + " did not complete within " + deadline + "ms.");
+                    _deadlineException = deadlineException;
+                    completeWithRequestFailure(deadlineException);
+
+                    for (final HttpRequestExecutionThread executionThread : _getExecutionThreads()) {
+                        executionThread.abort(deadlineException);
+                    }
+                }
+            }, deadline);
+        }
+
+        /**
+         * Fails the future with a failure of the request itself (e.g. its deadline, or one of its NetworkInterceptors) rather than an outcome of the network;
+         *  requests coalesced with the request do not share the failure (see HttpRequest::_coalesceRequest).
+         */
+        protected void completeWithRequestFailure(final Throwable failure) {
+            _isFailureShared = false;
+            completeExceptionally(failure);
+        }
+
+        /**
+         * Returns false if the future failed with a failure of the request itself (see HttpResponseFuture::completeWithRequestFailure).
+         */
+        protected Boolean isFailureShared() {
+            return _isFailureShared;
+        }
+
+        protected void cancelDeadline() {
+            final TimerWheel.Timeout deadlineTimeout = _deadlineTimeout;
+            if (deadlineTimeout != null) {
+                deadlineTimeout.cancel();
+            }
+        }
+
+        public boolean isExecuting() {
+            for (final HttpRequestExecutionThread executionThread : _getExecutionThreads()) {
+                if (executionThread.isExecuting()) { return true; }
+            }
+            return false;
+        }
+
         @Override
-        public boolean verify(final String hostname, final SSLSession sslSession) { return true; }
-    };
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean wasCancelled = super.cancel(mayInterruptIfRunning);
+            cancelDeadline();
+
+            for (final HttpRequestExecutionThread executionThread : _getExecutionThreads()) {
+                executionThread.cancel();
+            }
 
-    protected static final X509ExtendedTrustManager NAIVE_TRUST_MANAGER = new NaiveTrustManager();
+            return wasCancelled;
+        }
+    }
 
     public static boolean containsHeaderValue(final String key, final String value, final Map<String, List<String>> headers) {
-        for (final String headerKey : headers.keySet()) {
-            if (Util.areEqual(Util.coalesce(key).toLowerCase(), Util.coalesce(headerKey).toLowerCase())) {
-                for (final String headerValue : headers.get(headerKey)) {
-                    if (Util.areEqual(Util.coalesce(value).toLowerCase(), Util.coalesce(headerValue).toLowerCase())) {
+        if (headers instanceof HttpHeaders) {
+            return ((HttpHeaders) headers).containsValue(Util.coalesce(key), Util.coalesce(value));
+        }
+
+        for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (HttpHeaders.equalsIgnoreCase(Util.coalesce(key), Util.coalesce(header.getKey()))) {
+                for (final String headerValue : header.getValue()) {
+                    if (HttpHeaders.equalsIgnoreCase(Util.coalesce(value), Util.coalesce(headerValue))) {
                         return true;
                     }
                 }
@@ -74,9 +315,13 @@ public class HttpRequest {
     }
 
     public static String getHeaderValue(final String key, final Map<String, List<String>> headers) {
-        for (final String headerKey : headers.keySet()) {
-            if (Util.areEqual(Util.coalesce(key).toLowerCase(), Util.coalesce(headerKey).toLowerCase())) {
-                final List<String> headerValues = headers.get(headerKey);
+        if (headers instanceof HttpHeaders) {
+            return ((HttpHeaders) headers).getValue(Util.coalesce(key));
+        }
+
+        for (final Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (HttpHeaders.equalsIgnoreCase(Util.coalesce(key), Util.coalesce(header.getKey()))) {
+                final List<String> headerValues = header.getValue();
                 if (headerValues.isEmpty()) { continue; }
                 return headerValues.get(0);
             }
@@ -112,19 +357,462 @@ public class HttpRequest {
 
     protected HttpMethod _method = HttpMethod.GET;
     protected final List<String> _cookies = new LinkedList<String>();
-    protected final Map<String, String> _headers = new HashMap<String, String>();
+    protected final HttpHeaders _headers = new HttpHeaders(); // NOTE: Formerly a Map<String, String>; subclasses should use HttpHeaders::set where they used Map::put.
 
     protected ByteArray _postData = new MutableByteArray(0);
+    protected RequestBody _requestBody = null;
     protected String _queryString = "";
 
     protected Boolean _followsRedirects = false;
     protected Integer _maxRedirectCount = 10;
     protected Boolean _validateSslCertificates = true;
 
+    protected Boolean _pipeliningEnabled = false;
+    protected Boolean _streamsResponseBody = false;
+    protected Boolean _acceptsCompressedResponses = true;
+    protected Boolean _decodesCompressedResponses = true;
+    protected InflaterPool _inflaterPool = null;
+    protected Boolean _compressesRequestBody = false;
+    protected Long _requestCompressionThreshold = DEFAULT_REQUEST_COMPRESSION_THRESHOLD;
+    protected Integer _requestCompressionLevel = Deflater.DEFAULT_COMPRESSION;
+    protected DeflaterPool _deflaterPool = null;
+    protected ResponseBodyFile _responseBodyFile = null;
+    protected Http2Mode _http2Mode = Http2Mode.NEGOTIATE;
+
     protected Boolean _allowWebSocketUpgrade = false;
-    protected WebSocketFactory _webSocketFactory = new DefaultWebSocketFactory();
+    protected WebSocketFactory _webSocketFactory = DEFAULT_WEB_SOCKET_FACTORY;
+
+    protected HttpClientEngine _engine = null;
+    protected HttpConnectionPool _connectionPool = null;
+    protected DnsResolver _dnsResolver = null;
+    protected TimerWheel _timerWheel = null;
+    protected Long _connectTimeout = null;
+    protected Long _readTimeout = null;
+    protected Long _deadline = null;
+    protected ConcurrencyLimiter _concurrencyLimiter = null;
+    protected RetryPolicy _retryPolicy = null;
+    protected HedgePolicy _hedgePolicy = null;
+    protected CircuitBreakerRegistry _circuitBreakerRegistry = null;
+    protected HttpCache _httpCache = null;
+    protected RequestCoalescer _requestCoalescer = null;
+    protected HttpEventListener _eventListener = null;
+    protected HttpClientMetrics _metrics = null;
+    protected Tracer _tracer = null;
+    protected List<Interceptor> _interceptors = null;
+    protected List<NetworkInterceptor> _networkInterceptors = null;
+
+    protected final Set<HttpResponseFuture> _inFlightResponseFutures = new HashSet<HttpResponseFuture>(1); // The futures of the request's executions that have not yet completed.
+
+    /**
+     * Invoked before each execution of the request.
+     */
+    protected void _preExecute() { }
+
+    /**
+     * Executes the request through its application interceptors, if any.
+     */
+    protected CompletableFuture<HttpResponse> _intercept(final Boolean runOnCallingThread) {
+        final List<Interceptor> interceptors = getInterceptors();
+        if (interceptors.isEmpty()) {
+            return _execute(runOnCallingThread);
+        }
 
-    protected HttpRequestExecutionThread _executionThread;
+        final InterceptedResponseFuture interceptedResponseFuture = new InterceptedResponseFuture();
+        final InterceptorChain interceptorChain = new InterceptorChain(interceptors, 0, this, runOnCallingThread, interceptedResponseFuture);
+        interceptorChain.proceed(this).whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(final HttpResponse httpResponse, final Throwable exception) {
+                if (exception != null) {
+                    interceptedResponseFuture.completeExceptionally(exception);
+                }
+                else {
+                    interceptedResponseFuture.complete(httpResponse);
+                }
+            }
+        });
+        return interceptedResponseFuture;
+    }
+
+    protected HttpResponseFuture _execute(final Boolean runOnCallingThread) {
+        final HttpResponseFuture responseFuture = new HttpResponseFuture();
+        synchronized (_inFlightResponseFutures) {
+            _inFlightResponseFutures.add(responseFuture);
+        }
+        responseFuture.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(final HttpResponse httpResponse, final Throwable exception) {
+                synchronized (_inFlightResponseFutures) {
+                    _inFlightResponseFutures.remove(responseFuture);
+                }
+            }
+        });
+
+        final HttpEventListener eventListener = getEventListener();
+        if (eventListener != null) {
+            eventListener.onQueued(this, responseFuture._queuedAt);
+        }
+
+        final Tracer tracer = getTracer();
+        if (tracer != null) {
+            responseFuture._parentTraceContext = tracer.getCurrentContext();
+        }
+
+        final HttpClientMetrics metrics = getMetrics();
+        if (metrics != null) {
+            final HttpClientMetrics.RequestTracker requestTracker = metrics.onRequestQueued(getMethod(), _url);
+            responseFuture._requestTracker = requestTracker;
+            responseFuture.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+                @Override
+                public void accept(final HttpResponse httpResponse, final Throwable exception) {
+                    requestTracker.onComplete(httpResponse, exception);
+                }
+            });
+        }
+
+        final Long deadline = getDeadline();
+        if (deadline != null) {
+            responseFuture.scheduleDeadline(getTimerWheel(), deadline, _url);
+        }
+
+        final RequestCoalescer requestCoalescer = (_isCoalescable() ? getRequestCoalescer() : null);
+        if (requestCoalescer != null) {
+            _coalesceRequest(requestCoalescer, responseFuture, runOnCallingThread);
+            return responseFuture;
+        }
+
+        _sendRequest(responseFuture, runOnCallingThread);
+        return responseFuture;
+    }
+
+    /**
+     * Sends the request unless an identical request is in flight, in which case the future is completed with that request's outcome.
+     *  Only the in-flight request's response, or the failure of its network exchange, is shared: if the in-flight request is cancelled or fails for a reason
+     *  of its own (e.g. its deadline or its saturated HttpClientEngine), the request is coalesced again
+     *  (i.e. it is sent, or it waits for another identical request sent in the meantime).
+     */
+    protected void _coalesceRequest(final RequestCoalescer requestCoalescer, final HttpResponseFuture responseFuture, final Boolean runOnCallingThread) {
+        final CompletableFuture<HttpResponse> inFlightFuture = requestCoalescer.join(_getCoalescingKey(), responseFuture);
+        if (inFlightFuture == null) {
+            _sendRequest(responseFuture, runOnCallingThread);
+            return;
+        }
+
+        inFlightFuture.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(final HttpResponse httpResponse, final Throwable throwable) {
+                if (responseFuture.isDone()) { return; } // The request was cancelled, or its deadline elapsed.
+
+                if (throwable == null) {
+                    responseFuture.cancelDeadline();
+                    responseFuture.complete(httpResponse != null ? new HttpResponse(httpResponse) : null);
+                }
+                else if ( (throwable instanceof CancellationException) || ( (inFlightFuture instanceof HttpResponseFuture) && (! ((HttpResponseFuture) inFlightFuture).isFailureShared()) ) ) {
+                    _coalesceRequest(requestCoalescer, responseFuture, false);
+                }
+                else {
+                    responseFuture.cancelDeadline();
+                    responseFuture.completeExceptionally(throwable);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns true if the request may be coalesced with identical requests (see HttpRequest::setRequestCoalescer).
+     */
+    protected Boolean _isCoalescable() {
+        if (_allowWebSocketUpgrade || _url.startsWith("ws")) { return false; }
+        if (_streamsResponseBody || (getResponseBodyFile() != null)) { return false; }
+        if (! getNetworkInterceptors().isEmpty()) { return false; } // NOTE: NetworkInterceptors may rewrite the exchange, so the coalescing key would not identify the response.
+
+        final HttpMethod method = getMethod();
+        return ( (method == HttpMethod.GET) || (method == HttpMethod.HEAD) );
+    }
+
+    /**
+     * Returns a key identifying everything about the request that may affect its response.
+     */
+    protected String _getCoalescingKey() {
+        final StringBuilder key = new StringBuilder();
+        key.append(getMethod());
+        key.append(' ');
+        key.append(_url);
+        key.append('?');
+        key.append(_queryString);
+
+        final Map<String, String> headers = new TreeMap<String, String>();
+        final Integer headerCount = _headers.getCount();
+        for (int i = 0; i < headerCount; ++i) {
+            final String name = _headers.getNameAt(i).toLowerCase();
+            if (name.equals("origin")) { continue; } // NOTE: Set by the execution thread, from the url.
+            headers.put(name, _headers.getValueAt(i));
+        }
+        for (final Map.Entry<String, String> header : headers.entrySet()) {
+            key.append('\n');
+            key.append(header.getKey());
+            key.append(": ");
+            key.append(header.getValue());
+        }
+
+        for (final String cookie : _cookies) {
+            key.append("\ncookie: ");
+            key.append(cookie);
+        }
+
+        key.append('\n');
+        key.append(_acceptsCompressedResponses);
+        key.append(_decodesCompressedResponses);
+        key.append(_validateSslCertificates);
+        key.append(_followsRedirects);
+        key.append(_maxRedirectCount);
+        return key.toString();
+    }
+
+    /**
+     * Sends the request, subject to its ConcurrencyLimiter, and completes the future with its outcome.
+     */
+    protected void _sendRequest(final HttpResponseFuture responseFuture, final Boolean runOnCallingThread) {
+        final HttpRequestExecutionThread executionThread = new HttpRequestExecutionThread(_url, this, responseFuture, 0);
+        responseFuture.addExecutionThread(executionThread);
+
+        final RetryPolicy retryPolicy = getRetryPolicy();
+        if (retryPolicy != null) {
+            retryPolicy.getRetryBudget().onRequest();
+        }
+
+        final HedgePolicy hedgePolicy = (_isHedgeable() ? getHedgePolicy() : null);
+        if (hedgePolicy != null) {
+            hedgePolicy.onRequest();
+
+            final long startTime = System.nanoTime();
+            responseFuture.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+                @Override
+                public void accept(final HttpResponse httpResponse, final Throwable throwable) {
+                    if (throwable != null) { return; }
+                    hedgePolicy.recordLatency((System.nanoTime() - startTime) / 1000000L);
+                }
+            });
+        }
+
+        _startAttempt(executionThread, responseFuture, hedgePolicy, runOnCallingThread);
+    }
+
+    /**
+     * Invoked once an attempt of the request completes with either a response or an exception.
+     *  If the request's RetryPolicy permits, another attempt is scheduled (via the request's TimerWheel) and true is returned,
+     *  in which case the attempt's outcome is discarded.
+     */
+    protected Boolean _retryIfNecessary(final HttpResponseFuture responseFuture, final HttpRequestExecutionThread failedExecutionThread, final HttpResponse httpResponse, final Throwable exception) {
+        final RetryPolicy retryPolicy = getRetryPolicy();
+        if (retryPolicy == null) { return false; }
+        if (responseFuture.isDone()) { return false; } // The request was cancelled, or its deadline elapsed.
+
+        final Integer attemptCount = responseFuture._attemptCount;
+        if (attemptCount >= retryPolicy.getMaxAttemptCount()) { return false; }
+
+        final HttpMethod method = getMethod();
+        final boolean isIdempotent = HttpRequestExecutionThread._isIdempotent(method);
+        final RequestBody requestBody = (HttpRequestExecutionThread._hasRequestBody(method) ? getRequestBody() : null);
+        if ( (requestBody != null) && (! requestBody.isRepeatable()) ) { return false; }
+
+        final Long delay;
+        if (httpResponse != null) {
+            if (! retryPolicy.isRetryableStatusCode(httpResponse.getResponseCode())) { return false; }
+            if (! (isIdempotent || retryPolicy.retriesNonIdempotentRequests())) { return false; }
+
+            final Long retryAfter = retryPolicy.getRetryAfter(httpResponse.getHeaders());
+            if ( (retryAfter != null) && (retryAfter > retryPolicy.getMaxRetryAfter()) ) { return false; }
+            delay = (retryAfter != null ? retryAfter : retryPolicy.getBackoff(attemptCount));
+        }
+        else {
+            if (! retryPolicy.isRetryableException(exception, isIdempotent)) { return false; }
+            delay = retryPolicy.getBackoff(attemptCount);
+        }
+
+        if (! retryPolicy.getRetryBudget().tryAcquireRetry()) {
+            Logger.debug("Retry budget exhausted; not retrying request to " + _url + ".");
+            return false;
+        }
+
+        responseFuture._attemptCount = (attemptCount + 1);
+        Logger.debug("Retrying request to " + _url + " in " + delay + "ms.", exception);
+
+        getTimerWheel().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (responseFuture.isDone()) { return; }
+
+                final HttpRequestExecutionThread executionThread = new HttpRequestExecutionThread(_url, HttpRequest.this, responseFuture, 0);
+                executionThread.setIsHedge(failedExecutionThread.isHedge());
+                responseFuture.replaceExecutionThread(failedExecutionThread, executionThread);
+                _startAttempt(executionThread, responseFuture, null, false);
+            }
+        }, delay);
+        return true;
+    }
+
+    /**
+     * Returns true if the request may be hedged: its method must be idempotent, its body (if any) must be repeatable,
+     *  and it must not upgrade to a WebSocket or write its response to a ResponseBodyFile.
+     */
+    protected Boolean _isHedgeable() {
+        if (_allowWebSocketUpgrade || _url.startsWith("ws")) { return false; }
+        if (getResponseBodyFile() != null) { return false; }
+
+        final HttpMethod method = getMethod();
+        if (! HttpRequestExecutionThread._isIdempotent(method)) { return false; }
+
+        final RequestBody requestBody = (HttpRequestExecutionThread._hasRequestBody(method) ? getRequestBody() : null);
+        return ( (requestBody == null) || requestBody.isRepeatable() );
+    }
+
+    /**
+     * Dispatches an attempt of the request (i.e. the original attempt, a retry, or a hedge) once the request's ConcurrencyLimiter, if any, grants it a permit.
+     *  Each attempt holds its own permit until the attempt completes, so a retry does not hold a permit while it backs off,
+     *  a hedge does not share its original attempt's permit, and the limiter samples the latency of each attempt.
+     *  If hedgePolicy is provided, the attempt's hedge is scheduled once the attempt is dispatched.
+     */
+    protected void _startAttempt(final HttpRequestExecutionThread executionThread, final HttpResponseFuture responseFuture, final HedgePolicy hedgePolicy, final Boolean runOnCallingThread) {
+        final CompletableFuture<HttpResponse> attemptFuture = new CompletableFuture<HttpResponse>();
+        executionThread.setAttemptFuture(attemptFuture);
+
+        final Runnable dispatchAttempt = new Runnable() {
+            @Override
+            public void run() {
+                if (responseFuture.isDone()) {
+                    attemptFuture.cancel(false);
+                    return;
+                }
+
+                if (hedgePolicy != null) {
+                    _scheduleHedge(responseFuture, hedgePolicy);
+                }
+                _dispatch(executionThread, responseFuture, runOnCallingThread);
+            }
+        };
+
+        final ConcurrencyLimiter concurrencyLimiter = getConcurrencyLimiter();
+        if (concurrencyLimiter == null) {
+            dispatchAttempt.run();
+            return;
+        }
+
+        // An attempt still waiting for its permit when the request completes (e.g. it is cancelled, or its deadline elapses) leaves the queue.
+        responseFuture.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(final HttpResponse httpResponse, final Throwable throwable) {
+                if (! executionThread.isDispatched()) {
+                    attemptFuture.cancel(false);
+                }
+            }
+        });
+
+        final String origin = ConcurrencyLimiter.getOrigin(_url);
+        if (runOnCallingThread) {
+            final CompletableFuture<Void> permitFuture = new CompletableFuture<Void>();
+            try {
+                concurrencyLimiter.acquire(origin, attemptFuture, new Runnable() {
+                    @Override
+                    public void run() {
+                        permitFuture.complete(null);
+                    }
+                });
+            }
+            catch (final RejectedExecutionException exception) {
+                Logger.debug("Unable to execute request.", exception);
+                _onAttemptRejected(executionThread, responseFuture, exception);
+                return;
+            }
+
+            // The caller also stops waiting if the permit is abandoned while queued (e.g. the request's deadline elapses).
+            attemptFuture.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+                @Override
+                public void accept(final HttpResponse httpResponse, final Throwable throwable) {
+                    permitFuture.complete(null);
+                }
+            });
+
+            permitFuture.join();
+            dispatchAttempt.run();
+            return;
+        }
+
+        try {
+            concurrencyLimiter.acquire(origin, attemptFuture, dispatchAttempt);
+        }
+        catch (final RejectedExecutionException exception) {
+            Logger.debug("Unable to execute request.", exception);
+            _onAttemptRejected(executionThread, responseFuture, exception);
+        }
+    }
+
+    /**
+     * Schedules the hedge of the request's original attempt, sent if the request has not completed within the HedgePolicy's delay.
+     */
+    protected void _scheduleHedge(final HttpResponseFuture responseFuture, final HedgePolicy hedgePolicy) {
+        getTimerWheel().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (responseFuture.isDone()) { return; }
+                if (! hedgePolicy.tryAcquireHedge()) { return; }
+
+                Logger.debug("Hedging request to " + _url + ".");
+                final HttpRequestExecutionThread hedgeExecutionThread = new HttpRequestExecutionThread(_url, HttpRequest.this, responseFuture, 0);
+                hedgeExecutionThread.setIsHedge(true);
+                responseFuture.addExecutionThread(hedgeExecutionThread);
+                _startAttempt(hedgeExecutionThread, responseFuture, null, false);
+            }
+        }, hedgePolicy.getHedgeDelay());
+    }
+
+    /**
+     * Invoked when an attempt could not be dispatched; the request fails unless another attempt (i.e. a hedge) is pending.
+     */
+    protected void _onAttemptRejected(final HttpRequestExecutionThread executionThread, final HttpResponseFuture responseFuture, final RejectedExecutionException exception) {
+        final CompletableFuture<HttpResponse> attemptFuture = executionThread.getAttemptFuture();
+        if (attemptFuture != null) {
+            attemptFuture.cancel(false); // NOTE: The attempt was never sent, so it is not sampled by the ConcurrencyLimiter.
+        }
+
+        if (responseFuture.onAttemptFailed(executionThread)) {
+            responseFuture.cancelDeadline();
+            responseFuture.completeWithRequestFailure(exception);
+        }
+    }
+
+    protected void _dispatch(final HttpRequestExecutionThread executionThread, final HttpResponseFuture responseFuture, final Boolean runOnCallingThread) {
+        executionThread.setIsDispatched(true);
+        if (runOnCallingThread) {
+            executionThread.run();
+            return;
+        }
+
+        final HttpClientEngine engine = getEngine();
+        if (TimerWheel.isTimerThread()) {
+            // Retries and hedges are dispatched by TimerWheel tasks (as are attempts granted a permit when a deadline elapses),
+            //  which must not block (nor execute the request on the timer's thread), regardless of the engine's RejectionPolicy.
+            if (! engine.tryExecute(executionThread)) {
+                final RejectedExecutionException exception = new RejectedExecutionException("HttpClientEngine is saturated.");
+                Logger.debug("Unable to execute request.", exception);
+                _onAttemptRejected(executionThread, responseFuture, exception);
+            }
+            return;
+        }
+
+        try {
+            engine.execute(executionThread);
+        }
+        catch (final RejectedExecutionException exception) {
+            Logger.debug("Unable to execute request.", exception);
+            _onAttemptRejected(executionThread, responseFuture, exception);
+        }
+    }
+
+    protected static Long _getTimeout(final Long timeout, final Long defaultTimeout) {
+        final Long value = (timeout != null ? timeout : defaultTimeout);
+        if ( (value == null) || (value <= 0L) ) { return null; }
+        return value;
+    }
 
     public HttpRequest() { }
 
@@ -144,7 +832,7 @@ public class HttpRequest {
     }
 
     public void setHeader(final String key, final String value) {
-        _headers.put(key, value);
+        _headers.set(key, value);
     }
 
     public void setFollowsRedirects(final Boolean followsRedirects) {
@@ -155,6 +843,120 @@ public class HttpRequest {
         return _followsRedirects;
     }
 
+    /**
+     * When enabled, POST, PUT, and PATCH bodies of at least the compression threshold (or of unknown length) are sent with "Content-Encoding: gzip".
+     *  The body is compressed as it is written to the connection, and is sent without a Content-Length.
+     *  Bodies are not compressed if a Content-Encoding header has been set explicitly.
+     *  The server must support compressed request bodies.
+     */
+    public void setCompressesRequestBody(final Boolean compressesRequestBody) {
+        _compressesRequestBody = compressesRequestBody;
+    }
+
+    public Boolean compressesRequestBody() {
+        return _compressesRequestBody;
+    }
+
+    /**
+     * Sets the minimum size, in bytes, of request bodies that are compressed when request compression is enabled.
+     */
+    public void setRequestCompressionThreshold(final Long requestCompressionThreshold) {
+        _requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    public Long getRequestCompressionThreshold() {
+        return _requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the compression level (0-9, or Deflater.DEFAULT_COMPRESSION) used when request compression is enabled.
+     */
+    public void setRequestCompressionLevel(final Integer requestCompressionLevel) {
+        _requestCompressionLevel = requestCompressionLevel;
+    }
+
+    public Integer getRequestCompressionLevel() {
+        return _requestCompressionLevel;
+    }
+
+    public void setDeflaterPool(final DeflaterPool deflaterPool) {
+        _deflaterPool = deflaterPool;
+    }
+
+    /**
+     * Returns the pool of Deflaters used to compress request bodies; if no pool has been set, the shared default pool is returned.
+     */
+    public DeflaterPool getDeflaterPool() {
+        final DeflaterPool deflaterPool = _deflaterPool;
+        if (deflaterPool != null) { return deflaterPool; }
+        return DeflaterPool.getDefault();
+    }
+
+    /**
+     * When enabled (the default), "Accept-Encoding: gzip, deflate" is sent with the request unless an Accept-Encoding header has been set explicitly.
+     *  Requests that download to a ResponseBodyFile never request compression, so resumed downloads remain byte-accurate.
+     */
+    public void setAcceptsCompressedResponses(final Boolean acceptsCompressedResponses) {
+        _acceptsCompressedResponses = acceptsCompressedResponses;
+    }
+
+    public Boolean acceptsCompressedResponses() {
+        return _acceptsCompressedResponses;
+    }
+
+    /**
+     * When enabled (the default), compressed responses to requests that were sent with the default Accept-Encoding are decoded as the body is read,
+     *  and the response's Content-Encoding and Content-Length headers are removed.
+     *  When disabled, the body is provided exactly as it was received (e.g. the raw gzip bytes).
+     *  Responses to requests with an explicitly set Accept-Encoding header are never decoded.
+     */
+    public void setDecodesCompressedResponses(final Boolean decodesCompressedResponses) {
+        _decodesCompressedResponses = decodesCompressedResponses;
+    }
+
+    public Boolean decodesCompressedResponses() {
+        return _decodesCompressedResponses;
+    }
+
+    public void setInflaterPool(final InflaterPool inflaterPool) {
+        _inflaterPool = inflaterPool;
+    }
+
+    /**
+     * Returns the pool of Inflaters used to decode compressed responses; if no pool has been set, the shared default pool is returned.
+     */
+    public InflaterPool getInflaterPool() {
+        final InflaterPool inflaterPool = _inflaterPool;
+        if (inflaterPool != null) { return inflaterPool; }
+        return InflaterPool.getDefault();
+    }
+
+    /**
+     * When enabled, the request completes as soon as the response's headers are received,
+     *  and the body is exposed via HttpResponse::getBodyInputStream (or HttpResponse::getBodyChannel, HttpResponse::readBody) instead of HttpResponse::getRawResult.
+     *  The body is read from the connection only as the caller consumes it, so memory use is bounded regardless of the body's size.
+     *  The caller must consume or close the body; its connection is not reused (or, for HTTP/2, its stream is not released) until then.
+     */
+    public void setStreamsResponseBody(final Boolean streamsResponseBody) {
+        _streamsResponseBody = streamsResponseBody;
+    }
+
+    public Boolean streamsResponseBody() {
+        return _streamsResponseBody;
+    }
+
+    /**
+     * Writes a successful response's body to the file instead of HttpResponse::getRawResult; see ResponseBodyFile.
+     *  Unsuccessful responses are handled normally (i.e. buffered or streamed).
+     */
+    public void setResponseBodyFile(final ResponseBodyFile responseBodyFile) {
+        _responseBodyFile = responseBodyFile;
+    }
+
+    public ResponseBodyFile getResponseBodyFile() {
+        return _responseBodyFile;
+    }
+
     public void setMethod(final HttpMethod method) {
         _method = method;
     }
@@ -168,6 +970,7 @@ public class HttpRequest {
     }
 
     public void setRequestData(final ByteArray byteArray) {
+        _requestBody = null;
         if (byteArray != null) {
             _postData = byteArray.asConst();
         }
@@ -177,6 +980,7 @@ public class HttpRequest {
     }
 
     public void setRequestData(final String requestData) {
+        _requestBody = null;
         if (requestData != null) {
             _postData = MutableByteArray.wrap(StringUtil.stringToBytes(requestData));
         }
@@ -185,6 +989,49 @@ public class HttpRequest {
         }
     }
 
+    /**
+     * Sets a body that is streamed to the server as the request is sent, replacing any data set via HttpRequest::setRequestData.
+     *  Bodies without a known length are sent with chunked transfer-encoding over HTTP/1.1.
+     *  Requests with a body that is not repeatable are not resent over a new connection, and redirects that preserve the body are not followed.
+     */
+    public void setRequestBody(final RequestBody requestBody) {
+        _requestBody = requestBody;
+        _postData = new MutableByteArray(0);
+    }
+
+    /**
+     * Returns the body sent with POST, PUT, and PATCH requests.
+     */
+    public RequestBody getRequestBody() {
+        if (_requestBody != null) { return _requestBody; }
+        return RequestBody.fromByteArray(_postData);
+    }
+
+    /**
+     * When enabled, GET and HEAD requests are written to a shared HTTP/1.1 pipeline for the request's origin,
+     *  without waiting for the responses of requests written before them.
+     *  If the server closes the pipeline before responding, the request is resent over a regular pooled connection.
+     */
+    public void setPipeliningEnabled(final Boolean pipeliningEnabled) {
+        _pipeliningEnabled = pipeliningEnabled;
+    }
+
+    public Boolean isPipeliningEnabled() {
+        return _pipeliningEnabled;
+    }
+
+    /**
+     * Determines whether the request may be multiplexed over an HTTP/2 connection; by default, HTTP/2 is negotiated via ALPN for https requests.
+     *  WebSocket upgrades and pipelined requests are always sent over HTTP/1.1.
+     */
+    public void setHttp2Mode(final Http2Mode http2Mode) {
+        _http2Mode = http2Mode;
+    }
+
+    public Http2Mode getHttp2Mode() {
+        return _http2Mode;
+    }
+
     public void setAllowWebSocketUpgrade(final boolean allowWebSocketUpgrade) {
         _allowWebSocketUpgrade = allowWebSocketUpgrade;
     }
@@ -213,43 +1060,312 @@ public class HttpRequest {
         return _validateSslCertificates;
     }
 
+    /**
+     * Sets the engine used to dispatch asynchronous executions of this request.
+     *  If unset (or null), ExecutorHttpClientEngine::getDefault is used.
+     */
+    public void setEngine(final HttpClientEngine engine) {
+        _engine = engine;
+    }
+
+    public HttpClientEngine getEngine() {
+        final HttpClientEngine engine = _engine;
+        if (engine != null) { return engine; }
+
+        return ExecutorHttpClientEngine.getDefault();
+    }
+
+    /**
+     * Sets the DnsResolver used to resolve the request's host when a new connection is established (e.g. a StaticDnsResolver during tests).
+     *  If unset (or null), the connection pool's HttpConnector resolves the host.
+     *  Connections are only shared with requests using the same resolver.
+     */
+    public void setDnsResolver(final DnsResolver dnsResolver) {
+        _dnsResolver = dnsResolver;
+    }
+
+    public DnsResolver getDnsResolver() {
+        return _dnsResolver;
+    }
+
+    /**
+     * Sets the pool of persistent connections this request is sent over.
+     *  If unset (or null), HttpConnectionPool::getDefault is used.
+     */
+    public void setConnectionPool(final HttpConnectionPool connectionPool) {
+        _connectionPool = connectionPool;
+    }
+
+    public HttpConnectionPool getConnectionPool() {
+        final HttpConnectionPool connectionPool = _connectionPool;
+        if (connectionPool != null) { return connectionPool; }
+
+        return HttpConnectionPool.getDefault();
+    }
+
+    /**
+     * Sets the maximum time (in milliseconds) spent establishing a connection, including DNS resolution, the TLS handshake,
+     *  and waiting for a connection slot within the pool.  A ConnectTimeoutException is thrown if it elapses.
+     *  If unset (or null), HttpRequest.DEFAULT_CONNECT_TIMEOUT (30 seconds) is used; zero disables the timeout.
+     */
+    public void setConnectTimeout(final Long connectTimeout) {
+        _connectTimeout = connectTimeout;
+    }
+
+    public Long getConnectTimeout() {
+        return _getTimeout(_connectTimeout, DEFAULT_CONNECT_TIMEOUT);
+    }
+
+    /**
+     * Sets the maximum time (in milliseconds) a single read may block waiting on the server, both for the response head and the body.
+     *  A ReadTimeoutException is thrown if it elapses.
+     *  If unset (or null), or zero, there is no read timeout.
+     */
+    public void setReadTimeout(final Long readTimeout) {
+        _readTimeout = readTimeout;
+    }
+
+    public Long getReadTimeout() {
+        return _getTimeout(_readTimeout, null);
+    }
+
+    /**
+     * Sets the maximum total time (in milliseconds) for the request, including redirects and reading a streamed body.
+     *  Once elapsed, the request is aborted and its future completes with a DeadlineExceededException.
+     *  If unset (or null), or zero, there is no deadline.
+     */
+    public void setDeadline(final Long deadline) {
+        _deadline = deadline;
+    }
+
+    public Long getDeadline() {
+        return _getTimeout(_deadline, null);
+    }
+
+    /**
+     * Sets the TimerWheel used to enforce the request's read timeout and deadline.
+     *  If unset (or null), TimerWheel::getDefault is used.
+     */
+    public void setTimerWheel(final TimerWheel timerWheel) {
+        _timerWheel = timerWheel;
+    }
+
+    public TimerWheel getTimerWheel() {
+        final TimerWheel timerWheel = _timerWheel;
+        if (timerWheel != null) { return timerWheel; }
+
+        return TimerWheel.getDefault();
+    }
+
+    /**
+     * Sets the ConcurrencyLimiter that bounds the number of requests in flight (in total, and to the request's origin).
+     *  Requests beyond the limits wait (in order) for a permit, without holding a thread, before being executed.
+     *  If unset (or null), the request is not limited.
+     */
+    public void setConcurrencyLimiter(final ConcurrencyLimiter concurrencyLimiter) {
+        _concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public ConcurrencyLimiter getConcurrencyLimiter() {
+        return _concurrencyLimiter;
+    }
+
+    /**
+     * Sets the RetryPolicy that determines whether the request is re-attempted after a failure (or a retryable response).
+     *  Retries are scheduled via the request's TimerWheel, so no thread is held while backing off.
+     *  If unset (or null), the request is not retried.
+     */
+    public void setRetryPolicy(final RetryPolicy retryPolicy) {
+        _retryPolicy = retryPolicy;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return _retryPolicy;
+    }
+
+    /**
+     * Sets the HedgePolicy that determines when a second attempt of the request is sent if the first has not yet completed.
+     *  Whichever attempt completes first is used, and the other is cancelled.
+     *  Only idempotent requests (with repeatable bodies) are hedged.  If unset (or null), requests are not hedged.
+     */
+    public void setHedgePolicy(final HedgePolicy hedgePolicy) {
+        _hedgePolicy = hedgePolicy;
+    }
+
+    public HedgePolicy getHedgePolicy() {
+        return _hedgePolicy;
+    }
+
+    /**
+     * Sets the CircuitBreakerRegistry whose per-origin CircuitBreakers record the outcome of the request.
+     *  While the breaker for the request's origin is open, the request fails immediately with a CircuitBreakerOpenException.
+     *  If unset (or null), the request is not subject to a circuit breaker.
+     */
+    public void setCircuitBreakerRegistry(final CircuitBreakerRegistry circuitBreakerRegistry) {
+        _circuitBreakerRegistry = circuitBreakerRegistry;
+    }
+
+    public CircuitBreakerRegistry getCircuitBreakerRegistry() {
+        return _circuitBreakerRegistry;
+    }
+
+    /**
+     * Sets the HttpCache GET responses are served from (and stored within), and whose entries are invalidated by successful unsafe requests (e.g. POST).
+     *  Requests with a ResponseBodyFile, or that upgrade to a WebSocket, bypass the cache.
+     *  If unset (or null), the request is not cached.
+     */
+    public void setHttpCache(final HttpCache httpCache) {
+        _httpCache = httpCache;
+    }
+
+    public HttpCache getHttpCache() {
+        return _httpCache;
+    }
+
+    /**
+     * Sets the RequestCoalescer that coalesces the request with identical requests in flight, so only one of them is sent.
+     *  Only GET and HEAD requests whose response body is buffered (i.e. not streamed or written to a ResponseBodyFile) and that have no NetworkInterceptors are coalesced;
+     *  requests are identical if their url, query string, headers, cookies, and response-decoding options are identical.
+     *  Coalesced requests complete with their own HttpResponse, which shares the sent request's body and headers (which must not be modified).
+     *  If the sent request is cancelled, or fails for a reason of its own (e.g. its deadline), the requests coalesced with it are sent instead.
+     *  If unset (or null), the request is not coalesced.
+     */
+    public void setRequestCoalescer(final RequestCoalescer requestCoalescer) {
+        _requestCoalescer = requestCoalescer;
+    }
+
+    public RequestCoalescer getRequestCoalescer() {
+        return _requestCoalescer;
+    }
+
+    /**
+     * Sets the HttpEventListener notified of each phase of the request's execution (see HttpResponse::getTimings).
+     *  If unset (or null), no events are emitted.
+     */
+    public void setEventListener(final HttpEventListener eventListener) {
+        _eventListener = eventListener;
+    }
+
+    public HttpEventListener getEventListener() {
+        return _eventListener;
+    }
+
+    /**
+     * Sets the HttpClientMetrics that records the request's latency and outcome.
+     *  If unset (or null), no metrics are recorded.
+     */
+    public void setMetrics(final HttpClientMetrics metrics) {
+        _metrics = metrics;
+    }
+
+    public HttpClientMetrics getMetrics() {
+        return _metrics;
+    }
+
+    /**
+     * Sets the Tracer that records a span for each exchange of the request (i.e. each attempt and redirect),
+     *  whose context is sent to the server via the W3C traceparent and tracestate headers.
+     *  The spans' parent is the Tracer's current context of the thread that executes the request.
+     *  A WebSocket created by the request records a span for each message it sends or receives.
+     *  If unset (or null), the request is not traced.
+     */
+    public void setTracer(final Tracer tracer) {
+        _tracer = tracer;
+    }
+
+    public Tracer getTracer() {
+        return _tracer;
+    }
+
+    /**
+     * Sets the application Interceptors (in order) that each execution of the request passes through; see Interceptor.
+     *  If unset (or null), the request is not intercepted.
+     */
+    public void setInterceptors(final List<Interceptor> interceptors) {
+        _interceptors = (interceptors != null ? Collections.unmodifiableList(new ArrayList<Interceptor>(interceptors)) : null);
+    }
+
+    public List<Interceptor> getInterceptors() {
+        final List<Interceptor> interceptors = _interceptors;
+        if (interceptors != null) { return interceptors; }
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Sets the NetworkInterceptors (in order) that each exchange of the request passes through; see NetworkInterceptor.
+     *  If unset (or null), the request's exchanges are not intercepted.
+     */
+    public void setNetworkInterceptors(final List<NetworkInterceptor> networkInterceptors) {
+        _networkInterceptors = (networkInterceptors != null ? Collections.unmodifiableList(new ArrayList<NetworkInterceptor>(networkInterceptors)) : null);
+    }
+
+    public List<NetworkInterceptor> getNetworkInterceptors() {
+        final List<NetworkInterceptor> networkInterceptors = _networkInterceptors;
+        if (networkInterceptors != null) { return networkInterceptors; }
+
+        return Collections.emptyList();
+    }
+
     public HttpResponse execute() {
-        final Container<HttpResponse> responseContainer = new Container<HttpResponse>(null);
+        _preExecute();
 
-        _executionThread = new HttpRequestExecutionThread(_url, this, new Callback() {
-            @Override
-            public void run(final HttpResponse response) {
-                responseContainer.value = response;
+        final CompletableFuture<HttpResponse> responseFuture = _intercept(true);
+        try {
+            return responseFuture.join();
+        }
+        catch (final Exception exception) {
+            return null;
+        }
+    }
+
+    public void execute(final Callback callback) {
+        _preExecute();
 
-                _executionThread = null;
+        final CompletableFuture<HttpResponse> responseFuture = _intercept(false);
+        if (callback == null) { return; }
+
+        responseFuture.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(final HttpResponse httpResponse, final Throwable throwable) {
+                callback.run(throwable == null ? httpResponse : null);
             }
-        }, 0);
-        _executionThread.run();
+        });
+    }
 
-        return responseContainer.value;
+    /**
+     * Executes the request via the request's HttpClientEngine.
+     *  The returned future completes exceptionally with the cause of the failure if the request could not be completed.
+     *  Cancelling the returned future cancels the request.
+     */
+    public CompletableFuture<HttpResponse> executeAsync() {
+        _preExecute();
+
+        return _intercept(false);
     }
 
-    public void execute(final Callback callback) {
-        _executionThread = new HttpRequestExecutionThread(_url, this, callback, 0);
-        _executionThread.start();
+    protected List<HttpResponseFuture> _getInFlightResponseFutures() {
+        synchronized (_inFlightResponseFutures) {
+            return new ArrayList<HttpResponseFuture>(_inFlightResponseFutures);
+        }
     }
 
+    /**
+     * Cancels every execution of the request that has not yet completed.
+     */
     public void cancel() {
-        final HttpRequestExecutionThread executionThread = _executionThread;
-        if (executionThread != null) {
-            executionThread.cancel();
+        for (final HttpResponseFuture responseFuture : _getInFlightResponseFutures()) {
+            responseFuture.cancel(true);
         }
     }
 
+    /**
+     * Returns true if any execution of the request is in progress.
+     */
     public boolean isExecuting() {
-        final HttpRequestExecutionThread executionThread = _executionThread;
-        if (executionThread == null) { return false; }
-
-        return executionThread.isExecuting();
+        for (final HttpResponseFuture responseFuture : _getInFlightResponseFutures()) {
+            if (responseFuture.isExecuting()) { return true; }
+        }
+        return false;
     }
-
-    @SuppressWarnings("unused")
-    protected static final Class<?>[] unused = {
-            HttpsURLConnection.class
-    };
 }
\ No newline at end of file
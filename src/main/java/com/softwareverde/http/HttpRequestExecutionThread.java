@@ -1,120 +1,837 @@
 package com.softwareverde.http;
 
-import com.softwareverde.constable.bytearray.ByteArray;
 import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.http.breaker.CircuitBreaker;
+import com.softwareverde.http.breaker.CircuitBreakerOpenException;
+import com.softwareverde.http.breaker.CircuitBreakerRegistry;
+import com.softwareverde.http.cache.CacheEntry;
+import com.softwareverde.http.cache.HttpCache;
+import com.softwareverde.http.connection.ContentDecodingInputStream;
+import com.softwareverde.http.connection.ContentEncodingOutputStream;
+import com.softwareverde.http.connection.Http1Codec;
+import com.softwareverde.http.connection.Http1Pipeline;
+import com.softwareverde.http.connection.Http1PipelineManager;
+import com.softwareverde.http.connection.HttpBodyInputStream;
+import com.softwareverde.http.connection.HttpBodyOutputStream;
+import com.softwareverde.http.connection.HttpConnection;
+import com.softwareverde.http.connection.HttpConnectionPool;
+import com.softwareverde.http.connection.ReadTracker;
+import com.softwareverde.http.connection.ResponseHead;
+import com.softwareverde.http.connection.Route;
+import com.softwareverde.http.hedge.HedgePolicy;
+import com.softwareverde.http.http2.Http2Connection;
+import com.softwareverde.http.http2.Http2ConnectionManager;
+import com.softwareverde.http.http2.Http2Stream;
+import com.softwareverde.http.intercept.NetworkInterceptor;
+import com.softwareverde.http.metrics.HttpClientMetrics;
+import com.softwareverde.http.timer.TimerWheel;
+import com.softwareverde.http.trace.Span;
+import com.softwareverde.http.trace.TraceContext;
+import com.softwareverde.http.trace.Tracer;
 import com.softwareverde.logging.Logger;
 import com.softwareverde.util.Base64Util;
 import com.softwareverde.util.IoUtil;
-import com.softwareverde.util.ReflectionUtil;
 import com.softwareverde.util.Util;
 
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.X509TrustManager;
-import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.net.URL;
 import java.security.SecureRandom;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+class HttpRequestExecutionThread implements Runnable {
+    protected static final String ACCEPT_ENCODING = (ContentDecodingInputStream.GZIP + ", " + ContentDecodingInputStream.DEFLATE);
 
-class HttpRequestExecutionThread extends Thread {
     protected final String _httpRequestUrl;
     protected HttpRequest _httpRequest;
-    protected HttpRequest.Callback _callback;
+    protected HttpRequest.HttpResponseFuture _result;
     protected final Integer _redirectCount;
-    protected HttpURLConnection _connection;
+    protected HttpMethod _method;
     protected String _origin = null;
 
-    protected Socket _extractConnectionSocket() {
-        Object httpConnectionHolder = null;
-        try {
-            httpConnectionHolder = ((_connection instanceof HttpsURLConnection) ? ReflectionUtil.getValue(_connection, "delegate") : _connection);
-            final Object httpClient = ReflectionUtil.getValue(httpConnectionHolder, "http");
-            return ReflectionUtil.getValue(httpClient, "serverSocket");
+    protected volatile HttpConnection _connection;
+    protected volatile Http1Pipeline.Exchange _pipelineExchange;
+    protected volatile Http2Stream _http2Stream;
+    protected volatile Boolean _isExecuting = false;
+    protected volatile Boolean _isCancelled = false;
+    protected volatile RequestTimeoutException _timeoutException;
+    protected volatile TimerWheel.Timeout _readTimeoutWatchdog;
+    protected volatile Boolean _isWatchingReads = false;
+    protected Boolean _isHedge = false;
+    protected CircuitBreaker _circuitBreaker = null;
+    protected Long _circuitBreakerStartTime = null;
+    protected final HttpTimings _timings;
+    protected HttpEventListener _eventListener = null;
+    protected volatile HttpResponse _streamedHttpResponse = null;
+    protected CompletableFuture<HttpResponse> _attemptFuture = null;
+    protected volatile Boolean _isDispatched = false;
+
+    /**
+     * The request to be written to the network, and the body and connection of its response once it has been written.
+     */
+    protected static class NetworkExchange {
+        public final HttpConnectionPool connectionPool;
+        public final Route route;
+        public final URL url;
+        public final HttpMethod method;
+        public final String requestTarget;
+        public final HttpHeaders requestHeaders;
+        public final RequestBody requestBody;
+        public final Long connectTimeout;
+
+        public InputStream bodyInputStream = null;
+        public HttpConnection connection = null;
+        public Boolean isIntercepting = false; // True while the exchange is passing through its NetworkInterceptors.
+        public Exception exchangeFailure = null; // The failure of the exchange itself, as opposed to a failure of a NetworkInterceptor.
+
+        public NetworkExchange(final HttpConnectionPool connectionPool, final Route route, final URL url, final HttpMethod method, final String requestTarget, final HttpHeaders requestHeaders, final RequestBody requestBody, final Long connectTimeout) {
+            this.connectionPool = connectionPool;
+            this.route = route;
+            this.url = url;
+            this.method = method;
+            this.requestTarget = requestTarget;
+            this.requestHeaders = requestHeaders;
+            this.requestBody = requestBody;
+            this.connectTimeout = connectTimeout;
         }
-        catch (final Exception exception) {
-            if (httpConnectionHolder == null) {
-                throw new RuntimeException("Unable to obtain connection socket via reflection.", exception);
+    }
+
+    protected class NetworkInterceptorChain implements NetworkInterceptor.Chain {
+        protected final NetworkExchange _networkExchange;
+        protected final List<NetworkInterceptor> _networkInterceptors;
+        protected final Integer _index;
+        protected Integer _proceedCount = 0;
+
+        public NetworkInterceptorChain(final NetworkExchange networkExchange, final List<NetworkInterceptor> networkInterceptors, final Integer index) {
+            _networkExchange = networkExchange;
+            _networkInterceptors = networkInterceptors;
+            _index = index;
+        }
+
+        @Override
+        public HttpRequest getRequest() {
+            return _httpRequest;
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return _networkExchange.method;
+        }
+
+        @Override
+        public URL getUrl() {
+            return _networkExchange.url;
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return _networkExchange.requestHeaders.getValue(name);
+        }
+
+        @Override
+        public void setHeader(final String name, final String value) {
+            _networkExchange.requestHeaders.set(name, value);
+        }
+
+        @Override
+        public void removeHeader(final String name) {
+            _networkExchange.requestHeaders.remove(name);
+        }
+
+        @Override
+        public ResponseHead proceed() throws IOException {
+            _proceedCount += 1;
+            if (_proceedCount > 1) { throw new IllegalStateException("NetworkInterceptor must proceed exactly once."); }
+
+            if (_index >= _networkInterceptors.size()) {
+                try {
+                    return _exchange(_networkExchange);
+                }
+                catch (final IOException | RuntimeException exception) {
+                    _networkExchange.exchangeFailure = exception;
+                    throw exception;
+                }
             }
 
+            final NetworkInterceptor networkInterceptor = _networkInterceptors.get(_index);
+            final NetworkInterceptorChain nextChain = new NetworkInterceptorChain(_networkExchange, _networkInterceptors, (_index + 1));
+            final ResponseHead responseHead = networkInterceptor.intercept(nextChain);
+            if ( (nextChain._proceedCount != 1) || (responseHead == null) ) {
+                throw new IllegalStateException("NetworkInterceptor must proceed exactly once and return the ResponseHead: " + networkInterceptor.getClass().getName());
+            }
+            return responseHead;
+        }
+    }
+
+    /**
+     * Wraps a streamed response body so the request's read timeout and deadline continue to apply until the body is consumed (or closed).
+     *  Failures caused by a timeout are surfaced as the timeout's exception.
+     */
+    protected class StreamedBodyInputStream extends FilterInputStream {
+        protected StreamedBodyInputStream(final InputStream inputStream) {
+            super(inputStream);
+        }
+
+        protected IOException _translateException(final IOException exception) {
+            final RequestTimeoutException timeoutException = _timeoutException;
+            return (timeoutException != null ? timeoutException : exception);
+        }
+
+        @Override
+        public int read() throws IOException {
             try {
-                // Unable to get standard http server socket, check for OkHttp implementation.
-                final Object httpEngine = ReflectionUtil.getValue(httpConnectionHolder, "httpEngine");
-                final Object streamAllocation = ReflectionUtil.getValue(httpEngine, "streamAllocation");
-                final Object realConnection = ReflectionUtil.getValue(streamAllocation, "connection");
-                return ReflectionUtil.getValue(realConnection, "socket");
+                final int value = super.read();
+                if (value < 0) { _onStreamedBodyComplete(); }
+                return value;
             }
-            catch (final Exception exception2) {
-                exception2.addSuppressed(exception);
-                throw new RuntimeException("Unable to obtain connection socket via reflection.", exception2);
+            catch (final IOException exception) {
+                throw _translateException(exception);
+            }
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            try {
+                final int byteCount = super.read(buffer, offset, length);
+                if (byteCount < 0) { _onStreamedBodyComplete(); }
+                return byteCount;
+            }
+            catch (final IOException exception) {
+                throw _translateException(exception);
+            }
+        }
+
+        @Override
+        public long skip(final long byteCount) throws IOException {
+            try {
+                return super.skip(byteCount);
+            }
+            catch (final IOException exception) {
+                throw _translateException(exception);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            }
+            finally {
+                _onStreamedBodyComplete();
             }
         }
     }
 
+    /**
+     * Generates the key for the WebSocket upgrade; the key is only used (and returned) for secure WebSockets.
+     */
     protected String _configureRequestForWebSocketUpgrade(final Boolean isSecureWebSocket) {
         final SecureRandom secureRandom = new SecureRandom();
         final byte[] key = new byte[16];
         secureRandom.nextBytes(key);
 
         _httpRequest.setAllowWebSocketUpgrade(true);
-        _httpRequest.setHeader("Upgrade", "websocket");
-        _httpRequest.setHeader("Connection", "upgrade");
 
         if (isSecureWebSocket) {
-            final String wssKey = Base64Util.toBase64String(key);
-            _httpRequest.setHeader("Sec-WebSocket-Version", "13");
-            _httpRequest.setHeader("Sec-WebSocket-Key", wssKey);
-            _httpRequest.setHeader("Sec-WebSocket-Extensions", "permessage-deflate; client_max_window_bits");
-            return wssKey;
+            return Base64Util.toBase64String(key);
         }
 
         return null;
     }
 
-    protected ByteArray _readErrorStream(final boolean waitForData) throws Exception {
-        InputStream errorStream = null;
-        { // Attempt to obtain the errorStream, but fallback to the inputStream if errorStream is unavailable.
-            try {
-                errorStream = _connection.getErrorStream();
+    /**
+     * Adds the WebSocket upgrade headers to the exchange's headers (rather than to the HttpRequest's, which are shared by every attempt).
+     */
+    protected static void _putWebSocketUpgradeHeaders(final HttpHeaders requestHeaders, final String wssKey) {
+        requestHeaders.set("Upgrade", "websocket");
+        requestHeaders.set("Connection", "upgrade");
+
+        if (wssKey != null) {
+            requestHeaders.set("Sec-WebSocket-Version", "13");
+            requestHeaders.set("Sec-WebSocket-Key", wssKey);
+            requestHeaders.set("Sec-WebSocket-Extensions", "permessage-deflate; client_max_window_bits");
+        }
+    }
+
+    protected static String _getRequestTarget(final URL url) {
+        final String path = url.getPath();
+        final String query = url.getQuery();
+        final String requestTarget = (Util.isBlank(path) ? "/" : path);
+        return (query != null ? (requestTarget + "?" + query) : requestTarget);
+    }
+
+    protected static boolean _hasRequestBody(final HttpMethod httpMethod) {
+        return ( (httpMethod == HttpMethod.POST) || (httpMethod == HttpMethod.PUT) || (httpMethod == HttpMethod.PATCH) );
+    }
+
+    protected static boolean _isIdempotent(final HttpMethod httpMethod) {
+        return ( (httpMethod != HttpMethod.POST) && (httpMethod != HttpMethod.PATCH) );
+    }
+
+    /**
+     * Returns true if the method does not modify the resource (RFC 7231 Section 4.2.1).
+     */
+    protected static boolean _isSafe(final HttpMethod httpMethod) {
+        return ( (httpMethod == HttpMethod.GET) || (httpMethod == HttpMethod.HEAD) || (httpMethod == HttpMethod.OPTIONS) || (httpMethod == HttpMethod.TRACE) );
+    }
+
+    /**
+     * Returns true if the response may be served from (and stored within) the HttpCache.
+     */
+    protected boolean _shouldUseCache(final HttpCache httpCache, final HttpMethod httpMethod, final HttpHeaders requestHeaders) {
+        if (httpCache == null) { return false; }
+        if (httpMethod != HttpMethod.GET) { return false; }
+        if (_httpRequest.allowsWebSocketUpgrade()) { return false; }
+        if (_httpRequest.getResponseBodyFile() != null) { return false; }
+        return httpCache.isCacheableRequest(requestHeaders);
+    }
+
+    protected boolean _shouldPipeline(final HttpMethod httpMethod, final RequestBody requestBody) {
+        if (! _httpRequest.isPipeliningEnabled()) { return false; }
+        if (_httpRequest.allowsWebSocketUpgrade()) { return false; }
+        if (requestBody != null) { return false; }
+        return ( (httpMethod == HttpMethod.GET) || (httpMethod == HttpMethod.HEAD) );
+    }
+
+    protected boolean _shouldAttemptHttp2(final Http2ConnectionManager http2ConnectionManager, final Route route) {
+        if (_httpRequest.allowsWebSocketUpgrade()) { return false; }
+        if (_httpRequest.isPipeliningEnabled()) { return false; }
+        return http2ConnectionManager.isHttp2Candidate(route, _httpRequest.getHttp2Mode());
+    }
+
+    /**
+     * Returns true if the default Accept-Encoding should be sent with the request, making the response eligible for transparent decoding.
+     */
+    protected boolean _shouldRequestCompression(final HttpHeaders requestHeaders) {
+        if (! _httpRequest.acceptsCompressedResponses()) { return false; }
+        if (_httpRequest.allowsWebSocketUpgrade()) { return false; }
+        if (_httpRequest.getResponseBodyFile() != null) { return false; }
+        return (! requestHeaders.contains("Accept-Encoding"));
+    }
+
+    /**
+     * Returns true if the request body should be sent with "Content-Encoding: gzip".
+     */
+    protected boolean _shouldCompressRequestBody(final RequestBody requestBody) {
+        if (requestBody == null) { return false; }
+        if (! _httpRequest.compressesRequestBody()) { return false; }
+        if (_httpRequest._headers.contains("Content-Encoding")) { return false; }
+
+        final Long contentLength = requestBody.getContentLength();
+        if (contentLength == null) { return true; }
+        return (contentLength >= Util.coalesce(_httpRequest.getRequestCompressionThreshold()));
+    }
+
+    protected HttpHeaders _buildRequestHeaders(final Route route, final RequestBody requestBody) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add("Host", route.getAuthority());
+        headers.add("Accept", "*/*");
+
+        final StringBuilder cookies = new StringBuilder();
+        {
+            final List<String> httpRequestCookies = _httpRequest._cookies;
+            String separator = "";
+            for (final String cookie : httpRequestCookies) {
+                cookies.append(separator);
+                cookies.append(cookie);
+                separator = "; ";
             }
-            catch (final Exception exception) { }
-            if (errorStream == null) {
+        }
+        if (cookies.length() > 0) {
+            headers.add("Cookie", cookies.toString());
+        }
+
+        final HttpHeaders httpRequestHeaders = _httpRequest._headers;
+        final Integer httpRequestHeaderCount = httpRequestHeaders.getCount();
+        for (int i = 0; i < httpRequestHeaderCount; ++i) {
+            headers.set(httpRequestHeaders.getNameAt(i), httpRequestHeaders.getValueAt(i));
+        }
+
+        if (requestBody != null) {
+            final Long contentLength = requestBody.getContentLength();
+            if (contentLength != null) {
+                headers.set("Content-Length", String.valueOf(contentLength));
+            }
+            else {
+                headers.remove("Content-Length");
+                headers.set("Transfer-Encoding", "chunked");
+            }
+        }
+
+        return headers;
+    }
+
+
+    /**
+     * Returns the method that should be used when following a redirect with the provided status code.
+     *  Consistent with browsers (and HttpURLConnection), 303 responses and POSTs redirected via 301/302 are followed with a GET.
+     */
+    protected static HttpMethod _getRedirectMethod(final int responseCode, final HttpMethod httpMethod) {
+        if (responseCode == 303) {
+            return (httpMethod == HttpMethod.HEAD ? HttpMethod.HEAD : HttpMethod.GET);
+        }
+        if ( ((responseCode == 301) || (responseCode == 302)) && (httpMethod == HttpMethod.POST) ) {
+            return HttpMethod.GET;
+        }
+        return httpMethod;
+    }
+
+    /**
+     * Returns the URL the response redirects to, or null if the redirect should not be followed.
+     *  Redirects that are not http(s), or that downgrade https to http, are not followed.
+     *  Redirects that would resend a request body that is not repeatable are also not followed.
+     */
+    protected URL _getRedirectUrl(final URL url, final Route route, final HttpMethod httpMethod, final RequestBody requestBody, final int responseCode, final Map<String, List<String>> responseHeaders) throws IOException {
+        if (! _httpRequest.followsRedirects()) { return null; }
+        if (_redirectCount >= _httpRequest._maxRedirectCount) { return null; }
+        if ( (responseCode < 300) || (responseCode >= 400) || (responseCode == 304) ) { return null; }
+        if ( (requestBody != null) && (! requestBody.isRepeatable()) && _hasRequestBody(_getRedirectMethod(responseCode, httpMethod)) ) { return null; }
+
+        final String location = HttpRequest.getHeaderValue("location", responseHeaders);
+        if (location == null) { return null; }
+
+        final URL newUrl = new URL(url, location);
+        final String newProtocol = newUrl.getProtocol();
+        final boolean isHttpBase = ( newProtocol.equalsIgnoreCase("http") || newProtocol.equalsIgnoreCase("https") );
+        final boolean isHttpDowngrade = ( route.isSecure() && (! newProtocol.equalsIgnoreCase("https")) );
+        if ( (! isHttpBase) || isHttpDowngrade ) { return null; }
+
+        return newUrl;
+    }
+
+    /**
+     * Returns the ReadTracker of the transport the request is currently waiting on, or null if it is not reading.
+     */
+    protected ReadTracker _getReadTracker() {
+        final HttpConnection connection = _connection;
+        if (connection != null) { return connection; }
+
+        final Http1Pipeline.Exchange pipelineExchange = _pipelineExchange;
+        if (pipelineExchange != null) { return pipelineExchange.getReadTracker(); }
+
+        return _http2Stream;
+    }
+
+    /**
+     * Schedules a check of the current read; the request is aborted with a ReadTimeoutException once a single read has been blocked for readTimeout.
+     *  The check is rescheduled for when the current read (or, if not reading, the next read) could first exceed the timeout.
+     */
+    protected void _scheduleReadTimeout(final TimerWheel timerWheel, final Long readTimeout, final Long delay) {
+        _readTimeoutWatchdog = timerWheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (! _isWatchingReads) { return; }
+
+                final ReadTracker readTracker = _getReadTracker();
+                final Long readStartedAt = (readTracker != null ? readTracker.getBlockedReadStartedAt() : null);
+                if (readStartedAt == null) {
+                    _scheduleReadTimeout(timerWheel, readTimeout, readTimeout);
+                    return;
+                }
+
+                final long blockedDuration = ((System.nanoTime() - readStartedAt) / 1000000L);
+                if (blockedDuration >= readTimeout) {
+                    abort(new ReadTimeoutException("No data received from " + _httpRequestUrl + " within " + readTimeout + "ms."));
+                    return;
+                }
+
+                _scheduleReadTimeout(timerWheel, readTimeout, (readTimeout - blockedDuration));
+            }
+        }, delay);
+    }
+
+    protected void _stopReadTimeout() {
+        _isWatchingReads = false;
+
+        final TimerWheel.Timeout readTimeoutWatchdog = _readTimeoutWatchdog;
+        if (readTimeoutWatchdog != null) {
+            readTimeoutWatchdog.cancel();
+        }
+    }
+
+    /**
+     * Invoked once the caller has consumed (or closed) a streamed response body.
+     */
+    protected void _onStreamedBodyComplete() {
+        _stopReadTimeout();
+        if (_result.isDone()) { // NOTE: The body of a response superseded by a retry is closed before the future is complete.
+            _result.cancelDeadline();
+        }
+        _connection = null;
+        _http2Stream = null;
+
+        final HttpResponse httpResponse = _streamedHttpResponse;
+        if (httpResponse != null) {
+            _onBodyComplete(httpResponse);
+        }
+    }
+
+    /**
+     * Records the connection's establishment phases, if the connection was established for this exchange (i.e. it was not pooled or shared).
+     */
+    protected void _onConnectionAcquired(final HttpConnection connection) {
+        final Long dnsStartedAt = connection.getDnsStartedAt();
+        if ( (dnsStartedAt == null) || ((dnsStartedAt - _timings._startedAt) < 0L) ) { return; }
+
+        final Long connectStartedAt = connection.getConnectStartedAt();
+        final Long connectedAt = connection.getConnectedAt();
+        final Long tlsCompletedAt = connection.getTlsCompletedAt();
+
+        _timings._dnsStartedAt = dnsStartedAt;
+        _timings._dnsCompletedAt = connectStartedAt;
+        _timings._connectStartedAt = connectStartedAt;
+        _timings._connectCompletedAt = connectedAt;
+        _timings._tlsStartedAt = (tlsCompletedAt != null ? connectedAt : null);
+        _timings._tlsCompletedAt = tlsCompletedAt;
+
+        final HttpEventListener eventListener = _eventListener;
+        if (eventListener == null) { return; }
+
+        eventListener.onDnsComplete(_httpRequest, dnsStartedAt, connectStartedAt);
+        eventListener.onConnectComplete(_httpRequest, connectStartedAt, connectedAt);
+        if (tlsCompletedAt != null) {
+            eventListener.onTlsComplete(_httpRequest, connectedAt, tlsCompletedAt);
+        }
+    }
+
+    protected void _onRequestWritten() {
+        final Long writtenAt = System.nanoTime();
+        _timings._requestWrittenAt = writtenAt;
+
+        final HttpEventListener eventListener = _eventListener;
+        if (eventListener != null) {
+            eventListener.onRequestWritten(_httpRequest, writtenAt);
+        }
+    }
+
+    protected void _onFirstByte() {
+        final Long receivedAt = System.nanoTime();
+        _timings._firstByteAt = receivedAt;
+
+        final HttpEventListener eventListener = _eventListener;
+        if (eventListener != null) {
+            eventListener.onFirstByte(_httpRequest, receivedAt);
+        }
+    }
+
+    /**
+     * Records the completion of the response's body; only the first invocation is recorded (e.g. a streamed body that is read to its end and then closed).
+     */
+    protected void _onBodyComplete(final HttpResponse httpResponse) {
+        final Long completedAt = System.nanoTime();
+        synchronized (_timings) {
+            if (_timings._bodyCompletedAt != null) { return; }
+            _timings._bodyCompletedAt = completedAt;
+        }
+
+        final HttpEventListener eventListener = _eventListener;
+        if (eventListener != null) {
+            eventListener.onBodyComplete(_httpRequest, httpResponse, completedAt);
+        }
+    }
+
+    protected void _onFailed(final Throwable exception) {
+        final HttpEventListener eventListener = _eventListener;
+        if (eventListener != null) {
+            eventListener.onFailed(_httpRequest, exception, System.nanoTime());
+        }
+    }
+
+    /**
+     * Completes the attempt's future (releasing its ConcurrencyLimiter permit, if any) with the attempt's response or failure.
+     *  Attempts that fail because they were cancelled (rather than timed out) complete with a CancellationException, so they are not sampled as dropped.
+     */
+    protected void _completeAttempt(final HttpResponse httpResponse, final Throwable exception) {
+        final CompletableFuture<HttpResponse> attemptFuture = _attemptFuture;
+        if (attemptFuture == null) { return; }
+
+        if (exception == null) {
+            attemptFuture.complete(httpResponse);
+        }
+        else if ( _isCancelled && (_timeoutException == null) ) {
+            attemptFuture.completeExceptionally(new CancellationException("Attempt cancelled."));
+        }
+        else {
+            attemptFuture.completeExceptionally(exception);
+        }
+    }
+
+    /**
+     * Completes the request's future with the response.
+     *  If the future was already completed (e.g. its deadline elapsed), the response's body is closed.
+     */
+    protected void _complete(final HttpResponse httpResponse) {
+        _completeAttempt(httpResponse, null);
+
+        final InputStream bodyInputStream = httpResponse._bodyInputStream;
+        if (_httpRequest._retryIfNecessary(_result, this, httpResponse, null)) {
+            _closeBody(bodyInputStream);
+            return;
+        }
+
+        if (bodyInputStream == null) {
+            _result.cancelDeadline();
+        }
+
+        if (! _result.complete(httpResponse)) {
+            _closeBody(bodyInputStream);
+            return;
+        }
+
+        _result.cancelOtherAttempts(this);
+
+        final HedgePolicy hedgePolicy = _httpRequest.getHedgePolicy();
+        if ( _isHedge && (hedgePolicy != null) ) {
+            hedgePolicy.onHedgeWon();
+        }
+    }
+
+    protected static void _closeBody(final InputStream bodyInputStream) {
+        if (bodyInputStream == null) { return; }
+
+        try {
+            bodyInputStream.close();
+        }
+        catch (final Exception exception) {
+            Logger.debug("Unable to close response body.", exception);
+        }
+    }
+
+    /**
+     * Records the outcome of the request with its origin's CircuitBreaker, if permission was acquired and the outcome has not yet been recorded.
+     *  responseCode is null if the request failed; failures caused by cancellation are not recorded.
+     */
+    protected void _recordCircuitBreakerOutcome(final Integer responseCode) {
+        final CircuitBreaker circuitBreaker = _circuitBreaker;
+        if (circuitBreaker == null) { return; }
+        _circuitBreaker = null;
+
+        final Long duration = (System.nanoTime() - _circuitBreakerStartTime);
+        if (responseCode != null) {
+            circuitBreaker.onResult(duration, circuitBreaker.getPolicy().isFailureStatusCode(responseCode));
+        }
+        else if ( _isCancelled && (_timeoutException == null) ) {
+            circuitBreaker.onIgnored();
+        }
+        else {
+            circuitBreaker.onResult(duration, true);
+        }
+    }
+
+    /**
+     * Writes the request via HTTP/2, a pipeline, or a pooled HTTP/1 connection (in that order of preference) and returns the head of its response.
+     *  The response's body (and the HTTP/1 connection it is read from, if any) is provided via the NetworkExchange.
+     */
+    protected ResponseHead _exchange(final NetworkExchange networkExchange) throws IOException {
+        final HttpConnectionPool connectionPool = networkExchange.connectionPool;
+        final Route route = networkExchange.route;
+        final HttpMethod httpMethod = networkExchange.method;
+        final String requestTarget = networkExchange.requestTarget;
+        final HttpHeaders requestHeaders = networkExchange.requestHeaders;
+        final RequestBody requestBody = networkExchange.requestBody;
+        final Long connectTimeout = networkExchange.connectTimeout;
+
+        ResponseHead responseHead = null;
+
+        final Http2ConnectionManager http2ConnectionManager = connectionPool.getHttp2ConnectionManager();
+        if (_shouldAttemptHttp2(http2ConnectionManager, route)) {
+            int remainingAttemptCount = 3;
+            while ( (responseHead == null) && (remainingAttemptCount > 0) ) {
+                remainingAttemptCount -= 1;
+
+                final Http2Connection http2Connection = http2ConnectionManager.getConnection(route, _httpRequest.getHttp2Mode(), connectTimeout);
+                if (http2Connection == null) { break; } // The server does not support HTTP/2.
+                _onConnectionAcquired(http2Connection.getConnection());
+
                 try {
-                    errorStream = _connection.getInputStream();
+                    final Http2Stream stream = http2Connection.newStream(httpMethod, requestTarget, requestHeaders, requestBody);
+                    _http2Stream = stream;
+                    if (_isCancelled) {
+                        stream.cancel();
+                        throw new IOException("Request cancelled.");
+                    }
+                    _onRequestWritten();
+
+                    responseHead = stream.readResponseHead();
+                    _onFirstByte();
+                    networkExchange.bodyInputStream = stream.getInputStream();
                 }
-                catch (final Exception exception) { }
+                catch (final Http2Connection.UnprocessedStreamException exception) {
+                    // The server did not process the stream (e.g. it is shutting down the connection), so the request may be resent.
+                    if ( _isCancelled || (remainingAttemptCount == 0) ) { throw exception; }
+                    Logger.debug("HTTP/2 stream was not processed; resending request.", exception);
+                    _http2Stream = null;
+                }
+            }
+        }
+
+        if ( (responseHead == null) && _shouldPipeline(httpMethod, requestBody)) {
+            try {
+                final Http1PipelineManager pipelineManager = connectionPool.getPipelineManager();
+                final Http1Pipeline.Exchange exchange = pipelineManager.submit(route, httpMethod, requestTarget, requestHeaders, connectTimeout);
+                _pipelineExchange = exchange;
+                if (_isCancelled) {
+                    throw new IOException("Request cancelled.");
+                }
+                _onConnectionAcquired(exchange.getConnection());
+                _onRequestWritten();
+
+                final ResponseHead pipelinedResponseHead = exchange.readResponseHead();
+                _onFirstByte();
+                final byte[] pipelinedResponseBody;
+                try (final HttpBodyInputStream pipelinedBodyInputStream = exchange.newBodyInputStream(pipelinedResponseHead)) {
+                    // NOTE: The body is buffered within the pipeline (even when streaming) so the (idempotent) request may be resent if the server closes the pipeline mid-response,
+                    //  and so the responses that follow it within the pipeline are not held up by the caller.
+                    pipelinedResponseBody = IoUtil.readStreamOrThrow(pipelinedBodyInputStream);
+                }
+                responseHead = pipelinedResponseHead;
+                networkExchange.bodyInputStream = new ByteArrayInputStream(pipelinedResponseBody);
+            }
+            catch (final IOException exception) {
+                if (_isCancelled) { throw exception; }
+
+                Logger.debug("Pipeline closed; resending request without pipelining.", exception);
+                _pipelineExchange = null;
+                responseHead = null;
             }
         }
 
-        if (errorStream == null) { return null; }
+        while (responseHead == null) {
+            final HttpConnection connection = connectionPool.lease(route, connectTimeout);
+            networkExchange.connection = connection;
+            _connection = connection;
+            if (_isCancelled) {
+                throw new IOException("Request cancelled.");
+            }
+            _onConnectionAcquired(connection);
+
+            try {
+                { // Write the request...
+                    final OutputStream outputStream = connection.getOutputStream();
+                    Http1Codec.writeRequestHead(outputStream, httpMethod, requestTarget, requestHeaders);
+                    if (requestBody != null) {
+                        final HttpBodyOutputStream requestBodyOutputStream = Http1Codec.newBodyOutputStream(outputStream, requestBody.getContentLength());
+                        requestBodyOutputStream.setChannel(connection.getWritableChannel());
+                        requestBody.writeTo(requestBodyOutputStream);
+                        requestBodyOutputStream.finish();
+                    }
+                    outputStream.flush();
+                }
+                _onRequestWritten();
+
+                responseHead = Http1Codec.readResponseHead(connection.getInputStream());
+                _onFirstByte();
+            }
+            catch (final IOException exception) {
+                // A reused connection may have been closed by the server while idle; idempotent requests are resent over another connection.
+                if ( _isCancelled || (! connection.isReused()) || (! _isIdempotent(httpMethod)) ) { throw exception; }
+                if ( (requestBody != null) && (! requestBody.isRepeatable()) ) { throw exception; }
 
-        if (! waitForData) {
-            // Only attempt to read from the stream if bytes are immediately available without blocking...
-            // The inputStream type is HttpInputStream which appears to honor InputStream::available().
-            if (errorStream.available() < 1) { return null; }
+                Logger.debug("Pooled connection failed; resending request.", exception);
+                connectionPool.release(connection, false);
+                networkExchange.connection = null;
+                _connection = null;
+            }
         }
 
-        return MutableByteArray.wrap(IoUtil.readStreamOrThrow(errorStream));
+        return responseHead;
     }
 
-    public HttpRequestExecutionThread(final String httpRequestUrl, final HttpRequest httpRequest, final HttpRequest.Callback callback, final Integer redirectCount) {
+    public HttpRequestExecutionThread(final String httpRequestUrl, final HttpRequest httpRequest, final HttpRequest.HttpResponseFuture result, final Integer redirectCount) {
         _httpRequestUrl = httpRequestUrl;
         _httpRequest = httpRequest;
-        _callback = callback;
+        _result = result;
         _redirectCount = redirectCount;
+        _method = httpRequest.getMethod();
+        _timings = new HttpTimings(result._queuedAt);
     }
 
     public void setOrigin(final String origin) {
         _origin = origin;
     }
 
+    public void setMethod(final HttpMethod method) {
+        _method = method;
+    }
+
+    /**
+     * Marks the execution as a hedge of the request's original attempt (see HttpRequest::setHedgePolicy).
+     */
+    public void setIsHedge(final Boolean isHedge) {
+        _isHedge = isHedge;
+    }
+
+    public Boolean isHedge() {
+        return _isHedge;
+    }
+
+    /**
+     * Sets the future completed once the attempt (including any redirects it follows) completes; see HttpRequest::_startAttempt.
+     */
+    public void setAttemptFuture(final CompletableFuture<HttpResponse> attemptFuture) {
+        _attemptFuture = attemptFuture;
+    }
+
+    public CompletableFuture<HttpResponse> getAttemptFuture() {
+        return _attemptFuture;
+    }
+
+    /**
+     * Marks the attempt as handed to the request's engine; it is then responsible for completing its attempt future.
+     */
+    public void setIsDispatched(final Boolean isDispatched) {
+        _isDispatched = isDispatched;
+    }
+
+    public Boolean isDispatched() {
+        return _isDispatched;
+    }
+
+    @Override
     public void run() {
+        _isExecuting = true;
+        _timings._startedAt = System.nanoTime();
+        _eventListener = _httpRequest.getEventListener();
+
+        final HttpClientMetrics.RequestTracker requestTracker = _result._requestTracker;
+        if (requestTracker != null) {
+            requestTracker.onStarted();
+        }
+
+        final HttpConnectionPool connectionPool = _httpRequest.getConnectionPool();
+        final Long connectTimeout = _httpRequest.getConnectTimeout();
+        final Long readTimeout = _httpRequest.getReadTimeout();
+        if (readTimeout != null) {
+            _isWatchingReads = true;
+            _scheduleReadTimeout(_httpRequest.getTimerWheel(), readTimeout, readTimeout);
+        }
+
+        final Tracer tracer = _httpRequest.getTracer();
+        final Span span;
+        if (tracer != null) {
+            span = tracer.startSpan(("HTTP " + _method.name()), _result._parentTraceContext);
+            span.setAttribute("http.method", _method.name());
+            span.setAttribute("http.url", _httpRequestUrl);
+        }
+        else {
+            span = null;
+        }
+
+        HttpConnection connection = null;
+        InputStream bodyInputStream = null;
+        NetworkExchange networkExchange = null;
+        boolean isStreamingBody = false;
         try {
             final String wssKey;
+            final String generatedWssKey;
+            final boolean isWebSocketUpgrade;
             final String urlString;
             {
                 final boolean isSecureWebSocketRequest = _httpRequestUrl.startsWith("wss://");
@@ -122,15 +839,18 @@ class HttpRequestExecutionThread extends Thread {
                 final String requestUrl;
                 if (isWebSocketRequest || isSecureWebSocketRequest) {
                     requestUrl = _httpRequestUrl.replaceFirst("ws", "http");
-                    final String generatedWssKey = _configureRequestForWebSocketUpgrade(isSecureWebSocketRequest);
+                    generatedWssKey = _configureRequestForWebSocketUpgrade(isSecureWebSocketRequest);
                     wssKey = (_httpRequest.validatesSslCertificates() ? generatedWssKey : null);
+                    isWebSocketUpgrade = true;
                 }
                 else {
                     requestUrl = _httpRequestUrl;
+                    generatedWssKey = null;
                     wssKey = null;
+                    isWebSocketUpgrade = false;
                 }
                 final String queryString = _httpRequest._queryString;
-                if (! Util.isBlank(queryString)) {
+                if ( (! Util.isBlank(queryString)) && (_redirectCount == 0) ) {
                     urlString = (requestUrl + (requestUrl.contains("?") ? "" : "?") + queryString);
                 }
                 else {
@@ -143,144 +863,361 @@ class HttpRequestExecutionThread extends Thread {
             if (_origin == null) {
                 _origin = (url.getProtocol() + "://" + url.getHost());
             }
-            _httpRequest.setHeader("Origin", _origin);
 
-            _connection = (HttpURLConnection) url.openConnection();
-
-            if (_connection instanceof HttpsURLConnection) {
-                final HttpsURLConnection httpsConnection = ((HttpsURLConnection) _connection);
+            final HttpMethod httpMethod = _method;
+            final boolean compressesRequestBody;
+            final RequestBody requestBody;
+            {
+                final RequestBody httpRequestBody = (_hasRequestBody(httpMethod) ? _httpRequest.getRequestBody() : null);
+                compressesRequestBody = _shouldCompressRequestBody(httpRequestBody);
+                if (compressesRequestBody) {
+                    requestBody = RequestBody.gzip(httpRequestBody, _httpRequest.getRequestCompressionLevel(), _httpRequest.getDeflaterPool());
+                }
+                else {
+                    requestBody = httpRequestBody;
+                }
+            }
 
-                if (! _httpRequest.validatesSslCertificates()) {
-                    httpsConnection.setHostnameVerifier(HttpRequest.NAIVE_HOSTNAME_VERIFIER);
+            final Route route = Route.fromUrl(url, _httpRequest.validatesSslCertificates(), _httpRequest.getDnsResolver());
 
-                    final SSLContext sslContext = SSLContext.getInstance("TLS");
-                    sslContext.init(null, new X509TrustManager[]{ HttpRequest.NAIVE_TRUST_MANAGER }, new SecureRandom());
-                    final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
-                    httpsConnection.setSSLSocketFactory(sslSocketFactory);
+            // NOTE: Headers specific to the exchange are only added to its own headers, since the HttpRequest's headers may be read concurrently by a hedge.
+            final HttpHeaders requestHeaders = _buildRequestHeaders(route, requestBody);
+            requestHeaders.set("Origin", _origin);
+            if (isWebSocketUpgrade) {
+                _putWebSocketUpgradeHeaders(requestHeaders, generatedWssKey);
+            }
+            if (compressesRequestBody) {
+                requestHeaders.set("Content-Encoding", ContentEncodingOutputStream.GZIP);
+            }
+            if (span != null) {
+                final TraceContext traceContext = span.getContext();
+                requestHeaders.set(TraceContext.TRACE_PARENT_HEADER, traceContext.toTraceParent());
+                if (traceContext.getTraceState() != null) {
+                    requestHeaders.set(TraceContext.TRACE_STATE_HEADER, traceContext.getTraceState());
                 }
             }
+            final String requestTarget = _getRequestTarget(url);
 
-            final Boolean followsRedirects = _httpRequest.followsRedirects();
-            _connection.setInstanceFollowRedirects(followsRedirects);
-            _connection.setDoInput(true);
-            _connection.setUseCaches(false);
-            final StringBuilder cookies = new StringBuilder();
+            final Long resumePosition;
             {
-                final List<String> httpRequestCookies = _httpRequest._cookies;
-                String separator = "";
-                for (final String cookie : httpRequestCookies) {
-                    cookies.append(separator);
-                    cookies.append(cookie);
-                    separator = "; ";
+                final ResponseBodyFile responseBodyFile = _httpRequest.getResponseBodyFile();
+                resumePosition = ( ((responseBodyFile != null) && (httpMethod == HttpMethod.GET)) ? responseBodyFile.getResumePosition() : 0L );
+                if (resumePosition > 0L) {
+                    requestHeaders.set("Range", ("bytes=" + resumePosition + "-"));
                 }
             }
-            _connection.setRequestProperty("Cookie", cookies.toString());
 
-            final Map<String, String> httpRequestHeaders = _httpRequest._headers;
-            for (final String key : httpRequestHeaders.keySet()) {
-                final String value = httpRequestHeaders.get(key);
-                _connection.setRequestProperty(key, value);
+            final boolean decodesResponseBody;
+            if (_shouldRequestCompression(requestHeaders)) {
+                requestHeaders.set("Accept-Encoding", ACCEPT_ENCODING);
+                decodesResponseBody = _httpRequest.decodesCompressedResponses();
+            }
+            else {
+                decodesResponseBody = false;
             }
 
-            final HttpMethod httpMethod = _httpRequest.getMethod();
-            _connection.setRequestMethod(httpMethod.name());
-
-            if ((httpMethod == HttpMethod.POST) || (httpMethod == HttpMethod.PUT) || (httpMethod == HttpMethod.PATCH)) {
-                final ByteArray postData = _httpRequest._postData;
-                if (postData != null) {
-                    _connection.setDoOutput(true);
+            ResponseHead responseHead = null;
 
-                    try (final DataOutputStream outputStream = new DataOutputStream(_connection.getOutputStream())) {
-                        outputStream.write(postData.getBytes());
-                        outputStream.flush();
+            final HttpCache httpCache = _httpRequest.getHttpCache();
+            final boolean usesCache = _shouldUseCache(httpCache, httpMethod, requestHeaders);
+            CacheEntry staleCacheEntry = null;
+            if (usesCache) {
+                final HttpCache.Lookup cacheLookup = httpCache.lookup(urlString, requestHeaders);
+                final CacheEntry freshCacheEntry = cacheLookup.getFreshEntry();
+                if (freshCacheEntry != null) {
+                    responseHead = freshCacheEntry.newResponseHead(System.currentTimeMillis());
+                    bodyInputStream = freshCacheEntry.newBodyInputStream();
+                }
+                else if (cacheLookup.isUnsatisfiable()) {
+                    responseHead = new ResponseHead("HTTP/1.1", 504, "Gateway Timeout");
+                    bodyInputStream = new ByteArrayInputStream(new byte[0]);
+                }
+                else {
+                    staleCacheEntry = cacheLookup.getStaleEntry();
+                    if (staleCacheEntry != null) {
+                        final HttpHeaders conditionalHeaders = staleCacheEntry.getConditionalHeaders();
+                        final Integer conditionalHeaderCount = conditionalHeaders.getCount();
+                        for (int i = 0; i < conditionalHeaderCount; ++i) {
+                            requestHeaders.set(conditionalHeaders.getNameAt(i), conditionalHeaders.getValueAt(i));
+                        }
                     }
                 }
             }
 
-            _connection.connect();
+            final boolean isServedFromCache = (responseHead != null);
+            if (isServedFromCache) {
+                _onFirstByte();
+            }
 
-            final HttpResponse httpResponse = new HttpResponse();
+            final CircuitBreakerRegistry circuitBreakerRegistry = _httpRequest.getCircuitBreakerRegistry();
+            if ( (! isServedFromCache) && (circuitBreakerRegistry != null) ) {
+                final CircuitBreaker circuitBreaker = circuitBreakerRegistry.getCircuitBreaker(route.getOrigin());
+                if (! circuitBreaker.tryAcquirePermission()) {
+                    throw new CircuitBreakerOpenException("Circuit breaker for " + route.getOrigin() + " is open.");
+                }
+                _circuitBreaker = circuitBreaker;
+                _circuitBreakerStartTime = System.nanoTime();
+            }
 
-            final int responseCode = _connection.getResponseCode();
+            final Long requestTime = System.currentTimeMillis();
+
+            if (responseHead == null) {
+                networkExchange = new NetworkExchange(connectionPool, route, url, httpMethod, requestTarget, requestHeaders, requestBody, connectTimeout);
+                final List<NetworkInterceptor> networkInterceptors = _httpRequest.getNetworkInterceptors();
+                if (networkInterceptors.isEmpty()) {
+                    responseHead = _exchange(networkExchange);
+                }
+                else {
+                    networkExchange.isIntercepting = true;
+                    responseHead = new NetworkInterceptorChain(networkExchange, networkInterceptors, 0).proceed();
+                    networkExchange.isIntercepting = false;
+                }
+
+                // The body and connection are now owned by this thread (and are released by its catch block, if necessary).
+                bodyInputStream = networkExchange.bodyInputStream;
+                connection = networkExchange.connection;
+                networkExchange.bodyInputStream = null;
+                networkExchange.connection = null;
+            }
+
+            final Long responseTime = System.currentTimeMillis();
+
+            final HttpResponse httpResponse = new HttpResponse();
+            httpResponse._timings = _timings;
+            int responseCode = responseHead.getStatusCode();
+            _recordCircuitBreakerOutcome(responseCode);
+            if (span != null) {
+                span.setAttribute("http.status_code", String.valueOf(responseCode));
+            }
             httpResponse._responseCode = responseCode;
-            httpResponse._responseMessage = _connection.getResponseMessage();
+            httpResponse._responseMessage = responseHead.getReasonPhrase();
 
-            final Map<String, List<String>> responseHeaders = _connection.getHeaderFields();
+            Map<String, List<String>> responseHeaders = responseHead.getHeaders();
             httpResponse._headers = responseHeaders;
 
-            // HttpURLConnection will not handle redirection from http to https, so it is is handled here...
-            //  NOTE: Protocol switches will not be handled, except for http to https.  Downgrades from https to http will not be followed.
-            if ( (followsRedirects) && (_redirectCount < _httpRequest._maxRedirectCount) ) {
-                if (responseCode >= 300 && responseCode < 400) {
-                    final String newLocation = HttpRequest.getHeaderValue("location", responseHeaders);
-                    if (newLocation != null) {
-                        final boolean isHttpBase = ( (_httpRequestUrl.startsWith("http") && (newLocation.startsWith("http"))) );
-                        final boolean isHttpDowngrade = ( (_httpRequestUrl.startsWith("https")) && (! newLocation.startsWith("https")) );
-                        if ( (isHttpBase) && (! isHttpDowngrade) ) {
-                            _connection.disconnect();
-
-                            (new HttpRequestExecutionThread(newLocation, _httpRequest, _callback, (_redirectCount + 1))).run();
-                            return;
+            if (bodyInputStream == null) {
+                final boolean upgradeToWebSocket = ( (responseCode == 101) && _httpRequest.allowsWebSocketUpgrade() && HttpRequest.containsUpgradeToWebSocketHeader(responseHeaders, wssKey) );
+                if (upgradeToWebSocket) {
+                    // The connection now belongs to the WebSocket and is no longer managed by the pool.
+                    connectionPool.detach(connection);
+                    final HttpConnection webSocketConnection = connection;
+                    connection = null;
+
+                    try {
+                        final Socket socket = webSocketConnection.getSocket();
+                        final HttpRequest.WebSocketFactory webSocketFactory = _httpRequest._webSocketFactory;
+                        httpResponse._webSocket = webSocketFactory.newWebSocket(socket);
+                        if (span != null) {
+                            httpResponse._webSocket.setTracer(tracer, span.getContext());
                         }
                     }
+                    catch (final Exception exception) {
+                        Logger.warn("Unable to create WebSocket within HttpRequest.", exception);
+                        webSocketConnection.close();
+                    }
+
+                    _onBodyComplete(httpResponse);
+                    _complete(httpResponse);
+                    return;
+                }
+
+                if (responseCode == 101) { // NOTE: Switching Protocols (101) when upgradeToWebSocket was not expected indicates a problem within the WebSocket handshake.
+                    connectionPool.release(connection, false);
+                    connection = null;
+
+                    _onBodyComplete(httpResponse);
+                    _complete(httpResponse);
+                    return;
                 }
+
+                final HttpConnection bodyConnection = connection;
+                final HttpBodyInputStream http1BodyInputStream = Http1Codec.newBodyInputStream(connection.getInputStream(), httpMethod, responseHead, new HttpBodyInputStream.CompletionCallback() {
+                    @Override
+                    public void onComplete(final Boolean connectionIsReusable) {
+                        _connection = null; // The connection may be leased by another request once released, so it may no longer be closed by cancel/abort.
+                        connectionPool.release(bodyConnection, connectionIsReusable);
+                    }
+                });
+                http1BodyInputStream.setChannel(bodyConnection.getReadableChannel());
+                bodyInputStream = http1BodyInputStream;
+                connection = null; // The connection is released by the body stream's CompletionCallback.
             }
 
-            final boolean upgradeToWebSocket = (_httpRequest.allowsWebSocketUpgrade() && HttpRequest.containsUpgradeToWebSocketHeader(responseHeaders, wssKey));
+            if ( (staleCacheEntry != null) && (responseCode == 304) ) {
+                // The stale response has been revalidated, so it is served (with the updated headers) in place of the 304.
+                try {
+                    IoUtil.readStreamOrThrow(bodyInputStream);
+                }
+                finally {
+                    bodyInputStream.close();
+                    bodyInputStream = null;
+                }
 
-            if (! upgradeToWebSocket) {
-                if (responseCode == 101) { // NOTE: Switching Protocols (101) when upgradeToWebSocket was not expected indicates a problem within the WebSocket handshake.
-                    httpResponse._rawResult = _readErrorStream(false);
+                final CacheEntry cacheEntry = httpCache.onNotModified(staleCacheEntry, responseHead, requestTime, responseTime);
+                responseHead = cacheEntry.newResponseHead(responseTime);
+                bodyInputStream = cacheEntry.newBodyInputStream();
+
+                responseCode = responseHead.getStatusCode();
+                responseHeaders = responseHead.getHeaders();
+                httpResponse._responseCode = responseCode;
+                httpResponse._responseMessage = responseHead.getReasonPhrase();
+                httpResponse._headers = responseHeaders;
+            }
+            else if ( usesCache && (! isServedFromCache) ) {
+                bodyInputStream = httpCache.store(urlString, requestHeaders, responseHead, requestTime, responseTime, bodyInputStream);
+            }
+            else if ( (httpCache != null) && (! _isSafe(httpMethod)) && (responseCode >= 200) && (responseCode < 400) ) {
+                httpCache.remove(urlString);
+            }
+
+            final URL redirectUrl = _getRedirectUrl(url, route, httpMethod, requestBody, responseCode, responseHeaders);
+            if (redirectUrl != null) {
+                // The redirect's body is drained so its connection may be reused.
+                try {
+                    IoUtil.readStreamOrThrow(bodyInputStream);
                 }
-                else if (responseCode >= 400) {
-                    httpResponse._rawResult = _readErrorStream(true);
+                finally {
+                    bodyInputStream.close();
+                    bodyInputStream = null;
                 }
-                else {
-                    final InputStream inputStream = _connection.getInputStream();
-                    httpResponse._rawResult = (inputStream != null ? MutableByteArray.wrap(IoUtil.readStreamOrThrow(inputStream)) : null);
+                _onBodyComplete(httpResponse);
+
+                final HttpRequestExecutionThread redirectExecutionThread = new HttpRequestExecutionThread(redirectUrl.toString(), _httpRequest, _result, (_redirectCount + 1));
+                redirectExecutionThread.setMethod(_getRedirectMethod(responseCode, httpMethod));
+                redirectExecutionThread.setIsHedge(_isHedge);
+                redirectExecutionThread.setAttemptFuture(_attemptFuture);
+                redirectExecutionThread.setIsDispatched(true);
+                _result.replaceExecutionThread(this, redirectExecutionThread);
+                redirectExecutionThread.run();
+                return;
+            }
+
+            if (decodesResponseBody) {
+                final String contentEncoding = responseHead.getHeaderValue("Content-Encoding");
+                if (ContentDecodingInputStream.isSupported(contentEncoding)) {
+                    bodyInputStream = new ContentDecodingInputStream(bodyInputStream, contentEncoding, _httpRequest.getInflaterPool());
+                    responseHeaders.remove("Content-Encoding");
+                    responseHeaders.remove("Content-Length");
                 }
+            }
 
-                // Close Connection
-                _connection.disconnect();
+            final ResponseBodyFile responseBodyFile = _httpRequest.getResponseBodyFile();
+            if ( (responseBodyFile != null) && responseBodyFile.write(responseCode, responseHeaders, bodyInputStream, resumePosition) ) {
+                httpResponse._bodyFile = responseBodyFile.getPath();
+                bodyInputStream = null;
+                _onBodyComplete(httpResponse);
+            }
+            else if (_httpRequest.streamsResponseBody()) {
+                // The caller now owns the body (and its connection, until the body is consumed or closed).
+                _streamedHttpResponse = httpResponse;
+                httpResponse._bodyInputStream = new StreamedBodyInputStream(bodyInputStream);
+                bodyInputStream = null;
+                isStreamingBody = true;
             }
             else {
                 try {
-                    final Socket socket = _extractConnectionSocket();
-                    final HttpRequest.WebSocketFactory webSocketFactory = _httpRequest._webSocketFactory;
-                    httpResponse._webSocket = webSocketFactory.newWebSocket(socket);
+                    httpResponse._rawResult = MutableByteArray.wrap(IoUtil.readStreamOrThrow(bodyInputStream));
                 }
-                catch (final Exception exception) {
-                    Logger.warn("Unable to get underlying socket for WebSocket within HttpRequest via reflection.", exception);
-                    _connection.disconnect();
+                finally {
+                    bodyInputStream.close();
+                    bodyInputStream = null;
                 }
+                _onBodyComplete(httpResponse);
             }
 
-            _connection = null;
-            if (_callback != null) {
-                _callback.run(httpResponse);
-            }
+            _complete(httpResponse);
         }
         catch (final Exception exception) {
             Logger.debug("Unable to execute request.", exception);
+            isStreamingBody = false;
+            _recordCircuitBreakerOutcome(null);
 
-            _connection = null;
-            if (_callback != null) {
-                _callback.run(null);
+            if (bodyInputStream != null) {
+                try {
+                    bodyInputStream.close();
+                }
+                catch (final Exception closeException) {
+                    exception.addSuppressed(closeException);
+                }
+            }
+
+            if (connection != null) {
+                connectionPool.release(connection, false);
+            }
+
+            if (networkExchange != null) { // The exchange failed (or was abandoned by a NetworkInterceptor) before its body and connection were taken.
+                if (networkExchange.bodyInputStream != null) {
+                    _closeBody(networkExchange.bodyInputStream);
+                }
+                if (networkExchange.connection != null) {
+                    connectionPool.release(networkExchange.connection, false);
+                }
+            }
+
+            final RequestTimeoutException timeoutException = _timeoutException;
+            final Exception failure = (timeoutException != null ? timeoutException : exception);
+            _onFailed(failure);
+            if (span != null) {
+                span.setError(failure);
+            }
+            _completeAttempt(null, failure);
+            if (! _httpRequest._retryIfNecessary(_result, this, null, failure)) {
+                if (_result.onAttemptFailed(this)) { // NOTE: While another attempt (i.e. a hedge) is pending, its outcome is used instead.
+                    _result.cancelDeadline();
+                    final Boolean isInterceptorFailure = ( (networkExchange != null) && networkExchange.isIntercepting && (exception != networkExchange.exchangeFailure) );
+                    if ( isInterceptorFailure || (failure instanceof CircuitBreakerOpenException) ) {
+                        _result.completeWithRequestFailure(failure);
+                    }
+                    else {
+                        _result.completeExceptionally(failure);
+                    }
+                }
             }
         }
         finally {
-            _connection = null;
+            if (! isStreamingBody) {
+                // NOTE: A streamed body retains its transport (and its timeouts) until the body is consumed or closed.
+                _stopReadTimeout();
+                _connection = null;
+                _http2Stream = null;
+            }
+            _pipelineExchange = null;
+            _isExecuting = false;
+
+            if (span != null) {
+                span.end();
+            }
         }
     }
 
+    /**
+     * Aborts the request because one of its timeouts elapsed; the request fails with the provided exception.
+     */
+    public void abort(final RequestTimeoutException timeoutException) {
+        _timeoutException = timeoutException;
+        cancel();
+    }
+
     public void cancel() {
-        final HttpURLConnection connection = _connection;
-        if (connection == null) { return; }
+        _isCancelled = true;
 
-        connection.disconnect();
+        final Http1Pipeline.Exchange pipelineExchange = _pipelineExchange;
+        if (pipelineExchange != null) {
+            pipelineExchange.cancel();
+        }
+
+        final Http2Stream http2Stream = _http2Stream;
+        if (http2Stream != null) {
+            http2Stream.cancel();
+        }
+
+        final HttpConnection connection = _connection;
+        if (connection != null) {
+            connection.close();
+        }
     }
 
     public boolean isExecuting() {
-        return (_connection != null);
+        return _isExecuting;
     }
-}
\ No newline at end of file
+}
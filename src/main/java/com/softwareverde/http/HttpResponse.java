@@ -5,16 +5,55 @@ import com.softwareverde.http.websocket.WebSocket;
 import com.softwareverde.json.Json;
 import com.softwareverde.util.StringUtil;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 public class HttpResponse {
+    public interface BodyChunkCallback {
+        /**
+         * Invoked with each chunk of the body, in order; the chunk's buffer is reused once the callback returns.
+         *  The next chunk is not read from the connection until the callback returns.
+         */
+        void onChunk(ByteBuffer chunk) throws IOException;
+    }
+
+    protected static final Integer BODY_CHUNK_BYTE_COUNT = 16384;
+
     protected ByteArray _rawResult;
+    protected InputStream _bodyInputStream = null;
+    protected Path _bodyFile = null;
     protected Integer _responseCode;
     protected String _responseMessage;
     protected WebSocket _webSocket = null;
     protected Map<String, List<String>> _headers = null;
+    protected HttpTimings _timings = null;
+
+    public HttpResponse() { }
+
+    /**
+     * Creates a response that shares the other response's body (and headers) rather than copying them; neither may be modified.
+     */
+    protected HttpResponse(final HttpResponse httpResponse) {
+        _rawResult = httpResponse._rawResult;
+        _bodyFile = httpResponse._bodyFile;
+        _responseCode = httpResponse._responseCode;
+        _responseMessage = httpResponse._responseMessage;
+        if (httpResponse._headers instanceof HttpHeaders) {
+            _headers = ((HttpHeaders) httpResponse._headers).asReadOnly();
+        }
+        else {
+            _headers = (httpResponse._headers != null ? Collections.unmodifiableMap(httpResponse._headers) : null);
+        }
+        _timings = httpResponse._timings;
+    }
 
     // NOTE: Handles both android-formatted and ios-formatted cookie strings.
     //  iOS concatenates their cookies into one string, delimited by commas;
@@ -73,6 +112,56 @@ public class HttpResponse {
 
     public synchronized ByteArray getRawResult() { return _rawResult; }
 
+    /**
+     * Returns the response body if the request streamed its response body (see HttpRequest::setStreamsResponseBody), otherwise null.
+     *  Closing the stream before the body is complete aborts the response.
+     */
+    public InputStream getBodyInputStream() {
+        return _bodyInputStream;
+    }
+
+    /**
+     * Returns the file the response body was written to (see HttpRequest::setResponseBodyFile), or null if the body was not written to a file.
+     */
+    public Path getBodyFile() {
+        return _bodyFile;
+    }
+
+    /**
+     * Returns the streamed response body as a channel, or null if the request did not stream its response body.
+     */
+    public ReadableByteChannel getBodyChannel() {
+        final InputStream bodyInputStream = _bodyInputStream;
+        if (bodyInputStream == null) { return null; }
+        return Channels.newChannel(bodyInputStream);
+    }
+
+    /**
+     * Reads the streamed response body in chunks, invoking the callback for each chunk, and closes the body once it is complete.
+     *  Only one chunk is held in memory at a time.
+     */
+    public void readBody(final BodyChunkCallback bodyChunkCallback) throws IOException {
+        final InputStream bodyInputStream = _bodyInputStream;
+        if (bodyInputStream == null) { throw new IOException("Response body was not streamed."); }
+
+        try {
+            final byte[] buffer = new byte[BODY_CHUNK_BYTE_COUNT];
+            final ByteBuffer chunk = ByteBuffer.wrap(buffer);
+            while (true) {
+                final int byteCount = bodyInputStream.read(buffer);
+                if (byteCount < 0) { break; }
+                if (byteCount == 0) { continue; }
+
+                chunk.clear();
+                chunk.limit(byteCount);
+                bodyChunkCallback.onChunk(chunk);
+            }
+        }
+        finally {
+            bodyInputStream.close();
+        }
+    }
+
     public Map<String, List<String>> getHeaders() {
         return _headers;
     }
@@ -90,6 +179,13 @@ public class HttpResponse {
         return new LinkedList<String>();
     }
 
+    /**
+     * Returns the times at which each phase of the request occurred; the body's completion is recorded once the body has been read (or closed), if streamed.
+     */
+    public HttpTimings getTimings() {
+        return _timings;
+    }
+
     public boolean didUpgradeToWebSocket() {
         return (_webSocket != null);
     }
@@ -0,0 +1,145 @@
+package com.softwareverde.http;
+
+import java.util.Locale;
+
+/**
+ * The times (from System::nanoTime) at which each phase of a request occurred; a phase that did not occur (e.g. the DNS lookup of a pooled connection) is null.
+ *  When a request is redirected (or retried), the timings describe the exchange that produced the response, but are measured from when the request was queued.
+ *  The body is complete once it has been read (or, if the body is streamed, once the caller has read or closed it).
+ */
+public class HttpTimings {
+    protected static Long _getDuration(final Long startedAt, final Long completedAt) {
+        if ( (startedAt == null) || (completedAt == null) ) { return null; }
+        return (completedAt - startedAt);
+    }
+
+    protected static void _appendDuration(final StringBuilder stringBuilder, final String name, final Long duration) {
+        if (duration == null) { return; }
+        if (stringBuilder.length() > 0) {
+            stringBuilder.append(", ");
+        }
+        stringBuilder.append(name);
+        stringBuilder.append(" ");
+        stringBuilder.append(String.format(Locale.ROOT, "%.3f", (duration / 1000000D)));
+        stringBuilder.append(" ms");
+    }
+
+    protected final Long _queuedAt;
+    protected volatile Long _startedAt = null;
+    protected volatile Long _dnsStartedAt = null;
+    protected volatile Long _dnsCompletedAt = null;
+    protected volatile Long _connectStartedAt = null;
+    protected volatile Long _connectCompletedAt = null;
+    protected volatile Long _tlsStartedAt = null;
+    protected volatile Long _tlsCompletedAt = null;
+    protected volatile Long _requestWrittenAt = null;
+    protected volatile Long _firstByteAt = null;
+    protected volatile Long _bodyCompletedAt = null;
+
+    protected HttpTimings(final Long queuedAt) {
+        _queuedAt = queuedAt;
+    }
+
+    /**
+     * Returns when the request was executed (i.e. before waiting for an execution thread or a ConcurrencyLimiter permit).
+     */
+    public Long getQueuedAt() {
+        return _queuedAt;
+    }
+
+    /**
+     * Returns when execution of the exchange began.
+     */
+    public Long getStartedAt() {
+        return _startedAt;
+    }
+
+    public Long getDnsStartedAt() {
+        return _dnsStartedAt;
+    }
+
+    public Long getDnsCompletedAt() {
+        return _dnsCompletedAt;
+    }
+
+    public Long getConnectStartedAt() {
+        return _connectStartedAt;
+    }
+
+    public Long getConnectCompletedAt() {
+        return _connectCompletedAt;
+    }
+
+    public Long getTlsStartedAt() {
+        return _tlsStartedAt;
+    }
+
+    public Long getTlsCompletedAt() {
+        return _tlsCompletedAt;
+    }
+
+    public Long getRequestWrittenAt() {
+        return _requestWrittenAt;
+    }
+
+    /**
+     * Returns when the response's head was received.
+     */
+    public Long getFirstByteAt() {
+        return _firstByteAt;
+    }
+
+    public Long getBodyCompletedAt() {
+        return _bodyCompletedAt;
+    }
+
+    /**
+     * Returns the nanoseconds spent waiting to be executed.
+     */
+    public Long getQueueDuration() {
+        return _getDuration(_queuedAt, _startedAt);
+    }
+
+    public Long getDnsDuration() {
+        return _getDuration(_dnsStartedAt, _dnsCompletedAt);
+    }
+
+    public Long getConnectDuration() {
+        return _getDuration(_connectStartedAt, _connectCompletedAt);
+    }
+
+    public Long getTlsDuration() {
+        return _getDuration(_tlsStartedAt, _tlsCompletedAt);
+    }
+
+    /**
+     * Returns the nanoseconds between writing the request and receiving the response's head (i.e. the server's processing time and the round-trip).
+     */
+    public Long getTimeToFirstByte() {
+        return _getDuration(_requestWrittenAt, _firstByteAt);
+    }
+
+    public Long getBodyDuration() {
+        return _getDuration(_firstByteAt, _bodyCompletedAt);
+    }
+
+    /**
+     * Returns the nanoseconds between queuing the request and completing its body, or null if the body is not yet complete.
+     */
+    public Long getTotalDuration() {
+        return _getDuration(_queuedAt, _bodyCompletedAt);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        _appendDuration(stringBuilder, "queue", getQueueDuration());
+        _appendDuration(stringBuilder, "dns", getDnsDuration());
+        _appendDuration(stringBuilder, "connect", getConnectDuration());
+        _appendDuration(stringBuilder, "tls", getTlsDuration());
+        _appendDuration(stringBuilder, "ttfb", getTimeToFirstByte());
+        _appendDuration(stringBuilder, "body", getBodyDuration());
+        _appendDuration(stringBuilder, "total", getTotalDuration());
+        return stringBuilder.toString();
+    }
+}
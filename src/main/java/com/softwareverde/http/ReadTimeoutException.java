@@ -0,0 +1,10 @@
+package com.softwareverde.http;
+
+/**
+ * Indicates a read of the response blocked for longer than the request's read timeout without receiving any data.
+ */
+public class ReadTimeoutException extends RequestTimeoutException {
+    public ReadTimeoutException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,236 @@
+package com.softwareverde.http;
+
+import com.softwareverde.constable.bytearray.ByteArray;
+import com.softwareverde.http.connection.ContentEncodingOutputStream;
+import com.softwareverde.http.connection.DeflaterPool;
+import com.softwareverde.http.connection.HttpBodyOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The body of a POST/PUT/PATCH request, written to the connection as the request is sent.
+ *  Bodies with an unknown length (i.e. a null content length) are sent with chunked transfer-encoding over HTTP/1.1.
+ *  Bodies that are not repeatable (e.g. those read from an InputStream) are never resent, so requests carrying them are not retried or redirected with their body.
+ */
+public abstract class RequestBody {
+    public interface Producer {
+        /**
+         * Writes the body to the OutputStream; the OutputStream must not be retained once the Producer returns.
+         */
+        void produce(OutputStream outputStream) throws IOException;
+    }
+
+    protected static final Integer BUFFER_BYTE_COUNT = 65536;
+
+    public static RequestBody fromByteArray(final ByteArray byteArray) {
+        return new ByteArrayBody(byteArray);
+    }
+
+    /**
+     * The InputStream is read (and closed) as the request is sent.
+     *  If contentLength is null, the body is sent with chunked transfer-encoding.
+     */
+    public static RequestBody fromInputStream(final InputStream inputStream, final Long contentLength) {
+        return new InputStreamBody(inputStream, contentLength);
+    }
+
+    /**
+     * The file is read as the request is sent; for cleartext HTTP/1.1 connections it is transferred via FileChannel::transferTo.
+     */
+    public static RequestBody fromPath(final Path path) throws IOException {
+        return new PathBody(path, Files.size(path));
+    }
+
+    /**
+     * The Producer is invoked each time the request is sent.
+     *  If contentLength is null, the body is sent with chunked transfer-encoding.
+     */
+    public static RequestBody fromProducer(final Producer producer, final Long contentLength) {
+        return new ProducerBody(producer, contentLength);
+    }
+
+    /**
+     * Returns a body that gzip-compresses the provided body as it is written; the compressed length is not known in advance.
+     *  The compressed body is repeatable if the provided body is repeatable.
+     *  The request must also be sent with "Content-Encoding: gzip".
+     */
+    public static RequestBody gzip(final RequestBody requestBody, final Integer level, final DeflaterPool deflaterPool) {
+        return new GzipBody(requestBody, level, deflaterPool);
+    }
+
+    /**
+     * Returns the number of bytes within the body, or null if the length is not known in advance.
+     */
+    public abstract Long getContentLength();
+
+    /**
+     * Returns true if the body may be written more than once (e.g. to follow a redirect, or to resend a request over a new connection).
+     */
+    public abstract Boolean isRepeatable();
+
+    public abstract void writeTo(OutputStream outputStream) throws IOException;
+
+    protected static class ByteArrayBody extends RequestBody {
+        protected final ByteArray _byteArray;
+
+        public ByteArrayBody(final ByteArray byteArray) {
+            _byteArray = byteArray;
+        }
+
+        @Override
+        public Long getContentLength() {
+            return (long) _byteArray.getByteCount();
+        }
+
+        @Override
+        public Boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(final OutputStream outputStream) throws IOException {
+            outputStream.write(_byteArray.getBytes());
+        }
+    }
+
+    protected static class InputStreamBody extends RequestBody {
+        protected final InputStream _inputStream;
+        protected final Long _contentLength;
+
+        public InputStreamBody(final InputStream inputStream, final Long contentLength) {
+            _inputStream = inputStream;
+            _contentLength = contentLength;
+        }
+
+        @Override
+        public Long getContentLength() {
+            return _contentLength;
+        }
+
+        @Override
+        public Boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public void writeTo(final OutputStream outputStream) throws IOException {
+            try (final InputStream inputStream = _inputStream) {
+                final byte[] buffer = new byte[BUFFER_BYTE_COUNT];
+                while (true) {
+                    final int byteCount = inputStream.read(buffer);
+                    if (byteCount < 0) { break; }
+                    outputStream.write(buffer, 0, byteCount);
+                }
+            }
+        }
+    }
+
+    protected static class PathBody extends RequestBody {
+        protected final Path _path;
+        protected final Long _byteCount;
+
+        public PathBody(final Path path, final Long byteCount) {
+            _path = path;
+            _byteCount = byteCount;
+        }
+
+        @Override
+        public Long getContentLength() {
+            return _byteCount;
+        }
+
+        @Override
+        public Boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(final OutputStream outputStream) throws IOException {
+            try (final FileChannel fileChannel = FileChannel.open(_path, StandardOpenOption.READ)) {
+                if (outputStream instanceof HttpBodyOutputStream) {
+                    ((HttpBodyOutputStream) outputStream).transferFrom(fileChannel, 0L, _byteCount);
+                    return;
+                }
+
+                final byte[] buffer = new byte[BUFFER_BYTE_COUNT];
+                final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                long position = 0L;
+                while (position < _byteCount) {
+                    byteBuffer.clear();
+                    byteBuffer.limit((int) Math.min(buffer.length, (_byteCount - position)));
+                    final int byteCount = fileChannel.read(byteBuffer, position);
+                    if (byteCount < 0) { throw new IOException("File ended with " + (_byteCount - position) + " bytes remaining."); }
+
+                    outputStream.write(buffer, 0, byteCount);
+                    position += byteCount;
+                }
+            }
+        }
+    }
+
+    protected static class ProducerBody extends RequestBody {
+        protected final Producer _producer;
+        protected final Long _contentLength;
+
+        public ProducerBody(final Producer producer, final Long contentLength) {
+            _producer = producer;
+            _contentLength = contentLength;
+        }
+
+        @Override
+        public Long getContentLength() {
+            return _contentLength;
+        }
+
+        @Override
+        public Boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(final OutputStream outputStream) throws IOException {
+            _producer.produce(outputStream);
+        }
+    }
+
+    protected static class GzipBody extends RequestBody {
+        protected final RequestBody _requestBody;
+        protected final Integer _level;
+        protected final DeflaterPool _deflaterPool;
+
+        public GzipBody(final RequestBody requestBody, final Integer level, final DeflaterPool deflaterPool) {
+            _requestBody = requestBody;
+            _level = level;
+            _deflaterPool = deflaterPool;
+        }
+
+        @Override
+        public Long getContentLength() {
+            return null;
+        }
+
+        @Override
+        public Boolean isRepeatable() {
+            return _requestBody.isRepeatable();
+        }
+
+        @Override
+        public void writeTo(final OutputStream outputStream) throws IOException {
+            final ContentEncodingOutputStream contentEncodingOutputStream = new ContentEncodingOutputStream(outputStream, _level, _deflaterPool);
+            try {
+                _requestBody.writeTo(contentEncodingOutputStream);
+                contentEncodingOutputStream.finish();
+            }
+            finally {
+                contentEncodingOutputStream.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.softwareverde.http;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Indicates the request did not complete within one of its configured timeouts.
+ *  Subclasses identify which timeout elapsed.
+ */
+public class RequestTimeoutException extends InterruptedIOException {
+    public RequestTimeoutException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,192 @@
+package com.softwareverde.http;
+
+import com.softwareverde.http.connection.HttpBodyInputStream;
+import com.softwareverde.util.IoUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directs a successful response's body to a file instead of HttpResponse::getRawResult.
+ *  For cleartext HTTP/1.1 responses with a Content-Length, the body is transferred from the socket to the file via FileChannel::transferFrom;
+ *  otherwise (e.g. TLS, chunked, or HTTP/2) the body is streamed to the file through a single reusable buffer.
+ *  When resuming is enabled and the file already contains bytes, the request asks for the remainder via a Range header;
+ *  if the server ignores the Range header, the file is rewritten from the beginning.
+ */
+public class ResponseBodyFile {
+    public interface ProgressCallback {
+        /**
+         * @param byteCount         the number of bytes within the file, including bytes retained from a previous (resumed) download.
+         * @param totalByteCount    the size of the complete file, or null if the server did not indicate the size.
+         */
+        void onProgress(Long byteCount, Long totalByteCount);
+    }
+
+    protected final Path _path;
+    protected Boolean _resumesDownload = false;
+    protected ProgressCallback _progressCallback = null;
+
+    protected static Long _parseLong(final String string) {
+        if (string == null) { return null; }
+        try {
+            return Long.parseLong(string.trim());
+        }
+        catch (final NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the first and last byte positions and the complete length described by a Content-Range header (e.g. "bytes 100-199/200").
+     *  Unknown values (i.e. an asterisk) are returned as null; returns null if the header is malformed.
+     */
+    protected static Long[] _parseContentRange(final String contentRange) {
+        if (contentRange == null) { return null; }
+
+        final String value = contentRange.trim();
+        if (! value.toLowerCase().startsWith("bytes ")) { return null; }
+
+        final int slashIndex = value.indexOf('/');
+        if (slashIndex < 0) { return null; }
+
+        final String range = value.substring(6, slashIndex).trim();
+        final String completeLength = value.substring(slashIndex + 1).trim();
+
+        final Long[] contentRangeValues = new Long[3];
+        if (! range.equals("*")) {
+            final int dashIndex = range.indexOf('-');
+            if (dashIndex < 0) { return null; }
+            contentRangeValues[0] = _parseLong(range.substring(0, dashIndex));
+            contentRangeValues[1] = _parseLong(range.substring(dashIndex + 1));
+            if ( (contentRangeValues[0] == null) || (contentRangeValues[1] == null) ) { return null; }
+        }
+        if (! completeLength.equals("*")) {
+            contentRangeValues[2] = _parseLong(completeLength);
+        }
+        return contentRangeValues;
+    }
+
+    protected void _onProgress(final Long byteCount, final Long totalByteCount) {
+        final ProgressCallback progressCallback = _progressCallback;
+        if (progressCallback == null) { return; }
+        progressCallback.onProgress(byteCount, totalByteCount);
+    }
+
+    public ResponseBodyFile(final Path path) {
+        _path = path;
+    }
+
+    public Path getPath() {
+        return _path;
+    }
+
+    public void setResumesDownload(final Boolean resumesDownload) {
+        _resumesDownload = resumesDownload;
+    }
+
+    public Boolean resumesDownload() {
+        return _resumesDownload;
+    }
+
+    public void setProgressCallback(final ProgressCallback progressCallback) {
+        _progressCallback = progressCallback;
+    }
+
+    /**
+     * Returns the byte position the download should resume from, or zero if the download should start from the beginning.
+     */
+    public Long getResumePosition() throws IOException {
+        if (! _resumesDownload) { return 0L; }
+        if (! Files.isRegularFile(_path)) { return 0L; }
+        return Files.size(_path);
+    }
+
+    /**
+     * Writes the response body to the file and returns true, or returns false if the response does not contain the file (e.g. an error response);
+     *  if false is returned, the body has not been consumed.
+     *  resumePosition is the position that was requested via the Range header (or zero).
+     */
+    public Boolean write(final Integer responseCode, final Map<String, List<String>> responseHeaders, final InputStream bodyInputStream, final Long resumePosition) throws IOException {
+        final long position;
+        final Long totalByteCount;
+        final boolean isAppending;
+
+        if ( (responseCode == 206) && (resumePosition > 0L) ) {
+            final Long[] contentRange = _parseContentRange(HttpRequest.getHeaderValue("Content-Range", responseHeaders));
+            if ( (contentRange == null) || (contentRange[0] == null) || (! contentRange[0].equals(resumePosition)) ) {
+                throw new IOException("Unexpected Content-Range for resumed download: " + HttpRequest.getHeaderValue("Content-Range", responseHeaders));
+            }
+            position = resumePosition;
+            totalByteCount = contentRange[2];
+            isAppending = true;
+        }
+        else if ( (responseCode == 416) && (resumePosition > 0L) ) {
+            // The requested range begins at (or beyond) the end of the resource; the file is complete if its size matches the resource's size.
+            final Long[] contentRange = _parseContentRange(HttpRequest.getHeaderValue("Content-Range", responseHeaders));
+            if ( (contentRange == null) || (! resumePosition.equals(contentRange[2])) ) { return false; }
+
+            try {
+                IoUtil.readStreamOrThrow(bodyInputStream);
+            }
+            finally {
+                bodyInputStream.close();
+            }
+
+            _onProgress(resumePosition, resumePosition);
+            return true;
+        }
+        else if ( (responseCode >= 200) && (responseCode < 300) && (responseCode != 206) ) {
+            position = 0L;
+            totalByteCount = _parseLong(HttpRequest.getHeaderValue("Content-Length", responseHeaders));
+            isAppending = false;
+        }
+        else {
+            return false;
+        }
+
+        final StandardOpenOption[] openOptions;
+        if (isAppending) {
+            openOptions = new StandardOpenOption[]{ StandardOpenOption.WRITE };
+        }
+        else {
+            openOptions = new StandardOpenOption[]{ StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING };
+        }
+
+        try (final FileChannel fileChannel = FileChannel.open(_path, openOptions)) {
+            if (isAppending) {
+                fileChannel.truncate(position); // Discards any bytes beyond the resumed position.
+            }
+
+            _onProgress(position, totalByteCount);
+
+            final long[] byteCount = new long[]{ position };
+            final HttpBodyInputStream.TransferCallback transferCallback = new HttpBodyInputStream.TransferCallback() {
+                @Override
+                public void onTransferred(final Long transferredByteCount) {
+                    byteCount[0] += transferredByteCount;
+                    _onProgress(byteCount[0], totalByteCount);
+                }
+            };
+
+            if (bodyInputStream instanceof HttpBodyInputStream) {
+                ((HttpBodyInputStream) bodyInputStream).transferTo(fileChannel, position, transferCallback);
+            }
+            else {
+                try {
+                    HttpBodyInputStream.transfer(bodyInputStream, fileChannel, position, transferCallback);
+                }
+                finally {
+                    bodyInputStream.close();
+                }
+            }
+        }
+
+        return true;
+    }
+}
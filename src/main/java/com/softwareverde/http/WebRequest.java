@@ -15,19 +15,20 @@ public class WebRequest extends HttpRequest {
     protected Map<String, List<String>> _arrayGetParams;
     protected Map<String, List<String>> _arrayPostParams;
 
+    @Override
     protected void _preExecute() {
         if (_queryString.isEmpty()) {
             _queryString = QueryStringParser.toString(_getParams, _arrayGetParams);
         }
 
-        if (_method == HttpMethod.POST) {
+        if ( (_method == HttpMethod.POST) && (_requestBody == null) ) {
             if (_postData.isEmpty()) {
                 _postData = MutableByteArray.wrap(StringUtil.stringToBytes(QueryStringParser.toString(_postParams, _arrayPostParams)));
             }
 
-            _headers.put("Content-Type", "application/x-www-form-urlencoded");
-            _headers.put("Charset", "UTF-8");
-            _headers.put("Content-Length", Integer.toString(_postData.getByteCount()));
+            _headers.set("Content-Type", "application/x-www-form-urlencoded");
+            _headers.set("Charset", "UTF-8");
+            _headers.set("Content-Length", Integer.toString(_postData.getByteCount()));
         }
     }
 
@@ -98,16 +99,4 @@ public class WebRequest extends HttpRequest {
         }
         return postParams;
     }
-
-    @Override
-    public HttpResponse execute() {
-        _preExecute();
-        return super.execute();
-    }
-
-    @Override
-    public void execute(final Callback callback) {
-        _preExecute();
-        super.execute(callback);
-    }
 }
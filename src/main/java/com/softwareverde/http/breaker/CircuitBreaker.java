@@ -0,0 +1,204 @@
+package com.softwareverde.http.breaker;
+
+import com.softwareverde.logging.Logger;
+
+/**
+ * Tracks the outcome of recent calls to a single origin and, once they are failing (or slow), rejects further calls
+ *  without attempting them until the origin has had time to recover (see CircuitBreakerPolicy).
+ */
+public class CircuitBreaker {
+    public enum State {
+        /**
+         * Calls are permitted, and their outcomes are recorded.
+         */
+        CLOSED,
+
+        /**
+         * Calls are rejected until the policy's openDuration has elapsed.
+         */
+        OPEN,
+
+        /**
+         * A limited number of trial calls are permitted to determine whether the origin has recovered.
+         */
+        HALF_OPEN
+    }
+
+    protected static final byte OUTCOME_FAILURE = 0x01;
+    protected static final byte OUTCOME_SLOW = 0x02;
+
+    protected final String _origin;
+    protected final CircuitBreakerPolicy _policy;
+    protected final byte[] _outcomes;
+
+    protected State _state = State.CLOSED;
+    protected Long _openedAt = null;
+    protected Integer _halfOpenPermitCount = 0;
+
+    protected Integer _callCount = 0;
+    protected Integer _nextOutcomeIndex = 0;
+    protected Integer _failureCount = 0;
+    protected Integer _slowCallCount = 0;
+
+    protected Long _rejectedCount = 0L;
+    protected Long _openedCount = 0L;
+
+    protected void _clearWindow() {
+        _callCount = 0;
+        _nextOutcomeIndex = 0;
+        _failureCount = 0;
+        _slowCallCount = 0;
+    }
+
+    protected void _transitionTo(final State state) {
+        if (_state != state) {
+            Logger.debug("Circuit breaker for " + _origin + " is now " + state + ".");
+        }
+
+        _state = state;
+        _halfOpenPermitCount = 0;
+        _clearWindow();
+
+        if (state == State.OPEN) {
+            _openedAt = System.nanoTime();
+            _openedCount += 1L;
+        }
+    }
+
+    protected void _record(final byte outcome) {
+        final int windowSize = _outcomes.length;
+        if (_callCount < windowSize) {
+            _callCount += 1;
+        }
+        else { // The oldest outcome leaves the window...
+            final byte oldestOutcome = _outcomes[_nextOutcomeIndex];
+            if ((oldestOutcome & OUTCOME_FAILURE) != 0) { _failureCount -= 1; }
+            if ((oldestOutcome & OUTCOME_SLOW) != 0) { _slowCallCount -= 1; }
+        }
+
+        _outcomes[_nextOutcomeIndex] = outcome;
+        _nextOutcomeIndex = ((_nextOutcomeIndex + 1) % windowSize);
+        if ((outcome & OUTCOME_FAILURE) != 0) { _failureCount += 1; }
+        if ((outcome & OUTCOME_SLOW) != 0) { _slowCallCount += 1; }
+    }
+
+    protected boolean _exceedsThresholds() {
+        final double failureRate = (_failureCount / (double) _callCount);
+        final double slowCallRate = (_slowCallCount / (double) _callCount);
+        return ( (failureRate >= _policy.getFailureRateThreshold()) || (slowCallRate >= _policy.getSlowCallRateThreshold()) );
+    }
+
+    public CircuitBreaker(final String origin, final CircuitBreakerPolicy policy) {
+        _origin = origin;
+        _policy = policy;
+        _outcomes = new byte[Math.max(1, policy.getSlidingWindowSize())];
+    }
+
+    public String getOrigin() {
+        return _origin;
+    }
+
+    public CircuitBreakerPolicy getPolicy() {
+        return _policy;
+    }
+
+    /**
+     * Returns true if a call may be made; every permitted call must be followed by CircuitBreaker::onResult or CircuitBreaker::onIgnored.
+     *  Returns false (and the call should fail immediately) while the breaker is open.
+     */
+    public synchronized Boolean tryAcquirePermission() {
+        if (_state == State.OPEN) {
+            final long openDuration = (_policy.getOpenDuration() * 1000000L);
+            if ((System.nanoTime() - _openedAt) < openDuration) {
+                _rejectedCount += 1L;
+                return false;
+            }
+
+            _transitionTo(State.HALF_OPEN);
+        }
+
+        if (_state == State.HALF_OPEN) {
+            if (_halfOpenPermitCount >= _policy.getHalfOpenCallCount()) {
+                _rejectedCount += 1L;
+                return false;
+            }
+            _halfOpenPermitCount += 1;
+        }
+
+        return true;
+    }
+
+    /**
+     * Records the outcome of a permitted call; duration is in nanoseconds.
+     */
+    public synchronized void onResult(final Long duration, final Boolean wasFailure) {
+        if (_state == State.OPEN) { return; } // The call was permitted before the breaker opened.
+
+        final boolean wasSlow = (duration > (_policy.getSlowCallDuration() * 1000000L));
+        _record((byte) ((wasFailure ? OUTCOME_FAILURE : 0x00) | (wasSlow ? OUTCOME_SLOW : 0x00)));
+
+        if (_state == State.HALF_OPEN) {
+            if (_callCount < _policy.getHalfOpenCallCount()) { return; }
+            _transitionTo(_exceedsThresholds() ? State.OPEN : State.CLOSED);
+            return;
+        }
+
+        if (_callCount < _policy.getMinimumCallCount()) { return; }
+        if (_exceedsThresholds()) {
+            _transitionTo(State.OPEN);
+        }
+    }
+
+    /**
+     * Releases the permission of a call whose outcome should not be recorded (e.g. it was cancelled).
+     */
+    public synchronized void onIgnored() {
+        if ( (_state == State.HALF_OPEN) && (_halfOpenPermitCount > 0) ) {
+            _halfOpenPermitCount -= 1;
+        }
+    }
+
+    /**
+     * Closes the breaker and clears its recorded outcomes.
+     */
+    public synchronized void reset() {
+        _transitionTo(State.CLOSED);
+    }
+
+    public synchronized State getState() {
+        if ( (_state == State.OPEN) && ((System.nanoTime() - _openedAt) >= (_policy.getOpenDuration() * 1000000L)) ) {
+            return State.HALF_OPEN; // NOTE: The transition happens when the next call is attempted.
+        }
+        return _state;
+    }
+
+    /**
+     * Returns the ratio of failed calls within the current window, or null if no calls have been recorded.
+     */
+    public synchronized Double getFailureRate() {
+        if (_callCount == 0) { return null; }
+        return (_failureCount / (double) _callCount);
+    }
+
+    /**
+     * Returns the ratio of slow calls within the current window, or null if no calls have been recorded.
+     */
+    public synchronized Double getSlowCallRate() {
+        if (_callCount == 0) { return null; }
+        return (_slowCallCount / (double) _callCount);
+    }
+
+    /**
+     * Returns the number of calls rejected because the breaker was open (or half-open with no trial calls remaining).
+     */
+    public synchronized Long getRejectedCount() {
+        return _rejectedCount;
+    }
+
+    /**
+     * Returns the number of times the breaker has opened.
+     */
+    public synchronized Long getOpenedCount() {
+        return _openedCount;
+    }
+}
@@ -0,0 +1,12 @@
+package com.softwareverde.http.breaker;
+
+import java.io.IOException;
+
+/**
+ * Indicates the request was not sent because the circuit breaker for its origin is open.
+ */
+public class CircuitBreakerOpenException extends IOException {
+    public CircuitBreakerOpenException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,118 @@
+package com.softwareverde.http.breaker;
+
+import com.softwareverde.util.Util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Configures when a CircuitBreaker opens, and how it recovers.
+ *  A breaker opens once at least minimumCallCount of its last slidingWindowSize calls have been recorded and either
+ *  failureRateThreshold of them failed or slowCallRateThreshold of them took longer than slowCallDuration.
+ *  After openDuration, the breaker is half-open and permits halfOpenCallCount trial calls; their outcome (evaluated against
+ *  the same thresholds) closes the breaker, or opens it again.
+ *  Failures are calls that could not be completed (e.g. connection failures and timeouts) and responses with a failure
+ *  status code (by default 502, 503, and 504).
+ */
+public class CircuitBreakerPolicy {
+    public static final Integer DEFAULT_SLIDING_WINDOW_SIZE = 100;
+    public static final Integer DEFAULT_MINIMUM_CALL_COUNT = 20;
+    public static final Double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5D;
+    public static final Double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 1.0D;
+    public static final Long DEFAULT_SLOW_CALL_DURATION_MS = 10000L;
+    public static final Long DEFAULT_OPEN_DURATION_MS = 30000L;
+    public static final Integer DEFAULT_HALF_OPEN_CALL_COUNT = 5;
+
+    protected static Set<Integer> _getDefaultFailureStatusCodes() {
+        final Set<Integer> statusCodes = new HashSet<Integer>();
+        statusCodes.add(502);
+        statusCodes.add(503);
+        statusCodes.add(504);
+        return statusCodes;
+    }
+
+    protected Integer _slidingWindowSize = DEFAULT_SLIDING_WINDOW_SIZE;
+    protected Integer _minimumCallCount = DEFAULT_MINIMUM_CALL_COUNT;
+    protected Double _failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    protected Double _slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+    protected Long _slowCallDuration = DEFAULT_SLOW_CALL_DURATION_MS;
+    protected Long _openDuration = DEFAULT_OPEN_DURATION_MS;
+    protected Integer _halfOpenCallCount = DEFAULT_HALF_OPEN_CALL_COUNT;
+    protected Set<Integer> _failureStatusCodes = _getDefaultFailureStatusCodes();
+
+    public CircuitBreakerPolicy() { }
+
+    /**
+     * Sets the number of most recent calls the failure and slow-call rates are calculated over, and the minimum number of calls
+     *  that must be recorded before the breaker may open.
+     */
+    public void setSlidingWindow(final Integer slidingWindowSize, final Integer minimumCallCount) {
+        _slidingWindowSize = slidingWindowSize;
+        _minimumCallCount = minimumCallCount;
+    }
+
+    public Integer getSlidingWindowSize() {
+        return _slidingWindowSize;
+    }
+
+    public Integer getMinimumCallCount() {
+        return _minimumCallCount;
+    }
+
+    /**
+     * Sets the ratio (between 0 and 1) of failed calls at which the breaker opens.
+     */
+    public void setFailureRateThreshold(final Double failureRateThreshold) {
+        _failureRateThreshold = failureRateThreshold;
+    }
+
+    public Double getFailureRateThreshold() {
+        return _failureRateThreshold;
+    }
+
+    /**
+     * Sets the ratio (between 0 and 1) of calls slower than slowCallDuration (in milliseconds) at which the breaker opens.
+     */
+    public void setSlowCallThreshold(final Double slowCallRateThreshold, final Long slowCallDuration) {
+        _slowCallRateThreshold = slowCallRateThreshold;
+        _slowCallDuration = slowCallDuration;
+    }
+
+    public Double getSlowCallRateThreshold() {
+        return _slowCallRateThreshold;
+    }
+
+    public Long getSlowCallDuration() {
+        return _slowCallDuration;
+    }
+
+    /**
+     * Sets the duration (in milliseconds) the breaker remains open (rejecting calls) before permitting trial calls.
+     */
+    public void setOpenDuration(final Long openDuration) {
+        _openDuration = openDuration;
+    }
+
+    public Long getOpenDuration() {
+        return _openDuration;
+    }
+
+    /**
+     * Sets the number of trial calls permitted while the breaker is half-open.
+     */
+    public void setHalfOpenCallCount(final Integer halfOpenCallCount) {
+        _halfOpenCallCount = halfOpenCallCount;
+    }
+
+    public Integer getHalfOpenCallCount() {
+        return _halfOpenCallCount;
+    }
+
+    public void setFailureStatusCodes(final Set<Integer> failureStatusCodes) {
+        _failureStatusCodes = Util.copySet(failureStatusCodes);
+    }
+
+    public Boolean isFailureStatusCode(final Integer statusCode) {
+        return _failureStatusCodes.contains(statusCode);
+    }
+}
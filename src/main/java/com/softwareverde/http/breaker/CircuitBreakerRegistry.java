@@ -0,0 +1,55 @@
+package com.softwareverde.http.breaker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains a CircuitBreaker for each origin, each configured by the registry's CircuitBreakerPolicy.
+ */
+public class CircuitBreakerRegistry {
+    protected final CircuitBreakerPolicy _policy;
+    protected final Map<String, CircuitBreaker> _circuitBreakers = new HashMap<String, CircuitBreaker>();
+
+    public CircuitBreakerRegistry() {
+        this(new CircuitBreakerPolicy());
+    }
+
+    public CircuitBreakerRegistry(final CircuitBreakerPolicy policy) {
+        _policy = policy;
+    }
+
+    public CircuitBreakerPolicy getPolicy() {
+        return _policy;
+    }
+
+    /**
+     * Returns the CircuitBreaker for the origin (e.g. "https://example.com"), creating it if necessary.
+     */
+    public synchronized CircuitBreaker getCircuitBreaker(final String origin) {
+        final CircuitBreaker existingCircuitBreaker = _circuitBreakers.get(origin);
+        if (existingCircuitBreaker != null) { return existingCircuitBreaker; }
+
+        final CircuitBreaker circuitBreaker = new CircuitBreaker(origin, _policy);
+        _circuitBreakers.put(origin, circuitBreaker);
+        return circuitBreaker;
+    }
+
+    public synchronized List<CircuitBreaker> getCircuitBreakers() {
+        return new ArrayList<CircuitBreaker>(_circuitBreakers.values());
+    }
+
+    /**
+     * Returns the number of origins whose CircuitBreaker is not closed.
+     */
+    public Integer getOpenCircuitBreakerCount() {
+        int openCount = 0;
+        for (final CircuitBreaker circuitBreaker : getCircuitBreakers()) {
+            if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+                openCount += 1;
+            }
+        }
+        return openCount;
+    }
+}
@@ -0,0 +1,149 @@
+package com.softwareverde.http.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The directives of a Cache-Control header (RFC 7234 Section 5.2), as sent with either a request or a response.
+ *  Unrecognized directives are ignored; durations are in seconds.
+ */
+public class CacheControl {
+    protected static List<String> _splitDirectives(final String value) {
+        final List<String> directives = new ArrayList<String>();
+        final StringBuilder directive = new StringBuilder();
+        boolean isQuoted = false;
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                isQuoted = (! isQuoted);
+            }
+            else if ( (c == ',') && (! isQuoted) ) {
+                directives.add(directive.toString().trim());
+                directive.setLength(0);
+                continue;
+            }
+            directive.append(c);
+        }
+        directives.add(directive.toString().trim());
+        return directives;
+    }
+
+    protected static Long _parseSeconds(final String value) {
+        if (value == null) { return null; }
+        try {
+            final long seconds = Long.parseLong(value.replace("\"", "").trim());
+            return Math.max(0L, seconds);
+        }
+        catch (final NumberFormatException exception) {
+            // NOTE: An invalid delta-seconds is treated as absent, except that a max-age that overflows is treated as the largest value (RFC 7234 Section 1.2.1).
+            return (value.trim().matches("[0-9]+") ? Long.MAX_VALUE : null);
+        }
+    }
+
+    /**
+     * Parses the values of every Cache-Control header; values may be null.
+     */
+    public static CacheControl parse(final List<String> values) {
+        final CacheControl cacheControl = new CacheControl();
+        if (values == null) { return cacheControl; }
+
+        for (final String value : values) {
+            if (value == null) { continue; }
+
+            for (final String directive : _splitDirectives(value)) {
+                if (directive.isEmpty()) { continue; }
+
+                final int equalsIndex = directive.indexOf('=');
+                final String name = (equalsIndex < 0 ? directive : directive.substring(0, equalsIndex)).trim().toLowerCase(Locale.ROOT);
+                final String argument = (equalsIndex < 0 ? null : directive.substring(equalsIndex + 1).trim());
+
+                switch (name) {
+                    case "no-store": { cacheControl._noStore = true; } break;
+                    case "no-cache": { cacheControl._noCache = true; } break;
+                    case "must-revalidate": { cacheControl._mustRevalidate = true; } break;
+                    case "public": { cacheControl._isPublic = true; } break;
+                    case "private": { cacheControl._isPrivate = true; } break;
+                    case "only-if-cached": { cacheControl._onlyIfCached = true; } break;
+                    case "immutable": { cacheControl._isImmutable = true; } break;
+                    case "max-age": { cacheControl._maxAge = _parseSeconds(argument); } break;
+                    case "s-maxage": { cacheControl._sharedMaxAge = _parseSeconds(argument); } break;
+                    case "min-fresh": { cacheControl._minFresh = _parseSeconds(argument); } break;
+                    case "max-stale": { // NOTE: A max-stale without a value accepts a response of any staleness.
+                        cacheControl._maxStale = (argument == null ? Long.MAX_VALUE : _parseSeconds(argument));
+                    } break;
+                }
+            }
+        }
+
+        return cacheControl;
+    }
+
+    protected Boolean _noStore = false;
+    protected Boolean _noCache = false;
+    protected Boolean _mustRevalidate = false;
+    protected Boolean _isPublic = false;
+    protected Boolean _isPrivate = false;
+    protected Boolean _onlyIfCached = false;
+    protected Boolean _isImmutable = false;
+    protected Long _maxAge = null;
+    protected Long _sharedMaxAge = null;
+    protected Long _maxStale = null;
+    protected Long _minFresh = null;
+
+    protected CacheControl() { }
+
+    public Boolean isNoStore() {
+        return _noStore;
+    }
+
+    public Boolean isNoCache() {
+        return _noCache;
+    }
+
+    public Boolean mustRevalidate() {
+        return _mustRevalidate;
+    }
+
+    public Boolean isPublic() {
+        return _isPublic;
+    }
+
+    public Boolean isPrivate() {
+        return _isPrivate;
+    }
+
+    public Boolean isOnlyIfCached() {
+        return _onlyIfCached;
+    }
+
+    public Boolean isImmutable() {
+        return _isImmutable;
+    }
+
+    /**
+     * Returns the max-age directive, or null if absent.
+     */
+    public Long getMaxAge() {
+        return _maxAge;
+    }
+
+    /**
+     * Returns the s-maxage directive, or null if absent.  The directive only applies to shared caches, but its presence permits
+     *  a response to a request with an Authorization header to be stored.
+     */
+    public Long getSharedMaxAge() {
+        return _sharedMaxAge;
+    }
+
+    /**
+     * Returns the max-stale request directive, or null if absent; Long.MAX_VALUE if the directive had no value.
+     */
+    public Long getMaxStale() {
+        return _maxStale;
+    }
+
+    public Long getMinFresh() {
+        return _minFresh;
+    }
+}
@@ -0,0 +1,362 @@
+package com.softwareverde.http.cache;
+
+import com.softwareverde.http.HttpHeaders;
+import com.softwareverde.http.connection.ResponseHead;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A stored response: its status, headers, (still content-encoded) body, the values of the request headers nominated by its Vary header,
+ *  and the times (in epoch milliseconds) the request was sent and the response was received, from which its age is calculated (RFC 7234 Section 4.2.3).
+ *  Entries are immutable; revalidating an entry creates a new one.
+ */
+public class CacheEntry {
+    protected static final Long MAX_HEURISTIC_FRESHNESS_LIFETIME_MS = (24L * 60L * 60L * 1000L);
+    protected static final Integer ENTRY_OVERHEAD_BYTE_COUNT = 256;
+
+    /**
+     * Returns true if the header is hop-by-hop (or describes the message's framing) and so is not stored.
+     */
+    protected static boolean _isUnstoredHeader(final String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "connection":
+            case "keep-alive":
+            case "proxy-connection":
+            case "proxy-authenticate":
+            case "te":
+            case "trailer":
+            case "transfer-encoding":
+            case "upgrade":
+            case "content-length":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the epoch milliseconds of the HTTP-date, or null if the value is absent or invalid.
+     */
+    protected static Long _parseDate(final String value) {
+        if (value == null) { return null; }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        }
+        catch (final Exception exception) {
+            return null;
+        }
+    }
+
+    protected static String _getHeaderValue(final Map<String, List<String>> headers, final String name) {
+        final List<String> values = headers.get(name);
+        if ( (values == null) || values.isEmpty() ) { return null; }
+        return values.get(0);
+    }
+
+    /**
+     * Returns the (lower-case) names of the request headers nominated by the Vary header; "*" if the response varies on something other than headers.
+     */
+    protected static List<String> _getVaryHeaderNames(final Map<String, List<String>> responseHeaders) {
+        final List<String> names = new ArrayList<String>(0);
+        final List<String> values = responseHeaders.get("Vary");
+        if (values == null) { return names; }
+
+        for (final String value : values) {
+            for (final String name : value.split(",")) {
+                final String trimmedName = name.trim().toLowerCase(Locale.ROOT);
+                if ( (! trimmedName.isEmpty()) && (! names.contains(trimmedName)) ) {
+                    names.add(trimmedName);
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Creates an entry for the response; the response's hop-by-hop headers are not stored, and its Content-Length is set to the length of the stored body.
+     *  The body must not be modified once provided.
+     */
+    public static CacheEntry newInstance(final String url, final HttpHeaders requestHeaders, final ResponseHead responseHead, final byte[] body, final Long requestTime, final Long responseTime) {
+        final Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        for (final Map.Entry<String, List<String>> header : responseHead.getHeaders().entrySet()) {
+            if (_isUnstoredHeader(header.getKey())) { continue; }
+            headers.put(header.getKey(), new ArrayList<String>(header.getValue()));
+        }
+        headers.put("Content-Length", Collections.singletonList(String.valueOf(body.length)));
+
+        final Map<String, String> varyHeaders = new LinkedHashMap<String, String>();
+        for (final String name : _getVaryHeaderNames(headers)) {
+            varyHeaders.put(name, requestHeaders.getValue(name));
+        }
+
+        return new CacheEntry(url, responseHead.getStatusCode(), responseHead.getReasonPhrase(), headers, varyHeaders, body, requestTime, responseTime);
+    }
+
+    protected final String _url;
+    protected final Integer _statusCode;
+    protected final String _reasonPhrase;
+    protected final Map<String, List<String>> _headers;
+    protected final Map<String, String> _varyHeaders;
+    protected final byte[] _body;
+    protected final Long _requestTime;
+    protected final Long _responseTime;
+    protected final CacheControl _cacheControl;
+
+    /**
+     * Returns the epoch milliseconds of the response's Date header, or the time the response was received if the header is absent (or invalid).
+     */
+    protected Long _getDate() {
+        final Long date = _parseDate(getHeaderValue("Date"));
+        return (date != null ? date : _responseTime);
+    }
+
+    public CacheEntry(final String url, final Integer statusCode, final String reasonPhrase, final Map<String, List<String>> headers, final Map<String, String> varyHeaders, final byte[] body, final Long requestTime, final Long responseTime) {
+        _url = url;
+        _statusCode = statusCode;
+        _reasonPhrase = reasonPhrase;
+        _headers = headers;
+        _varyHeaders = varyHeaders;
+        _body = body;
+        _requestTime = requestTime;
+        _responseTime = responseTime;
+        _cacheControl = CacheControl.parse(headers.get("Cache-Control"));
+    }
+
+    public String getUrl() {
+        return _url;
+    }
+
+    public Integer getStatusCode() {
+        return _statusCode;
+    }
+
+    public String getReasonPhrase() {
+        return _reasonPhrase;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return _headers;
+    }
+
+    public String getHeaderValue(final String name) {
+        return _getHeaderValue(_headers, name);
+    }
+
+    /**
+     * Returns the (lower-case) names of the request headers nominated by the response's Vary header, and the values they were sent with (null if not sent).
+     */
+    public Map<String, String> getVaryHeaders() {
+        return _varyHeaders;
+    }
+
+    public Integer getBodyByteCount() {
+        return _body.length;
+    }
+
+    public Long getRequestTime() {
+        return _requestTime;
+    }
+
+    public Long getResponseTime() {
+        return _responseTime;
+    }
+
+    public CacheControl getCacheControl() {
+        return _cacheControl;
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by the entry.
+     */
+    public Long getByteCount() {
+        long byteCount = (_body.length + ENTRY_OVERHEAD_BYTE_COUNT + _url.length());
+        for (final Map.Entry<String, List<String>> header : _headers.entrySet()) {
+            for (final String value : header.getValue()) {
+                byteCount += (header.getKey().length() + value.length());
+            }
+        }
+        return byteCount;
+    }
+
+    /**
+     * Returns true if the request nominates the same values for the headers within the response's Vary header (RFC 7234 Section 4.1).
+     */
+    public Boolean matches(final HttpHeaders requestHeaders) {
+        for (final Map.Entry<String, String> varyHeader : _varyHeaders.entrySet()) {
+            final String name = varyHeader.getKey();
+            if (name.equals("*")) { return false; }
+
+            final String value = requestHeaders.getValue(name);
+            final String storedValue = varyHeader.getValue();
+            if (value == null) {
+                if (storedValue != null) { return false; }
+            }
+            else if ( (storedValue == null) || (! value.trim().equals(storedValue.trim())) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the entry may be used in place of the response to the other entry's request (i.e. they are variants with identical Vary values).
+     */
+    public Boolean isSameVariant(final CacheEntry cacheEntry) {
+        return _varyHeaders.equals(cacheEntry._varyHeaders);
+    }
+
+    /**
+     * Returns the freshness lifetime (in milliseconds) of the response: max-age, otherwise Expires minus Date, otherwise 10% of the time since Last-Modified
+     *  (at most one day) for responses that are cacheable by default, otherwise zero.
+     */
+    public Long getFreshnessLifetime() {
+        final Long maxAge = _cacheControl.getMaxAge();
+        if (maxAge != null) {
+            return (maxAge >= (Long.MAX_VALUE / 1000L) ? Long.MAX_VALUE : (maxAge * 1000L));
+        }
+
+        final Long date = _getDate();
+        final String expiresValue = getHeaderValue("Expires");
+        if (expiresValue != null) {
+            final Long expires = _parseDate(expiresValue);
+            if (expires == null) { return 0L; } // NOTE: An invalid Expires (e.g. "0") represents a time in the past.
+            return Math.max(0L, (expires - date));
+        }
+
+        final Long lastModified = _parseDate(getHeaderValue("Last-Modified"));
+        if ( (lastModified != null) && HttpCache.isCacheableByDefault(_statusCode) ) {
+            return Math.min(MAX_HEURISTIC_FRESHNESS_LIFETIME_MS, (Math.max(0L, (date - lastModified)) / 10L));
+        }
+
+        return 0L;
+    }
+
+    /**
+     * Returns the age (in milliseconds) of the response at the provided time (RFC 7234 Section 4.2.3).
+     */
+    public Long getAge(final Long now) {
+        final Long date = _getDate();
+        final long apparentAge = Math.max(0L, (_responseTime - date));
+
+        long ageValue = 0L;
+        final String age = getHeaderValue("Age");
+        if (age != null) {
+            final Long ageSeconds = CacheControl._parseSeconds(age);
+            if (ageSeconds != null) {
+                ageValue = (ageSeconds >= (Long.MAX_VALUE / 1000L) ? (Long.MAX_VALUE / 2L) : (ageSeconds * 1000L));
+            }
+        }
+
+        final long responseDelay = Math.max(0L, (_responseTime - _requestTime));
+        final long correctedInitialAge = Math.max(apparentAge, (ageValue + responseDelay));
+        final long residentTime = Math.max(0L, (now - _responseTime));
+        return (correctedInitialAge + residentTime);
+    }
+
+    /**
+     * Returns true if the entry may be served without revalidation, given the request's Cache-Control directives.
+     */
+    public Boolean isFresh(final CacheControl requestCacheControl, final Long now) {
+        if (_cacheControl.isNoCache()) { return false; }
+        if (requestCacheControl.isNoCache()) { return false; }
+
+        long freshnessLifetime = getFreshnessLifetime();
+        final Long maxAge = requestCacheControl.getMaxAge();
+        if (maxAge != null) {
+            freshnessLifetime = Math.min(freshnessLifetime, (maxAge >= (Long.MAX_VALUE / 1000L) ? Long.MAX_VALUE : (maxAge * 1000L)));
+        }
+
+        long age = getAge(now);
+        final Long minFresh = requestCacheControl.getMinFresh();
+        if (minFresh != null) {
+            age += Math.min((Long.MAX_VALUE / 2L), (minFresh * 1000L));
+        }
+
+        long maxStaleness = 0L;
+        final Long maxStale = requestCacheControl.getMaxStale();
+        if ( (maxStale != null) && (! _cacheControl.mustRevalidate()) ) {
+            maxStaleness = Math.min((Long.MAX_VALUE / 2L), (maxStale >= (Long.MAX_VALUE / 1000L) ? Long.MAX_VALUE : (maxStale * 1000L)));
+        }
+
+        if (freshnessLifetime >= (Long.MAX_VALUE / 2L)) { return true; }
+        return (age < (freshnessLifetime + maxStaleness));
+    }
+
+    /**
+     * Returns true if the entry has an ETag or Last-Modified header, and so may be revalidated with a conditional request.
+     */
+    public Boolean hasValidator() {
+        return ( (getHeaderValue("ETag") != null) || (getHeaderValue("Last-Modified") != null) );
+    }
+
+    /**
+     * Returns the headers that make a request conditional upon the entry having been modified (RFC 7232 Section 3).
+     */
+    public HttpHeaders getConditionalHeaders() {
+        final HttpHeaders conditionalHeaders = new HttpHeaders(2);
+
+        final String eTag = getHeaderValue("ETag");
+        if (eTag != null) {
+            conditionalHeaders.add("If-None-Match", eTag);
+        }
+
+        final String lastModified = getHeaderValue("Last-Modified");
+        if (lastModified != null) {
+            conditionalHeaders.add("If-Modified-Since", lastModified);
+        }
+
+        return conditionalHeaders;
+    }
+
+    /**
+     * Returns a new entry for the same body, whose headers have been updated by the 304 (Not Modified) response (RFC 7234 Section 4.3.4).
+     */
+    public CacheEntry revalidate(final ResponseHead notModifiedResponseHead, final Long requestTime, final Long responseTime) {
+        final Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(_headers);
+        for (final Map.Entry<String, List<String>> header : notModifiedResponseHead.getHeaders().entrySet()) {
+            final String name = header.getKey();
+            if (_isUnstoredHeader(name)) { continue; }
+            if (name.equalsIgnoreCase("Content-Encoding")) { continue; } // The stored body is not re-encoded.
+            headers.put(name, new ArrayList<String>(header.getValue()));
+        }
+
+        return new CacheEntry(_url, _statusCode, _reasonPhrase, headers, _varyHeaders, _body, requestTime, responseTime);
+    }
+
+    /**
+     * Returns the head of a response served from the entry, including its current Age.
+     */
+    public ResponseHead newResponseHead(final Long now) {
+        final ResponseHead responseHead = new ResponseHead("HTTP/1.1", _statusCode, _reasonPhrase);
+        for (final Map.Entry<String, List<String>> header : _headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase("Age")) { continue; }
+            for (final String value : header.getValue()) {
+                responseHead.addHeader(header.getKey(), value);
+            }
+        }
+        responseHead.addHeader("Age", String.valueOf(getAge(now) / 1000L));
+        return responseHead;
+    }
+
+    public InputStream newBodyInputStream() {
+        return new ByteArrayInputStream(_body);
+    }
+
+    /**
+     * Returns the stored body; the array must not be modified.
+     */
+    protected byte[] _getBody() {
+        return _body;
+    }
+}
@@ -0,0 +1,326 @@
+package com.softwareverde.http.cache;
+
+import com.softwareverde.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The disk tier of an HttpCache: the variants of each url evicted from memory are written to a file within the directory,
+ *  and are read back (via a FileChannel, directly into a single buffer) when the url is requested again,
+ *  at which point they are promoted back to memory and the file is deleted.
+ *  Files are evicted least-recently-used once the directory exceeds its byte limit; files left by a previous process are reused.
+ */
+public class DiskCacheTier {
+    protected static final Integer MAGIC = 0x48434531;
+    protected static final String FILE_EXTENSION = ".entry";
+
+    protected static String _getFileName(final String url) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            final byte[] hash = messageDigest.digest(url.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder fileName = new StringBuilder();
+            for (final byte b : hash) {
+                fileName.append(String.format("%02x", (b & 0xFF)));
+            }
+            fileName.append(FILE_EXTENSION);
+            return fileName.toString();
+        }
+        catch (final Exception exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    protected static void _writeString(final DataOutputStream outputStream, final String value) throws IOException {
+        if (value == null) {
+            outputStream.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    protected static String _readString(final ByteBuffer byteBuffer) {
+        final int byteCount = byteBuffer.getInt();
+        if (byteCount < 0) { return null; }
+
+        final byte[] bytes = new byte[byteCount];
+        byteBuffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    protected static byte[] _serialize(final String url, final List<CacheEntry> cacheEntries) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream);
+        outputStream.writeInt(MAGIC);
+        _writeString(outputStream, url);
+        outputStream.writeInt(cacheEntries.size());
+
+        for (final CacheEntry cacheEntry : cacheEntries) {
+            outputStream.writeInt(cacheEntry.getStatusCode());
+            _writeString(outputStream, cacheEntry.getReasonPhrase());
+            outputStream.writeLong(cacheEntry.getRequestTime());
+            outputStream.writeLong(cacheEntry.getResponseTime());
+
+            final List<String> headers = new ArrayList<String>();
+            for (final Map.Entry<String, List<String>> header : cacheEntry.getHeaders().entrySet()) {
+                for (final String value : header.getValue()) {
+                    headers.add(header.getKey());
+                    headers.add(value);
+                }
+            }
+            outputStream.writeInt(headers.size() / 2);
+            for (final String value : headers) {
+                _writeString(outputStream, value);
+            }
+
+            final Map<String, String> varyHeaders = cacheEntry.getVaryHeaders();
+            outputStream.writeInt(varyHeaders.size());
+            for (final Map.Entry<String, String> varyHeader : varyHeaders.entrySet()) {
+                _writeString(outputStream, varyHeader.getKey());
+                _writeString(outputStream, varyHeader.getValue());
+            }
+
+            final byte[] body = cacheEntry._getBody();
+            outputStream.writeInt(body.length);
+            outputStream.write(body);
+        }
+
+        outputStream.flush();
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Reads the file into a heap buffer.
+     *  The file is not memory-mapped, since a mapping remains live (preventing the file's deletion on some platforms) until the buffer is garbage collected.
+     */
+    protected static ByteBuffer _read(final Path path) throws IOException {
+        try (final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long byteCount = fileChannel.size();
+            if (byteCount > Integer.MAX_VALUE) { throw new IOException("Cache entry too large."); }
+
+            final ByteBuffer byteBuffer = ByteBuffer.allocate((int) byteCount);
+            while (byteBuffer.hasRemaining()) {
+                if (fileChannel.read(byteBuffer) < 0) { throw new IOException("Unexpected end of cache entry."); }
+            }
+            byteBuffer.flip();
+            return byteBuffer;
+        }
+    }
+
+    /**
+     * Returns the url stored within the file.
+     */
+    protected static String _readUrl(final ByteBuffer byteBuffer) throws IOException {
+        if (byteBuffer.getInt() != MAGIC) { throw new IOException("Invalid cache entry."); }
+        return _readString(byteBuffer);
+    }
+
+    protected static List<CacheEntry> _deserialize(final ByteBuffer byteBuffer) throws IOException {
+        final String url = _readUrl(byteBuffer);
+        final int entryCount = byteBuffer.getInt();
+
+        final List<CacheEntry> cacheEntries = new ArrayList<CacheEntry>(entryCount);
+        for (int i = 0; i < entryCount; ++i) {
+            final Integer statusCode = byteBuffer.getInt();
+            final String reasonPhrase = _readString(byteBuffer);
+            final Long requestTime = byteBuffer.getLong();
+            final Long responseTime = byteBuffer.getLong();
+
+            final Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+            final int headerCount = byteBuffer.getInt();
+            for (int j = 0; j < headerCount; ++j) {
+                final String name = _readString(byteBuffer);
+                final String value = _readString(byteBuffer);
+                List<String> values = headers.get(name);
+                if (values == null) {
+                    values = new ArrayList<String>(1);
+                    headers.put(name, values);
+                }
+                values.add(value);
+            }
+
+            final Map<String, String> varyHeaders = new LinkedHashMap<String, String>();
+            final int varyHeaderCount = byteBuffer.getInt();
+            for (int j = 0; j < varyHeaderCount; ++j) {
+                final String name = _readString(byteBuffer);
+                varyHeaders.put(name, _readString(byteBuffer));
+            }
+
+            final byte[] body = new byte[byteBuffer.getInt()];
+            byteBuffer.get(body);
+
+            cacheEntries.add(new CacheEntry(url, statusCode, reasonPhrase, headers, varyHeaders, body, requestTime, responseTime));
+        }
+        return cacheEntries;
+    }
+
+    protected final Path _directory;
+    protected final Long _maxByteCount;
+    protected final LinkedHashMap<String, Long> _fileByteCounts = new LinkedHashMap<String, Long>(16, 0.75F, true);
+    protected Long _byteCount = 0L;
+
+    protected void _delete(final String url) {
+        final Long byteCount = _fileByteCounts.remove(url);
+        if (byteCount == null) { return; }
+        _byteCount -= byteCount;
+
+        try {
+            Files.deleteIfExists(_directory.resolve(_getFileName(url)));
+        }
+        catch (final IOException exception) {
+            Logger.debug("Unable to delete cache entry.", exception);
+        }
+    }
+
+    protected void _evict() {
+        final Iterator<String> iterator = _fileByteCounts.keySet().iterator();
+        while ( (_byteCount > _maxByteCount) && iterator.hasNext() ) {
+            final String url = iterator.next();
+            final Long byteCount = _fileByteCounts.get(url);
+            iterator.remove();
+            _byteCount -= byteCount;
+
+            try {
+                Files.deleteIfExists(_directory.resolve(_getFileName(url)));
+            }
+            catch (final IOException exception) {
+                Logger.debug("Unable to delete cache entry.", exception);
+            }
+        }
+    }
+
+    /**
+     * Indexes the entries left within the directory by a previous process, oldest first; unreadable entries are deleted.
+     */
+    protected void _loadIndex() {
+        final File[] files = _directory.toFile().listFiles();
+        if (files == null) { return; }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File file0, final File file1) {
+                return Long.compare(file0.lastModified(), file1.lastModified());
+            }
+        });
+
+        for (final File file : files) {
+            if (! file.getName().endsWith(FILE_EXTENSION)) { continue; }
+
+            try {
+                final String url = _readUrl(_read(file.toPath()));
+                if (! file.getName().equals(_getFileName(url))) { throw new IOException("Invalid cache entry name."); }
+
+                _fileByteCounts.put(url, file.length());
+                _byteCount += file.length();
+            }
+            catch (final IOException | BufferUnderflowException exception) {
+                Logger.debug("Discarding unreadable cache entry: " + file, exception);
+                file.delete();
+            }
+        }
+
+        _evict();
+    }
+
+    public DiskCacheTier(final Path directory, final Long maxByteCount) throws IOException {
+        _directory = directory;
+        _maxByteCount = maxByteCount;
+
+        Files.createDirectories(directory);
+        _loadIndex();
+    }
+
+    public Path getDirectory() {
+        return _directory;
+    }
+
+    /**
+     * Writes the variants of the url to disk, replacing any previously written for the url.
+     */
+    public synchronized void put(final String url, final List<CacheEntry> cacheEntries) {
+        _delete(url);
+
+        try {
+            final byte[] bytes = _serialize(url, cacheEntries);
+            if (bytes.length > _maxByteCount) { return; }
+
+            // NOTE: The entry is written to a temporary file first so a partially written entry is never read (or indexed by a later process).
+            final Path path = _directory.resolve(_getFileName(url));
+            final Path temporaryPath = _directory.resolve(_getFileName(url) + ".tmp");
+            Files.write(temporaryPath, bytes);
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            _fileByteCounts.put(url, (long) bytes.length);
+            _byteCount += bytes.length;
+            _evict();
+        }
+        catch (final IOException exception) {
+            Logger.debug("Unable to write cache entry.", exception);
+        }
+    }
+
+    /**
+     * Removes and returns the variants of the url written to disk, or null if there are none.
+     */
+    public synchronized List<CacheEntry> remove(final String url) {
+        if (! _fileByteCounts.containsKey(url)) { return null; }
+
+        try {
+            return _deserialize(_read(_directory.resolve(_getFileName(url))));
+        }
+        catch (final IOException | BufferUnderflowException exception) {
+            Logger.debug("Unable to read cache entry.", exception);
+            return null;
+        }
+        finally {
+            _delete(url);
+        }
+    }
+
+    /**
+     * Deletes the variants of the url written to disk, if any.
+     */
+    public synchronized void delete(final String url) {
+        _delete(url);
+    }
+
+    public synchronized Boolean contains(final String url) {
+        return _fileByteCounts.containsKey(url);
+    }
+
+    public synchronized void clear() {
+        for (final String url : new ArrayList<String>(_fileByteCounts.keySet())) {
+            _delete(url);
+        }
+    }
+
+    public synchronized Integer getEntryCount() {
+        return _fileByteCounts.size();
+    }
+
+    public synchronized Long getByteCount() {
+        return _byteCount;
+    }
+}
@@ -0,0 +1,578 @@
+package com.softwareverde.http.cache;
+
+import com.softwareverde.http.HttpHeaders;
+import com.softwareverde.http.connection.ResponseHead;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A private HTTP cache (RFC 7234) of GET responses, keyed by url and (via the Vary header) the request headers the response varies upon.
+ *  Fresh responses are served without contacting the origin; stale responses with an ETag (or Last-Modified) are revalidated with a conditional request,
+ *  and are served from the cache if the origin responds 304 (Not Modified).
+ *  Responses are retained within memory (least-recently-used, up to maxMemoryByteCount), and, if a directory is provided,
+ *  responses evicted from memory are retained on disk (up to maxDiskByteCount) until they are requested again (see DiskCacheTier).
+ *  Bodies are stored as received (i.e. before any Content-Encoding is decoded).
+ */
+public class HttpCache {
+    public static final Integer MAX_VARIANT_COUNT = 8;
+
+    /**
+     * Returns true if responses with the status code may be stored without explicit freshness information (RFC 7231 Section 6.1).
+     */
+    public static Boolean isCacheableByDefault(final Integer statusCode) {
+        if (statusCode == null) { return false; }
+        switch (statusCode) {
+            case 200:
+            case 203:
+            case 204:
+            case 300:
+            case 301:
+            case 308:
+            case 404:
+            case 405:
+            case 410:
+            case 414:
+            case 501:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    protected static CacheControl _getRequestCacheControl(final HttpHeaders requestHeaders) {
+        final String cacheControlValue = requestHeaders.getValue("Cache-Control");
+        final CacheControl cacheControl = CacheControl.parse(Collections.singletonList(cacheControlValue));
+        if (cacheControlValue == null) { // NOTE: "Pragma: no-cache" is only honored when Cache-Control is absent (RFC 7234 Section 5.4).
+            final String pragma = requestHeaders.getValue("Pragma");
+            if ( (pragma != null) && pragma.toLowerCase(Locale.ROOT).contains("no-cache") ) {
+                cacheControl._noCache = true;
+            }
+        }
+        return cacheControl;
+    }
+
+    protected static ResponseHead _copyResponseHead(final ResponseHead responseHead) {
+        final ResponseHead copiedResponseHead = new ResponseHead(responseHead.getHttpVersion(), responseHead.getStatusCode(), responseHead.getReasonPhrase());
+        for (final Map.Entry<String, List<String>> header : responseHead.getHeaders().entrySet()) {
+            for (final String value : header.getValue()) {
+                copiedResponseHead.addHeader(header.getKey(), value);
+            }
+        }
+        return copiedResponseHead;
+    }
+
+    /**
+     * The result of HttpCache::lookup.
+     */
+    public static class Lookup {
+        protected final CacheEntry _cacheEntry;
+        protected final Boolean _isFresh;
+        protected final Boolean _isOnlyIfCached;
+
+        protected Lookup(final CacheEntry cacheEntry, final Boolean isFresh, final Boolean isOnlyIfCached) {
+            _cacheEntry = cacheEntry;
+            _isFresh = isFresh;
+            _isOnlyIfCached = isOnlyIfCached;
+        }
+
+        /**
+         * Returns the entry to serve without contacting the origin, or null if there is no fresh entry.
+         */
+        public CacheEntry getFreshEntry() {
+            return (_isFresh ? _cacheEntry : null);
+        }
+
+        /**
+         * Returns the stale entry the request should be made conditional upon (see CacheEntry::getConditionalHeaders), or null if there is none.
+         */
+        public CacheEntry getStaleEntry() {
+            if ( _isFresh || _isOnlyIfCached ) { return null; }
+            if ( (_cacheEntry == null) || (! _cacheEntry.hasValidator()) ) { return null; }
+            return _cacheEntry;
+        }
+
+        /**
+         * Returns true if the request may not contact the origin ("Cache-Control: only-if-cached") and there is no fresh entry,
+         *  in which case the request should be answered with a 504 (Gateway Timeout).
+         */
+        public Boolean isUnsatisfiable() {
+            return ( _isOnlyIfCached && (! _isFresh) );
+        }
+    }
+
+    /**
+     * Captures the body as it is read by the caller; once the body has been fully read, the response is stored.
+     *  The response is not stored if the stream is closed before the body is fully read, or if the body exceeds the maximum entry size.
+     */
+    protected class CachingInputStream extends FilterInputStream {
+        protected final String _url;
+        protected final HttpHeaders _requestHeaders;
+        protected final ResponseHead _responseHead;
+        protected final Long _requestTime;
+        protected final Long _responseTime;
+        protected ByteArrayOutputStream _body = new ByteArrayOutputStream();
+
+        protected void _capture(final byte[] buffer, final int offset, final int length) {
+            if ( (_body == null) || (length <= 0) ) { return; }
+
+            if ((_body.size() + length) > _maxEntryByteCount) {
+                _body = null;
+                return;
+            }
+            _body.write(buffer, offset, length);
+        }
+
+        protected void _store() {
+            if (_body == null) { return; }
+
+            final byte[] body = _body.toByteArray();
+            _body = null;
+            _put(CacheEntry.newInstance(_url, _requestHeaders, _responseHead, body, _requestTime, _responseTime));
+        }
+
+        protected CachingInputStream(final InputStream inputStream, final String url, final HttpHeaders requestHeaders, final ResponseHead responseHead, final Long requestTime, final Long responseTime) {
+            super(inputStream);
+            _url = url;
+            _requestHeaders = HttpHeaders.copyOf(requestHeaders);
+            _responseHead = _copyResponseHead(responseHead); // NOTE: The caller may modify the response's headers (e.g. once its Content-Encoding is decoded).
+            _requestTime = requestTime;
+            _responseTime = responseTime;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int value = super.read();
+            if (value < 0) {
+                _store();
+            }
+            else {
+                _capture(new byte[]{ (byte) value }, 0, 1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int byteCount = super.read(buffer, offset, length);
+            if (byteCount < 0) {
+                _store();
+            }
+            else {
+                _capture(buffer, offset, byteCount);
+            }
+            return byteCount;
+        }
+
+        @Override
+        public long skip(final long byteCount) throws IOException {
+            _body = null; // The skipped bytes are not captured.
+            return super.skip(byteCount);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                // NOTE: A decoder may stop reading once the encoded content ends, without reading the end of the body; the body is complete if it matches its Content-Length.
+                final ByteArrayOutputStream body = _body;
+                final String contentLength = _responseHead.getHeaderValue("Content-Length");
+                if ( (body != null) && (contentLength != null) && contentLength.trim().equals(String.valueOf(body.size())) ) {
+                    _store();
+                }
+            }
+            finally {
+                _body = null;
+                super.close();
+            }
+        }
+    }
+
+    protected static class UrlGuard {
+        public Integer holderCount = 0;
+    }
+
+    protected final Long _maxMemoryByteCount;
+    protected final DiskCacheTier _diskCacheTier;
+    protected volatile Long _maxEntryByteCount;
+
+    protected final LinkedHashMap<String, List<CacheEntry>> _memoryEntries = new LinkedHashMap<String, List<CacheEntry>>(16, 0.75F, true);
+    protected Long _memoryByteCount = 0L;
+    protected final Map<String, UrlGuard> _urlGuards = new HashMap<String, UrlGuard>();
+
+    protected Long _hitCount = 0L;
+    protected Long _missCount = 0L;
+    protected Long _revalidationCount = 0L;
+    protected Long _notModifiedCount = 0L;
+    protected Long _storeCount = 0L;
+
+    protected CacheEntry _getMatchingEntry(final List<CacheEntry> cacheEntries, final HttpHeaders requestHeaders) {
+        if (cacheEntries == null) { return null; }
+
+        // NOTE: The most recently stored matching variant is preferred (RFC 7234 Section 4.1).
+        for (int i = (cacheEntries.size() - 1); i >= 0; --i) {
+            final CacheEntry cacheEntry = cacheEntries.get(i);
+            if (cacheEntry.matches(requestHeaders)) { return cacheEntry; }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the entry to memory, replacing the url's variant with the same Vary values, and returns the urls evicted from memory.
+     *  Must be invoked while synchronized.
+     */
+    protected Map<String, List<CacheEntry>> _putMemoryEntry(final CacheEntry cacheEntry) {
+        final String url = cacheEntry.getUrl();
+        List<CacheEntry> cacheEntries = _memoryEntries.get(url);
+        if (cacheEntries == null) {
+            cacheEntries = new ArrayList<CacheEntry>(1);
+            _memoryEntries.put(url, cacheEntries);
+        }
+
+        final Iterator<CacheEntry> iterator = cacheEntries.iterator();
+        while (iterator.hasNext()) {
+            final CacheEntry existingCacheEntry = iterator.next();
+            if (existingCacheEntry.isSameVariant(cacheEntry)) {
+                iterator.remove();
+                _memoryByteCount -= existingCacheEntry.getByteCount();
+            }
+        }
+        if (cacheEntries.size() >= MAX_VARIANT_COUNT) {
+            final CacheEntry oldestCacheEntry = cacheEntries.remove(0);
+            _memoryByteCount -= oldestCacheEntry.getByteCount();
+        }
+
+        cacheEntries.add(cacheEntry);
+        _memoryByteCount += cacheEntry.getByteCount();
+
+        final Map<String, List<CacheEntry>> evictedEntries = new LinkedHashMap<String, List<CacheEntry>>(0);
+        final Iterator<Map.Entry<String, List<CacheEntry>>> entryIterator = _memoryEntries.entrySet().iterator();
+        while ( (_memoryByteCount > _maxMemoryByteCount) && entryIterator.hasNext() ) {
+            final Map.Entry<String, List<CacheEntry>> entry = entryIterator.next();
+            entryIterator.remove();
+            for (final CacheEntry evictedCacheEntry : entry.getValue()) {
+                _memoryByteCount -= evictedCacheEntry.getByteCount();
+            }
+            evictedEntries.put(entry.getKey(), entry.getValue());
+        }
+        return evictedEntries;
+    }
+
+    protected void _put(final CacheEntry cacheEntry) {
+        final Map<String, List<CacheEntry>> evictedEntries;
+        synchronized (this) {
+            evictedEntries = _putMemoryEntry(cacheEntry);
+            _storeCount += 1L;
+        }
+
+        if (_diskCacheTier != null) {
+            // NOTE: The url's memory entries supersede any previously written to disk.
+            if (! evictedEntries.containsKey(cacheEntry.getUrl())) {
+                _diskCacheTier.delete(cacheEntry.getUrl());
+            }
+
+            for (final Map.Entry<String, List<CacheEntry>> evictedEntry : evictedEntries.entrySet()) {
+                _diskCacheTier.put(evictedEntry.getKey(), evictedEntry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the guard serializing the promotion of the url's entries from disk, registering the caller as one of its holders.
+     *  Must be invoked while synchronized.
+     */
+    protected UrlGuard _acquireUrlGuard(final String url) {
+        UrlGuard urlGuard = _urlGuards.get(url);
+        if (urlGuard == null) {
+            urlGuard = new UrlGuard();
+            _urlGuards.put(url, urlGuard);
+        }
+        urlGuard.holderCount += 1;
+        return urlGuard;
+    }
+
+    protected synchronized void _releaseUrlGuard(final String url, final UrlGuard urlGuard) {
+        urlGuard.holderCount -= 1;
+        if (urlGuard.holderCount == 0) {
+            _urlGuards.remove(url);
+        }
+    }
+
+    protected CacheEntry _get(final String url, final HttpHeaders requestHeaders) {
+        final UrlGuard urlGuard;
+        synchronized (this) {
+            final List<CacheEntry> cacheEntries = _memoryEntries.get(url);
+            if (cacheEntries != null) {
+                return _getMatchingEntry(cacheEntries, requestHeaders);
+            }
+
+            if (_diskCacheTier == null) { return null; }
+            urlGuard = _acquireUrlGuard(url);
+        }
+
+        try {
+            // NOTE: Concurrent lookups of the url wait while its entries are promoted from disk, rather than missing while they are neither on disk nor in memory.
+            synchronized (urlGuard) {
+                synchronized (this) {
+                    final List<CacheEntry> cacheEntries = _memoryEntries.get(url);
+                    if (cacheEntries != null) {
+                        return _getMatchingEntry(cacheEntries, requestHeaders);
+                    }
+                }
+
+                final List<CacheEntry> diskEntries = _diskCacheTier.remove(url);
+                if (diskEntries == null) { return null; }
+
+                final Map<String, List<CacheEntry>> evictedEntries = new LinkedHashMap<String, List<CacheEntry>>(0);
+                synchronized (this) {
+                    // The url's entries are promoted to memory, unless the url was stored while they were read (in which case they are superseded).
+                    final List<CacheEntry> cacheEntries = _memoryEntries.get(url);
+                    if (cacheEntries != null) {
+                        return _getMatchingEntry(cacheEntries, requestHeaders);
+                    }
+
+                    for (final CacheEntry diskEntry : diskEntries) {
+                        if (diskEntry.getByteCount() > _maxMemoryByteCount) { continue; }
+                        evictedEntries.putAll(_putMemoryEntry(diskEntry));
+                    }
+                }
+                for (final Map.Entry<String, List<CacheEntry>> evictedEntry : evictedEntries.entrySet()) {
+                    _diskCacheTier.put(evictedEntry.getKey(), evictedEntry.getValue());
+                }
+
+                return _getMatchingEntry(diskEntries, requestHeaders);
+            }
+        }
+        finally {
+            _releaseUrlGuard(url, urlGuard);
+        }
+    }
+
+    /**
+     * Creates a cache retained only within memory.
+     */
+    public HttpCache(final Long maxMemoryByteCount) {
+        _maxMemoryByteCount = maxMemoryByteCount;
+        _maxEntryByteCount = Math.max(1L, (maxMemoryByteCount / 8L));
+        _diskCacheTier = null;
+    }
+
+    /**
+     * Creates a cache whose entries evicted from memory are retained within the directory, up to maxDiskByteCount.
+     *  Entries left within the directory by a previous cache are reused.
+     */
+    public HttpCache(final Long maxMemoryByteCount, final Path directory, final Long maxDiskByteCount) throws IOException {
+        _maxMemoryByteCount = maxMemoryByteCount;
+        _maxEntryByteCount = Math.max(1L, (maxMemoryByteCount / 8L));
+        _diskCacheTier = new DiskCacheTier(directory, maxDiskByteCount);
+    }
+
+    /**
+     * Sets the largest body (in bytes) that is stored; by default, one eighth of maxMemoryByteCount.
+     */
+    public void setMaxEntryByteCount(final Long maxEntryByteCount) {
+        _maxEntryByteCount = maxEntryByteCount;
+    }
+
+    public Long getMaxEntryByteCount() {
+        return _maxEntryByteCount;
+    }
+
+    /**
+     * Returns true if the (GET) request may be served from (and stored within) the cache.
+     *  Requests that forbid storage ("Cache-Control: no-store"), and requests that are already conditional (or request a range), bypass the cache.
+     */
+    public Boolean isCacheableRequest(final HttpHeaders requestHeaders) {
+        if (_getRequestCacheControl(requestHeaders).isNoStore()) { return false; }
+
+        final Integer headerCount = requestHeaders.getCount();
+        for (int i = 0; i < headerCount; ++i) {
+            switch (requestHeaders.getNameAt(i).toLowerCase(Locale.ROOT)) {
+                case "if-none-match":
+                case "if-modified-since":
+                case "if-match":
+                case "if-unmodified-since":
+                case "if-range":
+                case "range":
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the response to the request may be stored (RFC 7234 Section 3).
+     */
+    public Boolean isStorable(final HttpHeaders requestHeaders, final ResponseHead responseHead) {
+        final Map<String, List<String>> responseHeaders = responseHead.getHeaders();
+        final CacheControl cacheControl = CacheControl.parse(responseHeaders.get("Cache-Control"));
+        if (cacheControl.isNoStore()) { return false; }
+        if (_getRequestCacheControl(requestHeaders).isNoStore()) { return false; }
+
+        final boolean hasExplicitFreshness = ( (cacheControl.getMaxAge() != null) || (responseHead.getHeaderValue("Expires") != null) );
+        final Integer statusCode = responseHead.getStatusCode();
+        if (! isCacheableByDefault(statusCode)) {
+            if (! ( ((statusCode == 302) || (statusCode == 307)) && hasExplicitFreshness )) { return false; }
+        }
+
+        if (requestHeaders.getValue("Authorization") != null) {
+            if (! (cacheControl.isPublic() || cacheControl.mustRevalidate() || (cacheControl.getSharedMaxAge() != null))) { return false; }
+        }
+
+        if (CacheEntry._getVaryHeaderNames(responseHeaders).contains("*")) { return false; }
+
+        // NOTE: A response without freshness information or a validator would never be used.
+        final boolean hasValidator = ( (responseHead.getHeaderValue("ETag") != null) || (responseHead.getHeaderValue("Last-Modified") != null) );
+        return (hasExplicitFreshness || hasValidator);
+    }
+
+    /**
+     * Finds the stored response for the request, and determines whether it is fresh enough to serve.
+     *  Counts the lookup as a hit (a fresh response was found), a revalidation (a stale response will be revalidated), or a miss.
+     */
+    public Lookup lookup(final String url, final HttpHeaders requestHeaders) {
+        final CacheControl requestCacheControl = _getRequestCacheControl(requestHeaders);
+        final CacheEntry cacheEntry = _get(url, requestHeaders);
+        final boolean isFresh = ( (cacheEntry != null) && cacheEntry.isFresh(requestCacheControl, System.currentTimeMillis()) );
+        final Lookup lookup = new Lookup(cacheEntry, isFresh, requestCacheControl.isOnlyIfCached());
+
+        synchronized (this) {
+            if (isFresh) {
+                _hitCount += 1L;
+            }
+            else if (lookup.getStaleEntry() != null) {
+                _revalidationCount += 1L;
+            }
+            else {
+                _missCount += 1L;
+            }
+        }
+
+        return lookup;
+    }
+
+    /**
+     * Returns a stream that stores the response once its body has been fully read, or returns bodyInputStream unchanged if the response is not storable.
+     *  requestTime and responseTime are the epoch milliseconds at which the request was sent and the response's head was received.
+     */
+    public InputStream store(final String url, final HttpHeaders requestHeaders, final ResponseHead responseHead, final Long requestTime, final Long responseTime, final InputStream bodyInputStream) {
+        if (! isStorable(requestHeaders, responseHead)) { return bodyInputStream; }
+        return new CachingInputStream(bodyInputStream, url, requestHeaders, responseHead, requestTime, responseTime);
+    }
+
+    /**
+     * Updates the stale entry with the headers of the origin's 304 (Not Modified) response, and returns the updated entry to serve.
+     */
+    public CacheEntry onNotModified(final CacheEntry staleEntry, final ResponseHead notModifiedResponseHead, final Long requestTime, final Long responseTime) {
+        final CacheEntry cacheEntry = staleEntry.revalidate(notModifiedResponseHead, requestTime, responseTime);
+        if (! cacheEntry.getCacheControl().isNoStore()) {
+            _put(cacheEntry);
+        }
+
+        synchronized (this) {
+            _notModifiedCount += 1L;
+        }
+        return cacheEntry;
+    }
+
+    /**
+     * Removes the responses stored for the url; invoked when an unsafe request (e.g. POST) to the url succeeds (RFC 7234 Section 4.4).
+     */
+    public void remove(final String url) {
+        synchronized (this) {
+            final List<CacheEntry> cacheEntries = _memoryEntries.remove(url);
+            if (cacheEntries != null) {
+                for (final CacheEntry cacheEntry : cacheEntries) {
+                    _memoryByteCount -= cacheEntry.getByteCount();
+                }
+            }
+        }
+
+        if (_diskCacheTier != null) {
+            _diskCacheTier.delete(url);
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            _memoryEntries.clear();
+            _memoryByteCount = 0L;
+        }
+
+        if (_diskCacheTier != null) {
+            _diskCacheTier.clear();
+        }
+    }
+
+    /**
+     * Returns the number of requests served from the cache without contacting the origin.
+     */
+    public synchronized Long getHitCount() {
+        return _hitCount;
+    }
+
+    /**
+     * Returns the number of cacheable requests for which no usable response was stored.
+     */
+    public synchronized Long getMissCount() {
+        return _missCount;
+    }
+
+    /**
+     * Returns the number of conditional requests made to revalidate a stale response.
+     */
+    public synchronized Long getRevalidationCount() {
+        return _revalidationCount;
+    }
+
+    /**
+     * Returns the number of revalidations for which the origin responded 304 (Not Modified), and so the stored response was served.
+     */
+    public synchronized Long getNotModifiedCount() {
+        return _notModifiedCount;
+    }
+
+    /**
+     * Returns the number of responses stored (or updated by a revalidation).
+     */
+    public synchronized Long getStoreCount() {
+        return _storeCount;
+    }
+
+    /**
+     * Returns the number of urls with responses retained within memory.
+     */
+    public synchronized Integer getMemoryEntryCount() {
+        return _memoryEntries.size();
+    }
+
+    public synchronized Long getMemoryByteCount() {
+        return _memoryByteCount;
+    }
+
+    /**
+     * Returns the number of urls with responses retained on disk, or zero if the cache has no disk tier.
+     */
+    public Integer getDiskEntryCount() {
+        return (_diskCacheTier != null ? _diskCacheTier.getEntryCount() : 0);
+    }
+
+    public Long getDiskByteCount() {
+        return (_diskCacheTier != null ? _diskCacheTier.getByteCount() : 0L);
+    }
+}
@@ -0,0 +1,87 @@
+package com.softwareverde.http.coalesce;
+
+import com.softwareverde.http.HttpResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * Coalesces identical concurrent requests (i.e. a single-flight): the first request for a key is sent, and requests for the same key made while it is
+ *  in flight wait for (and share) its outcome instead of being sent.
+ *  The key identifies everything that may affect the response; see HttpRequest::setRequestCoalescer for the requests that are eligible.
+ */
+public class RequestCoalescer {
+    protected static RequestCoalescer DEFAULT_REQUEST_COALESCER = null;
+
+    /**
+     * Returns a shared RequestCoalescer, for use with HttpClient.Builder::setRequestCoalescer.
+     */
+    public static synchronized RequestCoalescer getDefault() {
+        if (DEFAULT_REQUEST_COALESCER == null) {
+            DEFAULT_REQUEST_COALESCER = new RequestCoalescer();
+        }
+        return DEFAULT_REQUEST_COALESCER;
+    }
+
+    protected final Map<String, CompletableFuture<HttpResponse>> _inFlightRequests = new HashMap<String, CompletableFuture<HttpResponse>>();
+    protected Long _requestCount = 0L;
+    protected Long _coalescedCount = 0L;
+
+    protected synchronized void _onComplete(final String key, final CompletableFuture<HttpResponse> future) {
+        if (_inFlightRequests.get(key) == future) {
+            _inFlightRequests.remove(key);
+        }
+    }
+
+    public RequestCoalescer() { }
+
+    /**
+     * Returns the future of the request in flight for the key, in which case the caller should wait for its outcome instead of sending its own request.
+     *  Otherwise, the caller's future is registered as the request in flight for the key (until it completes) and null is returned,
+     *  in which case the caller should send its request.
+     */
+    public CompletableFuture<HttpResponse> join(final String key, final CompletableFuture<HttpResponse> future) {
+        synchronized (this) {
+            final CompletableFuture<HttpResponse> inFlightFuture = _inFlightRequests.get(key);
+            if ( (inFlightFuture != null) && (! inFlightFuture.isDone()) ) {
+                _coalescedCount += 1L;
+                return inFlightFuture;
+            }
+
+            _inFlightRequests.put(key, future);
+            _requestCount += 1L;
+        }
+
+        future.whenComplete(new BiConsumer<HttpResponse, Throwable>() {
+            @Override
+            public void accept(final HttpResponse httpResponse, final Throwable throwable) {
+                _onComplete(key, future);
+            }
+        });
+
+        return null;
+    }
+
+    /**
+     * Returns the number of requests currently in flight (i.e. distinct keys).
+     */
+    public synchronized Integer getInFlightCount() {
+        return _inFlightRequests.size();
+    }
+
+    /**
+     * Returns the number of requests that were sent.
+     */
+    public synchronized Long getRequestCount() {
+        return _requestCount;
+    }
+
+    /**
+     * Returns the number of requests that shared the outcome of an identical request already in flight instead of being sent.
+     */
+    public synchronized Long getCoalescedCount() {
+        return _coalescedCount;
+    }
+}
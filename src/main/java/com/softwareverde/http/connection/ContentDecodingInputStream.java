@@ -0,0 +1,273 @@
+package com.softwareverde.http.connection;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decodes a response body sent with "Content-Encoding: gzip" or "Content-Encoding: deflate" as it is read.
+ *  Inflaters are borrowed from an InflaterPool and returned once the body ends (or the stream is closed).
+ *  Concatenated gzip members are decoded in sequence; "deflate" bodies are accepted with or without the zlib wrapper, since both are sent in practice.
+ *  An empty body (e.g. the response to a HEAD request) decodes to an empty body.
+ */
+public class ContentDecodingInputStream extends InputStream {
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    protected static final Integer BUFFER_BYTE_COUNT = 16384;
+    protected static final int GZIP_MAGIC_0 = 0x1F;
+    protected static final int GZIP_MAGIC_1 = 0x8B;
+    protected static final int GZIP_FLAG_HEADER_CRC = 0x02;
+    protected static final int GZIP_FLAG_EXTRA = 0x04;
+    protected static final int GZIP_FLAG_NAME = 0x08;
+    protected static final int GZIP_FLAG_COMMENT = 0x10;
+
+    /**
+     * Returns true if the Content-Encoding header value may be decoded by a ContentDecodingInputStream.
+     */
+    public static Boolean isSupported(final String contentEncoding) {
+        if (contentEncoding == null) { return false; }
+        final String encoding = contentEncoding.trim();
+        return ( GZIP.equalsIgnoreCase(encoding) || DEFLATE.equalsIgnoreCase(encoding) );
+    }
+
+    protected final InputStream _inputStream;
+    protected final Boolean _isGzip;
+    protected final InflaterPool _inflaterPool;
+    protected final CRC32 _crc = new CRC32();
+    protected final byte[] _buffer = new byte[BUFFER_BYTE_COUNT];
+    protected int _bufferOffset = 0;
+    protected int _bufferEnd = 0;
+
+    protected Inflater _inflater = null;
+    protected Boolean _isRawInflater = false;
+    protected Boolean _isWithinMember = false;
+    protected Boolean _isEnded = false;
+    protected Boolean _isClosed = false;
+
+    /**
+     * Returns the next byte of the encoded body, or -1 if the encoded body has ended.
+     */
+    protected int _readEncodedByte() throws IOException {
+        if (_bufferOffset >= _bufferEnd) {
+            if (! _fillBuffer()) { return -1; }
+        }
+        final int b = (_buffer[_bufferOffset] & 0xFF);
+        _bufferOffset += 1;
+        return b;
+    }
+
+    protected int _readRequiredByte() throws IOException {
+        final int b = _readEncodedByte();
+        if (b < 0) { throw new EOFException("Compressed response body ended unexpectedly."); }
+        return b;
+    }
+
+    protected int _readUnsignedShort() throws IOException {
+        return (_readRequiredByte() | (_readRequiredByte() << 8));
+    }
+
+    protected long _readUnsignedInt() throws IOException {
+        return ( (_readUnsignedShort() & 0xFFFFL) | ((_readUnsignedShort() & 0xFFFFL) << 16) );
+    }
+
+    protected Boolean _fillBuffer() throws IOException {
+        final int byteCount = _inputStream.read(_buffer, 0, _buffer.length);
+        if (byteCount < 0) { return false; }
+        _bufferOffset = 0;
+        _bufferEnd = byteCount;
+        return true;
+    }
+
+    protected void _readGzipHeader() throws IOException {
+        if ( (_readRequiredByte() != GZIP_MAGIC_0) || (_readRequiredByte() != GZIP_MAGIC_1) ) { throw new ZipException("Invalid gzip header."); }
+        if (_readRequiredByte() != 8) { throw new ZipException("Unsupported gzip compression method."); }
+
+        final int flags = _readRequiredByte();
+        for (int i = 0; i < 6; ++i) { // MTIME, XFL, OS
+            _readRequiredByte();
+        }
+
+        if ((flags & GZIP_FLAG_EXTRA) != 0) {
+            final int extraByteCount = _readUnsignedShort();
+            for (int i = 0; i < extraByteCount; ++i) {
+                _readRequiredByte();
+            }
+        }
+        if ((flags & GZIP_FLAG_NAME) != 0) {
+            while (_readRequiredByte() != 0) { }
+        }
+        if ((flags & GZIP_FLAG_COMMENT) != 0) {
+            while (_readRequiredByte() != 0) { }
+        }
+        if ((flags & GZIP_FLAG_HEADER_CRC) != 0) {
+            _readUnsignedShort();
+        }
+    }
+
+    /**
+     * Buffers at least byteCount unread bytes, unless the encoded body ends first; returns the number of unread bytes buffered.
+     */
+    protected int _ensureBuffered(final int byteCount) throws IOException {
+        if (_bufferOffset > 0) {
+            final int bufferedByteCount = (_bufferEnd - _bufferOffset);
+            System.arraycopy(_buffer, _bufferOffset, _buffer, 0, bufferedByteCount);
+            _bufferOffset = 0;
+            _bufferEnd = bufferedByteCount;
+        }
+
+        while (_bufferEnd < byteCount) {
+            final int readByteCount = _inputStream.read(_buffer, _bufferEnd, (_buffer.length - _bufferEnd));
+            if (readByteCount < 0) { break; }
+            _bufferEnd += readByteCount;
+        }
+        return (_bufferEnd - _bufferOffset);
+    }
+
+    /**
+     * Begins the next gzip member (or the deflate stream); returns false if the encoded body has ended.
+     */
+    protected Boolean _beginMember() throws IOException {
+        final int bufferedByteCount = _ensureBuffered(2);
+        if (bufferedByteCount == 0) { return false; }
+
+        final boolean isRaw;
+        if (_isGzip) {
+            _readGzipHeader();
+            isRaw = true;
+        }
+        else {
+            // A zlib header's first byte declares the deflate method (8), and the 16-bit header is a multiple of 31.
+            final int firstByte = (_buffer[_bufferOffset] & 0xFF);
+            final int secondByte = (bufferedByteCount > 1 ? (_buffer[_bufferOffset + 1] & 0xFF) : 0);
+            isRaw = ( ((firstByte & 0x0F) != 8) || ((((firstByte << 8) | secondByte) % 31) != 0) );
+        }
+
+        if ( (_inflater != null) && (_isRawInflater != isRaw) ) {
+            _releaseInflater();
+        }
+        if (_inflater == null) {
+            _inflater = _inflaterPool.acquire(isRaw);
+            _isRawInflater = isRaw;
+        }
+        _crc.reset();
+        _isWithinMember = true;
+        return true;
+    }
+
+    /**
+     * Consumes the gzip trailer and verifies the member's checksum and length.
+     */
+    protected void _endMember() throws IOException {
+        // NOTE: Bytes provided to the Inflater beyond the end of the member are restored to the buffer.
+        _bufferOffset = (_bufferEnd - _inflater.getRemaining());
+
+        if (_isGzip) {
+            final long crc = _readUnsignedInt();
+            final long byteCount = _readUnsignedInt();
+            if (crc != _crc.getValue()) { throw new ZipException("Corrupt gzip trailer (CRC mismatch)."); }
+            if (byteCount != (_inflater.getBytesWritten() & 0xFFFFFFFFL)) { throw new ZipException("Corrupt gzip trailer (size mismatch)."); }
+        }
+        _inflater.reset();
+        _isWithinMember = false;
+    }
+
+    /**
+     * Consumes any bytes remaining after the encoded body so the underlying stream completes (and may release its connection).
+     */
+    protected void _end() throws IOException {
+        _isEnded = true;
+        _releaseInflater();
+
+        _bufferOffset = _bufferEnd;
+        while (_fillBuffer()) {
+            _bufferOffset = _bufferEnd;
+        }
+    }
+
+    protected void _releaseInflater() {
+        if (_inflater == null) { return; }
+        _inflaterPool.release(_inflater, _isRawInflater);
+        _inflater = null;
+    }
+
+    public ContentDecodingInputStream(final InputStream inputStream, final String contentEncoding, final InflaterPool inflaterPool) {
+        _inputStream = inputStream;
+        _isGzip = GZIP.equalsIgnoreCase(contentEncoding.trim());
+        _inflaterPool = inflaterPool;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] bytes = new byte[1];
+        final int byteCount = read(bytes, 0, 1);
+        if (byteCount < 0) { return -1; }
+        return (bytes[0] & 0xFF);
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int byteCount) throws IOException {
+        if (_isClosed) { throw new IOException("Stream closed."); }
+        if (_isEnded) { return -1; }
+        if (byteCount == 0) { return 0; }
+
+        try {
+            while (true) {
+                if (! _isWithinMember) {
+                    if (! _beginMember()) {
+                        _end();
+                        return -1;
+                    }
+                }
+
+                final int inflatedByteCount = _inflater.inflate(bytes, offset, byteCount);
+                if (inflatedByteCount > 0) {
+                    _crc.update(bytes, offset, inflatedByteCount);
+                    return inflatedByteCount;
+                }
+
+                if (_inflater.finished()) {
+                    _endMember();
+                    if (! _isGzip) {
+                        _end();
+                        return -1;
+                    }
+
+                    // NOTE: Trailing bytes that do not begin another member are ignored.
+                    final int bufferedByteCount = _ensureBuffered(1);
+                    if ( (bufferedByteCount == 0) || ((_buffer[_bufferOffset] & 0xFF) != GZIP_MAGIC_0) ) {
+                        _end();
+                        return -1;
+                    }
+                    continue;
+                }
+
+                if (_inflater.needsDictionary()) { throw new ZipException("Compressed response body requires a preset dictionary."); }
+
+                if (_inflater.needsInput()) {
+                    if (_bufferOffset >= _bufferEnd) {
+                        if (! _fillBuffer()) { throw new EOFException("Compressed response body ended unexpectedly."); }
+                    }
+                    _inflater.setInput(_buffer, _bufferOffset, (_bufferEnd - _bufferOffset));
+                    _bufferOffset = _bufferEnd;
+                }
+            }
+        }
+        catch (final DataFormatException exception) {
+            throw new ZipException("Invalid compressed response body: " + exception.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_isClosed) { return; }
+        _isClosed = true;
+
+        _releaseInflater();
+        _inputStream.close();
+    }
+}
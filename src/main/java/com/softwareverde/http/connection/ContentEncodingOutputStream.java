@@ -0,0 +1,125 @@
+package com.softwareverde.http.connection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes a request body with "Content-Encoding: gzip" as it is written, so the compressed body is never buffered in its entirety.
+ *  The Deflater is borrowed from a DeflaterPool and returned once the body is finished (or released after a failure).
+ *  Finishing (or closing) the stream writes the gzip trailer but does not close the underlying OutputStream.
+ */
+public class ContentEncodingOutputStream extends OutputStream {
+    public static final String GZIP = "gzip";
+
+    protected static final Integer BUFFER_BYTE_COUNT = 16384;
+    protected static final byte[] GZIP_HEADER = new byte[] {
+        (byte) 0x1F, (byte) 0x8B, // Magic
+        (byte) 0x08, // Compression Method (deflate)
+        (byte) 0x00, // Flags
+        (byte) 0x00, (byte) 0x00, (byte) 0x00, (byte) 0x00, // Modification Time
+        (byte) 0x00, // Extra Flags
+        (byte) 0xFF  // Operating System (unknown)
+    };
+
+    protected final OutputStream _outputStream;
+    protected final DeflaterPool _deflaterPool;
+    protected final Integer _level;
+    protected final CRC32 _crc = new CRC32();
+    protected final byte[] _buffer = new byte[BUFFER_BYTE_COUNT];
+
+    protected Deflater _deflater;
+    protected Boolean _isHeaderWritten = false;
+    protected Boolean _isFinished = false;
+
+    protected void _writeHeader() throws IOException {
+        if (_isHeaderWritten) { return; }
+        _outputStream.write(GZIP_HEADER);
+        _isHeaderWritten = true;
+    }
+
+    protected void _deflate(final int flushMode) throws IOException {
+        while (true) {
+            final int byteCount = _deflater.deflate(_buffer, 0, _buffer.length, flushMode);
+            if (byteCount > 0) {
+                _outputStream.write(_buffer, 0, byteCount);
+            }
+            if (byteCount < _buffer.length) { break; }
+        }
+    }
+
+    protected void _writeIntLittleEndian(final long value) throws IOException {
+        _outputStream.write((int) (value & 0xFF));
+        _outputStream.write((int) ((value >> 8) & 0xFF));
+        _outputStream.write((int) ((value >> 16) & 0xFF));
+        _outputStream.write((int) ((value >> 24) & 0xFF));
+    }
+
+    public ContentEncodingOutputStream(final OutputStream outputStream, final Integer level, final DeflaterPool deflaterPool) {
+        _outputStream = outputStream;
+        _level = level;
+        _deflaterPool = deflaterPool;
+        _deflater = deflaterPool.acquire(level);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int byteCount) throws IOException {
+        if (_isFinished) { throw new IOException("Request body already finished."); }
+        if (byteCount == 0) { return; }
+
+        _writeHeader();
+        _crc.update(bytes, offset, byteCount);
+        _deflater.setInput(bytes, offset, byteCount);
+        while (! _deflater.needsInput()) {
+            _deflate(Deflater.NO_FLUSH);
+        }
+    }
+
+    /**
+     * Writes the remaining compressed bytes and the gzip trailer, and returns the Deflater to its pool.
+     */
+    public void finish() throws IOException {
+        if (_isFinished) { return; }
+
+        _writeHeader();
+        _deflater.finish();
+        while (! _deflater.finished()) {
+            _deflate(Deflater.NO_FLUSH);
+        }
+        _writeIntLittleEndian(_crc.getValue());
+        _writeIntLittleEndian(_deflater.getBytesRead());
+
+        _isFinished = true;
+        release();
+    }
+
+    /**
+     * Returns the Deflater to its pool without finishing the body (e.g. after the body could not be written).
+     */
+    public void release() {
+        if (_deflater == null) { return; }
+        _deflaterPool.release(_deflater, _level);
+        _deflater = null;
+        _isFinished = true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (! _isFinished) {
+            _writeHeader();
+            _deflate(Deflater.SYNC_FLUSH);
+        }
+        _outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+}
@@ -0,0 +1,71 @@
+package com.softwareverde.http.connection;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Retains reset Deflaters so their native zlib state is not reallocated for every compressed request body.
+ *  Deflaters produce raw deflate streams (i.e. "nowrap", as used within gzip members) and are pooled by compression level.
+ *  Deflaters released beyond maxPooledDeflaterCount (per level) are ended immediately.
+ */
+public class DeflaterPool {
+    public static final Integer DEFAULT_MAX_POOLED_DEFLATER_COUNT = 16;
+
+    protected static DeflaterPool DEFAULT_POOL = null;
+
+    public static synchronized DeflaterPool getDefault() {
+        if (DEFAULT_POOL == null) {
+            DEFAULT_POOL = new DeflaterPool(DEFAULT_MAX_POOLED_DEFLATER_COUNT);
+        }
+        return DEFAULT_POOL;
+    }
+
+    protected final Integer _maxPooledDeflaterCount;
+    protected final Map<Integer, LinkedList<Deflater>> _deflaters = new HashMap<Integer, LinkedList<Deflater>>();
+
+    public DeflaterPool(final Integer maxPooledDeflaterCount) {
+        _maxPooledDeflaterCount = maxPooledDeflaterCount;
+    }
+
+    /**
+     * Returns a raw Deflater in its initial state that compresses at the provided level (see Deflater::setLevel).
+     *  The Deflater should be returned via DeflaterPool::release once it is no longer used.
+     */
+    public Deflater acquire(final Integer level) {
+        synchronized (this) {
+            final LinkedList<Deflater> deflaters = _deflaters.get(level);
+            if ( (deflaters != null) && (! deflaters.isEmpty()) ) {
+                return deflaters.removeFirst();
+            }
+        }
+        return new Deflater(level, true);
+    }
+
+    public void release(final Deflater deflater, final Integer level) {
+        deflater.reset();
+
+        synchronized (this) {
+            LinkedList<Deflater> deflaters = _deflaters.get(level);
+            if (deflaters == null) {
+                deflaters = new LinkedList<Deflater>();
+                _deflaters.put(level, deflaters);
+            }
+
+            if (deflaters.size() < _maxPooledDeflaterCount) {
+                deflaters.addFirst(deflater);
+                return;
+            }
+        }
+        deflater.end();
+    }
+
+    public synchronized Integer getPooledDeflaterCount() {
+        int deflaterCount = 0;
+        for (final LinkedList<Deflater> deflaters : _deflaters.values()) {
+            deflaterCount += deflaters.size();
+        }
+        return deflaterCount;
+    }
+}
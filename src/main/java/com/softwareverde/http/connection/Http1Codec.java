@@ -0,0 +1,200 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.HttpHeaders;
+import com.softwareverde.http.HttpMethod;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes the HTTP/1.1 wire format.
+ */
+public class Http1Codec {
+    public static final Integer MAX_LINE_BYTE_COUNT = 65536;
+    public static final Integer MAX_HEADER_COUNT = 512;
+
+    protected static final byte[] CRLF = new byte[]{ '\r', '\n' };
+    protected static final byte[] HEADER_SEPARATOR = new byte[]{ ':', ' ' };
+
+    /**
+     * Reads a single CRLF-terminated (or LF-terminated) line, excluding the line terminator.
+     *  Header bytes are interpreted as ISO-8859-1.
+     */
+    public static String readLine(final InputStream inputStream) throws IOException {
+        final StringBuilder stringBuilder = new StringBuilder();
+        while (true) {
+            final int b = inputStream.read();
+            if (b < 0) {
+                throw new EOFException("Connection closed while reading line.");
+            }
+            if (b == '\n') { break; }
+
+            stringBuilder.append((char) b);
+            if (stringBuilder.length() > MAX_LINE_BYTE_COUNT) {
+                throw new IOException("Line exceeds " + MAX_LINE_BYTE_COUNT + " bytes.");
+            }
+        }
+
+        final int length = stringBuilder.length();
+        if ( (length > 0) && (stringBuilder.charAt(length - 1) == '\r') ) {
+            stringBuilder.setLength(length - 1);
+        }
+        return stringBuilder.toString();
+    }
+
+    protected static void _writeAscii(final OutputStream outputStream, final String string) throws IOException {
+        outputStream.write(string.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Writes the request line and headers, including the blank line that terminates the head.
+     *  The stream is not flushed.
+     */
+    public static void writeRequestHead(final OutputStream outputStream, final HttpMethod method, final String requestTarget, final HttpHeaders headers) throws IOException {
+        _writeAscii(outputStream, method.name());
+        outputStream.write(' ');
+        _writeAscii(outputStream, requestTarget);
+        _writeAscii(outputStream, " HTTP/1.1");
+        outputStream.write(CRLF);
+
+        final Integer headerCount = headers.getCount();
+        for (int i = 0; i < headerCount; ++i) {
+            final String value = headers.getValueAt(i);
+            if (value == null) { continue; }
+
+            _writeAscii(outputStream, headers.getNameAt(i));
+            outputStream.write(HEADER_SEPARATOR);
+            _writeAscii(outputStream, value);
+            outputStream.write(CRLF);
+        }
+        outputStream.write(CRLF);
+    }
+
+    protected static ResponseHead _readStatusLineAndHeaders(final InputStream inputStream) throws IOException {
+        final String statusLine = Http1Codec.readLine(inputStream);
+        final int firstSpaceIndex = statusLine.indexOf(' ');
+        if ( (firstSpaceIndex < 0) || (! statusLine.startsWith("HTTP/")) ) {
+            throw new IOException("Malformed status line: " + statusLine);
+        }
+
+        final int secondSpaceIndex = statusLine.indexOf(' ', firstSpaceIndex + 1);
+        final String httpVersion = statusLine.substring(0, firstSpaceIndex);
+        final String statusCodeString = (secondSpaceIndex < 0 ? statusLine.substring(firstSpaceIndex + 1) : statusLine.substring(firstSpaceIndex + 1, secondSpaceIndex));
+        final String reasonPhrase = (secondSpaceIndex < 0 ? "" : statusLine.substring(secondSpaceIndex + 1));
+
+        final int statusCode;
+        try {
+            statusCode = Integer.parseInt(statusCodeString.trim());
+        }
+        catch (final NumberFormatException exception) {
+            throw new IOException("Malformed status line: " + statusLine);
+        }
+
+        final ResponseHead responseHead = new ResponseHead(httpVersion, statusCode, reasonPhrase);
+        int headerCount = 0;
+        while (true) {
+            final String headerLine = Http1Codec.readLine(inputStream);
+            if (headerLine.isEmpty()) { break; }
+
+            headerCount += 1;
+            if (headerCount > MAX_HEADER_COUNT) {
+                throw new IOException("Response exceeds " + MAX_HEADER_COUNT + " headers.");
+            }
+
+            final int separatorIndex = headerLine.indexOf(':');
+            if (separatorIndex <= 0) { continue; } // NOTE: Malformed and obsolete line-folded headers are ignored.
+
+            int nameStartIndex = 0;
+            int nameEndIndex = separatorIndex;
+            while ( (nameStartIndex < nameEndIndex) && (headerLine.charAt(nameStartIndex) <= ' ') ) {
+                nameStartIndex += 1;
+            }
+            while ( (nameEndIndex > nameStartIndex) && (headerLine.charAt(nameEndIndex - 1) <= ' ') ) {
+                nameEndIndex -= 1;
+            }
+
+            final String name = HttpHeaders.intern(headerLine, nameStartIndex, nameEndIndex); // NOTE: Well-known names are not copied out of the line.
+            final String value = headerLine.substring(separatorIndex + 1).trim();
+            responseHead.addHeader(name, value);
+        }
+
+        return responseHead;
+    }
+
+    /**
+     * Reads the status line and headers of the next final response.
+     *  Interim (1xx) responses are skipped, except for 101 (Switching Protocols).
+     */
+    public static ResponseHead readResponseHead(final InputStream inputStream) throws IOException {
+        while (true) {
+            final ResponseHead responseHead = _readStatusLineAndHeaders(inputStream);
+            final int statusCode = responseHead.getStatusCode();
+            if ( (statusCode >= 100) && (statusCode < 200) && (statusCode != 101) ) { continue; }
+            return responseHead;
+        }
+    }
+
+    /**
+     * Returns true if a response with this status, to a request with this method, has a body.
+     */
+    public static boolean hasBody(final HttpMethod requestMethod, final ResponseHead responseHead) {
+        if (requestMethod == HttpMethod.HEAD) { return false; }
+
+        final int statusCode = responseHead.getStatusCode();
+        if ( (statusCode >= 100) && (statusCode < 200) ) { return false; }
+        if ( (statusCode == 204) || (statusCode == 304) ) { return false; }
+        return true;
+    }
+
+    /**
+     * Returns the stream the request body should be written to; bodies of unknown length (i.e. a null contentLength) are sent with chunked transfer-encoding.
+     */
+    public static HttpBodyOutputStream newBodyOutputStream(final OutputStream outputStream, final Long contentLength) {
+        if (contentLength == null) {
+            return new HttpBodyOutputStream.Chunked(outputStream);
+        }
+        return new HttpBodyOutputStream.FixedLength(outputStream, contentLength);
+    }
+
+    /**
+     * Returns a stream of the response body as delimited by the response's framing headers.
+     *  The completionCallback is invoked once the body has been fully read (or abandoned) with whether the connection may be reused.
+     */
+    public static HttpBodyInputStream newBodyInputStream(final InputStream inputStream, final HttpMethod requestMethod, final ResponseHead responseHead, final HttpBodyInputStream.CompletionCallback completionCallback) throws IOException {
+        final boolean isKeepAlive = responseHead.isKeepAlive();
+        final HttpBodyInputStream.CompletionCallback keepAliveCompletionCallback = new HttpBodyInputStream.CompletionCallback() {
+            @Override
+            public void onComplete(final Boolean connectionIsReusable) {
+                completionCallback.onComplete(connectionIsReusable && isKeepAlive);
+            }
+        };
+
+        if (! Http1Codec.hasBody(requestMethod, responseHead)) {
+            return new HttpBodyInputStream.FixedLength(inputStream, 0L, keepAliveCompletionCallback);
+        }
+
+        final String transferEncoding = responseHead.getHeaderValue("Transfer-Encoding");
+        if ( (transferEncoding != null) && (! transferEncoding.equalsIgnoreCase("identity")) ) {
+            if (responseHead.headerContainsToken("Transfer-Encoding", "chunked")) {
+                return new HttpBodyInputStream.Chunked(inputStream, keepAliveCompletionCallback);
+            }
+            return new HttpBodyInputStream.CloseDelimited(inputStream, keepAliveCompletionCallback);
+        }
+
+        final String contentLengthString = responseHead.getHeaderValue("Content-Length");
+        if (contentLengthString != null) {
+            try {
+                final long contentLength = Long.parseLong(contentLengthString.trim());
+                return new HttpBodyInputStream.FixedLength(inputStream, contentLength, keepAliveCompletionCallback);
+            }
+            catch (final NumberFormatException exception) {
+                throw new IOException("Malformed Content-Length: " + contentLengthString);
+            }
+        }
+
+        return new HttpBodyInputStream.CloseDelimited(inputStream, keepAliveCompletionCallback);
+    }
+}
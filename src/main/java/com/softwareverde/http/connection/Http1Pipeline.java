@@ -0,0 +1,214 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.HttpHeaders;
+import com.softwareverde.http.HttpMethod;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+
+/**
+ * Sends multiple requests back-to-back over a single leased HttpConnection, without waiting for each response.
+ *  Responses are matched to requests in the order the requests were written.
+ *  Once the server closes the connection (or responds with "Connection: close"), the pipeline is broken and every
+ *  request still awaiting its response fails with a PipelineClosedException; those requests were not answered and may be resent.
+ *  When the last in-flight exchange completes, the pipeline retires and its connection is returned to the pool.
+ */
+public class Http1Pipeline {
+    /**
+     * Indicates the request was not answered because the pipeline was closed; the request may safely be resent on another connection.
+     */
+    public static class PipelineClosedException extends IOException {
+        public PipelineClosedException(final String message) {
+            super(message);
+        }
+
+        public PipelineClosedException(final String message, final Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    public class Exchange {
+        protected final HttpMethod _method;
+
+        protected Exchange(final HttpMethod method) {
+            _method = method;
+        }
+
+        public HttpConnection getConnection() {
+            return _connection;
+        }
+
+        /**
+         * Waits until all previously written exchanges have been read, then reads this exchange's response head.
+         */
+        public ResponseHead readResponseHead() throws IOException {
+            return _readResponseHead(this);
+        }
+
+        /**
+         * Returns the response body; the next exchange's response is not read until this stream is complete (or closed).
+         */
+        public HttpBodyInputStream newBodyInputStream(final ResponseHead responseHead) throws IOException {
+            return Http1Codec.newBodyInputStream(_connection.getInputStream(), _method, responseHead, new HttpBodyInputStream.CompletionCallback() {
+                @Override
+                public void onComplete(final Boolean connectionIsReusable) {
+                    _onExchangeComplete(Exchange.this, connectionIsReusable);
+                }
+            });
+        }
+
+        /**
+         * Aborts the exchange by closing the pipeline's connection.
+         *  Other exchanges within the pipeline fail with a PipelineClosedException.
+         */
+        public void cancel() {
+            synchronized (Http1Pipeline.this) {
+                if (! _exchanges.contains(this)) { return; }
+            }
+            _break();
+        }
+
+        /**
+         * Returns the ReadTracker of the pipeline's connection, used to enforce read timeouts.
+         */
+        public ReadTracker getReadTracker() {
+            return _connection;
+        }
+    }
+
+    protected final HttpConnectionPool _connectionPool;
+    protected final HttpConnection _connection;
+    protected final Integer _maxDepth;
+
+    protected final LinkedList<Exchange> _exchanges = new LinkedList<Exchange>();
+    protected Boolean _isReading = false;
+    protected Boolean _isRetired = false;
+    protected Boolean _isBroken = false;
+
+    protected ResponseHead _readResponseHead(final Exchange exchange) throws IOException {
+        synchronized (this) {
+            while ( (! _isBroken) && ( _isReading || (_exchanges.peekFirst() != exchange) ) ) {
+                try {
+                    wait();
+                }
+                catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    _break();
+                    throw new InterruptedIOException("Interrupted while waiting for pipelined response.");
+                }
+            }
+
+            if (_isBroken) {
+                _exchanges.remove(exchange);
+                notifyAll();
+                throw new PipelineClosedException("Pipeline to " + _connection.getRoute() + " closed before response was received.");
+            }
+
+            _isReading = true;
+        }
+
+        try {
+            return Http1Codec.readResponseHead(_connection.getInputStream());
+        }
+        catch (final IOException exception) {
+            _onExchangeComplete(exchange, false);
+            throw new PipelineClosedException("Pipeline to " + _connection.getRoute() + " closed before response was received.", exception);
+        }
+    }
+
+    protected void _onExchangeComplete(final Exchange exchange, final Boolean connectionIsReusable) {
+        final boolean shouldRelease;
+        final boolean isReusable;
+        synchronized (this) {
+            _exchanges.remove(exchange);
+            _isReading = false;
+
+            if (! connectionIsReusable) {
+                _isBroken = true;
+            }
+
+            if (_isBroken) {
+                shouldRelease = (! _isRetired);
+                isReusable = false;
+                _isRetired = true;
+            }
+            else if (_exchanges.isEmpty()) {
+                shouldRelease = (! _isRetired);
+                isReusable = true;
+                _isRetired = true;
+            }
+            else {
+                shouldRelease = false;
+                isReusable = false;
+            }
+
+            notifyAll();
+        }
+
+        if (shouldRelease) {
+            _connectionPool.release(_connection, isReusable);
+        }
+    }
+
+    protected void _break() {
+        final boolean shouldRelease;
+        synchronized (this) {
+            _isBroken = true;
+            shouldRelease = (! _isRetired);
+            _isRetired = true;
+            notifyAll();
+        }
+
+        // NOTE: Once retired, the connection has been returned to the pool and may be in use by another request.
+        if (shouldRelease) {
+            _connection.close();
+            _connectionPool.release(_connection, false);
+        }
+    }
+
+    public Http1Pipeline(final HttpConnectionPool connectionPool, final HttpConnection connection, final Integer maxDepth) {
+        _connectionPool = connectionPool;
+        _connection = connection;
+        _maxDepth = maxDepth;
+    }
+
+    public HttpConnection getConnection() {
+        return _connection;
+    }
+
+    /**
+     * Returns true if the pipeline can accept another exchange.
+     */
+    public synchronized boolean isAcceptingExchanges() {
+        return ( (! _isRetired) && (! _isBroken) && (_exchanges.size() < _maxDepth) );
+    }
+
+    /**
+     * Writes the request to the pipeline's connection and returns its Exchange, or returns null if the pipeline cannot accept the request.
+     *  Only requests without bodies are supported.
+     */
+    public synchronized Exchange write(final HttpMethod method, final String requestTarget, final HttpHeaders headers) throws IOException {
+        if (! isAcceptingExchanges()) { return null; }
+
+        final Exchange exchange = new Exchange(method);
+        try {
+            final OutputStream outputStream = _connection.getOutputStream();
+            Http1Codec.writeRequestHead(outputStream, method, requestTarget, headers);
+            outputStream.flush();
+        }
+        catch (final IOException exception) {
+            _break();
+            throw new PipelineClosedException("Unable to write to pipeline to " + _connection.getRoute() + ".", exception);
+        }
+
+        _exchanges.addLast(exchange);
+        _connection.markUsed();
+        return exchange;
+    }
+
+    public synchronized Integer getDepth() {
+        return _exchanges.size();
+    }
+}
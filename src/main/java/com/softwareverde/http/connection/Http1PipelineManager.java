@@ -0,0 +1,84 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.HttpHeaders;
+import com.softwareverde.http.HttpMethod;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns pipelined requests to Http1Pipelines, opening a new pipeline (on a connection leased from the pool)
+ *  whenever the Route's current pipeline is full, broken, or retired.
+ *  At most one pipeline is opened for a Route at a time, so concurrent requests for the Route share it.
+ */
+public class Http1PipelineManager {
+    public static final Integer DEFAULT_MAX_PIPELINE_DEPTH = 8;
+
+    protected final HttpConnectionPool _connectionPool;
+    protected final Integer _maxDepth;
+    protected final Map<Route, Http1Pipeline> _pipelines = new HashMap<Route, Http1Pipeline>();
+    protected final Map<Route, Object> _routeLocks = new HashMap<Route, Object>();
+
+    /**
+     * Returns the lock that serializes opening pipelines for the Route, so concurrent requests share one pipeline instead of each leasing a connection.
+     */
+    protected Object _getRouteLock(final Route route) {
+        synchronized (_pipelines) {
+            Object routeLock = _routeLocks.get(route);
+            if (routeLock == null) {
+                routeLock = new Object();
+                _routeLocks.put(route, routeLock);
+            }
+            return routeLock;
+        }
+    }
+
+    public Http1PipelineManager(final HttpConnectionPool connectionPool, final Integer maxDepth) {
+        _connectionPool = connectionPool;
+        _maxDepth = maxDepth;
+    }
+
+    /**
+     * Writes the request to a pipeline for the Route and returns its Exchange.
+     *  Only requests without bodies (i.e. idempotent GET/HEAD requests) should be pipelined.
+     */
+    public Http1Pipeline.Exchange submit(final Route route, final HttpMethod method, final String requestTarget, final HttpHeaders headers) throws IOException {
+        return submit(route, method, requestTarget, headers, null);
+    }
+
+    /**
+     * Writes the request to a pipeline for the Route and returns its Exchange.
+     *  If a new pipeline must be opened, its connection is leased with the provided connectTimeout (in milliseconds, or null for no timeout).
+     */
+    public Http1Pipeline.Exchange submit(final Route route, final HttpMethod method, final String requestTarget, final HttpHeaders headers, final Long connectTimeout) throws IOException {
+        // NOTE: The Route's lock is held while leasing, so requests for the Route wait for the new pipeline rather than opening their own.
+        synchronized (_getRouteLock(route)) {
+            while (true) {
+                final Http1Pipeline currentPipeline;
+                synchronized (_pipelines) {
+                    currentPipeline = _pipelines.get(route);
+                }
+
+                if (currentPipeline != null) {
+                    final Http1Pipeline.Exchange exchange = currentPipeline.write(method, requestTarget, headers);
+                    if (exchange != null) { return exchange; }
+                }
+
+                final HttpConnection connection = _connectionPool.lease(route, connectTimeout);
+                final Http1Pipeline pipeline = new Http1Pipeline(_connectionPool, connection, _maxDepth);
+                final Http1Pipeline.Exchange exchange = pipeline.write(method, requestTarget, headers);
+
+                synchronized (_pipelines) {
+                    _pipelines.put(route, pipeline);
+                }
+
+                if (exchange != null) { return exchange; }
+            }
+        }
+    }
+
+    public Integer getMaxDepth() {
+        return _maxDepth;
+    }
+}
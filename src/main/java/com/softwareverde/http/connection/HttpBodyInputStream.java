@@ -0,0 +1,311 @@
+package com.softwareverde.http.connection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * The body of an HTTP/1.x response, read directly from the connection's InputStream.
+ *  Once the body has been fully read (or the stream is closed) the CompletionCallback is invoked exactly once,
+ *  indicating whether the connection may be reused for another request.
+ */
+public abstract class HttpBodyInputStream extends InputStream {
+    public interface CompletionCallback {
+        void onComplete(Boolean connectionIsReusable);
+    }
+
+    public interface TransferCallback {
+        /**
+         * Invoked after each portion of the body has been written, with the number of bytes written by that portion.
+         */
+        void onTransferred(Long byteCount);
+    }
+
+    protected static final Integer TRANSFER_BUFFER_BYTE_COUNT = 65536;
+
+    /**
+     * Writes the remainder of the InputStream to the file, starting at position, and returns the number of bytes written.
+     *  The bytes are copied through a single reusable buffer.
+     */
+    public static long transfer(final InputStream inputStream, final FileChannel fileChannel, final long position, final TransferCallback transferCallback) throws IOException {
+        final byte[] buffer = new byte[TRANSFER_BUFFER_BYTE_COUNT];
+        final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+
+        long transferredByteCount = 0L;
+        while (true) {
+            final int byteCount = inputStream.read(buffer);
+            if (byteCount < 0) { break; }
+            if (byteCount == 0) { continue; }
+
+            byteBuffer.clear();
+            byteBuffer.limit(byteCount);
+            while (byteBuffer.hasRemaining()) {
+                fileChannel.write(byteBuffer, (position + transferredByteCount + byteBuffer.position()));
+            }
+            transferredByteCount += byteCount;
+
+            if (transferCallback != null) {
+                transferCallback.onTransferred((long) byteCount);
+            }
+        }
+        return transferredByteCount;
+    }
+
+    protected final InputStream _inputStream;
+    protected final CompletionCallback _completionCallback;
+    protected Boolean _isComplete = false;
+    protected ReadableByteChannel _channel = null;
+
+    protected HttpBodyInputStream(final InputStream inputStream, final CompletionCallback completionCallback) {
+        _inputStream = inputStream;
+        _completionCallback = completionCallback;
+    }
+
+    protected void _complete(final Boolean connectionIsReusable) {
+        if (_isComplete) { return; }
+        _isComplete = true;
+
+        if (_completionCallback != null) {
+            _completionCallback.onComplete(connectionIsReusable);
+        }
+    }
+
+    protected abstract int _read(byte[] buffer, int offset, int length) throws IOException;
+
+    @Override
+    public int read() throws IOException {
+        final byte[] buffer = new byte[1];
+        final int byteCount = read(buffer, 0, 1);
+        if (byteCount < 0) { return -1; }
+        return (buffer[0] & 0xFF);
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        if (_isComplete) { return -1; }
+        if (length == 0) { return 0; }
+
+        try {
+            return _read(buffer, offset, length);
+        }
+        catch (final IOException exception) {
+            _complete(false);
+            throw exception;
+        }
+    }
+
+    public boolean isComplete() {
+        return _isComplete;
+    }
+
+    /**
+     * Provides the connection's channel (see HttpConnection::getReadableChannel) so the body may be transferred to a file without copying it through the heap.
+     */
+    public void setChannel(final ReadableByteChannel channel) {
+        _channel = channel;
+    }
+
+    /**
+     * Writes the remainder of the body to the file, starting at position, and returns the number of bytes written.
+     */
+    public long transferTo(final FileChannel fileChannel, final long position, final TransferCallback transferCallback) throws IOException {
+        try {
+            return HttpBodyInputStream.transfer(this, fileChannel, position, transferCallback);
+        }
+        finally {
+            close();
+        }
+    }
+
+    /**
+     * Closing the stream before the body has been fully read prevents the connection from being reused.
+     */
+    @Override
+    public void close() {
+        _complete(false);
+    }
+
+    /**
+     * A body delimited by a Content-Length header.
+     */
+    public static class FixedLength extends HttpBodyInputStream {
+        protected static final Long MAX_TRANSFER_BYTE_COUNT = (1024L * 1024L);
+
+        protected long _remainingByteCount;
+
+        public FixedLength(final InputStream inputStream, final Long contentLength, final CompletionCallback completionCallback) {
+            super(inputStream, completionCallback);
+            _remainingByteCount = contentLength;
+
+            if (_remainingByteCount <= 0L) {
+                _complete(true);
+            }
+        }
+
+        public Long getRemainingByteCount() {
+            return _remainingByteCount;
+        }
+
+        @Override
+        protected int _read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int maxByteCount = (int) Math.min(length, _remainingByteCount);
+            final int byteCount = _inputStream.read(buffer, offset, maxByteCount);
+            if (byteCount < 0) {
+                throw new IOException("Connection closed with " + _remainingByteCount + " bytes remaining.");
+            }
+
+            _remainingByteCount -= byteCount;
+            if (_remainingByteCount <= 0L) {
+                _complete(true);
+            }
+            return byteCount;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (_isComplete) { return 0; }
+            return (int) Math.min(_inputStream.available(), _remainingByteCount);
+        }
+
+        /**
+         * When the connection's channel is available, the bytes already buffered by the connection are written first,
+         *  and the remainder of the body is transferred from the socket to the file via FileChannel::transferFrom.
+         */
+        @Override
+        public long transferTo(final FileChannel fileChannel, final long position, final TransferCallback transferCallback) throws IOException {
+            if ( (_channel == null) || (! (_inputStream instanceof HttpConnection.ConnectionInputStream)) ) {
+                return super.transferTo(fileChannel, position, transferCallback);
+            }
+
+            long transferredByteCount = 0L;
+            try {
+                final int bufferedByteCount = (int) Math.min(((HttpConnection.ConnectionInputStream) _inputStream).getBufferedByteCount(), _remainingByteCount);
+                if (bufferedByteCount > 0) {
+                    final byte[] buffer = new byte[bufferedByteCount];
+                    int readByteCount = 0;
+                    while (readByteCount < bufferedByteCount) {
+                        readByteCount += read(buffer, readByteCount, (bufferedByteCount - readByteCount));
+                    }
+
+                    final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+                    while (byteBuffer.hasRemaining()) {
+                        fileChannel.write(byteBuffer, (position + byteBuffer.position()));
+                    }
+                    transferredByteCount += bufferedByteCount;
+
+                    if (transferCallback != null) {
+                        transferCallback.onTransferred((long) bufferedByteCount);
+                    }
+                }
+
+                while (_remainingByteCount > 0L) {
+                    final long byteCount = fileChannel.transferFrom(_channel, (position + transferredByteCount), Math.min(_remainingByteCount, MAX_TRANSFER_BYTE_COUNT));
+                    if (byteCount <= 0L) {
+                        throw new IOException("Connection closed with " + _remainingByteCount + " bytes remaining.");
+                    }
+
+                    _remainingByteCount -= byteCount;
+                    transferredByteCount += byteCount;
+
+                    if (transferCallback != null) {
+                        transferCallback.onTransferred(byteCount);
+                    }
+                }
+
+                _complete(true);
+                return transferredByteCount;
+            }
+            finally {
+                close();
+            }
+        }
+    }
+
+    /**
+     * A body sent with "Transfer-Encoding: chunked".
+     */
+    public static class Chunked extends HttpBodyInputStream {
+        protected long _remainingChunkByteCount = 0L;
+        protected Boolean _isFirstChunk = true;
+
+        protected void _readNextChunkHeader() throws IOException {
+            if (! _isFirstChunk) {
+                final String chunkTerminator = Http1Codec.readLine(_inputStream);
+                if (! chunkTerminator.isEmpty()) {
+                    throw new IOException("Malformed chunk terminator.");
+                }
+            }
+            _isFirstChunk = false;
+
+            final String chunkSizeLine = Http1Codec.readLine(_inputStream);
+            final int extensionIndex = chunkSizeLine.indexOf(';');
+            final String chunkSizeString = (extensionIndex >= 0 ? chunkSizeLine.substring(0, extensionIndex) : chunkSizeLine).trim();
+            try {
+                _remainingChunkByteCount = Long.parseLong(chunkSizeString, 16);
+            }
+            catch (final NumberFormatException exception) {
+                throw new IOException("Malformed chunk size: " + chunkSizeLine);
+            }
+
+            if (_remainingChunkByteCount == 0L) {
+                // Discard any trailers...
+                while (! Http1Codec.readLine(_inputStream).isEmpty()) { }
+                _complete(true);
+            }
+        }
+
+        public Chunked(final InputStream inputStream, final CompletionCallback completionCallback) {
+            super(inputStream, completionCallback);
+        }
+
+        @Override
+        protected int _read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (_remainingChunkByteCount == 0L) {
+                _readNextChunkHeader();
+                if (_isComplete) { return -1; }
+            }
+
+            final int maxByteCount = (int) Math.min(length, _remainingChunkByteCount);
+            final int byteCount = _inputStream.read(buffer, offset, maxByteCount);
+            if (byteCount < 0) {
+                throw new IOException("Connection closed within chunk.");
+            }
+
+            _remainingChunkByteCount -= byteCount;
+            return byteCount;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (_isComplete) { return 0; }
+            return (int) Math.min(_inputStream.available(), _remainingChunkByteCount);
+        }
+    }
+
+    /**
+     * A body delimited by the server closing the connection.
+     *  The connection is never reusable.
+     */
+    public static class CloseDelimited extends HttpBodyInputStream {
+        public CloseDelimited(final InputStream inputStream, final CompletionCallback completionCallback) {
+            super(inputStream, completionCallback);
+        }
+
+        @Override
+        protected int _read(final byte[] buffer, final int offset, final int length) throws IOException {
+            final int byteCount = _inputStream.read(buffer, offset, length);
+            if (byteCount < 0) {
+                _complete(false);
+            }
+            return byteCount;
+        }
+
+        @Override
+        public int available() throws IOException {
+            if (_isComplete) { return 0; }
+            return _inputStream.available();
+        }
+    }
+}
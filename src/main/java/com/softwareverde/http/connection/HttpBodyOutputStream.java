@@ -0,0 +1,228 @@
+package com.softwareverde.http.connection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The body of an HTTP/1.1 request, written directly to the connection's OutputStream.
+ *  HttpBodyOutputStream::finish must be invoked once the body has been written; closing the stream also finishes the body.
+ *  The connection's OutputStream itself is never closed.
+ */
+public abstract class HttpBodyOutputStream extends OutputStream {
+    protected static final Integer TRANSFER_BUFFER_BYTE_COUNT = 65536;
+
+    protected final OutputStream _outputStream;
+    protected WritableByteChannel _channel = null;
+    protected Boolean _isFinished = false;
+
+    protected HttpBodyOutputStream(final OutputStream outputStream) {
+        _outputStream = outputStream;
+    }
+
+    protected abstract void _write(byte[] buffer, int offset, int length) throws IOException;
+
+    protected abstract void _finish() throws IOException;
+
+    /**
+     * Writes byteCount bytes of the file to the connection, starting at position.
+     *  When the connection's channel is available, the bytes are transferred via FileChannel::transferTo instead of being copied through the heap.
+     *  Any bytes buffered by the connection's OutputStream are flushed first.
+     */
+    protected void _transferToConnection(final FileChannel fileChannel, final long position, final long byteCount) throws IOException {
+        if (_channel == null) {
+            final byte[] buffer = new byte[(int) Math.min(TRANSFER_BUFFER_BYTE_COUNT, Math.max(byteCount, 1L))];
+            final ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            long transferredByteCount = 0L;
+            while (transferredByteCount < byteCount) {
+                byteBuffer.clear();
+                byteBuffer.limit((int) Math.min(buffer.length, (byteCount - transferredByteCount)));
+                final int readByteCount = fileChannel.read(byteBuffer, (position + transferredByteCount));
+                if (readByteCount < 0) { throw new IOException("File ended with " + (byteCount - transferredByteCount) + " bytes remaining."); }
+
+                _outputStream.write(buffer, 0, readByteCount);
+                transferredByteCount += readByteCount;
+            }
+            return;
+        }
+
+        _outputStream.flush();
+
+        long transferredByteCount = 0L;
+        while (transferredByteCount < byteCount) {
+            final long transferByteCount = fileChannel.transferTo((position + transferredByteCount), (byteCount - transferredByteCount), _channel);
+            if (transferByteCount <= 0L) {
+                if ((position + transferredByteCount) >= fileChannel.size()) { throw new IOException("File ended with " + (byteCount - transferredByteCount) + " bytes remaining."); }
+                continue;
+            }
+            transferredByteCount += transferByteCount;
+        }
+    }
+
+    /**
+     * Provides the connection's channel (see HttpConnection::getWritableChannel) so files may be sent without copying them through the heap.
+     */
+    public void setChannel(final WritableByteChannel channel) {
+        _channel = channel;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        write(new byte[]{ (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+        if (_isFinished) { throw new IOException("Request body already finished."); }
+        if (length == 0) { return; }
+        _write(buffer, offset, length);
+    }
+
+    /**
+     * Writes byteCount bytes of the file as part of the body, starting at position.
+     */
+    public abstract void transferFrom(FileChannel fileChannel, long position, long byteCount) throws IOException;
+
+    @Override
+    public void flush() throws IOException {
+        _outputStream.flush();
+    }
+
+    /**
+     * Completes the body (e.g. writes the final chunk) and flushes the connection's OutputStream.
+     *  Subsequent invocations have no effect.
+     */
+    public void finish() throws IOException {
+        if (_isFinished) { return; }
+        _isFinished = true;
+
+        _finish();
+        _outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    /**
+     * A body delimited by a Content-Length header.
+     *  Writing more or fewer bytes than the Content-Length fails with an IOException, since the connection would otherwise be desynchronized.
+     */
+    public static class FixedLength extends HttpBodyOutputStream {
+        protected long _remainingByteCount;
+
+        protected void _consume(final long byteCount) throws IOException {
+            if (byteCount > _remainingByteCount) { throw new IOException("Request body exceeds Content-Length by " + (byteCount - _remainingByteCount) + " bytes."); }
+            _remainingByteCount -= byteCount;
+        }
+
+        public FixedLength(final OutputStream outputStream, final Long contentLength) {
+            super(outputStream);
+            _remainingByteCount = contentLength;
+        }
+
+        @Override
+        protected void _write(final byte[] buffer, final int offset, final int length) throws IOException {
+            _consume(length);
+            _outputStream.write(buffer, offset, length);
+        }
+
+        @Override
+        public void transferFrom(final FileChannel fileChannel, final long position, final long byteCount) throws IOException {
+            if (_isFinished) { throw new IOException("Request body already finished."); }
+            _consume(byteCount);
+            _transferToConnection(fileChannel, position, byteCount);
+        }
+
+        @Override
+        protected void _finish() throws IOException {
+            if (_remainingByteCount > 0L) { throw new IOException("Request body is " + _remainingByteCount + " bytes shorter than its Content-Length."); }
+        }
+
+        public Long getRemainingByteCount() {
+            return _remainingByteCount;
+        }
+    }
+
+    /**
+     * A body sent with "Transfer-Encoding: chunked".
+     *  Small writes are buffered so that each chunk carries at least CHUNK_BYTE_COUNT bytes (except the last).
+     */
+    public static class Chunked extends HttpBodyOutputStream {
+        protected static final Integer CHUNK_BYTE_COUNT = 8192;
+        protected static final byte[] CRLF = new byte[]{ '\r', '\n' };
+        protected static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+        protected final byte[] _buffer = new byte[CHUNK_BYTE_COUNT];
+        protected int _bufferedByteCount = 0;
+
+        protected void _writeChunkHeader(final long byteCount) throws IOException {
+            _outputStream.write(Long.toHexString(byteCount).getBytes(StandardCharsets.US_ASCII));
+            _outputStream.write(CRLF);
+        }
+
+        protected void _writeBufferedChunk() throws IOException {
+            if (_bufferedByteCount == 0) { return; }
+
+            _writeChunkHeader(_bufferedByteCount);
+            _outputStream.write(_buffer, 0, _bufferedByteCount);
+            _outputStream.write(CRLF);
+            _bufferedByteCount = 0;
+        }
+
+        public Chunked(final OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        protected void _write(final byte[] buffer, final int offset, final int length) throws IOException {
+            if ( (_bufferedByteCount == 0) && (length >= CHUNK_BYTE_COUNT) ) {
+                _writeChunkHeader(length);
+                _outputStream.write(buffer, offset, length);
+                _outputStream.write(CRLF);
+                return;
+            }
+
+            int writtenByteCount = 0;
+            while (writtenByteCount < length) {
+                final int byteCount = Math.min((length - writtenByteCount), (_buffer.length - _bufferedByteCount));
+                System.arraycopy(buffer, (offset + writtenByteCount), _buffer, _bufferedByteCount, byteCount);
+                _bufferedByteCount += byteCount;
+                writtenByteCount += byteCount;
+
+                if (_bufferedByteCount >= _buffer.length) {
+                    _writeBufferedChunk();
+                }
+            }
+        }
+
+        @Override
+        public void transferFrom(final FileChannel fileChannel, final long position, final long byteCount) throws IOException {
+            if (_isFinished) { throw new IOException("Request body already finished."); }
+            if (byteCount == 0L) { return; }
+
+            _writeBufferedChunk();
+            _writeChunkHeader(byteCount);
+            _transferToConnection(fileChannel, position, byteCount);
+            _outputStream.write(CRLF);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (! _isFinished) {
+                _writeBufferedChunk();
+            }
+            _outputStream.flush();
+        }
+
+        @Override
+        protected void _finish() throws IOException {
+            _writeBufferedChunk();
+            _outputStream.write(LAST_CHUNK);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.softwareverde.http.connection;
+
+import javax.net.ssl.SSLSocket;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A persistent connection to a Route.
+ *  The connection is backed by a blocking SocketChannel; for secure Routes the Socket is an SSLSocket layered over the channel's socket.
+ */
+public class HttpConnection implements ReadTracker, AutoCloseable {
+    public static final Long STALE_CHECK_IDLE_TIME_MS = 1000L;
+    protected static final Integer BUFFER_BYTE_COUNT = 16384;
+
+    /**
+     * A BufferedInputStream that exposes the number of bytes it has buffered, so the connection's channel may be read directly once the buffer is drained.
+     */
+    public static class ConnectionInputStream extends BufferedInputStream {
+        public ConnectionInputStream(final InputStream inputStream, final int bufferByteCount) {
+            super(inputStream, bufferByteCount);
+        }
+
+        public synchronized int getBufferedByteCount() {
+            return (count - pos);
+        }
+    }
+
+    /**
+     * Records when a read of the socket begins and ends.
+     */
+    protected class TrackedInputStream extends FilterInputStream {
+        public TrackedInputStream(final InputStream inputStream) {
+            super(inputStream);
+        }
+
+        @Override
+        public int read() throws IOException {
+            _readStartedAt = System.nanoTime();
+            try {
+                return super.read();
+            }
+            finally {
+                _readStartedAt = 0L;
+            }
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            _readStartedAt = System.nanoTime();
+            try {
+                return super.read(buffer, offset, length);
+            }
+            finally {
+                _readStartedAt = 0L;
+            }
+        }
+    }
+
+    /**
+     * Records when a read of the channel begins and ends.
+     */
+    protected class TrackedChannel implements ReadableByteChannel {
+        @Override
+        public int read(final ByteBuffer byteBuffer) throws IOException {
+            _readStartedAt = System.nanoTime();
+            try {
+                return _channel.read(byteBuffer);
+            }
+            finally {
+                _readStartedAt = 0L;
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return _channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            _channel.close();
+        }
+    }
+
+    protected final Route _route;
+    protected final SocketChannel _channel;
+    protected final Socket _socket;
+    protected final ConnectionInputStream _inputStream;
+    protected final BufferedOutputStream _outputStream;
+    protected final Long _createdAt;
+
+    protected volatile Long _lastUsedAt;
+    protected volatile Boolean _isClosed = false;
+    protected volatile Boolean _isReused = false;
+    protected volatile long _readStartedAt = 0L;
+    protected Long _dnsStartedAt = null;
+    protected Long _connectStartedAt = null;
+    protected Long _connectedAt = null;
+    protected Long _tlsCompletedAt = null;
+
+    public HttpConnection(final Route route, final SocketChannel channel, final Socket socket) throws IOException {
+        _route = route;
+        _channel = channel;
+        _socket = socket;
+        _inputStream = new ConnectionInputStream(new TrackedInputStream(socket.getInputStream()), BUFFER_BYTE_COUNT);
+        _outputStream = new BufferedOutputStream(socket.getOutputStream(), BUFFER_BYTE_COUNT);
+        _createdAt = System.currentTimeMillis();
+        _lastUsedAt = _createdAt;
+    }
+
+    public Route getRoute() {
+        return _route;
+    }
+
+    /**
+     * Returns the Socket that request and response bytes are exchanged over.
+     *  For secure Routes this is the SSLSocket, not the underlying channel's socket.
+     */
+    public Socket getSocket() {
+        return _socket;
+    }
+
+    public SocketChannel getChannel() {
+        return _channel;
+    }
+
+    public InputStream getInputStream() {
+        return _inputStream;
+    }
+
+    /**
+     * Returns the channel the connection's bytes may be read from directly, or null if the bytes must be read via the InputStream (e.g. TLS).
+     *  Bytes buffered by the InputStream must be consumed before reading from the channel.
+     */
+    public ReadableByteChannel getReadableChannel() {
+        if (_socket != _channel.socket()) { return null; }
+        return new TrackedChannel();
+    }
+
+    /**
+     * Returns the channel the connection's bytes may be written to directly, or null if the bytes must be written via the OutputStream (e.g. TLS).
+     *  Bytes buffered by the OutputStream must be flushed before writing to the channel.
+     */
+    public WritableByteChannel getWritableChannel() {
+        if (_socket != _channel.socket()) { return null; }
+        return _channel;
+    }
+
+    public OutputStream getOutputStream() {
+        return _outputStream;
+    }
+
+    @Override
+    public Long getBlockedReadStartedAt() {
+        final long readStartedAt = _readStartedAt;
+        if (readStartedAt == 0L) { return null; }
+        return readStartedAt;
+    }
+
+    /**
+     * Records when (from System::nanoTime) the connection's host began resolving, its TCP connection began and completed, and its TLS handshake completed (null if not secure).
+     */
+    public void setEstablishmentTimes(final Long dnsStartedAt, final Long connectStartedAt, final Long connectedAt, final Long tlsCompletedAt) {
+        _dnsStartedAt = dnsStartedAt;
+        _connectStartedAt = connectStartedAt;
+        _connectedAt = connectedAt;
+        _tlsCompletedAt = tlsCompletedAt;
+    }
+
+    public Long getDnsStartedAt() {
+        return _dnsStartedAt;
+    }
+
+    /**
+     * Returns when the host was resolved and the TCP connection began.
+     */
+    public Long getConnectStartedAt() {
+        return _connectStartedAt;
+    }
+
+    /**
+     * Returns when the TCP connection was established (and the TLS handshake began, if secure).
+     */
+    public Long getConnectedAt() {
+        return _connectedAt;
+    }
+
+    public Long getTlsCompletedAt() {
+        return _tlsCompletedAt;
+    }
+
+    public Long getCreatedAt() {
+        return _createdAt;
+    }
+
+    public Long getLastUsedAt() {
+        return _lastUsedAt;
+    }
+
+    public void markUsed() {
+        _lastUsedAt = System.currentTimeMillis();
+    }
+
+    public void markReused() {
+        _isReused = true;
+    }
+
+    /**
+     * Returns true if the connection has been leased from the pool's idle connections (i.e. it has carried a previous exchange).
+     *  A reused connection may have been closed by the server while it was idle.
+     */
+    public Boolean isReused() {
+        return _isReused;
+    }
+
+    /**
+     * Returns the application protocol negotiated via ALPN (e.g. "h2"), or null if no protocol was negotiated.
+     */
+    public String getApplicationProtocol() {
+        if (! (_socket instanceof SSLSocket)) { return null; }
+
+        final String applicationProtocol = ((SSLSocket) _socket).getApplicationProtocol();
+        if ( (applicationProtocol == null) || applicationProtocol.isEmpty() ) { return null; }
+        return applicationProtocol;
+    }
+
+    public boolean isOpen() {
+        return ( (! _isClosed) && _channel.isOpen() && (! _socket.isClosed()) && (! _socket.isInputShutdown()) && (! _socket.isOutputShutdown()) );
+    }
+
+    /**
+     * Polls the channel without blocking (by briefly switching it to non-blocking mode); returns true if the peer closed the connection or sent unsolicited bytes.
+     *  Must only be used for connections whose bytes are read directly from the channel (i.e. not TLS), since any polled bytes are consumed.
+     */
+    protected boolean _pollChannel() throws IOException {
+        synchronized (_channel.blockingLock()) {
+            _channel.configureBlocking(false);
+            try {
+                final int byteCount = _channel.read(ByteBuffer.allocate(1));
+                return (byteCount != 0);
+            }
+            finally {
+                _channel.configureBlocking(true);
+            }
+        }
+    }
+
+    /**
+     * Performs a 1ms read through the socket (and so through its TLS layer); returns true if the peer closed the connection or sent unsolicited bytes.
+     */
+    protected boolean _pollSocket() throws IOException {
+        final int originalTimeout = _socket.getSoTimeout();
+        try {
+            _socket.setSoTimeout(1);
+            _inputStream.mark(1);
+            final int b = _inputStream.read();
+            if (b < 0) { return true; }
+
+            _inputStream.reset();
+            return true; // The peer sent data that does not belong to any request.
+        }
+        catch (final SocketTimeoutException exception) {
+            return false;
+        }
+        finally {
+            _socket.setSoTimeout(originalTimeout);
+        }
+    }
+
+    /**
+     * Returns true if the idle connection can no longer be used.
+     *  A connection is stale if it is closed, if the peer has closed its end, or if unsolicited bytes are waiting to be read.
+     *  Plain connections are checked by polling the channel without blocking.  Secure connections must be read through their TLS layer
+     *  (which may hold records that are not application data, e.g. TLS 1.3 session tickets), which blocks for up to 1ms,
+     *  so they are only checked once they have been idle for longer than STALE_CHECK_IDLE_TIME_MS.
+     *  Must only be invoked while the connection is idle.
+     */
+    public boolean isStale() {
+        if (! isOpen()) { return true; }
+
+        try {
+            if (_inputStream.available() > 0) { return true; }
+
+            if (_socket == _channel.socket()) {
+                return _pollChannel();
+            }
+
+            if ((System.currentTimeMillis() - _lastUsedAt) <= STALE_CHECK_IDLE_TIME_MS) { return false; }
+            return _pollSocket();
+        }
+        catch (final IOException exception) {
+            return true;
+        }
+    }
+
+    @Override
+    public void close() {
+        _isClosed = true;
+
+        try {
+            _socket.close();
+        }
+        catch (final Exception exception) { }
+
+        try {
+            _channel.close();
+        }
+        catch (final Exception exception) { }
+    }
+
+    @Override
+    public String toString() {
+        return (_route + " " + _socket.getLocalPort());
+    }
+}
@@ -0,0 +1,417 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.ConnectTimeoutException;
+import com.softwareverde.http.http2.Http2ConnectionManager;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains persistent HttpConnections, grouped by Route.
+ *  At most maxConnectionsPerRoute connections (leased and idle) exist per Route; leases beyond that limit wait for a connection to be released.
+ *  Idle connections are closed once they have been idle for longer than maxIdleTime, or have been open longer than maxLifetime.
+ *  Expired connections are evicted during lease/release and periodically by the pool's evictor thread (a daemon thread started once the pool
+ *  first holds an idle connection), so idle connections to Routes that are not used again are still closed.
+ */
+public class HttpConnectionPool implements AutoCloseable {
+    public static final Integer DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 64;
+    public static final Long DEFAULT_MAX_IDLE_TIME_MS = 60000L;
+    public static final Long DEFAULT_MAX_LIFETIME_MS = 300000L;
+    public static final Long MAX_EVICTION_INTERVAL_MS = 30000L;
+    protected static final Long MIN_EVICTION_INTERVAL_MS = 10L;
+
+    protected static HttpConnectionPool DEFAULT_POOL = null;
+
+    /**
+     * Returns the pool used by HttpRequests that have not been assigned a pool.
+     */
+    public static synchronized HttpConnectionPool getDefault() {
+        if (DEFAULT_POOL == null) {
+            DEFAULT_POOL = new HttpConnectionPool(new HttpConnector(), DEFAULT_MAX_CONNECTIONS_PER_ROUTE, DEFAULT_MAX_IDLE_TIME_MS, DEFAULT_MAX_LIFETIME_MS);
+        }
+        return DEFAULT_POOL;
+    }
+
+    protected static class RoutePool {
+        public final LinkedList<HttpConnection> idleConnections = new LinkedList<HttpConnection>();
+        public int leasedConnectionCount = 0;
+        public int pendingConnectionCount = 0;
+
+        public int getConnectionCount() {
+            return (idleConnections.size() + leasedConnectionCount + pendingConnectionCount);
+        }
+    }
+
+    protected final HttpConnector _connector;
+    protected final Integer _maxConnectionsPerRoute;
+    protected final Long _maxIdleTime;
+    protected final Long _maxLifetime;
+
+    protected final Map<Route, RoutePool> _routePools = new HashMap<Route, RoutePool>();
+    protected Boolean _isClosed = false;
+    protected Http1PipelineManager _pipelineManager = null;
+    protected Http2ConnectionManager _http2ConnectionManager = null;
+    protected Thread _evictorThread = null;
+
+    /**
+     * Returns the milliseconds between runs of the evictor thread; an expired connection is closed within about this long.
+     */
+    protected Long _getEvictionInterval() {
+        final long interval = (Math.min(_maxIdleTime, _maxLifetime) / 2L);
+        return Math.max(MIN_EVICTION_INTERVAL_MS, Math.min(MAX_EVICTION_INTERVAL_MS, interval));
+    }
+
+    /**
+     * Starts the evictor thread, unless it is already running; must be invoked while synchronized on this.
+     */
+    protected void _startEvictorThreadIfNecessary() {
+        if ( (_evictorThread != null) || _isClosed ) { return; }
+
+        _evictorThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                _runEvictor();
+            }
+        });
+        _evictorThread.setName("HttpConnectionPool Evictor");
+        _evictorThread.setDaemon(true);
+        _evictorThread.start();
+    }
+
+    protected void _runEvictor() {
+        final long evictionIntervalNanos = (_getEvictionInterval() * 1000000L);
+        while (true) {
+            synchronized (this) {
+                // NOTE: The pool's monitor is notified as connections are released, so the wait resumes until the interval has elapsed.
+                final long evictAt = (System.nanoTime() + evictionIntervalNanos);
+                try {
+                    while (! _isClosed) {
+                        final long remainingNanos = (evictAt - System.nanoTime());
+                        if (remainingNanos <= 0L) { break; }
+                        wait((remainingNanos / 1000000L), (int) (remainingNanos % 1000000L));
+                    }
+                }
+                catch (final InterruptedException exception) {
+                    return;
+                }
+                if (_isClosed) { return; }
+            }
+
+            evictExpiredConnections();
+        }
+    }
+
+    protected boolean _isExpired(final HttpConnection connection, final Long now) {
+        if ((now - connection.getLastUsedAt()) > _maxIdleTime) { return true; }
+        if ((now - connection.getCreatedAt()) > _maxLifetime) { return true; }
+        return false;
+    }
+
+    /**
+     * Removes expired idle connections from the RoutePool and returns them so they may be closed outside of the lock.
+     */
+    protected void _removeExpiredConnections(final RoutePool routePool, final Long now, final List<HttpConnection> expiredConnections) {
+        final Iterator<HttpConnection> iterator = routePool.idleConnections.iterator();
+        while (iterator.hasNext()) {
+            final HttpConnection connection = iterator.next();
+            if (_isExpired(connection, now)) {
+                iterator.remove();
+                expiredConnections.add(connection);
+            }
+        }
+    }
+
+    protected void _closeConnections(final List<HttpConnection> connections) {
+        for (final HttpConnection connection : connections) {
+            connection.close();
+        }
+    }
+
+    protected RoutePool _getRoutePool(final Route route) {
+        RoutePool routePool = _routePools.get(route);
+        if (routePool == null) {
+            routePool = new RoutePool();
+            _routePools.put(route, routePool);
+        }
+        return routePool;
+    }
+
+    public HttpConnectionPool(final HttpConnector connector, final Integer maxConnectionsPerRoute, final Long maxIdleTime, final Long maxLifetime) {
+        _connector = connector;
+        _maxConnectionsPerRoute = maxConnectionsPerRoute;
+        _maxIdleTime = maxIdleTime;
+        _maxLifetime = maxLifetime;
+    }
+
+    public HttpConnection lease(final Route route) throws IOException {
+        return lease(route, null);
+    }
+
+    /**
+     * Returns a healthy connection to the Route, reusing an idle connection when one is available.
+     *  If maxConnectionsPerRoute connections to the Route already exist, the calling thread waits for one to be released.
+     *  If connectTimeout (in milliseconds) is not null, a ConnectTimeoutException is thrown if a connection is not available (or established) in time.
+     *  The connection must be returned to the pool via HttpConnectionPool::release (or HttpConnectionPool::detach).
+     */
+    public HttpConnection lease(final Route route, final Long connectTimeout) throws IOException {
+        final Long deadline = (connectTimeout != null ? (System.nanoTime() + (connectTimeout * 1000000L)) : null);
+        final List<HttpConnection> staleConnections = new LinkedList<HttpConnection>();
+        try {
+            while (true) {
+                HttpConnection idleConnection = null;
+                synchronized (this) {
+                    if (_isClosed) { throw new IOException("HttpConnectionPool is closed."); }
+
+                    final RoutePool routePool = _getRoutePool(route);
+                    _removeExpiredConnections(routePool, System.currentTimeMillis(), staleConnections);
+
+                    if (! routePool.idleConnections.isEmpty()) {
+                        idleConnection = routePool.idleConnections.removeFirst();
+                        routePool.leasedConnectionCount += 1;
+                    }
+                    else if (routePool.getConnectionCount() < _maxConnectionsPerRoute) {
+                        routePool.pendingConnectionCount += 1;
+                    }
+                    else {
+                        try {
+                            if (deadline != null) {
+                                final long remainingNanos = (deadline - System.nanoTime());
+                                if (remainingNanos <= 0L) { throw new ConnectTimeoutException("Timed out waiting for a connection to " + route + "."); }
+                                wait(Math.max(1L, (remainingNanos / 1000000L)));
+                            }
+                            else {
+                                wait();
+                            }
+                        }
+                        catch (final InterruptedException exception) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while waiting for a connection to " + route + ".");
+                        }
+                        continue;
+                    }
+                }
+
+                if (idleConnection != null) {
+                    if (! idleConnection.isStale()) {
+                        idleConnection.markUsed();
+                        idleConnection.markReused();
+                        return idleConnection;
+                    }
+
+                    staleConnections.add(idleConnection);
+                    synchronized (this) {
+                        final RoutePool routePool = _getRoutePool(route);
+                        routePool.leasedConnectionCount -= 1;
+                        notifyAll();
+                    }
+                    continue;
+                }
+
+                final Long remainingConnectTimeout = (deadline != null ? Math.max(1L, ((deadline - System.nanoTime()) / 1000000L)) : null);
+                return _connect(route, remainingConnectTimeout);
+            }
+        }
+        finally {
+            _closeConnections(staleConnections);
+        }
+    }
+
+    protected HttpConnection _connect(final Route route, final Long connectTimeout) throws IOException {
+        boolean wasSuccessful = false;
+        try {
+            final HttpConnection connection = _connector.connect(route, null, connectTimeout);
+            wasSuccessful = true;
+            return connection;
+        }
+        finally {
+            synchronized (this) {
+                final RoutePool routePool = _getRoutePool(route);
+                routePool.pendingConnectionCount -= 1;
+                if (wasSuccessful) {
+                    routePool.leasedConnectionCount += 1;
+                }
+                else {
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a leased connection to the pool.
+     *  If isReusable is false (or the pool has been closed) the connection is closed instead of being made available for reuse.
+     */
+    public void release(final HttpConnection connection, final Boolean isReusable) {
+        final Route route = connection.getRoute();
+        final List<HttpConnection> expiredConnections = new LinkedList<HttpConnection>();
+        boolean shouldClose = (! isReusable);
+
+        synchronized (this) {
+            final RoutePool routePool = _getRoutePool(route);
+            routePool.leasedConnectionCount -= 1;
+
+            final long now = System.currentTimeMillis();
+            connection.markUsed();
+            if (_isClosed || (! connection.isOpen()) || _isExpired(connection, now)) {
+                shouldClose = true;
+            }
+
+            if (! shouldClose) {
+                routePool.idleConnections.addFirst(connection);
+                _startEvictorThreadIfNecessary();
+            }
+            _removeExpiredConnections(routePool, now, expiredConnections);
+
+            notifyAll();
+        }
+
+        if (shouldClose) {
+            connection.close();
+        }
+        _closeConnections(expiredConnections);
+    }
+
+    /**
+     * Adds a connection that was established outside of the pool to its Route's idle connections.
+     *  The connection is closed instead if the Route already has maxConnectionsPerRoute connections.
+     */
+    public void add(final HttpConnection connection) {
+        final Route route = connection.getRoute();
+        boolean shouldClose = true;
+        synchronized (this) {
+            final RoutePool routePool = _getRoutePool(route);
+            if ( (! _isClosed) && (routePool.getConnectionCount() < _maxConnectionsPerRoute) ) {
+                connection.markUsed();
+                routePool.idleConnections.addFirst(connection);
+                _startEvictorThreadIfNecessary();
+                shouldClose = false;
+                notifyAll();
+            }
+        }
+
+        if (shouldClose) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Removes a leased connection from the pool without closing it.
+     *  Used when the connection's socket is handed off to another protocol (e.g. a WebSocket upgrade).
+     */
+    public void detach(final HttpConnection connection) {
+        synchronized (this) {
+            final RoutePool routePool = _getRoutePool(connection.getRoute());
+            routePool.leasedConnectionCount -= 1;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Closes all idle connections that have exceeded maxIdleTime or maxLifetime (including HTTP/2 connections), and forgets Routes without connections.
+     *  Invoked periodically by the pool's evictor thread.
+     */
+    public void evictExpiredConnections() {
+        final List<HttpConnection> expiredConnections = new LinkedList<HttpConnection>();
+        synchronized (this) {
+            final long now = System.currentTimeMillis();
+            final Iterator<RoutePool> iterator = _routePools.values().iterator();
+            while (iterator.hasNext()) {
+                final RoutePool routePool = iterator.next();
+                _removeExpiredConnections(routePool, now, expiredConnections);
+                if (routePool.getConnectionCount() == 0) {
+                    iterator.remove();
+                }
+            }
+        }
+        _closeConnections(expiredConnections);
+
+        final Http2ConnectionManager http2ConnectionManager;
+        synchronized (this) {
+            http2ConnectionManager = _http2ConnectionManager;
+        }
+        if (http2ConnectionManager != null) {
+            http2ConnectionManager.evictExpiredConnections();
+        }
+    }
+
+    /**
+     * Returns the number of Routes the pool is tracking (i.e. with idle, leased, or pending connections, or not yet evicted).
+     */
+    public synchronized Integer getRouteCount() {
+        return _routePools.size();
+    }
+
+    public synchronized Integer getIdleConnectionCount() {
+        int idleConnectionCount = 0;
+        for (final RoutePool routePool : _routePools.values()) {
+            idleConnectionCount += routePool.idleConnections.size();
+        }
+        return idleConnectionCount;
+    }
+
+    public synchronized Integer getLeasedConnectionCount() {
+        int leasedConnectionCount = 0;
+        for (final RoutePool routePool : _routePools.values()) {
+            leasedConnectionCount += (routePool.leasedConnectionCount + routePool.pendingConnectionCount);
+        }
+        return leasedConnectionCount;
+    }
+
+    /**
+     * Returns the manager of the HTTP/1.1 pipelines opened over this pool's connections.
+     */
+    public synchronized Http1PipelineManager getPipelineManager() {
+        if (_pipelineManager == null) {
+            _pipelineManager = new Http1PipelineManager(this, Http1PipelineManager.DEFAULT_MAX_PIPELINE_DEPTH);
+        }
+        return _pipelineManager;
+    }
+
+    /**
+     * Returns the manager of the HTTP/2 connections opened to this pool's Routes.
+     */
+    public synchronized Http2ConnectionManager getHttp2ConnectionManager() {
+        if (_http2ConnectionManager == null) {
+            _http2ConnectionManager = new Http2ConnectionManager(this, _connector, _maxIdleTime, _maxLifetime);
+            _startEvictorThreadIfNecessary();
+        }
+        return _http2ConnectionManager;
+    }
+
+    public HttpConnector getConnector() {
+        return _connector;
+    }
+
+    public Integer getMaxConnectionsPerRoute() {
+        return _maxConnectionsPerRoute;
+    }
+
+    /**
+     * Closes all idle connections, stops the evictor thread, and prevents new leases.
+     *  Connections that are currently leased are closed when they are released; HTTP/2 connections close once their open streams complete.
+     */
+    @Override
+    public void close() {
+        final List<HttpConnection> idleConnections = new LinkedList<HttpConnection>();
+        final Http2ConnectionManager http2ConnectionManager;
+        synchronized (this) {
+            http2ConnectionManager = _http2ConnectionManager;
+            _isClosed = true;
+            for (final RoutePool routePool : _routePools.values()) {
+                idleConnections.addAll(routePool.idleConnections);
+                routePool.idleConnections.clear();
+            }
+            notifyAll();
+        }
+        _closeConnections(idleConnections);
+
+        if (http2ConnectionManager != null) {
+            http2ConnectionManager.close();
+        }
+    }
+}
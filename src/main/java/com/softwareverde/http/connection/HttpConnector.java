@@ -0,0 +1,354 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.ConnectTimeoutException;
+import com.softwareverde.http.dns.CachingDnsResolver;
+import com.softwareverde.http.dns.DnsResolver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Establishes new HttpConnections.
+ *  Hosts are resolved via a DnsResolver, and when a host resolves to multiple addresses, connections are attempted
+ *  in the manner of RFC 8305 ("Happy Eyeballs"): address families are interleaved, and if an attempt has not succeeded within
+ *  the connection attempt delay, the next address is attempted in parallel. The first attempt to succeed is used and the others are abandoned.
+ *  DnsResolvers block; when a connect timeout is provided, the lookup runs on a shared resolver thread so that the timeout also bounds resolution.
+ */
+public class HttpConnector {
+    public static final Long DEFAULT_CONNECTION_ATTEMPT_DELAY_MS = 250L;
+
+    protected static final AtomicLong NEXT_RESOLVER_THREAD_ID = new AtomicLong(1L);
+    protected static ThreadPoolExecutor RESOLVER_EXECUTOR = null;
+
+    /**
+     * Returns the executor that runs lookups bounded by a connect timeout; its daemon threads are created on demand and released after 60 seconds idle.
+     */
+    protected static synchronized ThreadPoolExecutor _getResolverExecutor() {
+        if (RESOLVER_EXECUTOR == null) {
+            RESOLVER_EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable);
+                    thread.setName("HttpConnector Resolver-" + NEXT_RESOLVER_THREAD_ID.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return RESOLVER_EXECUTOR;
+    }
+
+    protected final TlsContext _tlsContext;
+    protected final DnsResolver _dnsResolver;
+    protected volatile Long _connectionAttemptDelay = DEFAULT_CONNECTION_ATTEMPT_DELAY_MS;
+
+    /**
+     * Orders the addresses so that address families alternate, beginning with the family of the resolver's most preferred address.
+     */
+    protected static List<InetAddress> _interleaveAddressFamilies(final List<InetAddress> addresses) {
+        if (addresses.size() < 2) { return addresses; }
+
+        final boolean prefersIpv6 = (addresses.get(0) instanceof Inet6Address);
+        final LinkedList<InetAddress> preferredAddresses = new LinkedList<InetAddress>();
+        final LinkedList<InetAddress> otherAddresses = new LinkedList<InetAddress>();
+        for (final InetAddress address : addresses) {
+            final boolean isIpv6 = (address instanceof Inet6Address);
+            if (isIpv6 == prefersIpv6) {
+                preferredAddresses.add(address);
+            }
+            else {
+                otherAddresses.add(address);
+            }
+        }
+
+        final List<InetAddress> interleavedAddresses = new ArrayList<InetAddress>(addresses.size());
+        while ( (! preferredAddresses.isEmpty()) || (! otherAddresses.isEmpty()) ) {
+            if (! preferredAddresses.isEmpty()) {
+                interleavedAddresses.add(preferredAddresses.removeFirst());
+            }
+            if (! otherAddresses.isEmpty()) {
+                interleavedAddresses.add(otherAddresses.removeFirst());
+            }
+        }
+        return interleavedAddresses;
+    }
+
+    protected static SocketChannel _openChannel() throws IOException {
+        final SocketChannel channel = SocketChannel.open();
+        channel.socket().setTcpNoDelay(true);
+        channel.socket().setKeepAlive(true);
+        return channel;
+    }
+
+    protected static void _close(final SocketChannel channel) {
+        try {
+            channel.close();
+        }
+        catch (final Exception exception) { }
+    }
+
+    protected List<InetAddress> _resolve(final Route route) throws UnknownHostException {
+        final DnsResolver routeDnsResolver = route.getDnsResolver();
+        final DnsResolver dnsResolver = (routeDnsResolver != null ? routeDnsResolver : _dnsResolver);
+
+        final List<InetAddress> addresses = dnsResolver.resolve(route.getHost());
+        if ( (addresses == null) || addresses.isEmpty() ) { throw new UnknownHostException(route.getHost()); }
+        return addresses;
+    }
+
+    /**
+     * Resolves the Route's host; if deadline is not null, a ConnectTimeoutException is thrown once System::nanoTime passes the deadline.
+     *  A lookup that times out is abandoned rather than interrupted; it continues in the background (e.g. to populate a CachingDnsResolver).
+     */
+    protected List<InetAddress> _resolve(final Route route, final Long deadline) throws IOException {
+        if (deadline == null) {
+            return _resolve(route);
+        }
+
+        final long remainingNanos = (deadline - System.nanoTime());
+        if (remainingNanos <= 0L) { throw new ConnectTimeoutException("Timed out resolving " + route.getHost() + "."); }
+
+        final CompletableFuture<List<InetAddress>> addressesFuture = new CompletableFuture<List<InetAddress>>();
+        _getResolverExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    addressesFuture.complete(_resolve(route));
+                }
+                catch (final Throwable exception) {
+                    addressesFuture.completeExceptionally(exception);
+                }
+            }
+        });
+
+        try {
+            return addressesFuture.get(remainingNanos, TimeUnit.NANOSECONDS);
+        }
+        catch (final TimeoutException exception) {
+            throw new ConnectTimeoutException("Timed out resolving " + route.getHost() + ".");
+        }
+        catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while resolving " + route.getHost() + ".");
+        }
+        catch (final ExecutionException exception) {
+            final Throwable cause = exception.getCause();
+            if (cause instanceof IOException) { throw (IOException) cause; }
+            if (cause instanceof RuntimeException) { throw (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            throw new IOException("Unable to resolve " + route.getHost() + ".", cause);
+        }
+    }
+
+    /**
+     * Connects to the first of the addresses to accept a connection, staggering the attempts by the connection attempt delay.
+     *  If deadline is not null, a ConnectTimeoutException is thrown once System::nanoTime passes the deadline.
+     *  Returns a connected channel in blocking mode.
+     */
+    protected SocketChannel _connect(final Route route, final List<InetAddress> addresses, final Long deadline) throws IOException {
+        final long connectionAttemptDelay = _connectionAttemptDelay;
+        final List<InetAddress> orderedAddresses = _interleaveAddressFamilies(addresses);
+        final List<SocketChannel> pendingChannels = new LinkedList<SocketChannel>();
+        SocketChannel connectedChannel = null;
+        IOException lastException = null;
+
+        final Selector selector = Selector.open();
+        try {
+            int nextAddressIndex = 0;
+            long nextAttemptAt = System.nanoTime();
+            while (connectedChannel == null) {
+                final long now = System.nanoTime();
+                if ( (deadline != null) && (now >= deadline) ) { throw new ConnectTimeoutException("Timed out connecting to " + route + "."); }
+
+                final boolean hasRemainingAddresses = (nextAddressIndex < orderedAddresses.size());
+                if ( hasRemainingAddresses && (pendingChannels.isEmpty() || (now >= nextAttemptAt)) ) {
+                    final InetAddress address = orderedAddresses.get(nextAddressIndex);
+                    nextAddressIndex += 1;
+                    nextAttemptAt = (now + (connectionAttemptDelay * 1000000L));
+
+                    final SocketChannel channel = _openChannel();
+                    try {
+                        channel.configureBlocking(false);
+                        if (channel.connect(new InetSocketAddress(address, route.getPort()))) {
+                            connectedChannel = channel;
+                        }
+                        else {
+                            channel.register(selector, SelectionKey.OP_CONNECT);
+                            pendingChannels.add(channel);
+                        }
+                    }
+                    catch (final IOException exception) {
+                        lastException = exception;
+                        _close(channel);
+                    }
+                    continue;
+                }
+
+                if (pendingChannels.isEmpty()) {
+                    throw (lastException != null ? lastException : new ConnectException("Unable to connect to " + route + "."));
+                }
+
+                long timeoutNanos = (hasRemainingAddresses ? (nextAttemptAt - now) : Long.MAX_VALUE);
+                if (deadline != null) {
+                    timeoutNanos = Math.min(timeoutNanos, (deadline - now));
+                }
+                selector.select(timeoutNanos == Long.MAX_VALUE ? 0L : Math.max(1L, ((timeoutNanos + 999999L) / 1000000L)));
+
+                for (final SelectionKey selectionKey : selector.selectedKeys()) {
+                    final SocketChannel channel = (SocketChannel) selectionKey.channel();
+                    try {
+                        if ( channel.finishConnect() && (connectedChannel == null) ) {
+                            connectedChannel = channel;
+                            pendingChannels.remove(channel);
+                        }
+                    }
+                    catch (final IOException exception) {
+                        // NOTE: When an attempt fails, the next address is attempted immediately rather than after the attempt delay.
+                        lastException = exception;
+                        selectionKey.cancel();
+                        pendingChannels.remove(channel);
+                        _close(channel);
+                        nextAttemptAt = System.nanoTime();
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        }
+        finally {
+            for (final SocketChannel pendingChannel : pendingChannels) {
+                _close(pendingChannel);
+            }
+
+            try {
+                selector.close(); // NOTE: Closing the Selector deregisters the connected channel, so it may be returned to blocking mode.
+            }
+            catch (final IOException exception) { }
+        }
+
+        try {
+            connectedChannel.configureBlocking(true);
+            return connectedChannel;
+        }
+        catch (final IOException exception) {
+            _close(connectedChannel);
+            throw exception;
+        }
+    }
+
+    /**
+     * Completes the TLS handshake; if deadline is not null, a ConnectTimeoutException is thrown if the handshake is not complete by the deadline.
+     */
+    protected Socket _startTls(final Route route, final Socket socket, final List<String> applicationProtocols, final Long deadline) throws IOException {
+        if (deadline == null) {
+            return _tlsContext.startTls(route, socket, applicationProtocols);
+        }
+
+        final long remainingNanos = (deadline - System.nanoTime());
+        if (remainingNanos <= 0L) { throw new ConnectTimeoutException("Timed out connecting to " + route + "."); }
+
+        socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, Math.max(1L, (remainingNanos / 1000000L))));
+        try {
+            final Socket sslSocket = _tlsContext.startTls(route, socket, applicationProtocols);
+            socket.setSoTimeout(0);
+            return sslSocket;
+        }
+        catch (final SocketTimeoutException exception) {
+            final ConnectTimeoutException connectTimeoutException = new ConnectTimeoutException("Timed out completing TLS handshake with " + route + ".");
+            connectTimeoutException.initCause(exception);
+            throw connectTimeoutException;
+        }
+    }
+
+    /**
+     * Creates an HttpConnector that resolves hosts via the shared default (caching) DnsResolver and secures connections using the shared default TlsContext.
+     */
+    public HttpConnector() {
+        this(TlsContext.getDefault(), CachingDnsResolver.getDefault());
+    }
+
+    public HttpConnector(final TlsContext tlsContext) {
+        this(tlsContext, CachingDnsResolver.getDefault());
+    }
+
+    public HttpConnector(final TlsContext tlsContext, final DnsResolver dnsResolver) {
+        _tlsContext = tlsContext;
+        _dnsResolver = dnsResolver;
+    }
+
+    public TlsContext getTlsContext() {
+        return _tlsContext;
+    }
+
+    public DnsResolver getDnsResolver() {
+        return _dnsResolver;
+    }
+
+    /**
+     * Sets how long a connection attempt may remain pending before an attempt to the host's next address is started in parallel.
+     */
+    public void setConnectionAttemptDelay(final Long connectionAttemptDelay) {
+        _connectionAttemptDelay = connectionAttemptDelay;
+    }
+
+    public Long getConnectionAttemptDelay() {
+        return _connectionAttemptDelay;
+    }
+
+    public HttpConnection connect(final Route route) throws IOException {
+        return connect(route, null, null);
+    }
+
+    public HttpConnection connect(final Route route, final List<String> applicationProtocols) throws IOException {
+        return connect(route, applicationProtocols, null);
+    }
+
+    /**
+     * Establishes a new HttpConnection, offering the applicationProtocols (in order of preference) via ALPN if the Route is secure.
+     *  The protocol selected by the server is available via HttpConnection::getApplicationProtocol.
+     *  If connectTimeout (in milliseconds) is not null, a ConnectTimeoutException is thrown if the connection (including its DNS lookup and TLS handshake) is not established in time.
+     */
+    public HttpConnection connect(final Route route, final List<String> applicationProtocols, final Long connectTimeout) throws IOException {
+        final Long deadline = (connectTimeout != null ? (System.nanoTime() + (connectTimeout * 1000000L)) : null);
+        final Long dnsStartedAt = System.nanoTime();
+        final List<InetAddress> addresses = _resolve(route, deadline);
+        final Long connectStartedAt = System.nanoTime();
+        final SocketChannel channel = _connect(route, addresses, deadline);
+        final Long connectedAt = System.nanoTime();
+        try {
+            final Socket socket = (route.isSecure() ? _startTls(route, channel.socket(), applicationProtocols, deadline) : channel.socket());
+            final HttpConnection connection = new HttpConnection(route, channel, socket);
+            connection.setEstablishmentTimes(dnsStartedAt, connectStartedAt, connectedAt, (route.isSecure() ? System.nanoTime() : null));
+            return connection;
+        }
+        catch (final IOException exception) {
+            try {
+                channel.close();
+            }
+            catch (final Exception closeException) {
+                exception.addSuppressed(closeException);
+            }
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.softwareverde.http.connection;
+
+import java.util.LinkedList;
+import java.util.zip.Inflater;
+
+/**
+ * Retains reset Inflaters so their native zlib state is not reallocated for every compressed response.
+ *  Inflaters for raw deflate streams (i.e. "nowrap", as used within gzip members) are pooled separately from zlib-wrapped Inflaters.
+ *  Inflaters released beyond maxPooledInflaterCount are ended immediately.
+ */
+public class InflaterPool {
+    public static final Integer DEFAULT_MAX_POOLED_INFLATER_COUNT = 32;
+
+    protected static InflaterPool DEFAULT_POOL = null;
+
+    public static synchronized InflaterPool getDefault() {
+        if (DEFAULT_POOL == null) {
+            DEFAULT_POOL = new InflaterPool(DEFAULT_MAX_POOLED_INFLATER_COUNT);
+        }
+        return DEFAULT_POOL;
+    }
+
+    protected final Integer _maxPooledInflaterCount;
+    protected final LinkedList<Inflater> _inflaters = new LinkedList<Inflater>();
+    protected final LinkedList<Inflater> _rawInflaters = new LinkedList<Inflater>();
+
+    public InflaterPool(final Integer maxPooledInflaterCount) {
+        _maxPooledInflaterCount = maxPooledInflaterCount;
+    }
+
+    /**
+     * Returns an Inflater in its initial state; if isRaw is true, the Inflater expects a deflate stream without the zlib header and checksum.
+     *  The Inflater should be returned via InflaterPool::release once it is no longer used.
+     */
+    public Inflater acquire(final Boolean isRaw) {
+        synchronized (this) {
+            final LinkedList<Inflater> inflaters = (isRaw ? _rawInflaters : _inflaters);
+            if (! inflaters.isEmpty()) {
+                return inflaters.removeFirst();
+            }
+        }
+        return new Inflater(isRaw);
+    }
+
+    public void release(final Inflater inflater, final Boolean isRaw) {
+        inflater.reset();
+
+        synchronized (this) {
+            final LinkedList<Inflater> inflaters = (isRaw ? _rawInflaters : _inflaters);
+            if (inflaters.size() < _maxPooledInflaterCount) {
+                inflaters.addFirst(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    public synchronized Integer getPooledInflaterCount() {
+        return (_inflaters.size() + _rawInflaters.size());
+    }
+}
@@ -0,0 +1,11 @@
+package com.softwareverde.http.connection;
+
+/**
+ * Exposes whether a read of a response is currently blocked waiting for data, so read timeouts may be enforced without a thread per reader.
+ */
+public interface ReadTracker {
+    /**
+     * Returns the System::nanoTime at which the current blocking read began, or null if no read is blocked.
+     */
+    Long getBlockedReadStartedAt();
+}
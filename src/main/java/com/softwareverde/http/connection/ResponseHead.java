@@ -0,0 +1,74 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.HttpHeaders;
+
+/**
+ * The status line and headers of an HTTP/1.x response.
+ *  Header names are case-insensitive.
+ */
+public class ResponseHead {
+    protected final String _httpVersion;
+    protected final Integer _statusCode;
+    protected final String _reasonPhrase;
+    protected final HttpHeaders _headers = new HttpHeaders();
+
+    public ResponseHead(final String httpVersion, final Integer statusCode, final String reasonPhrase) {
+        _httpVersion = httpVersion;
+        _statusCode = statusCode;
+        _reasonPhrase = reasonPhrase;
+    }
+
+    public void addHeader(final String name, final String value) {
+        _headers.add(name, value);
+    }
+
+    public String getHttpVersion() {
+        return _httpVersion;
+    }
+
+    public Integer getStatusCode() {
+        return _statusCode;
+    }
+
+    public String getReasonPhrase() {
+        return _reasonPhrase;
+    }
+
+    public HttpHeaders getHeaders() {
+        return _headers;
+    }
+
+    /**
+     * Returns the first value of the header, or null if the header is not present.
+     */
+    public String getHeaderValue(final String name) {
+        return _headers.getValue(name);
+    }
+
+    /**
+     * Returns true if the comma-delimited header contains the token (case-insensitive).
+     */
+    public boolean headerContainsToken(final String name, final String token) {
+        final Integer headerCount = _headers.getCount();
+        for (int i = 0; i < headerCount; ++i) {
+            if (! HttpHeaders.equalsIgnoreCase(_headers.getNameAt(i), name)) { continue; }
+
+            final String value = _headers.getValueAt(i);
+            for (final String valueToken : value.split(",")) {
+                if (valueToken.trim().equalsIgnoreCase(token)) { return true; }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the server permits the connection to be reused after this response.
+     */
+    public boolean isKeepAlive() {
+        if (headerContainsToken("Connection", "close")) { return false; }
+        if ("HTTP/1.0".equalsIgnoreCase(_httpVersion)) {
+            return headerContainsToken("Connection", "keep-alive");
+        }
+        return true;
+    }
+}
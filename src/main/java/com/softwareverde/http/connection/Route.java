@@ -0,0 +1,107 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.dns.DnsResolver;
+import com.softwareverde.util.Util;
+
+import java.net.URL;
+
+/**
+ * Identifies the set of connections that a request may be sent over.
+ *  Connections are only shared between requests with equal Routes.
+ */
+public class Route {
+    public static Route fromUrl(final URL url, final Boolean validatesSslCertificates) {
+        return Route.fromUrl(url, validatesSslCertificates, null);
+    }
+
+    /**
+     * Returns the Route for the URL; if dnsResolver is not null, it is used (instead of the HttpConnector's resolver) to resolve the Route's host.
+     */
+    public static Route fromUrl(final URL url, final Boolean validatesSslCertificates, final DnsResolver dnsResolver) {
+        final String protocol = url.getProtocol().toLowerCase();
+        final boolean isSecure = Util.areEqual("https", protocol);
+        final int port = (url.getPort() >= 0 ? url.getPort() : url.getDefaultPort());
+        final String host = url.getHost().toLowerCase();
+        final boolean isBracketedIpv6Address = (host.startsWith("[") && host.endsWith("]"));
+        return new Route(isSecure, (isBracketedIpv6Address ? host.substring(1, host.length() - 1) : host), port, (isSecure ? validatesSslCertificates : true), dnsResolver);
+    }
+
+    protected final Boolean _isSecure;
+    protected final String _host;
+    protected final Integer _port;
+    protected final Boolean _validatesSslCertificates;
+    protected final DnsResolver _dnsResolver;
+
+    public Route(final Boolean isSecure, final String host, final Integer port, final Boolean validatesSslCertificates) {
+        this(isSecure, host, port, validatesSslCertificates, null);
+    }
+
+    public Route(final Boolean isSecure, final String host, final Integer port, final Boolean validatesSslCertificates, final DnsResolver dnsResolver) {
+        _isSecure = isSecure;
+        _host = host;
+        _port = port;
+        _validatesSslCertificates = validatesSslCertificates;
+        _dnsResolver = dnsResolver;
+    }
+
+    public Boolean isSecure() {
+        return _isSecure;
+    }
+
+    public String getHost() {
+        return _host;
+    }
+
+    public Integer getPort() {
+        return _port;
+    }
+
+    public Boolean validatesSslCertificates() {
+        return _validatesSslCertificates;
+    }
+
+    /**
+     * Returns the DnsResolver that resolves the Route's host, or null if the HttpConnector's resolver is used.
+     *  Connections are not shared between Routes with different resolvers, since their hosts may resolve to different servers.
+     */
+    public DnsResolver getDnsResolver() {
+        return _dnsResolver;
+    }
+
+    /**
+     * Returns the value of the Host header for requests sent over this Route.
+     *  The port is omitted when it is the default port for the protocol.
+     */
+    public String getAuthority() {
+        final int defaultPort = (_isSecure ? 443 : 80);
+        final String host = (_host.contains(":") ? ("[" + _host + "]") : _host);
+        if (_port == defaultPort) { return host; }
+        return (host + ":" + _port);
+    }
+
+    /**
+     * Returns the route's origin (e.g. "https://example.com"), identifying the server independent of how its connections are configured.
+     */
+    public String getOrigin() {
+        return ((_isSecure ? "https://" : "http://") + getAuthority());
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (this == object) { return true; }
+        if (! (object instanceof Route)) { return false; }
+
+        final Route route = (Route) object;
+        return ( Util.areEqual(_isSecure, route._isSecure) && Util.areEqual(_host, route._host) && Util.areEqual(_port, route._port) && Util.areEqual(_validatesSslCertificates, route._validatesSslCertificates) && (_dnsResolver == route._dnsResolver) );
+    }
+
+    @Override
+    public int hashCode() {
+        return ((((_host.hashCode() * 31) + _port) * 31) + (_isSecure ? 1 : 0)) * 31 + (_validatesSslCertificates ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return getOrigin();
+    }
+}
@@ -0,0 +1,245 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.NaiveTrustManager;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The TLS configuration shared by every secure connection (HTTPS requests and wss:// WebSockets) established by an HttpConnector.
+ *  One SSLContext is created per trust configuration (validating, and naive for Routes that do not validate certificates) and reused,
+ *  so the client session cache (and TLS 1.3 session tickets) carry over between connections and later handshakes to the same host may be abbreviated.
+ *  Handshake counts and durations are recorded to measure how often sessions are resumed.
+ */
+public class TlsContext {
+    public static final Integer DEFAULT_SESSION_CACHE_SIZE = 1024;
+    public static final Integer DEFAULT_SESSION_TIMEOUT_SECONDS = 86400;
+
+    protected static TlsContext DEFAULT_TLS_CONTEXT = null;
+
+    public static synchronized TlsContext getDefault() {
+        if (DEFAULT_TLS_CONTEXT == null) {
+            DEFAULT_TLS_CONTEXT = new TlsContext(null);
+        }
+        return DEFAULT_TLS_CONTEXT;
+    }
+
+    protected final SSLContext _providedSslContext;
+
+    protected SSLContext _validatingSslContext = null;
+    protected SSLContext _naiveSslContext = null;
+    protected List<String> _enabledProtocols = null;
+    protected List<String> _enabledCipherSuites = null;
+    protected Integer _sessionCacheSize = DEFAULT_SESSION_CACHE_SIZE;
+    protected Integer _sessionTimeoutSeconds = DEFAULT_SESSION_TIMEOUT_SECONDS;
+
+    protected final AtomicLong _handshakeCount = new AtomicLong(0L);
+    protected final AtomicLong _resumedHandshakeCount = new AtomicLong(0L);
+    protected final AtomicLong _failedHandshakeCount = new AtomicLong(0L);
+    protected final AtomicLong _handshakeNanos = new AtomicLong(0L);
+
+    /**
+     * Throws an IllegalArgumentException if the values are empty or contain a value that is not supported.
+     */
+    protected static void _requireSupported(final String description, final List<String> values, final String[] supportedValues) {
+        if (values.isEmpty()) { throw new IllegalArgumentException("At least one TLS " + description + " must be enabled."); }
+
+        final List<String> supportedValueList = Arrays.asList(supportedValues);
+        for (final String value : values) {
+            if (! supportedValueList.contains(value)) {
+                throw new IllegalArgumentException("Unsupported TLS " + description + ": " + value);
+            }
+        }
+    }
+
+    /**
+     * Returns the protocols and cipher suites supported by the provided SSLContext, or by the JVM's default SSLContext.
+     */
+    protected SSLParameters _getSupportedSslParameters() {
+        try {
+            final SSLContext sslContext = (_providedSslContext != null ? _providedSslContext : SSLContext.getDefault());
+            return sslContext.getSupportedSSLParameters();
+        }
+        catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("Unable to determine the supported TLS parameters.", exception);
+        }
+    }
+
+    protected void _configureSessionContext(final SSLContext sslContext) {
+        final SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        if (sessionContext == null) { return; }
+
+        sessionContext.setSessionCacheSize(_sessionCacheSize);
+        sessionContext.setSessionTimeout(_sessionTimeoutSeconds);
+    }
+
+    protected synchronized SSLContext _getSslContext(final Boolean validatesSslCertificates) throws IOException {
+        try {
+            if (validatesSslCertificates) {
+                if (_validatingSslContext == null) {
+                    final SSLContext sslContext;
+                    if (_providedSslContext != null) {
+                        sslContext = _providedSslContext;
+                    }
+                    else {
+                        sslContext = SSLContext.getInstance("TLS");
+                        sslContext.init(null, null, null);
+                    }
+                    _configureSessionContext(sslContext);
+                    _validatingSslContext = sslContext;
+                }
+                return _validatingSslContext;
+            }
+
+            if (_naiveSslContext == null) {
+                final SSLContext sslContext = SSLContext.getInstance("TLS");
+                sslContext.init(null, new X509TrustManager[]{ new NaiveTrustManager() }, new SecureRandom());
+                _configureSessionContext(sslContext);
+                _naiveSslContext = sslContext;
+            }
+            return _naiveSslContext;
+        }
+        catch (final GeneralSecurityException exception) {
+            throw new IOException("Unable to initialize SSLContext.", exception);
+        }
+    }
+
+    /**
+     * Creates a TlsContext that validates certificates using the provided SSLContext (e.g. one initialized with a custom trust store or client certificate).
+     *  If sslContext is null, an SSLContext using the JVM's default trust store is created.
+     */
+    public TlsContext(final SSLContext sslContext) {
+        _providedSslContext = sslContext;
+    }
+
+    /**
+     * Restricts the protocols offered during the handshake (e.g. "TLSv1.3", "TLSv1.2"); if null, the SSLContext's defaults are used.
+     *  Throws an IllegalArgumentException if the list is empty or contains a protocol the SSLContext does not support.
+     */
+    public synchronized void setEnabledProtocols(final List<String> enabledProtocols) {
+        if (enabledProtocols != null) {
+            _requireSupported("protocol", enabledProtocols, _getSupportedSslParameters().getProtocols());
+        }
+        _enabledProtocols = (enabledProtocols != null ? new ArrayList<String>(enabledProtocols) : null);
+    }
+
+    public synchronized List<String> getEnabledProtocols() {
+        return _enabledProtocols;
+    }
+
+    /**
+     * Restricts the cipher suites offered during the handshake; if null, the SSLContext's defaults are used.
+     *  Throws an IllegalArgumentException if the list is empty or contains a cipher suite the SSLContext does not support.
+     */
+    public synchronized void setEnabledCipherSuites(final List<String> enabledCipherSuites) {
+        if (enabledCipherSuites != null) {
+            _requireSupported("cipher suite", enabledCipherSuites, _getSupportedSslParameters().getCipherSuites());
+        }
+        _enabledCipherSuites = (enabledCipherSuites != null ? new ArrayList<String>(enabledCipherSuites) : null);
+    }
+
+    public synchronized List<String> getEnabledCipherSuites() {
+        return _enabledCipherSuites;
+    }
+
+    /**
+     * Sets the number of sessions retained for resumption, and how long each session may be resumed; a value of zero removes the limit.
+     *  Applies to SSLContexts created after this call.
+     */
+    public synchronized void setSessionCacheConfiguration(final Integer sessionCacheSize, final Integer sessionTimeoutSeconds) {
+        _sessionCacheSize = sessionCacheSize;
+        _sessionTimeoutSeconds = sessionTimeoutSeconds;
+    }
+
+    /**
+     * Layers TLS over the connected socket and completes the handshake, offering the applicationProtocols (in order of preference) via ALPN.
+     *  Hostnames are verified for Routes that validate certificates.
+     */
+    public SSLSocket startTls(final Route route, final Socket socket, final List<String> applicationProtocols) throws IOException {
+        final SSLContext sslContext = _getSslContext(route.validatesSslCertificates());
+        final List<String> enabledProtocols;
+        final List<String> enabledCipherSuites;
+        synchronized (this) {
+            enabledProtocols = _enabledProtocols;
+            enabledCipherSuites = _enabledCipherSuites;
+        }
+
+        final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
+        final SSLSocket sslSocket = (SSLSocket) sslSocketFactory.createSocket(socket, route.getHost(), route.getPort(), true);
+
+        final SSLParameters sslParameters = sslSocket.getSSLParameters();
+        if (route.validatesSslCertificates()) {
+            // Layered SSLSockets do not verify the server's hostname unless an endpoint identification algorithm is set.
+            sslParameters.setEndpointIdentificationAlgorithm("HTTPS");
+        }
+        if (applicationProtocols != null) {
+            sslParameters.setApplicationProtocols(applicationProtocols.toArray(new String[0]));
+        }
+        if (enabledProtocols != null) {
+            sslParameters.setProtocols(enabledProtocols.toArray(new String[0]));
+        }
+        if (enabledCipherSuites != null) {
+            sslParameters.setCipherSuites(enabledCipherSuites.toArray(new String[0]));
+        }
+        sslSocket.setSSLParameters(sslParameters);
+
+        final long startTime = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
+        try {
+            sslSocket.startHandshake();
+        }
+        catch (final IOException exception) {
+            _failedHandshakeCount.incrementAndGet();
+            throw exception;
+        }
+        _handshakeNanos.addAndGet(System.nanoTime() - startNanos);
+        _handshakeCount.incrementAndGet();
+
+        // NOTE: A resumed session retains the creation time of the session it was resumed from.
+        final SSLSession sslSession = sslSocket.getSession();
+        if (sslSession.getCreationTime() < startTime) {
+            _resumedHandshakeCount.incrementAndGet();
+        }
+
+        return sslSocket;
+    }
+
+    /**
+     * Returns the number of completed handshakes, including resumed handshakes.
+     */
+    public Long getHandshakeCount() {
+        return _handshakeCount.get();
+    }
+
+    /**
+     * Returns the number of completed handshakes that resumed a previous session instead of performing a full handshake.
+     */
+    public Long getResumedHandshakeCount() {
+        return _resumedHandshakeCount.get();
+    }
+
+    public Long getFailedHandshakeCount() {
+        return _failedHandshakeCount.get();
+    }
+
+    /**
+     * Returns the cumulative time spent completing handshakes, in nanoseconds.
+     */
+    public Long getHandshakeNanos() {
+        return _handshakeNanos.get();
+    }
+}
@@ -0,0 +1,191 @@
+package com.softwareverde.http.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caches the addresses resolved by another DnsResolver for ttl milliseconds, and failed lookups for negativeTtl milliseconds.
+ *  Concurrent lookups of the same uncached hostname are coalesced, so a slow resolver is queried (and blocks a thread) once per hostname rather than once per request.
+ *  At most maxEntryCount hostnames are cached; once full, expired entries are removed, and then the oldest entry is evicted to make room.
+ */
+public class CachingDnsResolver implements DnsResolver {
+    public static final Long DEFAULT_TTL_MS = 60000L;
+    public static final Long DEFAULT_NEGATIVE_TTL_MS = 10000L;
+    public static final Integer DEFAULT_MAX_ENTRY_COUNT = 4096;
+
+    protected static CachingDnsResolver DEFAULT_DNS_RESOLVER = null;
+
+    /**
+     * Returns the resolver used by HttpConnectors that have not been assigned a resolver: the system resolver, cached with the default TTLs.
+     */
+    public static synchronized CachingDnsResolver getDefault() {
+        if (DEFAULT_DNS_RESOLVER == null) {
+            DEFAULT_DNS_RESOLVER = new CachingDnsResolver(new SystemDnsResolver(), DEFAULT_TTL_MS, DEFAULT_NEGATIVE_TTL_MS);
+        }
+        return DEFAULT_DNS_RESOLVER;
+    }
+
+    protected static class Entry {
+        public final List<InetAddress> addresses;
+        public final UnknownHostException exception;
+        public final Long expiresAt;
+
+        public Entry(final List<InetAddress> addresses, final UnknownHostException exception, final Long expiresAt) {
+            this.addresses = addresses;
+            this.exception = exception;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    protected final DnsResolver _dnsResolver;
+    protected final Long _ttl;
+    protected final Long _negativeTtl;
+    protected final Integer _maxEntryCount;
+
+    protected final LinkedHashMap<String, Entry> _entries = new LinkedHashMap<String, Entry>(); // NOTE: Ordered from oldest to newest entry.
+    protected final Map<String, CompletableFuture<Entry>> _pendingLookups = new HashMap<String, CompletableFuture<Entry>>();
+    protected Long _hitCount = 0L;
+    protected Long _missCount = 0L;
+
+    protected List<InetAddress> _getAddresses(final String hostname, final Entry entry) throws UnknownHostException {
+        if (entry.exception != null) {
+            final UnknownHostException exception = new UnknownHostException(entry.exception.getMessage());
+            exception.initCause(entry.exception);
+            throw exception;
+        }
+        return new ArrayList<InetAddress>(entry.addresses);
+    }
+
+    protected void _removeExpiredEntries(final Long now) {
+        final Iterator<Entry> iterator = _entries.values().iterator();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next();
+            if (entry.expiresAt <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public CachingDnsResolver(final DnsResolver dnsResolver, final Long ttl, final Long negativeTtl) {
+        this(dnsResolver, ttl, negativeTtl, DEFAULT_MAX_ENTRY_COUNT);
+    }
+
+    public CachingDnsResolver(final DnsResolver dnsResolver, final Long ttl, final Long negativeTtl, final Integer maxEntryCount) {
+        _dnsResolver = dnsResolver;
+        _ttl = ttl;
+        _negativeTtl = negativeTtl;
+        _maxEntryCount = maxEntryCount;
+    }
+
+    @Override
+    public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+        final String key = hostname.toLowerCase(Locale.ROOT);
+
+        final CompletableFuture<Entry> pendingLookup;
+        final boolean isLookupOwner;
+        synchronized (this) {
+            final Entry entry = _entries.get(key);
+            if ( (entry != null) && (entry.expiresAt > System.currentTimeMillis()) ) {
+                _hitCount += 1L;
+                return _getAddresses(hostname, entry);
+            }
+
+            _missCount += 1L;
+            final CompletableFuture<Entry> existingLookup = _pendingLookups.get(key);
+            if (existingLookup != null) {
+                pendingLookup = existingLookup;
+                isLookupOwner = false;
+            }
+            else {
+                pendingLookup = new CompletableFuture<Entry>();
+                _pendingLookups.put(key, pendingLookup);
+                isLookupOwner = true;
+            }
+        }
+
+        if (isLookupOwner) {
+            Entry entry;
+            try {
+                final List<InetAddress> addresses = _dnsResolver.resolve(hostname);
+                if ( (addresses == null) || addresses.isEmpty() ) { throw new UnknownHostException(hostname); }
+                entry = new Entry(Collections.unmodifiableList(new ArrayList<InetAddress>(addresses)), null, (System.currentTimeMillis() + _ttl));
+            }
+            catch (final UnknownHostException exception) {
+                entry = new Entry(null, exception, (System.currentTimeMillis() + _negativeTtl));
+            }
+            catch (final RuntimeException exception) {
+                synchronized (this) {
+                    _pendingLookups.remove(key);
+                }
+                pendingLookup.completeExceptionally(exception);
+                throw exception;
+            }
+
+            synchronized (this) {
+                _pendingLookups.remove(key);
+                _entries.remove(key);
+                if (_entries.size() >= _maxEntryCount) {
+                    _removeExpiredEntries(System.currentTimeMillis());
+                }
+                final Iterator<String> iterator = _entries.keySet().iterator();
+                while ( (_entries.size() >= _maxEntryCount) && iterator.hasNext() ) {
+                    iterator.next();
+                    iterator.remove();
+                }
+                if (_maxEntryCount > 0) {
+                    _entries.put(key, entry);
+                }
+            }
+            pendingLookup.complete(entry);
+            return _getAddresses(hostname, entry);
+        }
+
+        try {
+            return _getAddresses(hostname, pendingLookup.get());
+        }
+        catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            final UnknownHostException unknownHostException = new UnknownHostException("Interrupted while resolving " + hostname + ".");
+            unknownHostException.initCause(exception);
+            throw unknownHostException;
+        }
+        catch (final ExecutionException exception) {
+            final UnknownHostException unknownHostException = new UnknownHostException("Unable to resolve " + hostname + ".");
+            unknownHostException.initCause(exception.getCause());
+            throw unknownHostException;
+        }
+    }
+
+    /**
+     * Removes the hostname's cached addresses (or cached failure), so the next lookup queries the underlying resolver.
+     */
+    public synchronized void evict(final String hostname) {
+        _entries.remove(hostname.toLowerCase(Locale.ROOT));
+    }
+
+    public synchronized void clear() {
+        _entries.clear();
+    }
+
+    public synchronized Long getHitCount() {
+        return _hitCount;
+    }
+
+    public synchronized Long getMissCount() {
+        return _missCount;
+    }
+
+    public synchronized Integer getEntryCount() {
+        return _entries.size();
+    }
+}
@@ -0,0 +1,13 @@
+package com.softwareverde.http.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * Resolves a hostname to the addresses that new connections may be established to.
+ *  Implementations must be thread-safe; addresses should be returned in order of preference.
+ */
+public interface DnsResolver {
+    List<InetAddress> resolve(String hostname) throws UnknownHostException;
+}
@@ -0,0 +1,48 @@
+package com.softwareverde.http.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves hostnames from a fixed set of entries (similar to a hosts file), e.g. to direct requests to a local server during tests.
+ *  Hostnames without an entry are resolved via the fallback DnsResolver, or fail if there is no fallback.
+ */
+public class StaticDnsResolver implements DnsResolver {
+    protected final DnsResolver _fallbackDnsResolver;
+    protected final Map<String, List<InetAddress>> _hosts = new HashMap<String, List<InetAddress>>();
+
+    public StaticDnsResolver() {
+        this(null);
+    }
+
+    public StaticDnsResolver(final DnsResolver fallbackDnsResolver) {
+        _fallbackDnsResolver = fallbackDnsResolver;
+    }
+
+    public synchronized void addHost(final String hostname, final InetAddress... addresses) {
+        _hosts.put(hostname.toLowerCase(Locale.ROOT), new ArrayList<InetAddress>(Arrays.asList(addresses)));
+    }
+
+    public synchronized void removeHost(final String hostname) {
+        _hosts.remove(hostname.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+        synchronized (this) {
+            final List<InetAddress> addresses = _hosts.get(hostname.toLowerCase(Locale.ROOT));
+            if (addresses != null) {
+                return new ArrayList<InetAddress>(addresses);
+            }
+        }
+
+        if (_fallbackDnsResolver == null) { throw new UnknownHostException(hostname); }
+        return _fallbackDnsResolver.resolve(hostname);
+    }
+}
@@ -0,0 +1,16 @@
+package com.softwareverde.http.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves hostnames via the JVM's (blocking) InetAddress lookup, and therefore the operating system's resolver.
+ */
+public class SystemDnsResolver implements DnsResolver {
+    @Override
+    public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+        return Arrays.asList(InetAddress.getAllByName(hostname));
+    }
+}
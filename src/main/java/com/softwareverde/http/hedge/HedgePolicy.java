@@ -0,0 +1,134 @@
+package com.softwareverde.http.hedge;
+
+import java.util.Arrays;
+
+/**
+ * Determines when a hedge (i.e. a second, concurrent attempt) of an idempotent request is sent.
+ *  If the request has not completed within the hedge delay, the hedge is sent and whichever attempt completes first is used;
+ *  the other attempt is cancelled.
+ *  The delay is either fixed, or the configured percentile of the latencies recently observed by requests using the policy
+ *  (so a policy should be shared by requests of similar latency, e.g. requests to the same endpoint).
+ *  To bound the additional load, hedges are limited to maxHedgeRatio of requests.
+ */
+public class HedgePolicy {
+    public static final Double DEFAULT_MAX_HEDGE_RATIO = 0.1D;
+    public static final Integer DEFAULT_MIN_SAMPLE_COUNT = 100;
+    public static final Integer SAMPLE_WINDOW_SIZE = 1024;
+    public static final Integer MAX_BALANCE_REQUEST_COUNT = 100;
+
+    protected static final Integer PERCENTILE_RECALCULATION_INTERVAL = 32;
+
+    protected final Long _delay;
+    protected final Double _percentile;
+    protected Double _maxHedgeRatio = DEFAULT_MAX_HEDGE_RATIO;
+    protected Integer _minSampleCount = DEFAULT_MIN_SAMPLE_COUNT;
+
+    protected final long[] _latencies = new long[SAMPLE_WINDOW_SIZE];
+    protected Integer _sampleCount = 0;
+    protected Integer _nextSampleIndex = 0;
+    protected Integer _samplesSinceCalculation = 0;
+    protected Long _percentileDelay = null;
+
+    protected Double _hedgeBalance = 0D;
+    protected Long _requestCount = 0L;
+    protected Long _hedgeCount = 0L;
+    protected Long _hedgeWinCount = 0L;
+
+    protected void _calculatePercentileDelay() {
+        final int sampleCount = _sampleCount;
+        final long[] latencies = Arrays.copyOf(_latencies, sampleCount);
+        Arrays.sort(latencies);
+
+        final int index = Math.max(0, Math.min((sampleCount - 1), ((int) Math.ceil(_percentile * sampleCount) - 1)));
+        _percentileDelay = latencies[index];
+        _samplesSinceCalculation = 0;
+    }
+
+    /**
+     * Hedges requests that have not completed within delay milliseconds.
+     */
+    public HedgePolicy(final Long delay) {
+        _delay = delay;
+        _percentile = null;
+    }
+
+    /**
+     * Hedges requests that have not completed within the percentile (e.g. 0.95) of recently observed latencies.
+     *  Until minSampleCount latencies have been observed, initialDelay (in milliseconds) is used instead.
+     */
+    public HedgePolicy(final Double percentile, final Long initialDelay) {
+        _delay = initialDelay;
+        _percentile = percentile;
+    }
+
+    /**
+     * Sets the maximum ratio of hedges to requests (e.g. 0.1 permits at most one hedge for every ten requests).
+     */
+    public synchronized void setMaxHedgeRatio(final Double maxHedgeRatio) {
+        _maxHedgeRatio = maxHedgeRatio;
+    }
+
+    public synchronized void setMinSampleCount(final Integer minSampleCount) {
+        _minSampleCount = minSampleCount;
+    }
+
+    /**
+     * Returns the delay (in milliseconds) after which an incomplete request is hedged.
+     */
+    public synchronized Long getHedgeDelay() {
+        if ( (_percentile == null) || (_sampleCount < _minSampleCount) ) { return _delay; }
+
+        if ( (_percentileDelay == null) || (_samplesSinceCalculation >= PERCENTILE_RECALCULATION_INTERVAL) ) {
+            _calculatePercentileDelay();
+        }
+        return _percentileDelay;
+    }
+
+    /**
+     * Invoked once for each request that is eligible to be hedged.
+     */
+    public synchronized void onRequest() {
+        _requestCount += 1L;
+        _hedgeBalance = Math.min((_maxHedgeRatio * MAX_BALANCE_REQUEST_COUNT), (_hedgeBalance + _maxHedgeRatio));
+    }
+
+    /**
+     * Returns true if a hedge may be sent without exceeding the maximum hedge ratio.
+     */
+    public synchronized Boolean tryAcquireHedge() {
+        if (_hedgeBalance < 1D) { return false; }
+
+        _hedgeBalance -= 1D;
+        _hedgeCount += 1L;
+        return true;
+    }
+
+    /**
+     * Records the latency (in milliseconds) of a successful request.
+     */
+    public synchronized void recordLatency(final Long latency) {
+        _latencies[_nextSampleIndex] = latency;
+        _nextSampleIndex = ((_nextSampleIndex + 1) % SAMPLE_WINDOW_SIZE);
+        _sampleCount = Math.min(SAMPLE_WINDOW_SIZE, (_sampleCount + 1));
+        _samplesSinceCalculation += 1;
+    }
+
+    /**
+     * Invoked when a hedge completes before the attempt it hedged.
+     */
+    public synchronized void onHedgeWon() {
+        _hedgeWinCount += 1L;
+    }
+
+    public synchronized Long getRequestCount() {
+        return _requestCount;
+    }
+
+    public synchronized Long getHedgeCount() {
+        return _hedgeCount;
+    }
+
+    public synchronized Long getHedgeWinCount() {
+        return _hedgeWinCount;
+    }
+}
@@ -0,0 +1,119 @@
+package com.softwareverde.http.http2;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decompresses HPACK header blocks (RFC 7541) into header lists.
+ *  Any decoding error is a connection error (COMPRESSION_ERROR), since the dynamic table can no longer be kept in sync with the peer.
+ *  HpackDecoder is not synchronized; header blocks must be decoded in the order they were received.
+ */
+public class HpackDecoder {
+    protected final HpackHeaderTable _headerTable;
+    protected final Integer _maxAllowedTableSize;
+    protected final Integer _maxHeaderListSize;
+
+    protected int _position;
+
+    protected int _readInteger(final byte[] bytes, final int prefixBitCount) throws IOException {
+        final int maxPrefixValue = ((1 << prefixBitCount) - 1);
+        int value = ((bytes[_position] & 0xFF) & maxPrefixValue);
+        _position += 1;
+        if (value < maxPrefixValue) { return value; }
+
+        int shift = 0;
+        while (true) {
+            if (_position >= bytes.length) { throw new IOException("Truncated HPACK integer."); }
+            if (shift > 28) { throw new IOException("HPACK integer overflow."); }
+
+            final int b = (bytes[_position] & 0xFF);
+            _position += 1;
+
+            value += ((b & 0x7F) << shift);
+            if (value < 0) { throw new IOException("HPACK integer overflow."); }
+            if ((b & 0x80) == 0) { return value; }
+            shift += 7;
+        }
+    }
+
+    protected String _readString(final byte[] bytes) throws IOException {
+        if (_position >= bytes.length) { throw new IOException("Truncated HPACK string."); }
+
+        final boolean isHuffmanEncoded = ((bytes[_position] & 0x80) != 0);
+        final int byteCount = _readInteger(bytes, 7);
+        if ((_position + byteCount) > bytes.length) { throw new IOException("Truncated HPACK string."); }
+
+        final String string;
+        if (isHuffmanEncoded) {
+            string = new String(HpackHuffman.decode(bytes, _position, byteCount), StandardCharsets.ISO_8859_1);
+        }
+        else {
+            string = new String(bytes, _position, byteCount, StandardCharsets.ISO_8859_1);
+        }
+        _position += byteCount;
+        return string;
+    }
+
+    protected HpackHeaderField _getIndexedField(final int index) throws IOException {
+        final HpackHeaderField headerField = _headerTable.get(index);
+        if (headerField == null) { throw new IOException("Invalid HPACK index: " + index); }
+        return headerField;
+    }
+
+    /**
+     * @param maxAllowedTableSize   the SETTINGS_HEADER_TABLE_SIZE advertised to the peer.
+     * @param maxHeaderListSize     the maximum decoded size of a header list (as counted by HpackHeaderField::getSize).
+     */
+    public HpackDecoder(final Integer maxAllowedTableSize, final Integer maxHeaderListSize) {
+        _headerTable = new HpackHeaderTable(maxAllowedTableSize);
+        _maxAllowedTableSize = maxAllowedTableSize;
+        _maxHeaderListSize = maxHeaderListSize;
+    }
+
+    public List<HpackHeaderField> decode(final byte[] headerBlock) throws IOException {
+        final List<HpackHeaderField> headerFields = new ArrayList<HpackHeaderField>();
+        int headerListSize = 0;
+        boolean isTableSizeUpdateAllowed = true;
+
+        _position = 0;
+        while (_position < headerBlock.length) {
+            final int b = (headerBlock[_position] & 0xFF);
+
+            if ((b & 0xE0) == 0x20) { // Dynamic Table Size Update
+                if (! isTableSizeUpdateAllowed) { throw new IOException("HPACK table size update must begin the header block."); }
+
+                final int maxTableSize = _readInteger(headerBlock, 5);
+                if (maxTableSize > _maxAllowedTableSize) { throw new IOException("HPACK table size update exceeds limit: " + maxTableSize); }
+
+                _headerTable.setMaxSize(maxTableSize);
+                continue;
+            }
+            isTableSizeUpdateAllowed = false;
+
+            final HpackHeaderField headerField;
+            if ((b & 0x80) != 0) { // Indexed Header Field
+                headerField = _getIndexedField(_readInteger(headerBlock, 7));
+            }
+            else {
+                final boolean isIndexed = ((b & 0xC0) == 0x40);
+                final int nameIndex = _readInteger(headerBlock, (isIndexed ? 6 : 4));
+                final String name = (nameIndex > 0 ? _getIndexedField(nameIndex).getName() : _readString(headerBlock));
+                final String value = _readString(headerBlock);
+
+                headerField = new HpackHeaderField(name, value);
+                if (isIndexed) {
+                    _headerTable.add(headerField);
+                }
+            }
+
+            headerListSize += headerField.getSize();
+            if (headerListSize > _maxHeaderListSize) { throw new IOException("Header list exceeds " + _maxHeaderListSize + " bytes."); }
+
+            headerFields.add(headerField);
+        }
+
+        return headerFields;
+    }
+}
@@ -0,0 +1,100 @@
+package com.softwareverde.http.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Compresses header lists into HPACK header blocks (RFC 7541).
+ *  Header fields are indexed into the dynamic table unless they are sensitive (e.g. credentials), which are encoded as never-indexed literals.
+ *  String literals are Huffman-encoded whenever that is shorter than the raw octets.
+ *  HpackEncoder is not synchronized; header blocks must be encoded in the order they are written to the connection.
+ */
+public class HpackEncoder {
+    protected final HpackHeaderTable _headerTable;
+    protected Integer _pendingMaxTableSize = null;
+
+    protected static boolean _isSensitive(final String name) {
+        return ( name.equals("authorization") || name.equals("proxy-authorization") || name.equals("cookie") || name.equals("set-cookie") );
+    }
+
+    protected static void _writeInteger(final int prefixBits, final int prefixBitCount, final int value, final ByteArrayOutputStream outputStream) {
+        final int maxPrefixValue = ((1 << prefixBitCount) - 1);
+        if (value < maxPrefixValue) {
+            outputStream.write(prefixBits | value);
+            return;
+        }
+
+        outputStream.write(prefixBits | maxPrefixValue);
+        int remainingValue = (value - maxPrefixValue);
+        while (remainingValue >= 0x80) {
+            outputStream.write((remainingValue & 0x7F) | 0x80);
+            remainingValue >>>= 7;
+        }
+        outputStream.write(remainingValue);
+    }
+
+    protected static void _writeString(final String string, final ByteArrayOutputStream outputStream) {
+        final byte[] bytes = string.getBytes(StandardCharsets.ISO_8859_1);
+        final int huffmanByteCount = HpackHuffman.getEncodedByteCount(bytes);
+        if (huffmanByteCount < bytes.length) {
+            _writeInteger(0x80, 7, huffmanByteCount, outputStream);
+            HpackHuffman.encode(bytes, outputStream);
+        }
+        else {
+            _writeInteger(0x00, 7, bytes.length, outputStream);
+            outputStream.write(bytes, 0, bytes.length);
+        }
+    }
+
+    public HpackEncoder() {
+        _headerTable = new HpackHeaderTable(HpackHeaderTable.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Sets the dynamic table size; invoked when the peer advertises SETTINGS_HEADER_TABLE_SIZE.
+     *  The size update is signaled to the peer at the beginning of the next header block.
+     */
+    public void setMaxTableSize(final Integer maxTableSize) {
+        final int newMaxTableSize = Math.min(maxTableSize, HpackHeaderTable.DEFAULT_MAX_SIZE);
+        if (newMaxTableSize == _headerTable.getMaxSize()) { return; }
+
+        _headerTable.setMaxSize(newMaxTableSize);
+        _pendingMaxTableSize = newMaxTableSize;
+    }
+
+    public void encode(final List<HpackHeaderField> headerFields, final ByteArrayOutputStream outputStream) {
+        if (_pendingMaxTableSize != null) {
+            _writeInteger(0x20, 5, _pendingMaxTableSize, outputStream);
+            _pendingMaxTableSize = null;
+        }
+
+        for (final HpackHeaderField headerField : headerFields) {
+            final String name = headerField.getName();
+            final String value = headerField.getValue();
+
+            if (_isSensitive(name)) {
+                final int index = _headerTable.find(name, "");
+                _writeInteger(0x10, 4, Math.abs(index), outputStream);
+                if (index == 0) {
+                    _writeString(name, outputStream);
+                }
+                _writeString(value, outputStream);
+                continue;
+            }
+
+            final int index = _headerTable.find(name, value);
+            if (index > 0) {
+                _writeInteger(0x80, 7, index, outputStream);
+                continue;
+            }
+
+            _writeInteger(0x40, 6, Math.abs(index), outputStream);
+            if (index == 0) {
+                _writeString(name, outputStream);
+            }
+            _writeString(value, outputStream);
+            _headerTable.add(headerField);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.softwareverde.http.http2;
+
+/**
+ * A header name/value pair as represented by HPACK.
+ *  Names are lowercase; pseudo-header names (e.g. ":status") begin with a colon.
+ */
+public class HpackHeaderField {
+    protected static final Integer ENTRY_OVERHEAD_BYTE_COUNT = 32;
+
+    protected final String _name;
+    protected final String _value;
+
+    public HpackHeaderField(final String name, final String value) {
+        _name = name;
+        _value = value;
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    public String getValue() {
+        return _value;
+    }
+
+    /**
+     * Returns the size of the field as counted against the dynamic table's capacity (RFC 7541, Section 4.1).
+     */
+    public Integer getSize() {
+        return (_name.length() + _value.length() + ENTRY_OVERHEAD_BYTE_COUNT);
+    }
+
+    @Override
+    public String toString() {
+        return (_name + ": " + _value);
+    }
+}
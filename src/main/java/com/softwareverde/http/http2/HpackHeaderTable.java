@@ -0,0 +1,176 @@
+package com.softwareverde.http.http2;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * The combined HPACK static and dynamic header table (RFC 7541, Section 2.3).
+ *  Index 1 through 61 address the static table; subsequent indexes address the dynamic table, newest entry first.
+ *  HpackHeaderTable is not synchronized; each direction of an HTTP/2 connection owns its own table.
+ */
+public class HpackHeaderTable {
+    public static final Integer DEFAULT_MAX_SIZE = 4096;
+
+    protected static final HpackHeaderField[] STATIC_TABLE = {
+        new HpackHeaderField(":authority", ""),
+        new HpackHeaderField(":method", "GET"),
+        new HpackHeaderField(":method", "POST"),
+        new HpackHeaderField(":path", "/"),
+        new HpackHeaderField(":path", "/index.html"),
+        new HpackHeaderField(":scheme", "http"),
+        new HpackHeaderField(":scheme", "https"),
+        new HpackHeaderField(":status", "200"),
+        new HpackHeaderField(":status", "204"),
+        new HpackHeaderField(":status", "206"),
+        new HpackHeaderField(":status", "304"),
+        new HpackHeaderField(":status", "400"),
+        new HpackHeaderField(":status", "404"),
+        new HpackHeaderField(":status", "500"),
+        new HpackHeaderField("accept-charset", ""),
+        new HpackHeaderField("accept-encoding", "gzip, deflate"),
+        new HpackHeaderField("accept-language", ""),
+        new HpackHeaderField("accept-ranges", ""),
+        new HpackHeaderField("accept", ""),
+        new HpackHeaderField("access-control-allow-origin", ""),
+        new HpackHeaderField("age", ""),
+        new HpackHeaderField("allow", ""),
+        new HpackHeaderField("authorization", ""),
+        new HpackHeaderField("cache-control", ""),
+        new HpackHeaderField("content-disposition", ""),
+        new HpackHeaderField("content-encoding", ""),
+        new HpackHeaderField("content-language", ""),
+        new HpackHeaderField("content-length", ""),
+        new HpackHeaderField("content-location", ""),
+        new HpackHeaderField("content-range", ""),
+        new HpackHeaderField("content-type", ""),
+        new HpackHeaderField("cookie", ""),
+        new HpackHeaderField("date", ""),
+        new HpackHeaderField("etag", ""),
+        new HpackHeaderField("expect", ""),
+        new HpackHeaderField("expires", ""),
+        new HpackHeaderField("from", ""),
+        new HpackHeaderField("host", ""),
+        new HpackHeaderField("if-match", ""),
+        new HpackHeaderField("if-modified-since", ""),
+        new HpackHeaderField("if-none-match", ""),
+        new HpackHeaderField("if-range", ""),
+        new HpackHeaderField("if-unmodified-since", ""),
+        new HpackHeaderField("last-modified", ""),
+        new HpackHeaderField("link", ""),
+        new HpackHeaderField("location", ""),
+        new HpackHeaderField("max-forwards", ""),
+        new HpackHeaderField("proxy-authenticate", ""),
+        new HpackHeaderField("proxy-authorization", ""),
+        new HpackHeaderField("range", ""),
+        new HpackHeaderField("referer", ""),
+        new HpackHeaderField("refresh", ""),
+        new HpackHeaderField("retry-after", ""),
+        new HpackHeaderField("server", ""),
+        new HpackHeaderField("set-cookie", ""),
+        new HpackHeaderField("strict-transport-security", ""),
+        new HpackHeaderField("transfer-encoding", ""),
+        new HpackHeaderField("user-agent", ""),
+        new HpackHeaderField("vary", ""),
+        new HpackHeaderField("via", ""),
+        new HpackHeaderField("www-authenticate", "")
+    };
+
+    protected final ArrayDeque<HpackHeaderField> _dynamicTable = new ArrayDeque<HpackHeaderField>();
+    protected int _size = 0;
+    protected int _maxSize;
+
+    protected void _evict(final int maxSize) {
+        while ( (_size > maxSize) && (! _dynamicTable.isEmpty()) ) {
+            final HpackHeaderField headerField = _dynamicTable.removeLast();
+            _size -= headerField.getSize();
+        }
+    }
+
+    public HpackHeaderTable(final Integer maxSize) {
+        _maxSize = maxSize;
+    }
+
+    public Integer getStaticTableLength() {
+        return STATIC_TABLE.length;
+    }
+
+    public Integer getLength() {
+        return (STATIC_TABLE.length + _dynamicTable.size());
+    }
+
+    /**
+     * Returns the header field at the (1-based) index, or null if the index is out of range.
+     */
+    public HpackHeaderField get(final int index) {
+        if (index < 1) { return null; }
+        if (index <= STATIC_TABLE.length) {
+            return STATIC_TABLE[index - 1];
+        }
+
+        int dynamicIndex = (index - STATIC_TABLE.length - 1);
+        if (dynamicIndex >= _dynamicTable.size()) { return null; }
+
+        final Iterator<HpackHeaderField> iterator = _dynamicTable.iterator();
+        HpackHeaderField headerField = iterator.next();
+        while (dynamicIndex > 0) {
+            headerField = iterator.next();
+            dynamicIndex -= 1;
+        }
+        return headerField;
+    }
+
+    /**
+     * Returns the index of an entry matching both the name and value, or the negated index of an entry matching only the name,
+     *  or zero if no entry matches the name.
+     */
+    public int find(final String name, final String value) {
+        int nameIndex = 0;
+        for (int i = 0; i < STATIC_TABLE.length; ++i) {
+            final HpackHeaderField headerField = STATIC_TABLE[i];
+            if (! headerField.getName().equals(name)) { continue; }
+            if (headerField.getValue().equals(value)) { return (i + 1); }
+            if (nameIndex == 0) {
+                nameIndex = -(i + 1);
+            }
+        }
+
+        int index = (STATIC_TABLE.length + 1);
+        for (final HpackHeaderField headerField : _dynamicTable) {
+            if (headerField.getName().equals(name)) {
+                if (headerField.getValue().equals(value)) { return index; }
+                if (nameIndex == 0) {
+                    nameIndex = -index;
+                }
+            }
+            index += 1;
+        }
+
+        return nameIndex;
+    }
+
+    /**
+     * Inserts the header field into the dynamic table, evicting the oldest entries as necessary.
+     *  Fields larger than the table's capacity empty the table and are not inserted.
+     */
+    public void add(final HpackHeaderField headerField) {
+        final int fieldSize = headerField.getSize();
+        _evict(_maxSize - fieldSize);
+        if (fieldSize > _maxSize) { return; }
+
+        _dynamicTable.addFirst(headerField);
+        _size += fieldSize;
+    }
+
+    public void setMaxSize(final Integer maxSize) {
+        _maxSize = maxSize;
+        _evict(maxSize);
+    }
+
+    public Integer getMaxSize() {
+        return _maxSize;
+    }
+
+    public Integer getSize() {
+        return _size;
+    }
+}
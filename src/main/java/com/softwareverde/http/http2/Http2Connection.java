@@ -0,0 +1,872 @@
+package com.softwareverde.http.http2;
+
+import com.softwareverde.http.HttpHeaders;
+import com.softwareverde.http.HttpMethod;
+import com.softwareverde.http.RequestBody;
+import com.softwareverde.http.connection.HttpConnection;
+import com.softwareverde.http.connection.ResponseHead;
+import com.softwareverde.http.connection.Route;
+import com.softwareverde.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An HTTP/2 connection (RFC 7540) that multiplexes concurrent Http2Streams over a single HttpConnection.
+ *  Frames are read by a dedicated reader thread; request frames are written by the threads executing the requests.
+ *  Both connection-level and stream-level flow control are honored in each direction:
+ *  request bodies wait for the server's windows, and the client's receive windows are replenished as response bodies are consumed.
+ *  Server push is disabled.
+ */
+public class Http2Connection implements AutoCloseable {
+    public static final String APPLICATION_PROTOCOL = "h2";
+    public static final Integer DEFAULT_WINDOW_SIZE = 65535;
+
+    protected static final byte[] CONNECTION_PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    protected static final Integer LOCAL_STREAM_WINDOW_SIZE = (1024 * 1024);
+    protected static final Integer LOCAL_CONNECTION_WINDOW_SIZE = (16 * 1024 * 1024);
+    protected static final Integer LOCAL_MAX_HEADER_LIST_SIZE = (256 * 1024);
+    protected static final Long MAX_WINDOW_SIZE = 2147483647L;
+    protected static final Integer MAX_STREAM_ID = 2147483647;
+
+    /**
+     * Indicates the request was not processed by the server (e.g. REFUSED_STREAM, or a GOAWAY that excludes the stream);
+     *  the request may safely be retried, even if it is not idempotent.
+     */
+    public static class UnprocessedStreamException extends IOException {
+        public UnprocessedStreamException(final String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Connection-specific header fields that must not be sent over HTTP/2 (RFC 7540, Section 8.1.2.2).
+     */
+    protected static boolean _isConnectionSpecificHeader(final String lowerCaseName) {
+        switch (lowerCaseName) {
+            case "host":
+            case "connection":
+            case "keep-alive":
+            case "proxy-connection":
+            case "transfer-encoding":
+            case "upgrade":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    protected static List<HpackHeaderField> _buildHeaderFields(final HttpMethod method, final Route route, final String requestTarget, final HttpHeaders headers) {
+        final Integer headerCount = headers.getCount();
+        final List<HpackHeaderField> headerFields = new ArrayList<HpackHeaderField>(headerCount + 4);
+        headerFields.add(new HpackHeaderField(":method", method.name()));
+        headerFields.add(new HpackHeaderField(":scheme", (route.isSecure() ? "https" : "http")));
+        headerFields.add(new HpackHeaderField(":authority", route.getAuthority()));
+        headerFields.add(new HpackHeaderField(":path", requestTarget));
+
+        for (int i = 0; i < headerCount; ++i) {
+            final String name = headers.getNameAt(i).toLowerCase(Locale.ROOT);
+            final String value = headers.getValueAt(i);
+            if (_isConnectionSpecificHeader(name)) { continue; }
+            if ( name.equals("te") && (! value.equalsIgnoreCase("trailers")) ) { continue; }
+
+            headerFields.add(new HpackHeaderField(name, value));
+        }
+        return headerFields;
+    }
+
+    protected final HttpConnection _connection;
+    protected final InputStream _inputStream;
+    protected final OutputStream _outputStream;
+    protected final Object _writeLock = new Object();
+    protected final HpackEncoder _hpackEncoder = new HpackEncoder(); // Guarded by _writeLock.
+    protected final HpackDecoder _hpackDecoder = new HpackDecoder(HpackHeaderTable.DEFAULT_MAX_SIZE, LOCAL_MAX_HEADER_LIST_SIZE);
+    protected final Thread _readerThread;
+
+    // Guarded by this.
+    protected final Map<Integer, Http2Stream> _streams = new HashMap<Integer, Http2Stream>();
+    protected int _nextStreamId = 1;
+    protected int _reservedStreamCount = 0;
+    protected long _remoteMaxConcurrentStreams = Integer.MAX_VALUE;
+    protected long _remoteInitialWindowSize = DEFAULT_WINDOW_SIZE;
+    protected int _remoteMaxFrameSize = Http2Frame.DEFAULT_MAX_FRAME_SIZE;
+    protected long _connectionSendWindow = DEFAULT_WINDOW_SIZE;
+    protected int _connectionUnacknowledgedByteCount = 0;
+    protected boolean _isGoingAway = false;
+    protected boolean _isClosed = false;
+    protected long _idleSince;
+
+    protected void _writeFrame(final int type, final int flags, final int streamId, final byte[] payload) throws IOException {
+        synchronized (_writeLock) {
+            Http2Frame.write(_outputStream, type, flags, streamId, payload, 0, payload.length);
+            _outputStream.flush();
+        }
+    }
+
+    protected void _writeWindowUpdate(final int streamId, final int windowIncrement) throws IOException {
+        final byte[] payload = new byte[4];
+        Http2Frame.writeInt(windowIncrement, payload, 0);
+        _writeFrame(Http2Frame.Type.WINDOW_UPDATE, 0, streamId, payload);
+    }
+
+    protected void _writeSettings() throws IOException {
+        final int[][] settings = {
+            { Http2Frame.Setting.ENABLE_PUSH, 0 },
+            { Http2Frame.Setting.INITIAL_WINDOW_SIZE, LOCAL_STREAM_WINDOW_SIZE },
+            { Http2Frame.Setting.MAX_HEADER_LIST_SIZE, LOCAL_MAX_HEADER_LIST_SIZE }
+        };
+
+        final byte[] payload = new byte[settings.length * 6];
+        for (int i = 0; i < settings.length; ++i) {
+            payload[i * 6] = (byte) (settings[i][0] >>> 8);
+            payload[(i * 6) + 1] = (byte) settings[i][0];
+            Http2Frame.writeInt(settings[i][1], payload, ((i * 6) + 2));
+        }
+        _writeFrame(Http2Frame.Type.SETTINGS, 0, 0, payload);
+    }
+
+    protected void _writeGoAway(final int errorCode) {
+        final byte[] payload = new byte[8];
+        Http2Frame.writeInt(0, payload, 0); // No server-initiated streams are accepted.
+        Http2Frame.writeInt(errorCode, payload, 4);
+        try {
+            _writeFrame(Http2Frame.Type.GOAWAY, 0, 0, payload);
+        }
+        catch (final IOException exception) {
+            Logger.debug("Unable to send HTTP/2 GOAWAY.", exception);
+        }
+    }
+
+    /**
+     * Writes the bytes as DATA frames, waiting for send window when the server's flow-control windows are exhausted.
+     *  If isEndOfStream is set, the final frame ends the request (an empty END_STREAM frame is written if byteCount is zero).
+     *  Returns false if the stream is no longer open, in which case the bytes are discarded.
+     */
+    protected Boolean _writeData(final Http2Stream stream, final byte[] data, final int dataOffset, final int dataByteCount, final Boolean isEndOfStream) throws IOException {
+        int offset = dataOffset;
+        final int endOffset = (dataOffset + dataByteCount);
+        do {
+            final int byteCount;
+            synchronized (this) {
+                while ( (offset < endOffset) && ((_connectionSendWindow <= 0) || (stream._sendWindow <= 0)) && (! _isClosed) && (_streams.get(stream._id) == stream) ) {
+                    try {
+                        wait();
+                    }
+                    catch (final InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for HTTP/2 send window.");
+                    }
+                }
+
+                if (_isClosed) { throw new IOException("HTTP/2 connection closed."); }
+
+                // NOTE: The stream may have been reset (or answered early) by the server; the outcome is reported via the stream's response.
+                if (_streams.get(stream._id) != stream) { return false; }
+
+                byteCount = (int) Math.min(Math.min(_connectionSendWindow, stream._sendWindow), Math.min(_remoteMaxFrameSize, (endOffset - offset)));
+                _connectionSendWindow -= byteCount;
+                stream._sendWindow -= byteCount;
+            }
+
+            final boolean isLastFrame = ( isEndOfStream && ((offset + byteCount) >= endOffset) );
+            try {
+                synchronized (_writeLock) {
+                    Http2Frame.write(_outputStream, Http2Frame.Type.DATA, (isLastFrame ? Http2Frame.Flag.END_STREAM : 0), stream._id, data, offset, byteCount);
+                    _outputStream.flush();
+                }
+            }
+            catch (final IOException exception) {
+                _close(exception, Http2Frame.ErrorCode.INTERNAL_ERROR);
+                throw exception;
+            }
+            offset += byteCount;
+        } while (offset < endOffset);
+
+        if (isEndOfStream) {
+            synchronized (this) {
+                stream._isLocalEndOfStream = true;
+                _closeStreamIfComplete(stream);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Buffers the request body into frame-sized DATA frames; closing the stream ends the request.
+     *  Once the stream is no longer open (e.g. the server answered early or reset the stream), further bytes are discarded.
+     */
+    protected class RequestBodyOutputStream extends OutputStream {
+        protected final Http2Stream _stream;
+        protected final byte[] _buffer = new byte[Http2Frame.DEFAULT_MAX_FRAME_SIZE];
+        protected int _bufferedByteCount = 0;
+        protected Boolean _isStreamOpen = true;
+        protected Boolean _isEnded = false;
+
+        protected void _flushBuffer(final Boolean isEndOfStream) throws IOException {
+            final int byteCount = _bufferedByteCount;
+            _bufferedByteCount = 0;
+            if (! _isStreamOpen) { return; }
+            if ( (byteCount == 0) && (! isEndOfStream) ) { return; }
+
+            _isStreamOpen = _writeData(_stream, _buffer, 0, byteCount, isEndOfStream);
+        }
+
+        public RequestBodyOutputStream(final Http2Stream stream) {
+            _stream = stream;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (_isEnded) { throw new IOException("Request body already ended."); }
+
+            if (_bufferedByteCount >= _buffer.length) {
+                _flushBuffer(false);
+            }
+            _buffer[_bufferedByteCount] = (byte) b;
+            _bufferedByteCount += 1;
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int byteCount) throws IOException {
+            if (_isEnded) { throw new IOException("Request body already ended."); }
+
+            int writtenByteCount = 0;
+            while (writtenByteCount < byteCount) {
+                if (_bufferedByteCount >= _buffer.length) {
+                    _flushBuffer(false);
+                }
+
+                final int copyByteCount = Math.min((_buffer.length - _bufferedByteCount), (byteCount - writtenByteCount));
+                System.arraycopy(bytes, (offset + writtenByteCount), _buffer, _bufferedByteCount, copyByteCount);
+                _bufferedByteCount += copyByteCount;
+                writtenByteCount += copyByteCount;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (_isEnded) { return; }
+            _flushBuffer(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (_isEnded) { return; }
+            _isEnded = true;
+            _flushBuffer(true);
+        }
+    }
+
+    /**
+     * Removes the stream once both the request and the response have ended (or the stream has failed).
+     *  Must be invoked while synchronized on this.
+     */
+    protected void _closeStreamIfComplete(final Http2Stream stream) {
+        final boolean isRemoteComplete;
+        synchronized (stream) {
+            isRemoteComplete = ( stream._isRemoteEndOfStream || (stream._exception != null) );
+        }
+
+        if ( stream._isLocalEndOfStream && isRemoteComplete ) {
+            _removeStream(stream);
+        }
+    }
+
+    /**
+     * Must be invoked while synchronized on this.
+     */
+    protected void _removeStream(final Http2Stream stream) {
+        if (_streams.remove(stream._id) == null) { return; }
+
+        if (_streams.isEmpty()) {
+            _idleSince = System.currentTimeMillis();
+        }
+        _closeIfDrained();
+        notifyAll();
+    }
+
+    /**
+     * Closes the socket once a connection that is going away has no remaining streams.
+     *  Must be invoked while synchronized on this.
+     */
+    protected void _closeIfDrained() {
+        if (_isClosed) { return; }
+        if ( (! _isGoingAway) || (! _streams.isEmpty()) || (_reservedStreamCount > 0) ) { return; }
+
+        _isClosed = true;
+        _connection.close(); // The reader thread exits once the socket is closed.
+    }
+
+    protected synchronized Http2Stream _getStream(final int streamId) {
+        return _streams.get(streamId);
+    }
+
+    protected void _onDataConsumed(final Http2Stream stream, final int byteCount) {
+        final int connectionWindowIncrement;
+        synchronized (this) {
+            if (_isClosed) { return; }
+
+            _connectionUnacknowledgedByteCount += byteCount;
+            if (_connectionUnacknowledgedByteCount >= (LOCAL_CONNECTION_WINDOW_SIZE / 2)) {
+                connectionWindowIncrement = _connectionUnacknowledgedByteCount;
+                _connectionUnacknowledgedByteCount = 0;
+            }
+            else {
+                connectionWindowIncrement = 0;
+            }
+        }
+
+        final int streamWindowIncrement = stream._acknowledge(byteCount, LOCAL_STREAM_WINDOW_SIZE);
+        try {
+            if (connectionWindowIncrement > 0) {
+                _writeWindowUpdate(0, connectionWindowIncrement);
+            }
+            if (streamWindowIncrement > 0) {
+                _writeWindowUpdate(stream._id, streamWindowIncrement);
+            }
+        }
+        catch (final IOException exception) {
+            Logger.debug("Unable to send HTTP/2 WINDOW_UPDATE.", exception);
+        }
+    }
+
+    protected void _onHeaders(final int streamId, final int flags, final byte[] headerBlock) throws IOException {
+        // NOTE: The header block is decoded even if the stream is unknown in order to keep the HPACK dynamic table in sync.
+        final List<HpackHeaderField> headerFields = _hpackDecoder.decode(headerBlock);
+
+        final Http2Stream stream = _getStream(streamId);
+        if (stream == null) { return; }
+
+        if (! stream._hasResponseHead()) {
+            Integer statusCode = null;
+            for (final HpackHeaderField headerField : headerFields) {
+                if (headerField.getName().equals(":status")) {
+                    try {
+                        statusCode = Integer.parseInt(headerField.getValue());
+                    }
+                    catch (final NumberFormatException exception) { }
+                }
+            }
+
+            if (statusCode == null) {
+                resetStream(stream, Http2Frame.ErrorCode.PROTOCOL_ERROR);
+                stream._fail(new IOException("HTTP/2 response is missing a valid :status."));
+                return;
+            }
+
+            if ( (statusCode >= 100) && (statusCode < 200) ) { return; } // Informational responses are ignored.
+
+            final ResponseHead responseHead = new ResponseHead("HTTP/2", statusCode, "");
+            for (final HpackHeaderField headerField : headerFields) {
+                final String name = headerField.getName();
+                if (name.startsWith(":")) { continue; }
+                responseHead.addHeader(name, headerField.getValue());
+            }
+            stream._onResponseHead(responseHead);
+        }
+
+        if ((flags & Http2Frame.Flag.END_STREAM) != 0) {
+            stream._onRemoteEndOfStream();
+            synchronized (this) {
+                _closeStreamIfComplete(stream);
+            }
+        }
+    }
+
+    protected void _onData(final Http2Frame frame) throws IOException {
+        final int contentByteCount = frame.getContentByteCount();
+        final int paddingByteCount = (frame.getPayload().length - contentByteCount);
+
+        final Http2Stream stream = _getStream(frame.getStreamId());
+        if ( (stream == null) || stream._isDiscardingData() ) {
+            // Data for a closed stream still counts against the connection's window.
+            if (stream != null) {
+                _onDataConsumed(stream, frame.getPayload().length);
+            }
+            else {
+                _onConnectionDataDiscarded(frame.getPayload().length);
+            }
+        }
+        else {
+            if (contentByteCount > 0) {
+                final byte[] data = new byte[contentByteCount];
+                System.arraycopy(frame.getPayload(), frame.getContentOffset(), data, 0, contentByteCount);
+                stream._onData(data);
+            }
+            if (paddingByteCount > 0) {
+                _onDataConsumed(stream, paddingByteCount);
+            }
+        }
+
+        if ( (stream != null) && frame.hasFlag(Http2Frame.Flag.END_STREAM) ) {
+            stream._onRemoteEndOfStream();
+            synchronized (this) {
+                _closeStreamIfComplete(stream);
+            }
+        }
+    }
+
+    protected void _onConnectionDataDiscarded(final int byteCount) {
+        final int connectionWindowIncrement;
+        synchronized (this) {
+            _connectionUnacknowledgedByteCount += byteCount;
+            if (_connectionUnacknowledgedByteCount < (LOCAL_CONNECTION_WINDOW_SIZE / 2)) { return; }
+
+            connectionWindowIncrement = _connectionUnacknowledgedByteCount;
+            _connectionUnacknowledgedByteCount = 0;
+        }
+
+        try {
+            _writeWindowUpdate(0, connectionWindowIncrement);
+        }
+        catch (final IOException exception) {
+            Logger.debug("Unable to send HTTP/2 WINDOW_UPDATE.", exception);
+        }
+    }
+
+    protected void _onSettings(final Http2Frame frame) throws IOException {
+        if (frame.hasFlag(Http2Frame.Flag.ACK)) { return; }
+
+        final byte[] payload = frame.getPayload();
+        if ((payload.length % 6) != 0) { throw new IOException("Invalid HTTP/2 SETTINGS frame."); }
+
+        for (int i = 0; i < payload.length; i += 6) {
+            final int identifier = (((payload[i] & 0xFF) << 8) | (payload[i + 1] & 0xFF));
+            final long value = (Http2Frame.readInt(payload, (i + 2)) & 0xFFFFFFFFL);
+
+            switch (identifier) {
+                case Http2Frame.Setting.HEADER_TABLE_SIZE: {
+                    synchronized (_writeLock) {
+                        _hpackEncoder.setMaxTableSize((int) Math.min(value, Integer.MAX_VALUE));
+                    }
+                } break;
+
+                case Http2Frame.Setting.MAX_CONCURRENT_STREAMS: {
+                    synchronized (this) {
+                        _remoteMaxConcurrentStreams = value;
+                        notifyAll();
+                    }
+                } break;
+
+                case Http2Frame.Setting.INITIAL_WINDOW_SIZE: {
+                    if (value > MAX_WINDOW_SIZE) { throw new IOException("Invalid HTTP/2 initial window size: " + value); }
+
+                    synchronized (this) {
+                        final long delta = (value - _remoteInitialWindowSize);
+                        _remoteInitialWindowSize = value;
+                        for (final Http2Stream stream : _streams.values()) {
+                            stream._sendWindow += delta;
+                        }
+                        notifyAll();
+                    }
+                } break;
+
+                case Http2Frame.Setting.MAX_FRAME_SIZE: {
+                    if ( (value < Http2Frame.DEFAULT_MAX_FRAME_SIZE) || (value > Http2Frame.MAX_ALLOWED_FRAME_SIZE) ) { throw new IOException("Invalid HTTP/2 max frame size: " + value); }
+
+                    synchronized (this) {
+                        _remoteMaxFrameSize = (int) value;
+                    }
+                } break;
+
+                default: { } break; // Unknown or irrelevant settings are ignored.
+            }
+        }
+
+        _writeFrame(Http2Frame.Type.SETTINGS, Http2Frame.Flag.ACK, 0, new byte[0]);
+    }
+
+    protected void _onWindowUpdate(final Http2Frame frame) throws IOException {
+        final byte[] payload = frame.getPayload();
+        if (payload.length != 4) { throw new IOException("Invalid HTTP/2 WINDOW_UPDATE frame."); }
+
+        final int windowIncrement = (Http2Frame.readInt(payload, 0) & 0x7FFFFFFF);
+        final int streamId = frame.getStreamId();
+        synchronized (this) {
+            if (streamId == 0) {
+                _connectionSendWindow += windowIncrement;
+                if (_connectionSendWindow > MAX_WINDOW_SIZE) { throw new IOException("HTTP/2 connection window overflow."); }
+            }
+            else {
+                final Http2Stream stream = _streams.get(streamId);
+                if (stream == null) { return; }
+                stream._sendWindow += windowIncrement;
+            }
+            notifyAll();
+        }
+    }
+
+    protected void _onResetStream(final Http2Frame frame) {
+        final Http2Stream stream = _getStream(frame.getStreamId());
+        if (stream == null) { return; }
+
+        final byte[] payload = frame.getPayload();
+        final int errorCode = (payload.length >= 4 ? Http2Frame.readInt(payload, 0) : Http2Frame.ErrorCode.INTERNAL_ERROR);
+        if (errorCode == Http2Frame.ErrorCode.REFUSED_STREAM) {
+            stream._fail(new UnprocessedStreamException("HTTP/2 stream refused by server."));
+        }
+        else {
+            stream._fail(new Http2Stream.StreamResetException("HTTP/2 stream reset by server. Error code: " + errorCode, errorCode));
+        }
+
+        synchronized (this) {
+            _removeStream(stream);
+        }
+    }
+
+    protected void _onGoAway(final Http2Frame frame) {
+        final byte[] payload = frame.getPayload();
+        final int lastStreamId = (payload.length >= 4 ? (Http2Frame.readInt(payload, 0) & 0x7FFFFFFF) : 0);
+
+        final List<Http2Stream> unprocessedStreams = new ArrayList<Http2Stream>();
+        synchronized (this) {
+            _isGoingAway = true;
+            for (final Http2Stream stream : _streams.values()) {
+                if (stream._id > lastStreamId) {
+                    unprocessedStreams.add(stream);
+                }
+            }
+            for (final Http2Stream stream : unprocessedStreams) {
+                _removeStream(stream);
+            }
+            _closeIfDrained();
+            notifyAll();
+        }
+
+        for (final Http2Stream stream : unprocessedStreams) {
+            stream._fail(new UnprocessedStreamException("HTTP/2 stream was not processed before GOAWAY."));
+        }
+    }
+
+    protected void _onPing(final Http2Frame frame) throws IOException {
+        if (frame.hasFlag(Http2Frame.Flag.ACK)) { return; }
+        _writeFrame(Http2Frame.Type.PING, Http2Frame.Flag.ACK, 0, frame.getPayload());
+    }
+
+    protected void _readFrames() {
+        int continuationStreamId = 0;
+        int continuationFlags = 0;
+        ByteArrayOutputStream headerBlock = null;
+
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (_isClosed) { break; }
+                }
+
+                final Http2Frame frame = Http2Frame.read(_inputStream, Http2Frame.DEFAULT_MAX_FRAME_SIZE);
+                final int type = frame.getType();
+
+                if (headerBlock != null) {
+                    if ( (type != Http2Frame.Type.CONTINUATION) || (frame.getStreamId() != continuationStreamId) ) { throw new IOException("Expected HTTP/2 CONTINUATION frame."); }
+
+                    headerBlock.write(frame.getPayload(), 0, frame.getPayload().length);
+                    if (frame.hasFlag(Http2Frame.Flag.END_HEADERS)) {
+                        _onHeaders(continuationStreamId, continuationFlags, headerBlock.toByteArray());
+                        headerBlock = null;
+                    }
+                    continue;
+                }
+
+                switch (type) {
+                    case Http2Frame.Type.DATA: {
+                        _onData(frame);
+                    } break;
+
+                    case Http2Frame.Type.HEADERS: {
+                        final byte[] payload = frame.getPayload();
+                        final int offset = frame.getContentOffset();
+                        final int byteCount = frame.getContentByteCount();
+                        if (frame.hasFlag(Http2Frame.Flag.END_HEADERS)) {
+                            final byte[] block = new byte[byteCount];
+                            System.arraycopy(payload, offset, block, 0, byteCount);
+                            _onHeaders(frame.getStreamId(), frame.getFlags(), block);
+                        }
+                        else {
+                            headerBlock = new ByteArrayOutputStream();
+                            headerBlock.write(payload, offset, byteCount);
+                            continuationStreamId = frame.getStreamId();
+                            continuationFlags = frame.getFlags();
+                        }
+                    } break;
+
+                    case Http2Frame.Type.RST_STREAM: {
+                        _onResetStream(frame);
+                    } break;
+
+                    case Http2Frame.Type.SETTINGS: {
+                        _onSettings(frame);
+                    } break;
+
+                    case Http2Frame.Type.PUSH_PROMISE: {
+                        throw new IOException("Received HTTP/2 PUSH_PROMISE while push is disabled.");
+                    }
+
+                    case Http2Frame.Type.PING: {
+                        _onPing(frame);
+                    } break;
+
+                    case Http2Frame.Type.GOAWAY: {
+                        _onGoAway(frame);
+                    } break;
+
+                    case Http2Frame.Type.WINDOW_UPDATE: {
+                        _onWindowUpdate(frame);
+                    } break;
+
+                    case Http2Frame.Type.CONTINUATION: {
+                        throw new IOException("Unexpected HTTP/2 CONTINUATION frame.");
+                    }
+
+                    default: { } break; // PRIORITY and unknown frame types are ignored.
+                }
+            }
+
+            _close(new IOException("HTTP/2 connection closed."), Http2Frame.ErrorCode.NO_ERROR);
+        }
+        catch (final IOException exception) {
+            final boolean wasClosed;
+            synchronized (this) {
+                wasClosed = _isClosed;
+            }
+            if (! wasClosed) {
+                Logger.debug("HTTP/2 connection to " + _connection.getRoute() + " failed.", exception);
+            }
+            _close(exception, Http2Frame.ErrorCode.PROTOCOL_ERROR);
+        }
+    }
+
+    protected void _close(final IOException cause, final int errorCode) {
+        final List<Http2Stream> streams;
+        final boolean wasClosed;
+        synchronized (this) {
+            wasClosed = _isClosed;
+            _isClosed = true;
+            _isGoingAway = true;
+            streams = new ArrayList<Http2Stream>(_streams.values());
+            _streams.clear();
+            notifyAll();
+        }
+
+        if (! wasClosed) {
+            _writeGoAway(errorCode);
+        }
+        _connection.close();
+
+        for (final Http2Stream stream : streams) {
+            stream._fail(cause);
+        }
+    }
+
+    public Http2Connection(final HttpConnection connection) {
+        _connection = connection;
+        _inputStream = connection.getInputStream();
+        _outputStream = connection.getOutputStream();
+        _idleSince = System.currentTimeMillis();
+
+        _readerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                _readFrames();
+            }
+        });
+        _readerThread.setName("Http2Connection " + connection.getRoute());
+        _readerThread.setDaemon(true);
+    }
+
+    /**
+     * Sends the connection preface and the client's settings, and starts the connection's reader thread.
+     */
+    public void start() throws IOException {
+        synchronized (_writeLock) {
+            _outputStream.write(CONNECTION_PREFACE);
+            _writeSettings();
+            _writeWindowUpdate(0, (LOCAL_CONNECTION_WINDOW_SIZE - DEFAULT_WINDOW_SIZE));
+        }
+        _readerThread.start();
+    }
+
+    public Route getRoute() {
+        return _connection.getRoute();
+    }
+
+    public HttpConnection getConnection() {
+        return _connection;
+    }
+
+    /**
+     * Opens a new stream and writes the request.
+     *  If the server's SETTINGS_MAX_CONCURRENT_STREAMS streams are already open, the calling thread waits for a stream to close.
+     *  Throws an UnprocessedStreamException if the connection is no longer accepting streams.
+     *  The request body is streamed as DATA frames, subject to the server's flow-control windows; if the body cannot be written the stream is cancelled.
+     */
+    public Http2Stream newStream(final HttpMethod method, final String requestTarget, final HttpHeaders headers, final RequestBody body) throws IOException {
+        final List<HpackHeaderField> headerFields = _buildHeaderFields(method, _connection.getRoute(), requestTarget, headers);
+        final Long contentLength = (body != null ? body.getContentLength() : null);
+        final boolean hasBody = ( (body != null) && ( (contentLength == null) || (contentLength > 0L) ) );
+
+        synchronized (this) {
+            while ( (! _isGoingAway) && ((_streams.size() + _reservedStreamCount) >= _remoteMaxConcurrentStreams) ) {
+                try {
+                    wait();
+                }
+                catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for an HTTP/2 stream.");
+                }
+            }
+
+            if ( _isGoingAway || (_nextStreamId >= MAX_STREAM_ID) ) { throw new UnprocessedStreamException("HTTP/2 connection to " + _connection.getRoute() + " is not accepting streams."); }
+            _reservedStreamCount += 1;
+        }
+
+        final Http2Stream stream;
+        try {
+            synchronized (_writeLock) {
+                synchronized (this) {
+                    if (_isGoingAway) { throw new UnprocessedStreamException("HTTP/2 connection to " + _connection.getRoute() + " is not accepting streams."); }
+
+                    stream = new Http2Stream(this, _remoteInitialWindowSize);
+                    stream._id = _nextStreamId;
+                    stream._isLocalEndOfStream = (! hasBody);
+                    _nextStreamId += 2;
+                    _streams.put(stream._id, stream);
+                }
+
+                final ByteArrayOutputStream headerBlock = new ByteArrayOutputStream();
+                _hpackEncoder.encode(headerFields, headerBlock);
+                final byte[] headerBlockBytes = headerBlock.toByteArray();
+
+                final int maxFrameSize;
+                synchronized (this) {
+                    maxFrameSize = _remoteMaxFrameSize;
+                }
+
+                int offset = 0;
+                do {
+                    final int byteCount = Math.min(maxFrameSize, (headerBlockBytes.length - offset));
+                    final boolean isFirstFrame = (offset == 0);
+                    final boolean isLastFrame = ((offset + byteCount) >= headerBlockBytes.length);
+
+                    final int type = (isFirstFrame ? Http2Frame.Type.HEADERS : Http2Frame.Type.CONTINUATION);
+                    int flags = (isLastFrame ? Http2Frame.Flag.END_HEADERS : 0);
+                    if ( isFirstFrame && (! hasBody) ) {
+                        flags |= Http2Frame.Flag.END_STREAM;
+                    }
+
+                    Http2Frame.write(_outputStream, type, flags, stream._id, headerBlockBytes, offset, byteCount);
+                    offset += byteCount;
+                } while (offset < headerBlockBytes.length);
+                _outputStream.flush();
+            }
+        }
+        catch (final UnprocessedStreamException exception) {
+            throw exception;
+        }
+        catch (final IOException exception) {
+            _close(exception, Http2Frame.ErrorCode.INTERNAL_ERROR);
+            throw exception;
+        }
+        finally {
+            synchronized (this) {
+                _reservedStreamCount -= 1;
+                _closeIfDrained();
+            }
+        }
+
+        if (hasBody) {
+            boolean wasSuccessful = false;
+            try {
+                final RequestBodyOutputStream requestBodyOutputStream = new RequestBodyOutputStream(stream);
+                body.writeTo(requestBodyOutputStream);
+                requestBodyOutputStream.close();
+                wasSuccessful = true;
+            }
+            finally {
+                if (! wasSuccessful) {
+                    resetStream(stream, Http2Frame.ErrorCode.CANCEL);
+                }
+            }
+        }
+
+        return stream;
+    }
+
+    /**
+     * Sends RST_STREAM for the stream (if it is still open) and stops tracking it.
+     */
+    public void resetStream(final Http2Stream stream, final Integer errorCode) {
+        synchronized (this) {
+            if (_streams.get(stream._id) != stream) { return; }
+            _removeStream(stream);
+        }
+
+        final byte[] payload = new byte[4];
+        Http2Frame.writeInt(errorCode, payload, 0);
+        try {
+            _writeFrame(Http2Frame.Type.RST_STREAM, 0, stream._id, payload);
+        }
+        catch (final IOException exception) {
+            Logger.debug("Unable to send HTTP/2 RST_STREAM.", exception);
+        }
+    }
+
+    public synchronized Boolean isAcceptingStreams() {
+        return ( (! _isGoingAway) && (! _isClosed) && (_nextStreamId < MAX_STREAM_ID) );
+    }
+
+    public synchronized Boolean isClosed() {
+        return _isClosed;
+    }
+
+    public synchronized Integer getActiveStreamCount() {
+        return _streams.size();
+    }
+
+    /**
+     * Returns the time the connection's last stream closed, or null if streams are currently open.
+     */
+    public synchronized Long getIdleSince() {
+        if (! _streams.isEmpty()) { return null; }
+        if (_reservedStreamCount > 0) { return null; }
+        return _idleSince;
+    }
+
+    public Long getCreatedAt() {
+        return _connection.getCreatedAt();
+    }
+
+    /**
+     * Stops accepting new streams; the connection closes once its open streams complete.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (_isGoingAway) { return; }
+            _isGoingAway = true;
+            notifyAll();
+        }
+
+        _writeGoAway(Http2Frame.ErrorCode.NO_ERROR);
+
+        synchronized (this) {
+            _closeIfDrained();
+        }
+    }
+
+    /**
+     * Closes the connection immediately; open streams fail with an IOException.
+     */
+    @Override
+    public void close() {
+        _close(new IOException("HTTP/2 connection closed."), Http2Frame.ErrorCode.NO_ERROR);
+    }
+}
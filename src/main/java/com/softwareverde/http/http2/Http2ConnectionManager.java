@@ -0,0 +1,227 @@
+package com.softwareverde.http.http2;
+
+import com.softwareverde.http.ConnectTimeoutException;
+import com.softwareverde.http.connection.HttpConnection;
+import com.softwareverde.http.connection.HttpConnectionPool;
+import com.softwareverde.http.connection.HttpConnector;
+import com.softwareverde.http.connection.Route;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains one multiplexed Http2Connection per Route.
+ *  Secure Routes negotiate the protocol via ALPN; Routes whose server selects HTTP/1.1 are remembered,
+ *  and the negotiated connection is handed to the HttpConnectionPool so the handshake is not wasted.
+ *  Connections are closed once they have been idle for longer than maxIdleTime, and stop accepting new streams after maxLifetime.
+ */
+public class Http2ConnectionManager implements AutoCloseable {
+    protected static final List<String> APPLICATION_PROTOCOLS = Collections.unmodifiableList(Arrays.asList(Http2Connection.APPLICATION_PROTOCOL, "http/1.1"));
+
+    protected final HttpConnectionPool _connectionPool;
+    protected final HttpConnector _connector;
+    protected final Long _maxIdleTime;
+    protected final Long _maxLifetime;
+
+    protected final Map<Route, Http2Connection> _connections = new HashMap<Route, Http2Connection>();
+    protected final Set<Route> _pendingRoutes = new HashSet<Route>();
+    protected final Set<Route> _http1Routes = new HashSet<Route>();
+    protected Boolean _isClosed = false;
+
+    protected boolean _isExpired(final Http2Connection connection, final Long now) {
+        final Long idleSince = connection.getIdleSince();
+        if ( (idleSince != null) && ((now - idleSince) > _maxIdleTime) ) { return true; }
+        return false;
+    }
+
+    /**
+     * Removes closed and expired connections, returning the expired connections so they may be closed outside of the lock.
+     *  Connections that have exceeded maxLifetime are shut down gracefully.
+     *  Must be invoked while synchronized on this.
+     */
+    protected void _removeExpiredConnections(final Long now, final List<Http2Connection> expiredConnections) {
+        final Iterator<Http2Connection> iterator = _connections.values().iterator();
+        while (iterator.hasNext()) {
+            final Http2Connection connection = iterator.next();
+            if ( (! connection.isAcceptingStreams()) || _isExpired(connection, now) || ((now - connection.getCreatedAt()) > _maxLifetime) ) {
+                iterator.remove();
+                expiredConnections.add(connection);
+            }
+        }
+    }
+
+    protected void _shutdownConnections(final List<Http2Connection> connections) {
+        for (final Http2Connection connection : connections) {
+            connection.shutdown();
+        }
+    }
+
+    protected Http2Connection _connect(final Route route, final Long connectTimeout) throws IOException {
+        if (! route.isSecure()) {
+            final HttpConnection connection = _connector.connect(route, null, connectTimeout);
+            try {
+                final Http2Connection http2Connection = new Http2Connection(connection);
+                http2Connection.start();
+                return http2Connection;
+            }
+            catch (final IOException exception) {
+                connection.close();
+                throw exception;
+            }
+        }
+
+        final HttpConnection connection = _connector.connect(route, APPLICATION_PROTOCOLS, connectTimeout);
+        if (! Http2Connection.APPLICATION_PROTOCOL.equals(connection.getApplicationProtocol())) {
+            synchronized (this) {
+                _http1Routes.add(route);
+            }
+            _connectionPool.add(connection);
+            return null;
+        }
+
+        try {
+            final Http2Connection http2Connection = new Http2Connection(connection);
+            http2Connection.start();
+            return http2Connection;
+        }
+        catch (final IOException exception) {
+            connection.close();
+            throw exception;
+        }
+    }
+
+    public Http2ConnectionManager(final HttpConnectionPool connectionPool, final HttpConnector connector, final Long maxIdleTime, final Long maxLifetime) {
+        _connectionPool = connectionPool;
+        _connector = connector;
+        _maxIdleTime = maxIdleTime;
+        _maxLifetime = maxLifetime;
+    }
+
+    /**
+     * Returns true if a request to the Route should attempt HTTP/2 under the provided mode.
+     */
+    public Boolean isHttp2Candidate(final Route route, final Http2Mode http2Mode) {
+        if (http2Mode == Http2Mode.DISABLED) { return false; }
+        if ( (! route.isSecure()) && (http2Mode != Http2Mode.PRIOR_KNOWLEDGE) ) { return false; }
+
+        synchronized (this) {
+            return (! _http1Routes.contains(route));
+        }
+    }
+
+    /**
+     * Returns a connection to the Route that is accepting streams, establishing one if necessary,
+     *  or returns null if the Route's server does not support HTTP/2 (or the mode does not allow it).
+     *  Only one connection to a Route is established at a time; concurrent callers wait for it and share it.
+     */
+    public Http2Connection getConnection(final Route route, final Http2Mode http2Mode) throws IOException {
+        return getConnection(route, http2Mode, null);
+    }
+
+    /**
+     * Returns a connection to the Route that is accepting streams, as with Http2ConnectionManager::getConnection(Route, Http2Mode);
+     *  if connectTimeout (in milliseconds) is not null, a ConnectTimeoutException is thrown if the connection is not available (or established) in time.
+     */
+    public Http2Connection getConnection(final Route route, final Http2Mode http2Mode, final Long connectTimeout) throws IOException {
+        if (! isHttp2Candidate(route, http2Mode)) { return null; }
+
+        final Long deadline = (connectTimeout != null ? (System.nanoTime() + (connectTimeout * 1000000L)) : null);
+
+        final List<Http2Connection> expiredConnections = new ArrayList<Http2Connection>();
+        try {
+            synchronized (this) {
+                while (true) {
+                    if (_isClosed) { throw new IOException("Http2ConnectionManager is closed."); }
+                    if (_http1Routes.contains(route)) { return null; }
+
+                    _removeExpiredConnections(System.currentTimeMillis(), expiredConnections);
+
+                    final Http2Connection connection = _connections.get(route);
+                    if (connection != null) { return connection; }
+
+                    if (! _pendingRoutes.contains(route)) { break; }
+
+                    try {
+                        if (deadline != null) {
+                            final long remainingNanos = (deadline - System.nanoTime());
+                            if (remainingNanos <= 0L) { throw new ConnectTimeoutException("Timed out waiting for an HTTP/2 connection to " + route + "."); }
+                            wait(Math.max(1L, (remainingNanos / 1000000L)));
+                        }
+                        else {
+                            wait();
+                        }
+                    }
+                    catch (final InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for an HTTP/2 connection to " + route + ".");
+                    }
+                }
+
+                _pendingRoutes.add(route);
+            }
+        }
+        finally {
+            _shutdownConnections(expiredConnections);
+        }
+
+        Http2Connection connection = null;
+        try {
+            final Long remainingConnectTimeout = (deadline != null ? Math.max(1L, ((deadline - System.nanoTime()) / 1000000L)) : null);
+            connection = _connect(route, remainingConnectTimeout);
+            return connection;
+        }
+        finally {
+            synchronized (this) {
+                _pendingRoutes.remove(route);
+                if (connection != null) {
+                    if (_isClosed) {
+                        connection.shutdown();
+                    }
+                    else {
+                        _connections.put(route, connection);
+                    }
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Closes all HTTP/2 connections that have been idle for longer than maxIdleTime, and shuts down those older than maxLifetime.
+     */
+    public void evictExpiredConnections() {
+        final List<Http2Connection> expiredConnections = new ArrayList<Http2Connection>();
+        synchronized (this) {
+            _removeExpiredConnections(System.currentTimeMillis(), expiredConnections);
+        }
+        _shutdownConnections(expiredConnections);
+    }
+
+    public synchronized Integer getConnectionCount() {
+        return _connections.size();
+    }
+
+    /**
+     * Gracefully shuts down all connections; open streams are allowed to complete.
+     */
+    @Override
+    public void close() {
+        final List<Http2Connection> connections;
+        synchronized (this) {
+            _isClosed = true;
+            connections = new ArrayList<Http2Connection>(_connections.values());
+            _connections.clear();
+            notifyAll();
+        }
+        _shutdownConnections(connections);
+    }
+}
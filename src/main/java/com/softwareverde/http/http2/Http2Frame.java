@@ -0,0 +1,179 @@
+package com.softwareverde.http.http2;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A single HTTP/2 frame (RFC 7540, Section 4.1).
+ */
+public class Http2Frame {
+    public static final int FRAME_HEADER_BYTE_COUNT = 9;
+    public static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+    public static final int MAX_ALLOWED_FRAME_SIZE = 16777215;
+
+    public static class Type {
+        public static final int DATA = 0x00;
+        public static final int HEADERS = 0x01;
+        public static final int PRIORITY = 0x02;
+        public static final int RST_STREAM = 0x03;
+        public static final int SETTINGS = 0x04;
+        public static final int PUSH_PROMISE = 0x05;
+        public static final int PING = 0x06;
+        public static final int GOAWAY = 0x07;
+        public static final int WINDOW_UPDATE = 0x08;
+        public static final int CONTINUATION = 0x09;
+    }
+
+    public static class Flag {
+        public static final int END_STREAM = 0x01;
+        public static final int ACK = 0x01;
+        public static final int END_HEADERS = 0x04;
+        public static final int PADDED = 0x08;
+        public static final int PRIORITY = 0x20;
+    }
+
+    public static class Setting {
+        public static final int HEADER_TABLE_SIZE = 0x01;
+        public static final int ENABLE_PUSH = 0x02;
+        public static final int MAX_CONCURRENT_STREAMS = 0x03;
+        public static final int INITIAL_WINDOW_SIZE = 0x04;
+        public static final int MAX_FRAME_SIZE = 0x05;
+        public static final int MAX_HEADER_LIST_SIZE = 0x06;
+    }
+
+    public static class ErrorCode {
+        public static final int NO_ERROR = 0x00;
+        public static final int PROTOCOL_ERROR = 0x01;
+        public static final int INTERNAL_ERROR = 0x02;
+        public static final int FLOW_CONTROL_ERROR = 0x03;
+        public static final int STREAM_CLOSED = 0x05;
+        public static final int FRAME_SIZE_ERROR = 0x06;
+        public static final int REFUSED_STREAM = 0x07;
+        public static final int CANCEL = 0x08;
+        public static final int COMPRESSION_ERROR = 0x09;
+    }
+
+    protected static int _readByte(final InputStream inputStream) throws IOException {
+        final int b = inputStream.read();
+        if (b < 0) { throw new EOFException("HTTP/2 connection closed."); }
+        return b;
+    }
+
+    protected static void _readFully(final InputStream inputStream, final byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            final int byteCount = inputStream.read(buffer, offset, (buffer.length - offset));
+            if (byteCount < 0) { throw new EOFException("HTTP/2 connection closed."); }
+            offset += byteCount;
+        }
+    }
+
+    public static int readInt(final byte[] bytes, final int offset) {
+        return ( ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF) );
+    }
+
+    public static void writeInt(final int value, final byte[] bytes, final int offset) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Reads the next frame from the stream.
+     *  Frames with a payload larger than maxFrameSize are rejected with an IOException.
+     */
+    public static Http2Frame read(final InputStream inputStream, final int maxFrameSize) throws IOException {
+        final int payloadByteCount = ((_readByte(inputStream) << 16) | (_readByte(inputStream) << 8) | _readByte(inputStream));
+        final int type = _readByte(inputStream);
+        final int flags = _readByte(inputStream);
+        final int streamId = (((_readByte(inputStream) << 24) | (_readByte(inputStream) << 16) | (_readByte(inputStream) << 8) | _readByte(inputStream)) & 0x7FFFFFFF);
+
+        if (payloadByteCount > maxFrameSize) { throw new IOException("HTTP/2 frame exceeds max frame size: " + payloadByteCount); }
+
+        final byte[] payload = new byte[payloadByteCount];
+        _readFully(inputStream, payload);
+        return new Http2Frame(type, flags, streamId, payload);
+    }
+
+    public static void write(final OutputStream outputStream, final int type, final int flags, final int streamId, final byte[] payload, final int offset, final int byteCount) throws IOException {
+        final byte[] header = new byte[FRAME_HEADER_BYTE_COUNT];
+        header[0] = (byte) (byteCount >>> 16);
+        header[1] = (byte) (byteCount >>> 8);
+        header[2] = (byte) byteCount;
+        header[3] = (byte) type;
+        header[4] = (byte) flags;
+        writeInt((streamId & 0x7FFFFFFF), header, 5);
+
+        outputStream.write(header);
+        if (byteCount > 0) {
+            outputStream.write(payload, offset, byteCount);
+        }
+    }
+
+    protected final int _type;
+    protected final int _flags;
+    protected final int _streamId;
+    protected final byte[] _payload;
+
+    public Http2Frame(final int type, final int flags, final int streamId, final byte[] payload) {
+        _type = type;
+        _flags = flags;
+        _streamId = streamId;
+        _payload = payload;
+    }
+
+    public int getType() {
+        return _type;
+    }
+
+    public int getFlags() {
+        return _flags;
+    }
+
+    public boolean hasFlag(final int flag) {
+        return ((_flags & flag) != 0);
+    }
+
+    public int getStreamId() {
+        return _streamId;
+    }
+
+    public byte[] getPayload() {
+        return _payload;
+    }
+
+    /**
+     * Returns the offset of the frame's content within the payload, skipping the pad length and priority fields (if present).
+     */
+    public int getContentOffset() {
+        int offset = 0;
+        if ( hasFlag(Flag.PADDED) && ( (_type == Type.DATA) || (_type == Type.HEADERS) || (_type == Type.PUSH_PROMISE) ) ) {
+            offset += 1;
+        }
+        if ( (_type == Type.HEADERS) && hasFlag(Flag.PRIORITY) ) {
+            offset += 5;
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the number of content bytes within the payload, excluding the padding and priority fields (if present).
+     */
+    public int getContentByteCount() throws IOException {
+        final int padByteCount;
+        if ( hasFlag(Flag.PADDED) && ( (_type == Type.DATA) || (_type == Type.HEADERS) || (_type == Type.PUSH_PROMISE) ) ) {
+            if (_payload.length < 1) { throw new IOException("Invalid HTTP/2 frame padding."); }
+            padByteCount = (_payload[0] & 0xFF);
+        }
+        else {
+            padByteCount = 0;
+        }
+
+        final int contentByteCount = (_payload.length - getContentOffset() - padByteCount);
+        if (contentByteCount < 0) { throw new IOException("Invalid HTTP/2 frame padding."); }
+        return contentByteCount;
+    }
+}
@@ -0,0 +1,21 @@
+package com.softwareverde.http.http2;
+
+/**
+ * Determines whether a request may be sent over HTTP/2.
+ */
+public enum Http2Mode {
+    /**
+     * Requests are always sent over HTTP/1.1.
+     */
+    DISABLED,
+
+    /**
+     * HTTP/2 is negotiated via ALPN for secure Routes; cleartext Routes use HTTP/1.1.
+     */
+    NEGOTIATE,
+
+    /**
+     * HTTP/2 is negotiated via ALPN for secure Routes; cleartext Routes assume the server supports HTTP/2 ("h2c" with prior knowledge).
+     */
+    PRIOR_KNOWLEDGE
+}
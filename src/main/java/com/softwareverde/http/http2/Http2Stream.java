@@ -0,0 +1,246 @@
+package com.softwareverde.http.http2;
+
+import com.softwareverde.http.connection.ReadTracker;
+import com.softwareverde.http.connection.ResponseHead;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.LinkedList;
+
+/**
+ * A single request/response exchange multiplexed over an Http2Connection.
+ *  Response DATA is buffered by the connection's reader thread and consumed via Http2Stream::getInputStream;
+ *  the stream's receive window is only replenished as the body is consumed, so a slow consumer applies back-pressure to the server.
+ */
+public class Http2Stream implements ReadTracker {
+    /**
+     * Indicates the stream was reset by the server (or locally cancelled).
+     */
+    public static class StreamResetException extends IOException {
+        protected final Integer _errorCode;
+
+        public StreamResetException(final String message, final Integer errorCode) {
+            super(message);
+            _errorCode = errorCode;
+        }
+
+        public Integer getErrorCode() {
+            return _errorCode;
+        }
+    }
+
+    protected class BodyInputStream extends InputStream {
+        @Override
+        public int read() throws IOException {
+            final byte[] buffer = new byte[1];
+            final int byteCount = read(buffer, 0, 1);
+            if (byteCount < 0) { return -1; }
+            return (buffer[0] & 0xFF);
+        }
+
+        @Override
+        public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+            if (length == 0) { return 0; }
+
+            final int byteCount;
+            synchronized (Http2Stream.this) {
+                final long readStartedAt = System.nanoTime();
+                while ( _receivedData.isEmpty() && (! _isRemoteEndOfStream) && (_exception == null) ) {
+                    _readStartedAt = readStartedAt;
+                    try {
+                        Http2Stream.this.wait();
+                    }
+                    catch (final InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while reading HTTP/2 response.");
+                    }
+                    finally {
+                        _readStartedAt = 0L;
+                    }
+                }
+
+                if (_receivedData.isEmpty()) {
+                    if (_exception != null) { throw _exception; }
+                    return -1;
+                }
+
+                final byte[] data = _receivedData.peekFirst();
+                byteCount = Math.min(length, (data.length - _receivedDataOffset));
+                System.arraycopy(data, _receivedDataOffset, buffer, offset, byteCount);
+
+                _receivedDataOffset += byteCount;
+                if (_receivedDataOffset >= data.length) {
+                    _receivedData.removeFirst();
+                    _receivedDataOffset = 0;
+                }
+                _bufferedByteCount -= byteCount;
+            }
+
+            _connection._onDataConsumed(Http2Stream.this, byteCount);
+            return byteCount;
+        }
+
+        @Override
+        public int available() {
+            synchronized (Http2Stream.this) {
+                return _bufferedByteCount;
+            }
+        }
+
+        /**
+         * Closing the stream before the response is complete cancels the stream.
+         */
+        @Override
+        public void close() {
+            final int discardedByteCount;
+            final boolean isComplete;
+            synchronized (Http2Stream.this) {
+                discardedByteCount = _bufferedByteCount;
+                isComplete = _isRemoteEndOfStream;
+                _receivedData.clear();
+                _receivedDataOffset = 0;
+                _bufferedByteCount = 0;
+                if (_exception == null) {
+                    _exception = new IOException("HTTP/2 response body closed.");
+                }
+            }
+
+            if (! isComplete) {
+                _connection.resetStream(Http2Stream.this, Http2Frame.ErrorCode.CANCEL);
+            }
+            if (discardedByteCount > 0) {
+                _connection._onDataConsumed(Http2Stream.this, discardedByteCount);
+            }
+        }
+    }
+
+    protected final Http2Connection _connection;
+    protected final BodyInputStream _inputStream = new BodyInputStream();
+
+    protected final LinkedList<byte[]> _receivedData = new LinkedList<byte[]>();
+    protected int _receivedDataOffset = 0;
+    protected int _bufferedByteCount = 0;
+    protected int _unacknowledgedByteCount = 0;
+
+    protected volatile int _id = 0;
+    protected ResponseHead _responseHead = null;
+    protected IOException _exception = null;
+    protected boolean _isRemoteEndOfStream = false;
+    protected volatile long _readStartedAt = 0L;
+
+    // Guarded by the connection.
+    protected long _sendWindow;
+    protected boolean _isLocalEndOfStream = false;
+
+    protected synchronized void _onResponseHead(final ResponseHead responseHead) {
+        _responseHead = responseHead;
+        notifyAll();
+    }
+
+    protected synchronized boolean _hasResponseHead() {
+        return (_responseHead != null);
+    }
+
+    protected synchronized void _onData(final byte[] data) {
+        if (_exception != null) { return; } // The consumer has closed the stream; the data is discarded.
+
+        _receivedData.addLast(data);
+        _bufferedByteCount += data.length;
+        notifyAll();
+    }
+
+    /**
+     * Returns true if the data was discarded since the body has already been closed by its consumer.
+     */
+    protected synchronized boolean _isDiscardingData() {
+        return (_exception != null);
+    }
+
+    protected synchronized void _onRemoteEndOfStream() {
+        _isRemoteEndOfStream = true;
+        if ( (_responseHead == null) && (_exception == null) ) {
+            _exception = new IOException("HTTP/2 stream ended without a response.");
+        }
+        notifyAll();
+    }
+
+    protected synchronized void _fail(final IOException exception) {
+        if (_isRemoteEndOfStream) { return; }
+        if (_exception == null) {
+            _exception = exception;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Records the consumption of byteCount bytes and returns the stream's window increment that should be sent to the server, or zero.
+     */
+    protected synchronized int _acknowledge(final int byteCount, final int windowSize) {
+        if ( _isRemoteEndOfStream || (_exception != null) ) { return 0; }
+
+        _unacknowledgedByteCount += byteCount;
+        if (_unacknowledgedByteCount < (windowSize / 2)) { return 0; }
+
+        final int windowIncrement = _unacknowledgedByteCount;
+        _unacknowledgedByteCount = 0;
+        return windowIncrement;
+    }
+
+    protected Http2Stream(final Http2Connection connection, final long sendWindow) {
+        _connection = connection;
+        _sendWindow = sendWindow;
+    }
+
+    public Integer getId() {
+        return _id;
+    }
+
+    /**
+     * Waits for the response's status and headers.
+     */
+    public ResponseHead readResponseHead() throws IOException {
+        synchronized (this) {
+            final long readStartedAt = System.nanoTime();
+            while ( (_responseHead == null) && (_exception == null) ) {
+                _readStartedAt = readStartedAt;
+                try {
+                    wait();
+                }
+                catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    throw new InterruptedIOException("Interrupted while waiting for HTTP/2 response.");
+                }
+                finally {
+                    _readStartedAt = 0L;
+                }
+            }
+
+            if (_responseHead == null) { throw _exception; }
+            return _responseHead;
+        }
+    }
+
+    @Override
+    public Long getBlockedReadStartedAt() {
+        final long readStartedAt = _readStartedAt;
+        if (readStartedAt == 0L) { return null; }
+        return readStartedAt;
+    }
+
+    /**
+     * Returns the response body; the stream is cancelled if the InputStream is closed before the body is complete.
+     */
+    public InputStream getInputStream() {
+        return _inputStream;
+    }
+
+    /**
+     * Resets the stream (with error code CANCEL); blocked readers fail with a StreamResetException.
+     */
+    public void cancel() {
+        _fail(new StreamResetException("HTTP/2 stream cancelled.", Http2Frame.ErrorCode.CANCEL));
+        _connection.resetStream(this, Http2Frame.ErrorCode.CANCEL);
+    }
+}
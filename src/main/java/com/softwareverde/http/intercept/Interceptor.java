@@ -0,0 +1,28 @@
+package com.softwareverde.http.intercept;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An application interceptor: observes (and may modify, retry, or short-circuit) each execution of a request (see HttpRequest::setInterceptors).
+ *  Application interceptors run once per execution, in order, before the request's coalescing, caching, retries, and redirects;
+ *  the last interceptor's Chain::proceed executes the request.
+ *  Since execution is asynchronous, an interceptor returns the future of the response rather than blocking on it
+ *  (e.g. chain.proceed(chain.getRequest()).thenApply(...)); an interceptor may instead return a completed future without proceeding.
+ *  Interceptors are shared by every request that uses them, so they must be thread-safe.
+ */
+public interface Interceptor {
+    interface Chain {
+        HttpRequest getRequest();
+
+        /**
+         * Passes the request (which may be the chain's request, modified, or another HttpRequest) to the next interceptor, or executes it if there are none.
+         *  May be invoked more than once (e.g. to retry).
+         */
+        CompletableFuture<HttpResponse> proceed(HttpRequest httpRequest);
+    }
+
+    CompletableFuture<HttpResponse> intercept(Chain chain);
+}
@@ -0,0 +1,41 @@
+package com.softwareverde.http.intercept;
+
+import com.softwareverde.http.HttpMethod;
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.connection.ResponseHead;
+
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * A network interceptor: observes (and may modify) each exchange written to the network (see HttpRequest::setNetworkInterceptors).
+ *  Network interceptors run, in order, for each attempt and redirect of a request, after its headers are finalized (so they see the headers actually sent,
+ *  e.g. Accept-Encoding and traceparent) and before they are written; responses served by an HttpCache are not exchanged, and so are not intercepted.
+ *  Each interceptor must invoke Chain::proceed exactly once and return its ResponseHead, whose headers it may modify (other than those that frame the body).
+ *  Interceptors are invoked by the thread executing the exchange, and are shared by every request that uses them, so they must be thread-safe.
+ */
+public interface NetworkInterceptor {
+    interface Chain {
+        HttpRequest getRequest();
+
+        HttpMethod getMethod();
+
+        URL getUrl();
+
+        /**
+         * Returns the value of the header to be sent (case-insensitive), or null if it will not be sent.
+         */
+        String getHeader(String name);
+
+        void setHeader(String name, String value);
+
+        void removeHeader(String name);
+
+        /**
+         * Passes the exchange to the next interceptor, or writes the request and returns the head of its response if there are none.
+         */
+        ResponseHead proceed() throws IOException;
+    }
+
+    ResponseHead intercept(Chain chain) throws IOException;
+}
@@ -0,0 +1,56 @@
+package com.softwareverde.http.limit;
+
+/**
+ * An additive-increase/multiplicative-decrease LimitAlgorithm.
+ *  The limit grows by one for each successful request completed while the limit was being utilized, and is multiplied by
+ *  backoffRatio whenever a request is dropped (i.e. it fails, or is rejected with 429 or 503) or takes longer than slowLatencyThreshold.
+ */
+public class AimdLimit implements LimitAlgorithm {
+    public static final Double DEFAULT_BACKOFF_RATIO = 0.9D;
+
+    public static LimitAlgorithm.Factory newFactory(final Integer initialLimit, final Integer minLimit, final Integer maxLimit, final Long slowLatencyThreshold) {
+        return new LimitAlgorithm.Factory() {
+            @Override
+            public LimitAlgorithm newLimitAlgorithm() {
+                return new AimdLimit(initialLimit, minLimit, maxLimit, slowLatencyThreshold);
+            }
+        };
+    }
+
+    protected final Integer _minLimit;
+    protected final Integer _maxLimit;
+    protected final Long _slowLatencyThreshold;
+    protected final Double _backoffRatio;
+    protected Integer _limit;
+
+    /**
+     * slowLatencyThreshold is in milliseconds; a null threshold only backs off on dropped requests.
+     */
+    public AimdLimit(final Integer initialLimit, final Integer minLimit, final Integer maxLimit, final Long slowLatencyThreshold) {
+        this(initialLimit, minLimit, maxLimit, slowLatencyThreshold, DEFAULT_BACKOFF_RATIO);
+    }
+
+    public AimdLimit(final Integer initialLimit, final Integer minLimit, final Integer maxLimit, final Long slowLatencyThreshold, final Double backoffRatio) {
+        _minLimit = minLimit;
+        _maxLimit = maxLimit;
+        _slowLatencyThreshold = (slowLatencyThreshold != null ? (slowLatencyThreshold * 1000000L) : null);
+        _backoffRatio = backoffRatio;
+        _limit = initialLimit;
+    }
+
+    @Override
+    public Integer getLimit() {
+        return _limit;
+    }
+
+    @Override
+    public void onSample(final Long latency, final Integer inFlightCount, final Boolean wasDropped) {
+        final boolean isSlow = ( (_slowLatencyThreshold != null) && (latency > _slowLatencyThreshold) );
+        if (wasDropped || isSlow) {
+            _limit = Math.max(_minLimit, (int) (_limit * _backoffRatio));
+        }
+        else if ((inFlightCount * 2) >= _limit) { // Only grow the limit while it is being utilized.
+            _limit = Math.min(_maxLimit, (_limit + 1));
+        }
+    }
+}
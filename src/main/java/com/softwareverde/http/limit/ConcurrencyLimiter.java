@@ -0,0 +1,287 @@
+package com.softwareverde.http.limit;
+
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.util.Util;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * Limits the number of requests in flight, both in total and to each origin (i.e. a bulkhead per origin),
+ *  so a slow origin cannot consume every thread (and connection) at the expense of healthy origins.
+ *  Requests beyond a limit wait within a FIFO queue without holding a thread; requests to an origin with spare capacity
+ *  are not held up by requests queued for a saturated origin.
+ *  Each attempt of a request (i.e. its original attempt, each retry, and each hedge) holds its own permit until the attempt's future completes;
+ *  the attempt's latency (and whether it was dropped) is reported to the LimitAlgorithms.
+ *  An attempt is dropped if it fails, or if the server responds that it is overloaded (429 Too Many Requests, or 503 Service Unavailable).
+ */
+public class ConcurrencyLimiter {
+    public static final Integer DEFAULT_MAX_QUEUE_SIZE = 8192;
+
+    /**
+     * Returns true if the outcome of an attempt indicates the origin is overloaded: the attempt failed (other than by being cancelled),
+     *  or the server responded with 429 (Too Many Requests) or 503 (Service Unavailable).
+     */
+    protected static boolean _wasDropped(final Object result, final Throwable throwable) {
+        if (throwable != null) {
+            return (! (throwable instanceof CancellationException));
+        }
+
+        if (result instanceof HttpResponse) {
+            final Integer responseCode = ((HttpResponse) result).getResponseCode();
+            if (responseCode == null) { return false; }
+            return ( (responseCode == 429) || (responseCode == 503) );
+        }
+        return false;
+    }
+
+    /**
+     * Returns the origin (scheme, host, and port) of the url, used to select the url's bulkhead, or null if the url cannot be parsed.
+     */
+    public static String getOrigin(final String url) {
+        try {
+            final URI uri = new URI(url);
+            final String scheme = uri.getScheme();
+            final String host = uri.getHost();
+            if ( (scheme == null) || (host == null) ) { return null; }
+
+            final String lowerCaseScheme = scheme.toLowerCase(Locale.ROOT);
+            final boolean isSecure = ( lowerCaseScheme.equals("https") || lowerCaseScheme.equals("wss") );
+            final int port = (uri.getPort() >= 0 ? uri.getPort() : (isSecure ? 443 : 80));
+            return ((isSecure ? "https" : "http") + "://" + host.toLowerCase(Locale.ROOT) + ":" + port);
+        }
+        catch (final Exception exception) {
+            return null;
+        }
+    }
+
+    protected static class Bulkhead {
+        public final LimitAlgorithm limitAlgorithm;
+        public Integer inFlightCount = 0;
+        public Integer queuedCount = 0;
+
+        public Bulkhead(final LimitAlgorithm limitAlgorithm) {
+            this.limitAlgorithm = limitAlgorithm;
+        }
+
+        public boolean hasCapacity() {
+            if (limitAlgorithm == null) { return true; }
+            return (inFlightCount < limitAlgorithm.getLimit());
+        }
+
+        public Integer getLimit() {
+            if (limitAlgorithm == null) { return null; }
+            return limitAlgorithm.getLimit();
+        }
+
+        public void onSample(final Long latency, final Boolean wasDropped) {
+            if (limitAlgorithm == null) { return; }
+            limitAlgorithm.onSample(latency, inFlightCount, wasDropped);
+        }
+    }
+
+    protected static class Waiter {
+        public final Bulkhead originBulkhead;
+        public final Runnable onAcquired;
+        public Long acquiredAt = null;
+
+        public Waiter(final Bulkhead originBulkhead, final Runnable onAcquired) {
+            this.originBulkhead = originBulkhead;
+            this.onAcquired = onAcquired;
+        }
+    }
+
+    protected final Bulkhead _globalBulkhead;
+    protected final LimitAlgorithm.Factory _originLimitFactory;
+    protected final Integer _maxQueueSize;
+
+    protected final Map<String, Bulkhead> _originBulkheads = new HashMap<String, Bulkhead>();
+    protected final LinkedList<Waiter> _queue = new LinkedList<Waiter>();
+    protected Long _rejectedCount = 0L;
+
+    protected Bulkhead _getOriginBulkhead(final String origin) {
+        final String key = Util.coalesce(origin);
+        final Bulkhead existingBulkhead = _originBulkheads.get(key);
+        if (existingBulkhead != null) { return existingBulkhead; }
+
+        final Bulkhead bulkhead = new Bulkhead(_originLimitFactory != null ? _originLimitFactory.newLimitAlgorithm() : null);
+        _originBulkheads.put(key, bulkhead);
+        return bulkhead;
+    }
+
+    /**
+     * Grants permits to queued waiters, in order, while the global limit has capacity.
+     *  Must be invoked while synchronized; the returned waiters must be dispatched once the lock is released.
+     */
+    protected List<Waiter> _grantQueuedWaiters() {
+        final List<Waiter> acquiredWaiters = new ArrayList<Waiter>(0);
+        final Iterator<Waiter> iterator = _queue.iterator();
+        while (iterator.hasNext()) {
+            if (! _globalBulkhead.hasCapacity()) { break; }
+
+            final Waiter waiter = iterator.next();
+            final Bulkhead originBulkhead = waiter.originBulkhead;
+            if (! originBulkhead.hasCapacity()) { continue; }
+
+            iterator.remove();
+            originBulkhead.queuedCount -= 1;
+            _grant(waiter);
+            acquiredWaiters.add(waiter);
+        }
+        return acquiredWaiters;
+    }
+
+    protected void _grant(final Waiter waiter) {
+        _globalBulkhead.inFlightCount += 1;
+        waiter.originBulkhead.inFlightCount += 1;
+        waiter.acquiredAt = System.nanoTime();
+    }
+
+    protected void _onComplete(final Waiter waiter, final Object result, final Throwable throwable) {
+        final List<Waiter> acquiredWaiters;
+        synchronized (this) {
+            if (waiter.acquiredAt == null) { // The request completed (e.g. was cancelled) while queued.
+                if (_queue.remove(waiter)) {
+                    waiter.originBulkhead.queuedCount -= 1;
+                }
+                return;
+            }
+
+            final Long latency = (System.nanoTime() - waiter.acquiredAt);
+            final boolean wasDropped = _wasDropped(result, throwable);
+            _globalBulkhead.onSample(latency, wasDropped);
+            waiter.originBulkhead.onSample(latency, wasDropped);
+            _globalBulkhead.inFlightCount -= 1;
+            waiter.originBulkhead.inFlightCount -= 1;
+
+            acquiredWaiters = _grantQueuedWaiters();
+        }
+
+        for (final Waiter acquiredWaiter : acquiredWaiters) {
+            acquiredWaiter.onAcquired.run();
+        }
+    }
+
+    /**
+     * Creates a limiter with fixed limits; a null limit is unlimited.
+     */
+    public ConcurrencyLimiter(final Integer maxInFlightCount, final Integer maxInFlightCountPerOrigin) {
+        this(
+            (maxInFlightCount != null ? new FixedLimit(maxInFlightCount) : null),
+            (maxInFlightCountPerOrigin != null ? FixedLimit.newFactory(maxInFlightCountPerOrigin) : null),
+            DEFAULT_MAX_QUEUE_SIZE
+        );
+    }
+
+    /**
+     * Creates a limiter whose global limit is determined by globalLimitAlgorithm, and whose per-origin limits are determined by
+     *  a LimitAlgorithm created by originLimitFactory for each origin.  A null algorithm (or factory) is unlimited.
+     *  Once maxQueueSize requests are waiting, further requests are rejected.
+     */
+    public ConcurrencyLimiter(final LimitAlgorithm globalLimitAlgorithm, final LimitAlgorithm.Factory originLimitFactory, final Integer maxQueueSize) {
+        _globalBulkhead = new Bulkhead(globalLimitAlgorithm);
+        _originLimitFactory = originLimitFactory;
+        _maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * Runs onAcquired once a permit for the origin is available; the permit is released when future (i.e. the attempt's future) completes.
+     *  onAcquired is run by the calling thread if a permit is immediately available, otherwise by the thread that released the permit,
+     *  so it should only dispatch the request (and not execute it).
+     *  If the future completes while waiting (e.g. it is cancelled), the request leaves the queue and onAcquired is not run.
+     *  Throws a RejectedExecutionException if the queue is full.
+     */
+    public void acquire(final String origin, final CompletableFuture<?> future, final Runnable onAcquired) throws RejectedExecutionException {
+        final Waiter waiter;
+        final boolean canAcquire;
+        synchronized (this) {
+            final Bulkhead originBulkhead = _getOriginBulkhead(origin);
+            waiter = new Waiter(originBulkhead, onAcquired);
+
+            // NOTE: Queued waiters are always blocked by a limit, so a waiter may only skip the queue if its origin has no waiters.
+            canAcquire = ( _globalBulkhead.hasCapacity() && originBulkhead.hasCapacity() && (originBulkhead.queuedCount == 0) );
+            if (canAcquire) {
+                _grant(waiter);
+            }
+            else {
+                if ( (_maxQueueSize != null) && (_queue.size() >= _maxQueueSize) ) {
+                    _rejectedCount += 1L;
+                    throw new RejectedExecutionException("Concurrency limit exceeded for " + origin + "; " + _queue.size() + " requests queued.");
+                }
+
+                _queue.addLast(waiter);
+                originBulkhead.queuedCount += 1;
+            }
+        }
+
+        future.whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(final Object result, final Throwable throwable) {
+                _onComplete(waiter, result, throwable);
+            }
+        });
+
+        if (canAcquire) {
+            onAcquired.run();
+        }
+    }
+
+    /**
+     * Returns the number of requests currently holding a permit.
+     */
+    public synchronized Integer getActiveCount() {
+        return _globalBulkhead.inFlightCount;
+    }
+
+    /**
+     * Returns the number of requests waiting for a permit.
+     */
+    public synchronized Integer getQueuedCount() {
+        return _queue.size();
+    }
+
+    /**
+     * Returns the number of requests rejected because the queue was full.
+     */
+    public synchronized Long getRejectedCount() {
+        return _rejectedCount;
+    }
+
+    /**
+     * Returns the current global limit, or null if unlimited.
+     */
+    public synchronized Integer getLimit() {
+        return _globalBulkhead.getLimit();
+    }
+
+    /**
+     * Returns the number of requests to the origin (see ConcurrencyLimiter::getOrigin) currently holding a permit.
+     */
+    public synchronized Integer getActiveCount(final String origin) {
+        final Bulkhead bulkhead = _originBulkheads.get(Util.coalesce(origin));
+        return (bulkhead != null ? bulkhead.inFlightCount : 0);
+    }
+
+    public synchronized Integer getQueuedCount(final String origin) {
+        final Bulkhead bulkhead = _originBulkheads.get(Util.coalesce(origin));
+        return (bulkhead != null ? bulkhead.queuedCount : 0);
+    }
+
+    /**
+     * Returns the current limit for the origin, or null if unlimited (or the origin has not been encountered).
+     */
+    public synchronized Integer getLimit(final String origin) {
+        final Bulkhead bulkhead = _originBulkheads.get(Util.coalesce(origin));
+        return (bulkhead != null ? bulkhead.getLimit() : null);
+    }
+}
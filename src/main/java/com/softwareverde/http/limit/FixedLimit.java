@@ -0,0 +1,29 @@
+package com.softwareverde.http.limit;
+
+/**
+ * A LimitAlgorithm whose limit never changes.
+ */
+public class FixedLimit implements LimitAlgorithm {
+    public static LimitAlgorithm.Factory newFactory(final Integer limit) {
+        return new LimitAlgorithm.Factory() {
+            @Override
+            public LimitAlgorithm newLimitAlgorithm() {
+                return new FixedLimit(limit);
+            }
+        };
+    }
+
+    protected final Integer _limit;
+
+    public FixedLimit(final Integer limit) {
+        _limit = limit;
+    }
+
+    @Override
+    public Integer getLimit() {
+        return _limit;
+    }
+
+    @Override
+    public void onSample(final Long latency, final Integer inFlightCount, final Boolean wasDropped) { }
+}
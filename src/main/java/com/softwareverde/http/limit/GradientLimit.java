@@ -0,0 +1,68 @@
+package com.softwareverde.http.limit;
+
+/**
+ * A LimitAlgorithm that adjusts the limit by the gradient between the long-term and the current latency.
+ *  When requests become slower than usual (i.e. the downstream is queueing), the limit shrinks in proportion;
+ *  while latency is stable, the limit grows by a small queue allowance (the square root of the limit).
+ *  Failed requests halve the gradient's floor, shrinking the limit quickly.
+ */
+public class GradientLimit implements LimitAlgorithm {
+    public static final Integer DEFAULT_LONG_WINDOW = 600;
+    public static final Double DEFAULT_SMOOTHING = 0.2D;
+
+    public static LimitAlgorithm.Factory newFactory(final Integer initialLimit, final Integer minLimit, final Integer maxLimit) {
+        return new LimitAlgorithm.Factory() {
+            @Override
+            public LimitAlgorithm newLimitAlgorithm() {
+                return new GradientLimit(initialLimit, minLimit, maxLimit);
+            }
+        };
+    }
+
+    protected final Integer _minLimit;
+    protected final Integer _maxLimit;
+    protected final Integer _longWindow;
+    protected final Double _smoothing;
+    protected Double _limit;
+    protected Double _longLatency = null;
+    protected Long _sampleCount = 0L;
+
+    public GradientLimit(final Integer initialLimit, final Integer minLimit, final Integer maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_LONG_WINDOW, DEFAULT_SMOOTHING);
+    }
+
+    /**
+     * longWindow is the number of samples the long-term latency is averaged over; smoothing is the weight given to each new limit.
+     */
+    public GradientLimit(final Integer initialLimit, final Integer minLimit, final Integer maxLimit, final Integer longWindow, final Double smoothing) {
+        _minLimit = minLimit;
+        _maxLimit = maxLimit;
+        _longWindow = longWindow;
+        _smoothing = smoothing;
+        _limit = initialLimit.doubleValue();
+    }
+
+    @Override
+    public Integer getLimit() {
+        return (int) Math.round(_limit);
+    }
+
+    @Override
+    public void onSample(final Long latency, final Integer inFlightCount, final Boolean wasDropped) {
+        _sampleCount += 1L;
+
+        // The long-term latency warms up as a simple average, then becomes an exponential average over the window.
+        final double longWeight = (1D / Math.min(_sampleCount, _longWindow));
+        _longLatency = ( _longLatency == null ? latency.doubleValue() : ((_longLatency * (1D - longWeight)) + (latency * longWeight)) );
+
+        final double minGradient = (wasDropped ? 0.25D : 0.5D);
+        final double gradient = Math.max(minGradient, Math.min(1D, (_longLatency / Math.max(1L, latency))));
+
+        // Do not grow the limit while it is not being utilized; the latency then says nothing about the downstream's capacity.
+        if ( (gradient >= 1D) && ((inFlightCount * 2) < _limit) ) { return; }
+
+        final double queueSize = Math.sqrt(_limit);
+        final double newLimit = ((_limit * gradient) + queueSize);
+        _limit = Math.max(_minLimit, Math.min(_maxLimit, ((_limit * (1D - _smoothing)) + (newLimit * _smoothing))));
+    }
+}
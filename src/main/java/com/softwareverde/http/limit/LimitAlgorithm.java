@@ -0,0 +1,25 @@
+package com.softwareverde.http.limit;
+
+/**
+ * Determines the maximum number of requests a ConcurrencyLimiter allows in flight at once.
+ *  Adaptive implementations adjust the limit from the latency (and failures) observed as requests complete.
+ *  Implementations are only invoked while the ConcurrencyLimiter's lock is held, so they do not need to be thread-safe.
+ */
+public interface LimitAlgorithm {
+    interface Factory {
+        /**
+         * Returns a new LimitAlgorithm; invoked once for each origin a ConcurrencyLimiter encounters.
+         */
+        LimitAlgorithm newLimitAlgorithm();
+    }
+
+    Integer getLimit();
+
+    /**
+     * Invoked when an attempt of a request completes.
+     *  latency is the time (in nanoseconds) the attempt held its permit, inFlightCount is the number of attempts in flight
+     *  (including this one) when it completed, and wasDropped is true if the attempt failed (e.g. it timed out)
+     *  or the server responded that it is overloaded (429 or 503).
+     */
+    void onSample(Long latency, Integer inFlightCount, Boolean wasDropped);
+}
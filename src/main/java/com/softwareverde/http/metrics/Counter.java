@@ -0,0 +1,31 @@
+package com.softwareverde.http.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count (e.g. of requests); increments do not contend with one another.
+ */
+public class Counter {
+    protected final MeterId _id;
+    protected final LongAdder _count = new LongAdder();
+
+    protected Counter(final MeterId id) {
+        _id = id;
+    }
+
+    public MeterId getId() {
+        return _id;
+    }
+
+    public void increment() {
+        _count.increment();
+    }
+
+    public void increment(final Long amount) {
+        _count.add(amount);
+    }
+
+    public Long getCount() {
+        return _count.sum();
+    }
+}
@@ -0,0 +1,37 @@
+package com.softwareverde.http.metrics;
+
+import com.softwareverde.logging.Logger;
+
+/**
+ * A value sampled when it is read (e.g. the number of idle connections), rather than recorded as it changes.
+ */
+public class Gauge {
+    public interface ValueFunction {
+        Double getValue();
+    }
+
+    protected final MeterId _id;
+    protected final ValueFunction _valueFunction;
+
+    protected Gauge(final MeterId id, final ValueFunction valueFunction) {
+        _id = id;
+        _valueFunction = valueFunction;
+    }
+
+    public MeterId getId() {
+        return _id;
+    }
+
+    /**
+     * Returns the current value, or null if it could not be sampled.
+     */
+    public Double getValue() {
+        try {
+            return _valueFunction.getValue();
+        }
+        catch (final Exception exception) {
+            Logger.debug("Unable to sample gauge: " + _id, exception);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.softwareverde.http.metrics;
+
+import com.softwareverde.http.HttpMethod;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.connection.HttpConnectionPool;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the metrics of the requests that use it (see HttpRequest::setMetrics) within a MetricsRegistry:
+ *  <ul>
+ *      <li>http.client.requests: a Timer of each request's latency (from execution until its response is received, including retries and redirects),
+ *          tagged by method, host, and status (the response's status class, e.g. "2xx", or "error"/"cancelled" if the request failed).</li>
+ *      <li>http.client.requests.in_flight: a Gauge of the requests executed but not yet complete.</li>
+ *      <li>http.client.requests.queued: a Gauge of the requests executed but not yet started (e.g. waiting for a ConcurrencyLimiter permit).</li>
+ *      <li>http.client.connections.idle and http.client.connections.leased: Gauges of each bound HttpConnectionPool, tagged by pool.</li>
+ *  </ul>
+ *  The latency of a streamed response is measured until its head is received.
+ */
+public class HttpClientMetrics {
+    public static final String REQUESTS = "http.client.requests";
+    public static final String REQUESTS_IN_FLIGHT = "http.client.requests.in_flight";
+    public static final String REQUESTS_QUEUED = "http.client.requests.queued";
+    public static final String CONNECTIONS_IDLE = "http.client.connections.idle";
+    public static final String CONNECTIONS_LEASED = "http.client.connections.leased";
+
+    public static final String STATUS_ERROR = "error";
+    public static final String STATUS_CANCELLED = "cancelled";
+
+    protected static HttpClientMetrics DEFAULT_HTTP_CLIENT_METRICS = null;
+
+    /**
+     * Returns HttpClientMetrics that records to MetricsRegistry::getDefault (with the default HttpConnectionPool bound), for use with HttpClient.Builder::setMetrics.
+     */
+    public static synchronized HttpClientMetrics getDefault() {
+        if (DEFAULT_HTTP_CLIENT_METRICS == null) {
+            DEFAULT_HTTP_CLIENT_METRICS = new HttpClientMetrics(MetricsRegistry.getDefault());
+            DEFAULT_HTTP_CLIENT_METRICS.bindConnectionPool("default", HttpConnectionPool.getDefault());
+        }
+        return DEFAULT_HTTP_CLIENT_METRICS;
+    }
+
+    /**
+     * Returns the status class (e.g. "2xx") of the response code.
+     */
+    public static String getStatusClass(final Integer responseCode) {
+        if ( (responseCode == null) || (responseCode < 100) || (responseCode > 599) ) { return "unknown"; }
+        return ((responseCode / 100) + "xx");
+    }
+
+    /**
+     * Returns the lower-cased host of the url, or "unknown" if the url cannot be parsed.
+     */
+    public static String getHost(final String url) {
+        try {
+            final String host = new URI(url).getHost();
+            if (host == null) { return "unknown"; }
+            return host.toLowerCase(Locale.ROOT);
+        }
+        catch (final Exception exception) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Tracks a single request; each method is idempotent, so it may be invoked by each attempt of the request.
+     */
+    public class RequestTracker {
+        protected final String _method;
+        protected final String _host;
+        protected final Long _queuedAt = System.nanoTime();
+        protected Boolean _hasStarted = false;
+        protected Boolean _isComplete = false;
+
+        protected RequestTracker(final String method, final String host) {
+            _method = method;
+            _host = host;
+        }
+
+        /**
+         * Invoked when execution of the request begins.
+         */
+        public void onStarted() {
+            synchronized (this) {
+                if ( _hasStarted || _isComplete ) { return; }
+                _hasStarted = true;
+            }
+            _queuedCount.decrementAndGet();
+        }
+
+        /**
+         * Invoked when the request completes with the response, or fails with the exception.
+         */
+        public void onComplete(final HttpResponse httpResponse, final Throwable exception) {
+            final Long duration = (System.nanoTime() - _queuedAt);
+            final boolean hadStarted;
+            synchronized (this) {
+                if (_isComplete) { return; }
+                _isComplete = true;
+                hadStarted = _hasStarted;
+            }
+
+            if (! hadStarted) {
+                _queuedCount.decrementAndGet();
+            }
+            _inFlightCount.decrementAndGet();
+
+            final Throwable cause = ( (exception instanceof CompletionException) && (exception.getCause() != null) ? exception.getCause() : exception );
+            final String status;
+            if (httpResponse != null) {
+                status = getStatusClass(httpResponse.getResponseCode());
+            }
+            else if (cause instanceof CancellationException) {
+                status = STATUS_CANCELLED;
+            }
+            else {
+                status = STATUS_ERROR;
+            }
+
+            final Timer timer = _registry.getTimer(REQUESTS, Tags.of("method", _method, "host", _host, "status", status));
+            timer.record(duration);
+        }
+    }
+
+    protected final MetricsRegistry _registry;
+    protected final AtomicInteger _inFlightCount = new AtomicInteger(0);
+    protected final AtomicInteger _queuedCount = new AtomicInteger(0);
+
+    public HttpClientMetrics(final MetricsRegistry registry) {
+        _registry = registry;
+
+        registry.registerGauge(REQUESTS_IN_FLIGHT, Tags.EMPTY, new Gauge.ValueFunction() {
+            @Override
+            public Double getValue() {
+                return (double) _inFlightCount.get();
+            }
+        });
+
+        registry.registerGauge(REQUESTS_QUEUED, Tags.EMPTY, new Gauge.ValueFunction() {
+            @Override
+            public Double getValue() {
+                return (double) _queuedCount.get();
+            }
+        });
+    }
+
+    public MetricsRegistry getRegistry() {
+        return _registry;
+    }
+
+    /**
+     * Registers Gauges of the pool's idle and leased connections, tagged with the pool's name.
+     */
+    public void bindConnectionPool(final String name, final HttpConnectionPool connectionPool) {
+        final Tags tags = Tags.of("pool", name);
+
+        _registry.registerGauge(CONNECTIONS_IDLE, tags, new Gauge.ValueFunction() {
+            @Override
+            public Double getValue() {
+                return (double) connectionPool.getIdleConnectionCount();
+            }
+        });
+
+        _registry.registerGauge(CONNECTIONS_LEASED, tags, new Gauge.ValueFunction() {
+            @Override
+            public Double getValue() {
+                return (double) connectionPool.getLeasedConnectionCount();
+            }
+        });
+    }
+
+    /**
+     * Invoked when a request is executed; the returned RequestTracker records the request's progress.
+     */
+    public RequestTracker onRequestQueued(final HttpMethod method, final String url) {
+        _inFlightCount.incrementAndGet();
+        _queuedCount.incrementAndGet();
+        return new RequestTracker(method.name(), getHost(url));
+    }
+
+    public Integer getInFlightCount() {
+        return _inFlightCount.get();
+    }
+
+    public Integer getQueuedCount() {
+        return _queuedCount.get();
+    }
+}
@@ -0,0 +1,42 @@
+package com.softwareverde.http.metrics;
+
+/**
+ * Identifies a meter by its name (e.g. "http.client.requests") and its Tags.
+ */
+public class MeterId {
+    protected final String _name;
+    protected final Tags _tags;
+
+    public MeterId(final String name, final Tags tags) {
+        _name = name;
+        _tags = (tags != null ? tags : Tags.EMPTY);
+    }
+
+    public String getName() {
+        return _name;
+    }
+
+    public Tags getTags() {
+        return _tags;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (object == this) { return true; }
+        if (! (object instanceof MeterId)) { return false; }
+
+        final MeterId meterId = (MeterId) object;
+        return (_name.equals(meterId._name) && _tags.equals(meterId._tags));
+    }
+
+    @Override
+    public int hashCode() {
+        return ((31 * _name.hashCode()) + _tags.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        if (_tags.getCount() == 0) { return _name; }
+        return (_name + "{" + _tags + "}");
+    }
+}
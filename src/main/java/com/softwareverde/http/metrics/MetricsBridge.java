@@ -0,0 +1,13 @@
+package com.softwareverde.http.metrics;
+
+/**
+ * Exports the meters of a MetricsRegistry to another metrics system (e.g. by registering a function-backed meter within that system that reads the provided meter).
+ *  The bridge is notified of each meter once, when it is registered (or, for meters registered before the bridge was added, when the bridge is added).
+ */
+public interface MetricsBridge {
+    void onCounterRegistered(Counter counter);
+
+    void onTimerRegistered(Timer timer);
+
+    void onGaugeRegistered(Gauge gauge);
+}
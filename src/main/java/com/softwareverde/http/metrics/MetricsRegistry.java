@@ -0,0 +1,136 @@
+package com.softwareverde.http.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Maintains the Counters, Timers, and Gauges, each identified by its name and Tags.
+ *  Meters are created when first requested and are retained for the life of the registry; MetricsBridges are notified as meters are registered.
+ */
+public class MetricsRegistry {
+    protected static MetricsRegistry DEFAULT_METRICS_REGISTRY = null;
+
+    public static synchronized MetricsRegistry getDefault() {
+        if (DEFAULT_METRICS_REGISTRY == null) {
+            DEFAULT_METRICS_REGISTRY = new MetricsRegistry();
+        }
+        return DEFAULT_METRICS_REGISTRY;
+    }
+
+    protected final ConcurrentMap<MeterId, Counter> _counters = new ConcurrentHashMap<MeterId, Counter>();
+    protected final ConcurrentMap<MeterId, Timer> _timers = new ConcurrentHashMap<MeterId, Timer>();
+    protected final ConcurrentMap<MeterId, Gauge> _gauges = new ConcurrentHashMap<MeterId, Gauge>();
+    protected final List<MetricsBridge> _bridges = new CopyOnWriteArrayList<MetricsBridge>();
+
+    public MetricsRegistry() { }
+
+    /**
+     * Adds the bridge, and notifies it of the meters already registered.
+     */
+    public synchronized void addBridge(final MetricsBridge bridge) {
+        _bridges.add(bridge);
+
+        for (final Counter counter : _counters.values()) {
+            bridge.onCounterRegistered(counter);
+        }
+        for (final Timer timer : _timers.values()) {
+            bridge.onTimerRegistered(timer);
+        }
+        for (final Gauge gauge : _gauges.values()) {
+            bridge.onGaugeRegistered(gauge);
+        }
+    }
+
+    public synchronized void removeBridge(final MetricsBridge bridge) {
+        _bridges.remove(bridge);
+    }
+
+    /**
+     * Returns the Counter identified by the name and tags, creating it if necessary.
+     */
+    public Counter getCounter(final String name, final Tags tags) {
+        final MeterId meterId = new MeterId(name, tags);
+        final Counter existingCounter = _counters.get(meterId);
+        if (existingCounter != null) { return existingCounter; }
+
+        synchronized (this) {
+            final Counter counter = new Counter(meterId);
+            final Counter previousCounter = _counters.putIfAbsent(meterId, counter);
+            if (previousCounter != null) { return previousCounter; }
+
+            for (final MetricsBridge bridge : _bridges) {
+                bridge.onCounterRegistered(counter);
+            }
+            return counter;
+        }
+    }
+
+    /**
+     * Returns the Timer identified by the name and tags, creating it if necessary.
+     */
+    public Timer getTimer(final String name, final Tags tags) {
+        final MeterId meterId = new MeterId(name, tags);
+        final Timer existingTimer = _timers.get(meterId);
+        if (existingTimer != null) { return existingTimer; }
+
+        synchronized (this) {
+            final Timer timer = new Timer(meterId);
+            final Timer previousTimer = _timers.putIfAbsent(meterId, timer);
+            if (previousTimer != null) { return previousTimer; }
+
+            for (final MetricsBridge bridge : _bridges) {
+                bridge.onTimerRegistered(timer);
+            }
+            return timer;
+        }
+    }
+
+    /**
+     * Registers a Gauge whose value is sampled from valueFunction when read.
+     *  If a Gauge is already registered with the name and tags, it is returned (and valueFunction is ignored).
+     */
+    public Gauge registerGauge(final String name, final Tags tags, final Gauge.ValueFunction valueFunction) {
+        final MeterId meterId = new MeterId(name, tags);
+
+        synchronized (this) {
+            final Gauge gauge = new Gauge(meterId, valueFunction);
+            final Gauge previousGauge = _gauges.putIfAbsent(meterId, gauge);
+            if (previousGauge != null) { return previousGauge; }
+
+            for (final MetricsBridge bridge : _bridges) {
+                bridge.onGaugeRegistered(gauge);
+            }
+            return gauge;
+        }
+    }
+
+    /**
+     * Returns the registered Counter, Timer, or Gauge identified by the name and tags, or null if there is none.
+     */
+    public Counter findCounter(final String name, final Tags tags) {
+        return _counters.get(new MeterId(name, tags));
+    }
+
+    public Timer findTimer(final String name, final Tags tags) {
+        return _timers.get(new MeterId(name, tags));
+    }
+
+    public Gauge findGauge(final String name, final Tags tags) {
+        return _gauges.get(new MeterId(name, tags));
+    }
+
+    public List<Counter> getCounters() {
+        return new ArrayList<Counter>(_counters.values());
+    }
+
+    public List<Timer> getTimers() {
+        return new ArrayList<Timer>(_timers.values());
+    }
+
+    public List<Gauge> getGauges() {
+        return new ArrayList<Gauge>(_gauges.values());
+    }
+}
@@ -0,0 +1,114 @@
+package com.softwareverde.http.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable set of key/value pairs that (with its name) identifies a meter (e.g. method=GET, host=example.com, status=2xx).
+ *  Tags are ordered by key, so the order in which they are provided does not affect the identity of the meter.
+ */
+public class Tags {
+    public static final Tags EMPTY = new Tags(new String[0]);
+
+    /**
+     * Returns the Tags of the alternating keys and values (e.g. Tags.of("method", "GET", "host", "example.com")).
+     */
+    public static Tags of(final String... keysAndValues) {
+        if ( (keysAndValues.length % 2) != 0 ) { throw new IllegalArgumentException("Tags require a value for each key."); }
+
+        final int tagCount = (keysAndValues.length / 2);
+        final String[] sortedKeysAndValues = new String[keysAndValues.length];
+        int sortedTagCount = 0;
+        for (int i = 0; i < tagCount; ++i) {
+            final String key = keysAndValues[i * 2];
+            final String value = keysAndValues[(i * 2) + 1];
+            if ( (key == null) || (value == null) ) { throw new IllegalArgumentException("Tag keys and values may not be null."); }
+
+            int index = sortedTagCount;
+            while ( (index > 0) && (sortedKeysAndValues[(index - 1) * 2].compareTo(key) > 0) ) {
+                sortedKeysAndValues[index * 2] = sortedKeysAndValues[(index - 1) * 2];
+                sortedKeysAndValues[(index * 2) + 1] = sortedKeysAndValues[((index - 1) * 2) + 1];
+                index -= 1;
+            }
+            sortedKeysAndValues[index * 2] = key;
+            sortedKeysAndValues[(index * 2) + 1] = value;
+            sortedTagCount += 1;
+        }
+        return new Tags(sortedKeysAndValues);
+    }
+
+    protected final String[] _keysAndValues;
+    protected final int _hashCode;
+
+    protected Tags(final String[] sortedKeysAndValues) {
+        _keysAndValues = sortedKeysAndValues;
+
+        int hashCode = 1;
+        for (final String value : sortedKeysAndValues) {
+            hashCode = ((31 * hashCode) + value.hashCode());
+        }
+        _hashCode = hashCode;
+    }
+
+    /**
+     * Returns the value of the key, or null if the key is not tagged.
+     */
+    public String get(final String key) {
+        for (int i = 0; i < _keysAndValues.length; i += 2) {
+            if (_keysAndValues[i].equals(key)) {
+                return _keysAndValues[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the keys, in order.
+     */
+    public List<String> getKeys() {
+        final List<String> keys = new ArrayList<String>(_keysAndValues.length / 2);
+        for (int i = 0; i < _keysAndValues.length; i += 2) {
+            keys.add(_keysAndValues[i]);
+        }
+        return Collections.unmodifiableList(keys);
+    }
+
+    public Integer getCount() {
+        return (_keysAndValues.length / 2);
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (object == this) { return true; }
+        if (! (object instanceof Tags)) { return false; }
+
+        final Tags tags = (Tags) object;
+        if (_hashCode != tags._hashCode) { return false; }
+        if (_keysAndValues.length != tags._keysAndValues.length) { return false; }
+
+        for (int i = 0; i < _keysAndValues.length; ++i) {
+            if (! _keysAndValues[i].equals(tags._keysAndValues[i])) { return false; }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return _hashCode;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        for (int i = 0; i < _keysAndValues.length; i += 2) {
+            if (i > 0) {
+                stringBuilder.append(",");
+            }
+            stringBuilder.append(_keysAndValues[i]);
+            stringBuilder.append("=");
+            stringBuilder.append(_keysAndValues[i + 1]);
+        }
+        return stringBuilder.toString();
+    }
+}
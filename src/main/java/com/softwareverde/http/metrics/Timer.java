@@ -0,0 +1,119 @@
+package com.softwareverde.http.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations (in nanoseconds) into a log-linear histogram (in the manner of an HdrHistogram), so percentiles may be read without retaining each sample.
+ *  Each power-of-two range is divided into 64 buckets, so a reported percentile is within ~1.6% of the recorded duration.
+ *  Durations beyond MAX_TRACKABLE_DURATION are recorded as MAX_TRACKABLE_DURATION (but are reflected by the total and the max).
+ *  Recording does not lock (or allocate); a percentile is read by walking the buckets.
+ */
+public class Timer {
+    public static final Long MAX_TRACKABLE_DURATION = (1L << 42); // ~73 minutes.
+
+    protected static final Integer SUB_BUCKET_BITS = 7;
+    protected static final Integer SUB_BUCKET_COUNT = (1 << SUB_BUCKET_BITS);
+    protected static final Integer SUB_BUCKET_HALF_COUNT = (SUB_BUCKET_COUNT / 2);
+    protected static final Integer BUCKET_COUNT = (((63 - Long.numberOfLeadingZeros(MAX_TRACKABLE_DURATION)) - (SUB_BUCKET_BITS - 1)) * SUB_BUCKET_HALF_COUNT) + SUB_BUCKET_COUNT;
+
+    /**
+     * Returns the index of the bucket that counts the duration.
+     *  Durations less than SUB_BUCKET_COUNT are counted exactly; larger durations are shifted until they are within [SUB_BUCKET_HALF_COUNT, SUB_BUCKET_COUNT).
+     */
+    protected static int _getBucketIndex(final long duration) {
+        if (duration < SUB_BUCKET_COUNT) { return (int) duration; }
+
+        final int shift = ((63 - Long.numberOfLeadingZeros(duration)) - (SUB_BUCKET_BITS - 1));
+        return ((shift * SUB_BUCKET_HALF_COUNT) + (int) (duration >>> shift));
+    }
+
+    /**
+     * Returns the largest duration counted by the bucket.
+     */
+    protected static long _getBucketValue(final int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) { return bucketIndex; }
+
+        final int shift = ((bucketIndex / SUB_BUCKET_HALF_COUNT) - 1);
+        final long subBucket = ((bucketIndex % SUB_BUCKET_HALF_COUNT) + SUB_BUCKET_HALF_COUNT);
+        return (((subBucket + 1L) << shift) - 1L);
+    }
+
+    protected final MeterId _id;
+    protected final AtomicLongArray _bucketCounts = new AtomicLongArray(BUCKET_COUNT);
+    protected final LongAdder _count = new LongAdder();
+    protected final LongAdder _totalDuration = new LongAdder();
+    protected final AtomicLong _maxDuration = new AtomicLong(0L);
+
+    protected Timer(final MeterId id) {
+        _id = id;
+    }
+
+    public MeterId getId() {
+        return _id;
+    }
+
+    /**
+     * Records the duration, in nanoseconds; negative durations are recorded as zero.
+     */
+    public void record(final Long duration) {
+        final long boundedDuration = Math.max(0L, duration);
+        _bucketCounts.incrementAndGet(_getBucketIndex(Math.min(boundedDuration, MAX_TRACKABLE_DURATION)));
+        _count.increment();
+        _totalDuration.add(boundedDuration);
+
+        long maxDuration = _maxDuration.get();
+        while ( (boundedDuration > maxDuration) && (! _maxDuration.compareAndSet(maxDuration, boundedDuration)) ) {
+            maxDuration = _maxDuration.get();
+        }
+    }
+
+    public Long getCount() {
+        return _count.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded durations, in nanoseconds.
+     */
+    public Long getTotalDuration() {
+        return _totalDuration.sum();
+    }
+
+    public Long getMaxDuration() {
+        return _maxDuration.get();
+    }
+
+    /**
+     * Returns the mean of the recorded durations, in nanoseconds, or null if none have been recorded.
+     */
+    public Double getMeanDuration() {
+        final long count = _count.sum();
+        if (count == 0L) { return null; }
+        return (_totalDuration.sum() / (double) count);
+    }
+
+    /**
+     * Returns the duration (in nanoseconds) at or below which the percentile (e.g. 0.99) of recorded durations fall, or null if none have been recorded.
+     *  Since recording does not lock, durations recorded concurrently may or may not be reflected.
+     */
+    public Long getPercentile(final Double percentile) {
+        long count = 0L;
+        final long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            bucketCounts[i] = _bucketCounts.get(i);
+            count += bucketCounts[i];
+        }
+        if (count == 0L) { return null; }
+
+        final long targetCount = Math.max(1L, (long) Math.ceil(percentile * count));
+        long cumulativeCount = 0L;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            cumulativeCount += bucketCounts[i];
+            if (cumulativeCount >= targetCount) {
+                return Math.min(_getBucketValue(i), _maxDuration.get());
+            }
+        }
+        return _maxDuration.get();
+    }
+}
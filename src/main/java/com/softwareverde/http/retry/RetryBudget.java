@@ -0,0 +1,92 @@
+package com.softwareverde.http.retry;
+
+/**
+ * Bounds the number of retries relative to the number of requests, preventing retry storms from amplifying the load on a failing server.
+ *  Each request deposits retryRatio of a retry into the budget (up to retryRatio * MAX_BALANCE_REQUEST_COUNT), and each retry withdraws one;
+ *  in addition, minRetriesPerSecond retries are always permitted so that low-volume clients may still retry.
+ *  A budget is typically shared by every request to a client (see RetryBudget::getDefault).
+ */
+public class RetryBudget {
+    public static final Double DEFAULT_RETRY_RATIO = 0.2D;
+    public static final Integer DEFAULT_MIN_RETRIES_PER_SECOND = 10;
+    public static final Integer MAX_BALANCE_REQUEST_COUNT = 1000;
+
+    protected static RetryBudget DEFAULT_RETRY_BUDGET = null;
+
+    /**
+     * Returns the budget used by RetryPolicies that have not been assigned a budget.
+     */
+    public static synchronized RetryBudget getDefault() {
+        if (DEFAULT_RETRY_BUDGET == null) {
+            DEFAULT_RETRY_BUDGET = new RetryBudget(DEFAULT_RETRY_RATIO, DEFAULT_MIN_RETRIES_PER_SECOND);
+        }
+        return DEFAULT_RETRY_BUDGET;
+    }
+
+    protected final Double _retryRatio;
+    protected final Integer _minRetriesPerSecond;
+    protected final Double _maxBalance;
+
+    protected Double _balance = 0D;
+    protected Double _reserve;
+    protected Long _reserveRefilledAt;
+    protected Long _retryCount = 0L;
+    protected Long _exhaustedCount = 0L;
+
+    protected void _refillReserve() {
+        final long now = System.nanoTime();
+        final double elapsedSeconds = ((now - _reserveRefilledAt) / 1000000000D);
+        _reserve = Math.min(_minRetriesPerSecond, (_reserve + (elapsedSeconds * _minRetriesPerSecond)));
+        _reserveRefilledAt = now;
+    }
+
+    public RetryBudget(final Double retryRatio, final Integer minRetriesPerSecond) {
+        _retryRatio = retryRatio;
+        _minRetriesPerSecond = minRetriesPerSecond;
+        _maxBalance = (retryRatio * MAX_BALANCE_REQUEST_COUNT);
+        _reserve = minRetriesPerSecond.doubleValue();
+        _reserveRefilledAt = System.nanoTime();
+    }
+
+    /**
+     * Invoked once for each request (not for each retry).
+     */
+    public synchronized void onRequest() {
+        _balance = Math.min(_maxBalance, (_balance + _retryRatio));
+    }
+
+    /**
+     * Withdraws a retry from the budget; returns false if the budget is exhausted, in which case the request should not be retried.
+     */
+    public synchronized Boolean tryAcquireRetry() {
+        _refillReserve();
+
+        if (_balance >= 1D) {
+            _balance -= 1D;
+        }
+        else if (_reserve >= 1D) {
+            _reserve -= 1D;
+        }
+        else {
+            _exhaustedCount += 1L;
+            return false;
+        }
+
+        _retryCount += 1L;
+        return true;
+    }
+
+    /**
+     * Returns the number of retries permitted by the budget.
+     */
+    public synchronized Long getRetryCount() {
+        return _retryCount;
+    }
+
+    /**
+     * Returns the number of retries denied because the budget was exhausted.
+     */
+    public synchronized Long getExhaustedCount() {
+        return _exhaustedCount;
+    }
+}
@@ -0,0 +1,177 @@
+package com.softwareverde.http.retry;
+
+import com.softwareverde.http.ConnectTimeoutException;
+import com.softwareverde.http.DeadlineExceededException;
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.breaker.CircuitBreakerOpenException;
+import com.softwareverde.util.Util;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Determines whether (and when) a failed request is retried.
+ *  Requests are retried when the connection could not be established, or, if the request is idempotent, when the response
+ *  could not be read or its status code is retryable (by default 429, 500, 502, 503, and 504).
+ *  Retries are delayed by the response's Retry-After header if present, otherwise by an exponential backoff with full jitter,
+ *  and are only made while the RetryBudget permits.
+ */
+public class RetryPolicy {
+    public static final Integer DEFAULT_MAX_ATTEMPT_COUNT = 3;
+    public static final Long DEFAULT_INITIAL_BACKOFF_MS = 100L;
+    public static final Long DEFAULT_MAX_BACKOFF_MS = 10000L;
+    public static final Double DEFAULT_BACKOFF_MULTIPLIER = 2D;
+    public static final Long DEFAULT_MAX_RETRY_AFTER_MS = 60000L;
+
+    protected static Set<Integer> _getDefaultRetryableStatusCodes() {
+        final Set<Integer> statusCodes = new HashSet<Integer>();
+        statusCodes.add(429);
+        statusCodes.add(500);
+        statusCodes.add(502);
+        statusCodes.add(503);
+        statusCodes.add(504);
+        return statusCodes;
+    }
+
+    protected Integer _maxAttemptCount = DEFAULT_MAX_ATTEMPT_COUNT;
+    protected Long _initialBackoff = DEFAULT_INITIAL_BACKOFF_MS;
+    protected Long _maxBackoff = DEFAULT_MAX_BACKOFF_MS;
+    protected Double _backoffMultiplier = DEFAULT_BACKOFF_MULTIPLIER;
+    protected Long _maxRetryAfter = DEFAULT_MAX_RETRY_AFTER_MS;
+    protected Boolean _retriesNonIdempotentRequests = false;
+    protected Set<Integer> _retryableStatusCodes = _getDefaultRetryableStatusCodes();
+    protected RetryBudget _retryBudget = null;
+
+    public RetryPolicy() { }
+
+    public RetryPolicy(final Integer maxAttemptCount) {
+        _maxAttemptCount = maxAttemptCount;
+    }
+
+    /**
+     * Sets the maximum number of attempts, including the initial attempt.
+     */
+    public void setMaxAttemptCount(final Integer maxAttemptCount) {
+        _maxAttemptCount = maxAttemptCount;
+    }
+
+    public Integer getMaxAttemptCount() {
+        return _maxAttemptCount;
+    }
+
+    /**
+     * Sets the backoff (in milliseconds) before the first retry, which is multiplied by backoffMultiplier for each subsequent retry, up to maxBackoff.
+     *  The actual delay is chosen uniformly between zero and the backoff.
+     */
+    public void setBackoff(final Long initialBackoff, final Long maxBackoff, final Double backoffMultiplier) {
+        _initialBackoff = initialBackoff;
+        _maxBackoff = maxBackoff;
+        _backoffMultiplier = backoffMultiplier;
+    }
+
+    /**
+     * Sets the longest Retry-After (in milliseconds) that is honored; responses requesting a longer delay are not retried.
+     */
+    public void setMaxRetryAfter(final Long maxRetryAfter) {
+        _maxRetryAfter = maxRetryAfter;
+    }
+
+    public Long getMaxRetryAfter() {
+        return _maxRetryAfter;
+    }
+
+    /**
+     * When enabled, requests with non-idempotent methods (i.e. POST and PATCH) are retried the same as idempotent requests.
+     *  Regardless, non-idempotent requests are always retried if the connection could not be established, since the request was never sent.
+     */
+    public void setRetriesNonIdempotentRequests(final Boolean retriesNonIdempotentRequests) {
+        _retriesNonIdempotentRequests = retriesNonIdempotentRequests;
+    }
+
+    public Boolean retriesNonIdempotentRequests() {
+        return _retriesNonIdempotentRequests;
+    }
+
+    public void setRetryableStatusCodes(final Set<Integer> retryableStatusCodes) {
+        _retryableStatusCodes = Util.copySet(retryableStatusCodes);
+    }
+
+    public Boolean isRetryableStatusCode(final Integer statusCode) {
+        return _retryableStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * Sets the RetryBudget retries are withdrawn from.
+     *  If unset (or null), RetryBudget::getDefault is used.
+     */
+    public void setRetryBudget(final RetryBudget retryBudget) {
+        _retryBudget = retryBudget;
+    }
+
+    public RetryBudget getRetryBudget() {
+        final RetryBudget retryBudget = _retryBudget;
+        if (retryBudget != null) { return retryBudget; }
+
+        return RetryBudget.getDefault();
+    }
+
+    /**
+     * Returns true if the exception indicates the request was never sent (i.e. the connection could not be established).
+     */
+    public Boolean isConnectFailure(final Throwable exception) {
+        return ( (exception instanceof ConnectException) || (exception instanceof ConnectTimeoutException) || (exception instanceof NoRouteToHostException) );
+    }
+
+    /**
+     * Returns true if a request that failed with the exception may be retried.
+     *  The request's deadline (and cancellation), and requests rejected by an open circuit breaker, are never retried.
+     */
+    public Boolean isRetryableException(final Throwable exception, final Boolean isIdempotent) {
+        if (exception instanceof DeadlineExceededException) { return false; }
+        if (exception instanceof CircuitBreakerOpenException) { return false; }
+        if (isConnectFailure(exception)) { return true; }
+        if (! (isIdempotent || _retriesNonIdempotentRequests)) { return false; }
+        return (exception instanceof IOException);
+    }
+
+    /**
+     * Returns the delay (in milliseconds) before the next retry, after attemptCount attempts have been made.
+     */
+    public Long getBackoff(final Integer attemptCount) {
+        final double backoff = Math.min(_maxBackoff, (_initialBackoff * Math.pow(_backoffMultiplier, (attemptCount - 1))));
+        return (long) (ThreadLocalRandom.current().nextDouble() * backoff);
+    }
+
+    /**
+     * Returns the delay (in milliseconds) requested by the response's Retry-After header, or null if the header is absent (or invalid).
+     *  The header may be either a number of seconds or an HTTP-date.
+     */
+    public Long getRetryAfter(final Map<String, List<String>> responseHeaders) {
+        final String retryAfter = HttpRequest.getHeaderValue("Retry-After", responseHeaders);
+        if (Util.isBlank(retryAfter)) { return null; }
+
+        final String value = retryAfter.trim();
+        try {
+            return Math.max(0L, (Long.parseLong(value) * 1000L));
+        }
+        catch (final NumberFormatException exception) {
+            // The value is not a number of seconds, so it should be an HTTP-date...
+        }
+
+        try {
+            final ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0L, (retryAt.toInstant().toEpochMilli() - System.currentTimeMillis()));
+        }
+        catch (final Exception exception) {
+            return null;
+        }
+    }
+}
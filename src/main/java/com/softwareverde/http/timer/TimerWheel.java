@@ -0,0 +1,203 @@
+package com.softwareverde.http.timer;
+
+import com.softwareverde.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Schedules short tasks (e.g. timeouts) to run after a delay, using a single shared thread.
+ *  Timeouts are hashed into a ring of buckets by their expiration tick, so scheduling is constant-time
+ *  and the thread only inspects the bucket for the current tick; a task runs no sooner than its delay, and within about one tick after it.
+ *  Tasks run on the timer's thread and must not block; long-running work should be handed off to another Executor.
+ *  The thread sleeps while no timeouts are scheduled.
+ */
+public class TimerWheel implements AutoCloseable {
+    public static final Long DEFAULT_TICK_DURATION_MS = 10L;
+    public static final Integer DEFAULT_BUCKET_COUNT = 512;
+
+    protected static TimerWheel DEFAULT_TIMER_WHEEL = null;
+    protected static final ThreadLocal<Boolean> IS_TIMER_THREAD = new ThreadLocal<Boolean>();
+
+    public static synchronized TimerWheel getDefault() {
+        if (DEFAULT_TIMER_WHEEL == null) {
+            DEFAULT_TIMER_WHEEL = new TimerWheel(DEFAULT_TICK_DURATION_MS, DEFAULT_BUCKET_COUNT);
+        }
+        return DEFAULT_TIMER_WHEEL;
+    }
+
+    /**
+     * Returns true if the calling thread is a TimerWheel's thread (i.e. the caller is a task, and must not block).
+     */
+    public static Boolean isTimerThread() {
+        return (IS_TIMER_THREAD.get() != null);
+    }
+
+    public class Timeout {
+        protected final Runnable _task;
+        protected final long _expirationTick;
+        protected boolean _isCancelled = false;
+        protected boolean _isExpired = false;
+
+        protected Timeout(final Runnable task, final long expirationTick) {
+            _task = task;
+            _expirationTick = expirationTick;
+        }
+
+        /**
+         * Prevents the task from running; returns false if the task has already run (or been cancelled).
+         */
+        public Boolean cancel() {
+            synchronized (TimerWheel.this) {
+                if ( _isCancelled || _isExpired ) { return false; }
+
+                _isCancelled = true;
+                final LinkedList<Timeout> bucket = _buckets[(int) (_expirationTick % _buckets.length)];
+                bucket.remove(this);
+                _timeoutCount -= 1;
+                return true;
+            }
+        }
+
+        public Boolean isCancelled() {
+            synchronized (TimerWheel.this) {
+                return _isCancelled;
+            }
+        }
+
+        public Boolean isExpired() {
+            synchronized (TimerWheel.this) {
+                return _isExpired;
+            }
+        }
+    }
+
+    protected final long _tickDurationNanos;
+    protected final LinkedList<Timeout>[] _buckets;
+    protected final long _startTime;
+    protected final Thread _thread;
+
+    protected long _lastProcessedTick = 0L;
+    protected int _timeoutCount = 0;
+    protected boolean _isClosed = false;
+
+    protected long _getCurrentTick() {
+        return ((System.nanoTime() - _startTime) / _tickDurationNanos);
+    }
+
+    /**
+     * Removes the timeouts that have expired as of the provided tick; must be invoked while synchronized on this.
+     */
+    protected void _collectExpiredTimeouts(final long currentTick, final List<Timeout> expiredTimeouts) {
+        final long firstTick = (_lastProcessedTick + 1L);
+        final long lastTick = Math.min(currentTick, (_lastProcessedTick + _buckets.length));
+        for (long tick = firstTick; tick <= lastTick; ++tick) {
+            final LinkedList<Timeout> bucket = _buckets[(int) (tick % _buckets.length)];
+            final Iterator<Timeout> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                final Timeout timeout = iterator.next();
+                if (timeout._expirationTick <= currentTick) {
+                    iterator.remove();
+                    timeout._isExpired = true;
+                    _timeoutCount -= 1;
+                    expiredTimeouts.add(timeout);
+                }
+            }
+        }
+        _lastProcessedTick = currentTick;
+    }
+
+    protected void _run() {
+        final List<Timeout> expiredTimeouts = new ArrayList<Timeout>();
+        while (true) {
+            synchronized (this) {
+                try {
+                    while ( (! _isClosed) && (_timeoutCount == 0) ) {
+                        _lastProcessedTick = _getCurrentTick();
+                        wait();
+                    }
+                    if (_isClosed) { return; }
+
+                    final long nextTickAt = (_startTime + ((_lastProcessedTick + 1L) * _tickDurationNanos));
+                    final long sleepNanos = (nextTickAt - System.nanoTime());
+                    if (sleepNanos > 0L) {
+                        wait((sleepNanos / 1000000L), (int) (sleepNanos % 1000000L));
+                        continue;
+                    }
+                }
+                catch (final InterruptedException exception) {
+                    return;
+                }
+
+                _collectExpiredTimeouts(_getCurrentTick(), expiredTimeouts);
+            }
+
+            for (final Timeout timeout : expiredTimeouts) {
+                try {
+                    timeout._task.run();
+                }
+                catch (final Exception exception) {
+                    Logger.debug("TimerWheel task failed.", exception);
+                }
+            }
+            expiredTimeouts.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(final Long tickDuration, final Integer bucketCount) {
+        _tickDurationNanos = (tickDuration * 1000000L);
+        _buckets = new LinkedList[bucketCount];
+        for (int i = 0; i < bucketCount; ++i) {
+            _buckets[i] = new LinkedList<Timeout>();
+        }
+        _startTime = System.nanoTime();
+
+        _thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                IS_TIMER_THREAD.set(true);
+                _run();
+            }
+        });
+        _thread.setName("TimerWheel");
+        _thread.setDaemon(true);
+        _thread.start();
+    }
+
+    /**
+     * Runs the task on the timer's thread once delay milliseconds have elapsed, unless the returned Timeout is cancelled first.
+     */
+    public Timeout schedule(final Runnable task, final Long delay) {
+        final long delayTickCount = (((Math.max(0L, delay) * 1000000L) + _tickDurationNanos - 1L) / _tickDurationNanos);
+
+        synchronized (this) {
+            if (_isClosed) { throw new IllegalStateException("TimerWheel is closed."); }
+
+            // NOTE: The current tick has partially elapsed, so the task expires at the end of its last whole tick rather than up to one tick early.
+            final long expirationTick = Math.max((_getCurrentTick() + delayTickCount + 1L), (_lastProcessedTick + 1L));
+            final Timeout timeout = new Timeout(task, expirationTick);
+            _buckets[(int) (expirationTick % _buckets.length)].addLast(timeout);
+            _timeoutCount += 1;
+            notifyAll();
+            return timeout;
+        }
+    }
+
+    public synchronized Integer getTimeoutCount() {
+        return _timeoutCount;
+    }
+
+    /**
+     * Stops the timer's thread; scheduled tasks do not run.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            _isClosed = true;
+            notifyAll();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.softwareverde.http.trace;
+
+/**
+ * A timed operation within a trace (e.g. an HTTP exchange, or a WebSocket message), started by a Tracer.
+ *  A span is ended exactly once; attributes and errors are recorded before it is ended.
+ */
+public interface Span {
+    /**
+     * Returns the span's context, which is propagated to the server (via the traceparent and tracestate headers) as the parent of its spans.
+     */
+    TraceContext getContext();
+
+    void setAttribute(String key, String value);
+
+    /**
+     * Marks the span as failed by the exception.
+     */
+    void setError(Throwable exception);
+
+    void end();
+}
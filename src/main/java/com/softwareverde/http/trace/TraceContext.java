@@ -0,0 +1,144 @@
+package com.softwareverde.http.trace;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The identity of a span within a trace, as propagated by the W3C Trace Context "traceparent" and "tracestate" headers.
+ *  e.g. traceparent: 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+ */
+public class TraceContext {
+    public static final String TRACE_PARENT_HEADER = "traceparent";
+    public static final String TRACE_STATE_HEADER = "tracestate";
+
+    protected static final String VERSION = "00";
+    protected static final Integer SAMPLED_FLAG = 0x01;
+    protected static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    protected static final String INVALID_SPAN_ID = "0000000000000000";
+
+    protected static String _toHex(final long value, final int characterCount) {
+        final String hexString = Long.toHexString(value);
+        final StringBuilder stringBuilder = new StringBuilder(characterCount);
+        for (int i = hexString.length(); i < characterCount; ++i) {
+            stringBuilder.append('0');
+        }
+        stringBuilder.append(hexString);
+        return stringBuilder.toString();
+    }
+
+    protected static String _newSpanId() {
+        long spanId;
+        do {
+            spanId = ThreadLocalRandom.current().nextLong();
+        } while (spanId == 0L);
+        return _toHex(spanId, 16);
+    }
+
+    protected static boolean _isLowerCaseHex(final String value, final int characterCount) {
+        if (value.length() != characterCount) { return false; }
+        for (int i = 0; i < characterCount; ++i) {
+            final char c = value.charAt(i);
+            if (! ( ((c >= '0') && (c <= '9')) || ((c >= 'a') && (c <= 'f')) )) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the context of a new trace (i.e. a span without a parent).
+     */
+    public static TraceContext newRootContext(final Boolean isSampled) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        long traceIdHigh;
+        long traceIdLow;
+        do {
+            traceIdHigh = random.nextLong();
+            traceIdLow = random.nextLong();
+        } while ( (traceIdHigh == 0L) && (traceIdLow == 0L) );
+
+        final String traceId = (_toHex(traceIdHigh, 16) + _toHex(traceIdLow, 16));
+        return new TraceContext(traceId, _newSpanId(), (isSampled ? SAMPLED_FLAG : 0), null);
+    }
+
+    /**
+     * Parses the traceparent (and optional tracestate) header values, or returns null if traceparent is missing or invalid.
+     */
+    public static TraceContext fromHeaders(final String traceParent, final String traceState) {
+        if (traceParent == null) { return null; }
+
+        final String[] fields = traceParent.trim().toLowerCase(Locale.ROOT).split("-");
+        if (fields.length < 4) { return null; }
+
+        final String version = fields[0];
+        final String traceId = fields[1];
+        final String spanId = fields[2];
+        final String traceFlags = fields[3];
+        if ( (! _isLowerCaseHex(version, 2)) || version.equals("ff") ) { return null; }
+        if ( version.equals(VERSION) && (fields.length != 4) ) { return null; }
+        if ( (! _isLowerCaseHex(traceId, 32)) || traceId.equals(INVALID_TRACE_ID) ) { return null; }
+        if ( (! _isLowerCaseHex(spanId, 16)) || spanId.equals(INVALID_SPAN_ID) ) { return null; }
+        if (! _isLowerCaseHex(traceFlags, 2)) { return null; }
+
+        final String cleanedTraceState = ( ((traceState != null) && (! traceState.trim().isEmpty())) ? traceState.trim() : null );
+        return new TraceContext(traceId, spanId, Integer.parseInt(traceFlags, 16), cleanedTraceState);
+    }
+
+    protected final String _traceId;
+    protected final String _spanId;
+    protected final Integer _traceFlags;
+    protected final String _traceState;
+
+    public TraceContext(final String traceId, final String spanId, final Integer traceFlags, final String traceState) {
+        _traceId = traceId;
+        _spanId = spanId;
+        _traceFlags = traceFlags;
+        _traceState = traceState;
+    }
+
+    /**
+     * Returns the context of a new span within the same trace, whose parent is this span; the trace's flags and state are inherited.
+     */
+    public TraceContext newChildContext() {
+        return new TraceContext(_traceId, _newSpanId(), _traceFlags, _traceState);
+    }
+
+    /**
+     * Returns the 32 lower-case hex characters that identify the trace.
+     */
+    public String getTraceId() {
+        return _traceId;
+    }
+
+    /**
+     * Returns the 16 lower-case hex characters that identify the span.
+     */
+    public String getSpanId() {
+        return _spanId;
+    }
+
+    public Integer getTraceFlags() {
+        return _traceFlags;
+    }
+
+    public Boolean isSampled() {
+        return ((_traceFlags & SAMPLED_FLAG) != 0);
+    }
+
+    /**
+     * Returns the vendor-specific tracestate header value, or null if there is none.
+     */
+    public String getTraceState() {
+        return _traceState;
+    }
+
+    /**
+     * Returns the traceparent header value that identifies this span as the parent of the recipient's spans.
+     */
+    public String toTraceParent() {
+        return (VERSION + "-" + _traceId + "-" + _spanId + "-" + _toHex((_traceFlags & 0xFF), 2));
+    }
+
+    @Override
+    public String toString() {
+        return toTraceParent();
+    }
+}
@@ -0,0 +1,19 @@
+package com.softwareverde.http.trace;
+
+/**
+ * Records the spans of requests (see HttpRequest::setTracer) and WebSocket messages, typically by delegating to a tracing system.
+ *  When no Tracer is set, no spans are started and no trace headers are injected.
+ */
+public interface Tracer {
+    /**
+     * Returns the context of the calling thread's active span (which becomes the parent of the spans of the requests it executes), or null if there is none.
+     *  Invoked by the thread that calls HttpRequest::execute (or HttpRequest::executeAsync), before the request is dispatched to another thread.
+     */
+    TraceContext getCurrentContext();
+
+    /**
+     * Starts a span named name, whose parent is parentContext; if parentContext is null, the span begins a new trace.
+     *  May be invoked by any thread.
+     */
+    Span startSpan(String name, TraceContext parentContext);
+}
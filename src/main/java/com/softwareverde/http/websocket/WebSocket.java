@@ -1,5 +1,8 @@
 package com.softwareverde.http.websocket;
 
+import com.softwareverde.http.trace.Span;
+import com.softwareverde.http.trace.TraceContext;
+import com.softwareverde.http.trace.Tracer;
 import com.softwareverde.util.ByteUtil;
 import com.softwareverde.util.Util;
 import org.eclipse.jetty.websocket.WebSocketBuffers;
@@ -77,6 +80,21 @@ public class WebSocket implements AutoCloseable {
     protected ConnectionClosedCallback _connectionClosedCallback;
     protected Thread _pingThread;
     protected Long _pingInterval = 15000L;
+    protected volatile Tracer _tracer;
+    protected volatile TraceContext _parentTraceContext;
+
+    /**
+     * Starts a span for a message, or returns null if the WebSocket is not traced.
+     */
+    protected Span _startSpan(final String name, final Integer byteCount) {
+        final Tracer tracer = _tracer;
+        if (tracer == null) { return null; }
+
+        final Span span = tracer.startSpan(name, _parentTraceContext);
+        span.setAttribute("websocket.id", String.valueOf(_webSocketId));
+        span.setAttribute("websocket.message_size", String.valueOf(byteCount));
+        return span;
+    }
 
     protected final AtomicBoolean _closedCallbackInvoked = new AtomicBoolean(false);
 
@@ -159,17 +177,45 @@ public class WebSocket implements AutoCloseable {
             @Override
             public void onTextMessage(final String message) {
                 final MessageReceivedCallback messageReceivedCallback = _messageReceivedCallback;
-                if (messageReceivedCallback != null) {
+                if (messageReceivedCallback == null) { return; }
+
+                final Span span = _startSpan("WebSocket receive", message.length());
+                try {
                     messageReceivedCallback.onMessage(message);
                 }
+                catch (final RuntimeException exception) {
+                    if (span != null) {
+                        span.setError(exception);
+                    }
+                    throw exception;
+                }
+                finally {
+                    if (span != null) {
+                        span.end();
+                    }
+                }
             }
 
             @Override
             public void onBinaryMessage(final byte[] message) {
                 final BinaryMessageReceivedCallback binaryMessageReceivedCallback = _binaryMessageReceivedCallback;
-                if (binaryMessageReceivedCallback != null) {
+                if (binaryMessageReceivedCallback == null) { return; }
+
+                final Span span = _startSpan("WebSocket receive", message.length);
+                try {
                     binaryMessageReceivedCallback.onMessage(message);
                 }
+                catch (final RuntimeException exception) {
+                    if (span != null) {
+                        span.setError(exception);
+                    }
+                    throw exception;
+                }
+                finally {
+                    if (span != null) {
+                        span.end();
+                    }
+                }
             }
 
             @Override
@@ -213,6 +259,15 @@ public class WebSocket implements AutoCloseable {
         return _webSocketId;
     }
 
+    /**
+     * Sets the Tracer that records a span for each message sent or received (text messages are sized by their character count), as children of parentContext.
+     *  Set by HttpRequest for the WebSocket it creates, if the request is traced.
+     */
+    public void setTracer(final Tracer tracer, final TraceContext parentContext) {
+        _parentTraceContext = parentContext;
+        _tracer = tracer;
+    }
+
     public void setPingInterval(final Long intervalMs) {
         final Long cleanedIntervalMs = (Util.coalesce(intervalMs) <= 0L ? null : intervalMs);
         _pingInterval = cleanedIntervalMs;
@@ -243,25 +298,39 @@ public class WebSocket implements AutoCloseable {
     }
 
     public void sendMessage(final String message) {
+        final Span span = _startSpan("WebSocket send", message.length());
         synchronized (_webSocketWriter) {
             try {
                 _webSocketWriter.writeMessage(message);
             }
             catch (final Exception exception) {
+                if (span != null) {
+                    span.setError(exception);
+                }
                 _close(WebSocketConnectionRFC6455.CLOSE_NO_CODE, "");
             }
         }
+        if (span != null) {
+            span.end();
+        }
     }
 
     public void sendMessage(final byte[] bytes) {
+        final Span span = _startSpan("WebSocket send", bytes.length);
         synchronized (_webSocketWriter) {
             try {
                 _webSocketWriter.writeMessage(bytes);
             }
             catch (final Exception exception) {
+                if (span != null) {
+                    span.setError(exception);
+                }
                 _close(WebSocketConnectionRFC6455.CLOSE_NO_CODE, "");
             }
         }
+        if (span != null) {
+            span.end();
+        }
     }
 
     public void sendPing(final byte[] pingNonce) {
@@ -0,0 +1,87 @@
+package com.softwareverde.api;
+
+import com.softwareverde.http.HttpClient;
+import com.softwareverde.http.HttpMethod;
+import com.softwareverde.http.HttpRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ApiCallTests {
+    protected static class TestApiConfiguration implements ApiConfiguration {
+        protected final Boolean _followsRedirects;
+
+        public TestApiConfiguration(final Boolean followsRedirects) {
+            _followsRedirects = followsRedirects;
+        }
+
+        @Override
+        public String getApiUrl() {
+            return "http://localhost";
+        }
+
+        @Override
+        public Boolean followsRedirects() {
+            return _followsRedirects;
+        }
+    }
+
+    protected static class TestApiRequest extends ApiRequest {
+        @Override
+        public byte[] toBytes() {
+            return new byte[0];
+        }
+    }
+
+    protected static class TestApiCall extends ApiCall<TestApiRequest, ApiResponse> {
+        public TestApiCall(final ApiConfiguration configuration) {
+            super(configuration);
+        }
+
+        @Override
+        public ApiResponse call(final TestApiRequest request) throws Exception {
+            return new ApiResponse(_call("/test", HttpMethod.POST, request));
+        }
+    }
+
+    protected static HttpClient _newHttpClient() {
+        return new HttpClient.Builder()
+            .setFollowsRedirects(true)
+            .setCompressesRequestBody(true, 64L, 9)
+            .build();
+    }
+
+    @Test
+    public void should_use_the_http_client_settings_the_call_does_not_set() {
+        // Setup
+        final TestApiCall apiCall = new TestApiCall(new TestApiConfiguration(null));
+        apiCall.setHttpClient(_newHttpClient());
+
+        // Action
+        final HttpRequest httpRequest = apiCall._buildHttpRequest("/test", HttpMethod.POST, new TestApiRequest());
+
+        // Assert
+        Assert.assertTrue(httpRequest.followsRedirects());
+        Assert.assertTrue(httpRequest.compressesRequestBody());
+        Assert.assertEquals(Long.valueOf(64L), httpRequest.getRequestCompressionThreshold());
+        Assert.assertEquals(Integer.valueOf(9), httpRequest.getRequestCompressionLevel());
+    }
+
+    @Test
+    public void should_override_the_http_client_settings_the_call_sets() {
+        // Setup
+        final TestApiCall apiCall = new TestApiCall(new TestApiConfiguration(false));
+        apiCall.setHttpClient(_newHttpClient());
+        apiCall.setCompressesRequests(false);
+        apiCall.setRequestCompressionThreshold(128L);
+        apiCall.setRequestCompressionLevel(1);
+
+        // Action
+        final HttpRequest httpRequest = apiCall._buildHttpRequest("/test", HttpMethod.POST, new TestApiRequest());
+
+        // Assert
+        Assert.assertFalse(httpRequest.followsRedirects());
+        Assert.assertFalse(httpRequest.compressesRequestBody());
+        Assert.assertEquals(Long.valueOf(128L), httpRequest.getRequestCompressionThreshold());
+        Assert.assertEquals(Integer.valueOf(1), httpRequest.getRequestCompressionLevel());
+    }
+}
@@ -0,0 +1,249 @@
+package com.softwareverde.http;
+
+import com.softwareverde.util.Container;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class ExecutorHttpClientEngineTests {
+    protected static Runnable _newBlockingRunnable(final CountDownLatch startedLatch, final CountDownLatch releaseLatch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                startedLatch.countDown();
+                try {
+                    releaseLatch.await(5L, TimeUnit.SECONDS);
+                }
+                catch (final InterruptedException exception) { }
+            }
+        };
+    }
+
+    protected static Runnable _newRecordingRunnable(final Container<Thread> thread, final CountDownLatch completedLatch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                thread.value = Thread.currentThread();
+                completedLatch.countDown();
+            }
+        };
+    }
+
+    protected static RejectedExecutionException _execute(final HttpClientEngine engine, final Runnable runnable) {
+        try {
+            engine.execute(runnable);
+            return null;
+        }
+        catch (final RejectedExecutionException exception) {
+            return exception;
+        }
+    }
+
+    @Test
+    public void should_reject_submissions_beyond_the_pending_limit_when_aborting() throws Exception {
+        // Setup
+        final ExecutorHttpClientEngine engine = ExecutorHttpClientEngine.newThreadPoolEngine(1, 1, HttpClientEngine.RejectionPolicy.ABORT);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        try {
+            engine.execute(_newBlockingRunnable(startedLatch, releaseLatch));
+            startedLatch.await(5L, TimeUnit.SECONDS);
+
+            // Action
+            final RejectedExecutionException rejectedExecutionException = _execute(engine, new Runnable() {
+                @Override
+                public void run() { }
+            });
+            releaseLatch.countDown();
+
+            final Container<Thread> thread = new Container<Thread>();
+            final CountDownLatch completedLatch = new CountDownLatch(1);
+            HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+                @Override
+                public Boolean isMet() {
+                    return engine.getActiveCount().equals(0);
+                }
+            });
+            engine.execute(_newRecordingRunnable(thread, completedLatch));
+
+            // Assert
+            Assert.assertNotNull(rejectedExecutionException);
+            Assert.assertTrue(completedLatch.await(5L, TimeUnit.SECONDS));
+            Assert.assertNotSame(Thread.currentThread(), thread.value);
+        }
+        finally {
+            releaseLatch.countDown();
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void should_run_submissions_beyond_the_pending_limit_on_the_caller_thread() throws Exception {
+        // Setup
+        final ExecutorHttpClientEngine engine = ExecutorHttpClientEngine.newThreadPoolEngine(1, 1, HttpClientEngine.RejectionPolicy.CALLER_RUNS);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        try {
+            engine.execute(_newBlockingRunnable(startedLatch, releaseLatch));
+            startedLatch.await(5L, TimeUnit.SECONDS);
+
+            final Container<Thread> thread = new Container<Thread>();
+            final CountDownLatch completedLatch = new CountDownLatch(1);
+
+            // Action
+            engine.execute(_newRecordingRunnable(thread, completedLatch));
+
+            // Assert
+            Assert.assertEquals(0L, completedLatch.getCount());
+            Assert.assertSame(Thread.currentThread(), thread.value);
+            Assert.assertEquals(Integer.valueOf(1), engine.getActiveCount());
+        }
+        finally {
+            releaseLatch.countDown();
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void should_block_submissions_beyond_the_pending_limit_until_capacity_is_available() throws Exception {
+        // Setup
+        final ExecutorHttpClientEngine engine = ExecutorHttpClientEngine.newThreadPoolEngine(1, 1, HttpClientEngine.RejectionPolicy.BLOCK);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        try {
+            engine.execute(_newBlockingRunnable(startedLatch, releaseLatch));
+            startedLatch.await(5L, TimeUnit.SECONDS);
+
+            final Container<Thread> thread = new Container<Thread>();
+            final CountDownLatch completedLatch = new CountDownLatch(1);
+            final Thread submittingThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    engine.execute(_newRecordingRunnable(thread, completedLatch));
+                }
+            });
+
+            // Action
+            submittingThread.start();
+            Thread.sleep(200L);
+            final Boolean wasBlocked = submittingThread.isAlive();
+            final Long completedCountWhileBlocked = (1L - completedLatch.getCount());
+
+            releaseLatch.countDown();
+            submittingThread.join(5000L);
+
+            // Assert
+            Assert.assertTrue(wasBlocked);
+            Assert.assertEquals(Long.valueOf(0L), completedCountWhileBlocked);
+            Assert.assertFalse(submittingThread.isAlive());
+            Assert.assertTrue(completedLatch.await(5L, TimeUnit.SECONDS));
+            Assert.assertNotSame(submittingThread, thread.value);
+        }
+        finally {
+            releaseLatch.countDown();
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void should_bound_queued_submissions_by_the_pending_limit() throws Exception {
+        // Setup
+        final ExecutorHttpClientEngine engine = ExecutorHttpClientEngine.newThreadPoolEngine(1, 2, HttpClientEngine.RejectionPolicy.ABORT);
+        final CountDownLatch startedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        try {
+            engine.execute(_newBlockingRunnable(startedLatch, releaseLatch));
+            startedLatch.await(5L, TimeUnit.SECONDS);
+
+            final Container<Thread> thread = new Container<Thread>();
+            final CountDownLatch completedLatch = new CountDownLatch(1);
+
+            // Action
+            final RejectedExecutionException queuedException = _execute(engine, _newRecordingRunnable(thread, completedLatch));
+            final Integer queuedCount = engine.getQueuedCount();
+            final Integer activeCount = engine.getActiveCount();
+            final RejectedExecutionException rejectedException = _execute(engine, new Runnable() {
+                @Override
+                public void run() { }
+            });
+            releaseLatch.countDown();
+
+            // Assert
+            Assert.assertNull(queuedException);
+            Assert.assertEquals(Integer.valueOf(1), queuedCount);
+            Assert.assertEquals(Integer.valueOf(1), activeCount);
+            Assert.assertNotNull(rejectedException);
+            Assert.assertTrue(completedLatch.await(5L, TimeUnit.SECONDS));
+        }
+        finally {
+            releaseLatch.countDown();
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void should_never_block_or_run_on_the_caller_thread_when_trying_to_execute() throws Exception {
+        // Setup
+        final ExecutorHttpClientEngine blockingEngine = ExecutorHttpClientEngine.newThreadPoolEngine(1, 1, HttpClientEngine.RejectionPolicy.BLOCK);
+        final ExecutorHttpClientEngine callerRunsEngine = ExecutorHttpClientEngine.newThreadPoolEngine(1, 1, HttpClientEngine.RejectionPolicy.CALLER_RUNS);
+        final CountDownLatch startedLatch = new CountDownLatch(2);
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        try {
+            blockingEngine.execute(_newBlockingRunnable(startedLatch, releaseLatch));
+            callerRunsEngine.execute(_newBlockingRunnable(startedLatch, releaseLatch));
+            startedLatch.await(5L, TimeUnit.SECONDS);
+
+            final Container<Thread> thread = new Container<Thread>();
+            final CountDownLatch completedLatch = new CountDownLatch(2);
+
+            // Action
+            final long startedAt = System.nanoTime();
+            final Boolean wasAcceptedByBlockingEngine = blockingEngine.tryExecute(_newRecordingRunnable(thread, completedLatch));
+            final Boolean wasAcceptedByCallerRunsEngine = callerRunsEngine.tryExecute(_newRecordingRunnable(thread, completedLatch));
+            final long elapsedMs = ((System.nanoTime() - startedAt) / 1000000L);
+            releaseLatch.countDown();
+
+            // Assert
+            Assert.assertFalse(wasAcceptedByBlockingEngine);
+            Assert.assertFalse(wasAcceptedByCallerRunsEngine);
+            Assert.assertTrue(elapsedMs < 100L);
+            Assert.assertNull(thread.value);
+            Assert.assertEquals(2L, completedLatch.getCount());
+        }
+        finally {
+            releaseLatch.countDown();
+            blockingEngine.shutdown();
+            callerRunsEngine.shutdown();
+        }
+    }
+
+    @Test
+    public void should_fall_back_to_a_thread_pool_without_virtual_threads() throws Exception {
+        // Setup
+        final Boolean isVirtualThreadSupported = ExecutorHttpClientEngine.isVirtualThreadSupported();
+        final Container<Thread> thread = new Container<Thread>();
+        final CountDownLatch completedLatch = new CountDownLatch(1);
+
+        // Action
+        final ExecutorHttpClientEngine engine = ExecutorHttpClientEngine.newVirtualThreadEngine(1, HttpClientEngine.RejectionPolicy.ABORT);
+        try {
+            engine.execute(_newRecordingRunnable(thread, completedLatch));
+
+            // Assert
+            Assert.assertTrue(completedLatch.await(5L, TimeUnit.SECONDS));
+            Assert.assertNotSame(Thread.currentThread(), thread.value);
+            Assert.assertEquals((! isVirtualThreadSupported), (engine._executor instanceof ThreadPoolExecutor));
+            if (! isVirtualThreadSupported) { // NOTE: e.g. Java 11; the thread pool's threads are daemons named by the engine.
+                Assert.assertTrue(thread.value.isDaemon());
+                Assert.assertTrue(thread.value.getName().startsWith("HttpClientEngine-"));
+            }
+        }
+        finally {
+            engine.shutdown();
+        }
+    }
+}
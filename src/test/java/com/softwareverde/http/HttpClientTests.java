@@ -0,0 +1,135 @@
+package com.softwareverde.http;
+
+import com.softwareverde.http.connection.HttpConnectionPool;
+import com.softwareverde.http.connection.HttpConnector;
+import com.softwareverde.http.connection.TlsContext;
+import com.softwareverde.http.dns.StaticDnsResolver;
+import com.softwareverde.http.retry.RetryPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+public class HttpClientTests {
+    protected static IllegalStateException _build(final HttpClient.Builder builder) {
+        try {
+            builder.build().close();
+            return null;
+        }
+        catch (final IllegalStateException exception) {
+            return exception;
+        }
+    }
+
+    @Test
+    public void should_not_build_a_client_whose_connection_pool_settings_would_be_ignored() {
+        // Setup
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+
+        try {
+            // Action
+            final IllegalStateException tlsContextException = _build(new HttpClient.Builder().setConnectionPool(connectionPool).setTlsContext(TlsContext.getDefault()));
+            final IllegalStateException dnsResolverException = _build(new HttpClient.Builder().setConnectionPool(connectionPool).setDnsResolver(new StaticDnsResolver()));
+            final IllegalStateException maxConnectionsException = _build(new HttpClient.Builder().setConnectionPool(connectionPool).setMaxConnectionsPerRoute(2));
+            final IllegalStateException lifetimesException = _build(new HttpClient.Builder().setConnectionPool(connectionPool).setConnectionLifetimes(1000L, 2000L));
+            final IllegalStateException connectionPoolException = _build(new HttpClient.Builder().setConnectionPool(connectionPool));
+            final IllegalStateException limitsException = _build(new HttpClient.Builder().setMaxConnectionsPerRoute(2));
+
+            // Assert
+            Assert.assertNotNull(tlsContextException);
+            Assert.assertNotNull(dnsResolverException);
+            Assert.assertNotNull(maxConnectionsException);
+            Assert.assertNotNull(lifetimesException);
+            Assert.assertNull(connectionPoolException);
+            Assert.assertNull(limitsException);
+        }
+        finally {
+            connectionPool.close();
+        }
+    }
+
+    @Test
+    public void should_configure_requests_with_the_client_settings() {
+        // Setup
+        final RetryPolicy retryPolicy = new RetryPolicy();
+        final HttpClient httpClient = new HttpClient.Builder()
+            .setReadTimeout(5000L)
+            .setRetryPolicy(retryPolicy)
+            .setFollowsRedirects(true)
+            .setHeader("User-Agent", "HttpClientTests")
+            .build();
+
+        // Action
+        final HttpRequest httpRequest = httpClient.newRequest(HttpMethod.GET, "http://localhost/");
+        final HttpRequest overriddenHttpRequest = httpClient.newRequest(HttpMethod.GET, "http://localhost/");
+        overriddenHttpRequest.setReadTimeout(0L);
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(5000L), httpRequest.getReadTimeout());
+        Assert.assertSame(retryPolicy, httpRequest.getRetryPolicy());
+        Assert.assertTrue(httpRequest.followsRedirects());
+        Assert.assertTrue(httpRequest.getHeaderKeys().contains("User-Agent"));
+        Assert.assertEquals(HttpRequest.DEFAULT_CONNECT_TIMEOUT, httpRequest.getConnectTimeout());
+        Assert.assertNull(overriddenHttpRequest.getReadTimeout());
+    }
+
+    @Test
+    public void should_use_the_request_defaults_without_a_client() {
+        // Setup
+        final HttpRequest httpRequest = new HttpRequest();
+
+        // Action
+        final Long connectTimeout = httpRequest.getConnectTimeout();
+
+        // Assert
+        Assert.assertEquals(HttpRequest.DEFAULT_CONNECT_TIMEOUT, connectTimeout);
+        Assert.assertNull(httpRequest.getReadTimeout());
+        Assert.assertNull(httpRequest.getDeadline());
+        Assert.assertNull(httpRequest.getRetryPolicy());
+        Assert.assertNull(httpRequest.getHttpCache());
+        Assert.assertTrue(httpRequest.getInterceptors().isEmpty());
+        Assert.assertTrue(httpRequest.getNetworkInterceptors().isEmpty());
+    }
+
+    @Test
+    public void should_cancel_every_in_flight_execution_of_a_request() throws Exception {
+        // Setup
+        final CountDownLatch requestsReceivedLatch = new CountDownLatch(2);
+        final CountDownLatch respondLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/slow", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                requestsReceivedLatch.countDown();
+                respondLatch.await();
+                return false;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/slow"));
+
+            final CompletableFuture<HttpResponse> firstFuture = httpRequest.executeAsync();
+            final CompletableFuture<HttpResponse> secondFuture = httpRequest.executeAsync();
+            requestsReceivedLatch.await();
+            final Boolean wasExecuting = httpRequest.isExecuting();
+
+            // Action
+            httpRequest.cancel();
+
+            // Assert
+            Assert.assertTrue(wasExecuting);
+            Assert.assertTrue(firstFuture.isCancelled());
+            Assert.assertTrue(secondFuture.isCancelled());
+            Assert.assertFalse(httpRequest.isExecuting());
+        }
+        finally {
+            respondLatch.countDown();
+            httpTestServer.close();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.softwareverde.http;
+
+import com.softwareverde.http.connection.HttpConnectionPool;
+import com.softwareverde.http.connection.HttpConnector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class HttpEventListenerTests {
+    protected static class RecordingEventListener implements HttpEventListener {
+        public final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        public volatile Throwable failure = null;
+
+        @Override
+        public void onQueued(final HttpRequest httpRequest, final Long queuedAt) {
+            events.add("queued");
+        }
+
+        @Override
+        public void onDnsComplete(final HttpRequest httpRequest, final Long startedAt, final Long completedAt) {
+            events.add("dns");
+        }
+
+        @Override
+        public void onConnectComplete(final HttpRequest httpRequest, final Long startedAt, final Long completedAt) {
+            events.add("connect");
+        }
+
+        @Override
+        public void onTlsComplete(final HttpRequest httpRequest, final Long startedAt, final Long completedAt) {
+            events.add("tls");
+        }
+
+        @Override
+        public void onRequestWritten(final HttpRequest httpRequest, final Long writtenAt) {
+            events.add("written");
+        }
+
+        @Override
+        public void onFirstByte(final HttpRequest httpRequest, final Long receivedAt) {
+            events.add("firstByte");
+        }
+
+        @Override
+        public void onBodyComplete(final HttpRequest httpRequest, final HttpResponse httpResponse, final Long completedAt) {
+            events.add("bodyComplete");
+        }
+
+        @Override
+        public void onFailed(final HttpRequest httpRequest, final Throwable exception, final Long failedAt) {
+            failure = exception;
+            events.add("failed");
+        }
+    }
+
+    protected static HttpRequest _newRequest(final String url, final HttpConnectionPool connectionPool, final HttpEventListener eventListener) {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(url);
+        httpRequest.setConnectionPool(connectionPool);
+        httpRequest.setEventListener(eventListener);
+        return httpRequest;
+    }
+
+    protected static HttpConnectionPool _newConnectionPool() {
+        return new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+    }
+
+    protected static void _assertOrdered(final Long... times) {
+        for (int i = 1; i < times.length; ++i) {
+            Assert.assertNotNull(times[i]);
+            Assert.assertTrue((times[i] - times[i - 1]) >= 0L);
+        }
+    }
+
+    @Test
+    public void should_report_each_phase_of_a_request_on_a_new_connection() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = _newConnectionPool();
+        try {
+            final RecordingEventListener eventListener = new RecordingEventListener();
+            final HttpRequest httpRequest = _newRequest(httpTestServer.getUrl("/"), connectionPool, eventListener);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(6, eventListener.events.size());
+            Assert.assertEquals("queued", eventListener.events.get(0));
+            Assert.assertEquals("dns", eventListener.events.get(1));
+            Assert.assertEquals("connect", eventListener.events.get(2));
+            Assert.assertEquals("written", eventListener.events.get(3));
+            Assert.assertEquals("firstByte", eventListener.events.get(4));
+            Assert.assertEquals("bodyComplete", eventListener.events.get(5));
+
+            final HttpTimings timings = httpResponse.getTimings();
+            _assertOrdered(timings.getQueuedAt(), timings.getStartedAt(), timings.getDnsStartedAt(), timings.getConnectStartedAt(), timings.getConnectCompletedAt(), timings.getRequestWrittenAt(), timings.getFirstByteAt(), timings.getBodyCompletedAt());
+            Assert.assertNull(timings.getTlsDuration());
+            Assert.assertNotNull(timings.getTotalDuration());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_not_report_connection_phases_for_a_pooled_connection() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = _newConnectionPool();
+        try {
+            _newRequest(httpTestServer.getUrl("/"), connectionPool, null).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            final RecordingEventListener eventListener = new RecordingEventListener();
+            final HttpRequest httpRequest = _newRequest(httpTestServer.getUrl("/"), connectionPool, eventListener);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getConnectionCount());
+            Assert.assertFalse(eventListener.events.contains("dns"));
+            Assert.assertFalse(eventListener.events.contains("connect"));
+            Assert.assertEquals(4, eventListener.events.size());
+
+            final HttpTimings timings = httpResponse.getTimings();
+            Assert.assertNull(timings.getDnsDuration());
+            Assert.assertNull(timings.getConnectDuration());
+            Assert.assertNotNull(timings.getTimeToFirstByte());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_complete_a_streamed_body_once_the_caller_closes_it() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "streamed"));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = _newConnectionPool();
+        try {
+            final RecordingEventListener eventListener = new RecordingEventListener();
+            final HttpRequest httpRequest = _newRequest(httpTestServer.getUrl("/"), connectionPool, eventListener);
+            httpRequest.setStreamsResponseBody(true);
+
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+            final Boolean wasBodyCompleteBeforeClose = eventListener.events.contains("bodyComplete");
+            final Long totalDurationBeforeClose = httpResponse.getTimings().getTotalDuration();
+
+            // Action
+            final InputStream bodyInputStream = httpResponse.getBodyInputStream();
+            bodyInputStream.close();
+
+            // Assert
+            Assert.assertFalse(wasBodyCompleteBeforeClose);
+            Assert.assertNull(totalDurationBeforeClose);
+            Assert.assertTrue(eventListener.events.contains("bodyComplete"));
+            Assert.assertNotNull(httpResponse.getTimings().getTotalDuration());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_report_a_failed_exchange() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) {
+                return false; // NOTE: Closes the connection without a response.
+            }
+        });
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = _newConnectionPool();
+        try {
+            final RecordingEventListener eventListener = new RecordingEventListener();
+            final HttpRequest httpRequest = _newRequest(httpTestServer.getUrl("/"), connectionPool, eventListener);
+
+            // Action
+            final Throwable failure = HttpTestUtil.getFailure(httpRequest.executeAsync());
+
+            // Assert
+            Assert.assertNotNull(failure);
+            Assert.assertSame(failure, eventListener.failure);
+            Assert.assertEquals("failed", eventListener.events.get(eventListener.events.size() - 1));
+            Assert.assertFalse(eventListener.events.contains("firstByte"));
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_calculate_the_durations_of_the_recorded_phases() {
+        // Setup
+        final HttpTimings timings = new HttpTimings(1000000L);
+        timings._startedAt = 2000000L;
+        timings._requestWrittenAt = 3000000L;
+        timings._firstByteAt = 5500000L;
+
+        // Action
+        final Long totalDurationBeforeBody = timings.getTotalDuration();
+        timings._bodyCompletedAt = 6000000L;
+
+        // Assert
+        Assert.assertNull(totalDurationBeforeBody);
+        Assert.assertEquals(Long.valueOf(1000000L), timings.getQueueDuration());
+        Assert.assertEquals(Long.valueOf(2500000L), timings.getTimeToFirstByte());
+        Assert.assertEquals(Long.valueOf(500000L), timings.getBodyDuration());
+        Assert.assertEquals(Long.valueOf(5000000L), timings.getTotalDuration());
+        Assert.assertNull(timings.getDnsDuration());
+        Assert.assertEquals("queue 1.000 ms, ttfb 2.500 ms, body 0.500 ms, total 5.000 ms", timings.toString());
+    }
+}
@@ -0,0 +1,133 @@
+package com.softwareverde.http;
+
+import com.softwareverde.http.connection.Http1Codec;
+import com.softwareverde.http.connection.ResponseHead;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class HttpHeadersTests {
+    @Test
+    public void should_lookup_headers_case_insensitively() {
+        // Setup
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add("content-type", "application/json");
+        httpHeaders.add("Set-Cookie", "a=1");
+        httpHeaders.add("X-Custom", "value");
+        httpHeaders.add("SET-COOKIE", "b=2");
+
+        // Action
+        final String contentType = httpHeaders.getValue("Content-Type");
+        final List<String> cookies = httpHeaders.getValues("set-cookie");
+        final String custom = HttpRequest.getHeaderValue("x-custom", httpHeaders);
+        final String missing = httpHeaders.getValue("Content-Length");
+
+        // Assert
+        Assert.assertEquals("application/json", contentType);
+        Assert.assertEquals(2, cookies.size());
+        Assert.assertEquals("a=1", cookies.get(0));
+        Assert.assertEquals("b=2", cookies.get(1));
+        Assert.assertEquals("value", custom);
+        Assert.assertNull(missing);
+        Assert.assertEquals(3, httpHeaders.size());
+        Assert.assertEquals(Integer.valueOf(4), httpHeaders.getCount());
+        Assert.assertTrue(HttpRequest.containsHeaderValue("CONTENT-TYPE", "Application/JSON", httpHeaders));
+    }
+
+    @Test
+    public void should_intern_well_known_header_names() {
+        // Setup
+        final String headerLine = "content-length: 12";
+
+        // Action
+        final String internedName = HttpHeaders.intern(headerLine, 0, 14);
+        final String unknownName = HttpHeaders.intern("X-Unknown-Header");
+
+        // Assert
+        Assert.assertSame("Content-Length", internedName);
+        Assert.assertEquals("X-Unknown-Header", unknownName);
+    }
+
+    @Test
+    public void should_write_header_names_as_spelled_by_the_caller() throws Exception {
+        // Setup
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add("content-type", "text/plain");
+        httpHeaders.add(new String("Accept"), "*/*");
+        httpHeaders.set("X-CUSTOM", "value");
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Action
+        Http1Codec.writeRequestHead(outputStream, HttpMethod.GET, "/", httpHeaders);
+        final String requestHead = new String(outputStream.toByteArray(), StandardCharsets.US_ASCII);
+
+        // Assert
+        Assert.assertEquals("GET / HTTP/1.1\r\ncontent-type: text/plain\r\nAccept: */*\r\nX-CUSTOM: value\r\n\r\n", requestHead);
+        Assert.assertSame("Accept", httpHeaders.getNameAt(1));
+        Assert.assertEquals("text/plain", httpHeaders.getValue("Content-Type"));
+        Assert.assertEquals("value", httpHeaders.getValue("x-custom"));
+    }
+
+    @Test
+    public void should_replace_and_remove_headers() {
+        // Setup
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add("Accept", "text/html");
+        httpHeaders.add("Vary", "Accept");
+        httpHeaders.add("accept", "application/json");
+
+        // Action
+        httpHeaders.set("ACCEPT", "*/*");
+        final List<String> removedValues = httpHeaders.remove("vary");
+
+        // Assert
+        Assert.assertEquals(1, removedValues.size());
+        Assert.assertEquals(Integer.valueOf(1), httpHeaders.getCount());
+        Assert.assertEquals("ACCEPT", httpHeaders.getNameAt(0));
+        Assert.assertEquals("*/*", httpHeaders.getValueAt(0));
+        Assert.assertFalse(httpHeaders.contains("Vary"));
+    }
+
+    @Test
+    public void should_reject_modification_of_read_only_headers() {
+        // Setup
+        final HttpHeaders httpHeaders = new HttpHeaders();
+        httpHeaders.add("Date", "Thu, 01 Jan 1970 00:00:00 GMT");
+        final HttpHeaders readOnlyHeaders = httpHeaders.asReadOnly();
+
+        // Action
+        Exception exception = null;
+        try {
+            readOnlyHeaders.set("Date", "Fri, 02 Jan 1970 00:00:00 GMT");
+        }
+        catch (final UnsupportedOperationException unsupportedOperationException) {
+            exception = unsupportedOperationException;
+        }
+        httpHeaders.remove("Date");
+
+        // Assert
+        Assert.assertNotNull(exception);
+        Assert.assertEquals("Thu, 01 Jan 1970 00:00:00 GMT", readOnlyHeaders.getValue("date"));
+    }
+
+    @Test
+    public void should_parse_response_head_into_http_headers() throws Exception {
+        // Setup
+        final String response = "HTTP/1.1 200 OK\r\ncontent-type: text/plain\r\nConnection: close\r\nX-Trace :  abc\r\n\r\n";
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(response.getBytes(StandardCharsets.US_ASCII));
+
+        // Action
+        final ResponseHead responseHead = Http1Codec.readResponseHead(inputStream);
+        final HttpHeaders httpHeaders = responseHead.getHeaders();
+
+        // Assert
+        Assert.assertSame("Content-Type", httpHeaders.getNameAt(0));
+        Assert.assertEquals("text/plain", responseHead.getHeaderValue("CONTENT-TYPE"));
+        Assert.assertEquals("abc", responseHead.getHeaderValue("x-trace"));
+        Assert.assertFalse(responseHead.isKeepAlive());
+    }
+}
@@ -0,0 +1,340 @@
+package com.softwareverde.http;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal in-process HTTP/1.1 server whose responses are written by a Handler registered for each path (excluding the query string).
+ *  Handlers write the raw response, so tests control its framing (e.g. chunked, fixed-length, or delimited by closing the connection).
+ *  Requests to an unregistered path receive a 404.
+ *  Servers created with an SSLContext (e.g. HttpTestServer::newServerSslContext) accept TLS connections.
+ */
+public class HttpTestServer implements AutoCloseable {
+    // NOTE: A self-signed certificate for "localhost" (and 127.0.0.1), used by TLS test servers; generated once via openssl with a 100 year validity.
+    protected static final String CERTIFICATE = (
+        "MIIBmzCCAUGgAwIBAgIURURAYf0vM5SjTe0oHY2/gf7KZqUwCgYIKoZIzj0EAwIw" +
+        "FDESMBAGA1UEAwwJbG9jYWxob3N0MCAXDTI2MTAxNzE1NDgxNVoYDzIxMjYwOTIz" +
+        "MTU0ODE1WjAUMRIwEAYDVQQDDAlsb2NhbGhvc3QwWTATBgcqhkjOPQIBBggqhkjO" +
+        "PQMBBwNCAATJR7dWx/McRPbD578XyZbX8hRLZB4w+tg5OQ7btYdInqHpvyFB6VGw" +
+        "vzdIVY6Vq6F6R3hKdLwTuKoC9BzHi+Mro28wbTAdBgNVHQ4EFgQUhnel1/NJX1/6" +
+        "OuoR2xZGVIyElVQwHwYDVR0jBBgwFoAUhnel1/NJX1/6OuoR2xZGVIyElVQwDwYD" +
+        "VR0TAQH/BAUwAwEB/zAaBgNVHREEEzARgglsb2NhbGhvc3SHBH8AAAEwCgYIKoZI" +
+        "zj0EAwIDSAAwRQIgGtlYj/JmjRz/E6hrwKjrgnC7QeECMm2rsmPTf5uOXRICIQDC" +
+        "eoZeUwVaylrUCd9BQQ3c7ugtxJybof6jtw1vEitwhw=="
+    );
+    protected static final String PRIVATE_KEY = (
+        "MIGHAgEAMBMGByqGSM49AgEGCCqGSM49AwEHBG0wawIBAQQggLizhNyfusgJQe/j" +
+        "3JeC4gKMNq9zjF7N+y6LRepimsOhRANCAATJR7dWx/McRPbD578XyZbX8hRLZB4w" +
+        "+tg5OQ7btYdInqHpvyFB6VGwvzdIVY6Vq6F6R3hKdLwTuKoC9BzHi+Mr"
+    );
+
+    protected static Certificate _getCertificate() throws Exception {
+        final CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+        return certificateFactory.generateCertificate(new ByteArrayInputStream(Base64.getDecoder().decode(CERTIFICATE)));
+    }
+
+    /**
+     * Returns an SSLContext for a TLS HttpTestServer, presenting the self-signed "localhost" certificate.
+     */
+    public static SSLContext newServerSslContext() throws Exception {
+        final PrivateKey privateKey = KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(PRIVATE_KEY)));
+
+        final KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("localhost", privateKey, new char[0], new Certificate[]{ _getCertificate() });
+
+        final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, new char[0]);
+
+        final SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+        return sslContext;
+    }
+
+    /**
+     * Returns an SSLContext for clients that trusts (only) the certificate presented by TLS HttpTestServers.
+     */
+    public static SSLContext newClientSslContext() throws Exception {
+        final KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        trustStore.load(null, null);
+        trustStore.setCertificateEntry("localhost", _getCertificate());
+
+        final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+
+        final SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, trustManagerFactory.getTrustManagers(), null);
+        return sslContext;
+    }
+
+    public interface Handler {
+        /**
+         * Writes the response to the request; returns false if the connection should be closed once the response is written.
+         */
+        Boolean respond(Request request, OutputStream outputStream) throws Exception;
+    }
+
+    public static class Request {
+        public final String method;
+        public final String target;
+        public final Map<String, String> headers = new HashMap<String, String>(); // NOTE: Names are lower-case.
+        public byte[] body = new byte[0];
+        public final Integer connectionId;
+
+        public Request(final String method, final String target, final Integer connectionId) {
+            this.method = method;
+            this.target = target;
+            this.connectionId = connectionId;
+        }
+
+        public String getPath() {
+            final int queryIndex = target.indexOf('?');
+            return (queryIndex < 0 ? target : target.substring(0, queryIndex));
+        }
+
+        public String getQuery() {
+            final int queryIndex = target.indexOf('?');
+            return (queryIndex < 0 ? null : target.substring(queryIndex + 1));
+        }
+
+        public String getHeader(final String name) {
+            return headers.get(name.toLowerCase());
+        }
+    }
+
+    /**
+     * Writes a response with a Content-Length; each header is provided as a "Name: value" string.
+     */
+    public static void writeResponse(final OutputStream outputStream, final Integer statusCode, final String body, final String... headers) throws IOException {
+        final byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        final StringBuilder head = new StringBuilder();
+        head.append("HTTP/1.1 ").append(statusCode).append(" Status\r\n");
+        for (final String header : headers) {
+            head.append(header).append("\r\n");
+        }
+        head.append("Content-Length: ").append(bodyBytes.length).append("\r\n\r\n");
+        outputStream.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+        outputStream.write(bodyBytes);
+        outputStream.flush();
+    }
+
+    public static Handler newHandler(final Integer statusCode, final String body, final String... headers) {
+        return new Handler() {
+            @Override
+            public Boolean respond(final Request request, final OutputStream outputStream) throws Exception {
+                HttpTestServer.writeResponse(outputStream, statusCode, body, headers);
+                return true;
+            }
+        };
+    }
+
+    protected static String _readLine(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            final int value = inputStream.read();
+            if (value < 0) { return (line.size() > 0 ? line.toString("US-ASCII") : null); }
+            if (value == '\n') { break; }
+            if (value != '\r') {
+                line.write(value);
+            }
+        }
+        return line.toString("US-ASCII");
+    }
+
+    protected static byte[] _readBytes(final InputStream inputStream, final int byteCount) throws IOException {
+        final byte[] bytes = new byte[byteCount];
+        int readByteCount = 0;
+        while (readByteCount < byteCount) {
+            final int value = inputStream.read(bytes, readByteCount, (byteCount - readByteCount));
+            if (value < 0) { throw new IOException("Unexpected end of request body."); }
+            readByteCount += value;
+        }
+        return bytes;
+    }
+
+    protected static byte[] _readChunkedBody(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            final String chunkSizeLine = _readLine(inputStream);
+            if (chunkSizeLine == null) { throw new IOException("Unexpected end of request body."); }
+
+            final int chunkSize = Integer.parseInt(chunkSizeLine.split(";")[0].trim(), 16);
+            if (chunkSize == 0) {
+                String trailerLine = _readLine(inputStream);
+                while ( (trailerLine != null) && (! trailerLine.isEmpty()) ) {
+                    trailerLine = _readLine(inputStream);
+                }
+                return body.toByteArray();
+            }
+
+            body.write(_readBytes(inputStream, chunkSize));
+            _readLine(inputStream);
+        }
+    }
+
+    protected class ServerConnection implements Runnable {
+        protected final Socket _socket;
+        protected final Integer _connectionId;
+
+        public ServerConnection(final Socket socket, final Integer connectionId) {
+            _socket = socket;
+            _connectionId = connectionId;
+        }
+
+        protected Request _readRequest(final InputStream inputStream) throws IOException {
+            final String requestLine = _readLine(inputStream);
+            if ( (requestLine == null) || requestLine.isEmpty() ) { return null; }
+
+            final String[] requestLineParts = requestLine.split(" ");
+            final Request request = new Request(requestLineParts[0], requestLineParts[1], _connectionId);
+            while (true) {
+                final String headerLine = _readLine(inputStream);
+                if ( (headerLine == null) || headerLine.isEmpty() ) { break; }
+
+                final int separatorIndex = headerLine.indexOf(':');
+                request.headers.put(headerLine.substring(0, separatorIndex).trim().toLowerCase(), headerLine.substring(separatorIndex + 1).trim());
+            }
+
+            final String contentLength = request.headers.get("content-length");
+            if ("chunked".equalsIgnoreCase(request.headers.get("transfer-encoding"))) {
+                request.body = _readChunkedBody(inputStream);
+            }
+            else if (contentLength != null) {
+                request.body = _readBytes(inputStream, Integer.parseInt(contentLength));
+            }
+            return request;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final InputStream inputStream = new BufferedInputStream(_socket.getInputStream());
+                final OutputStream outputStream = _socket.getOutputStream();
+                while (true) {
+                    final Request request = _readRequest(inputStream);
+                    if (request == null) { break; }
+
+                    _requestCount.incrementAndGet();
+                    synchronized (_requests) {
+                        _requests.add(request);
+                    }
+
+                    final Handler handler = _handlers.get(request.getPath());
+                    final Boolean keepsConnectionOpen;
+                    if (handler != null) {
+                        keepsConnectionOpen = handler.respond(request, outputStream);
+                    }
+                    else {
+                        HttpTestServer.writeResponse(outputStream, 404, "Not Found");
+                        keepsConnectionOpen = true;
+                    }
+                    if (! keepsConnectionOpen) { break; }
+                }
+            }
+            catch (final Exception exception) { }
+            finally {
+                try {
+                    _socket.close();
+                }
+                catch (final IOException exception) { }
+            }
+        }
+    }
+
+    protected final ServerSocket _serverSocket;
+    protected final Map<String, Handler> _handlers = new ConcurrentHashMap<String, Handler>();
+    protected final List<Request> _requests = new ArrayList<Request>();
+    protected final AtomicInteger _connectionCount = new AtomicInteger(0);
+    protected final AtomicInteger _requestCount = new AtomicInteger(0);
+
+    protected final Boolean _isSecure;
+
+    public HttpTestServer() throws IOException {
+        _serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        _isSecure = false;
+    }
+
+    /**
+     * Creates a server that accepts TLS connections using the SSLContext.
+     */
+    public HttpTestServer(final SSLContext sslContext) throws IOException {
+        _serverSocket = sslContext.getServerSocketFactory().createServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        _isSecure = true;
+    }
+
+    public void setHandler(final String path, final Handler handler) {
+        _handlers.put(path, handler);
+    }
+
+    public void start() {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (! _serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = _serverSocket.accept();
+                        final Integer connectionId = _connectionCount.incrementAndGet();
+
+                        final Thread connectionThread = new Thread(new ServerConnection(socket, connectionId));
+                        connectionThread.setDaemon(true);
+                        connectionThread.start();
+                    }
+                    catch (final IOException exception) { }
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public Integer getPort() {
+        return _serverSocket.getLocalPort();
+    }
+
+    public String getUrl(final String target) {
+        return ((_isSecure ? "https" : "http") + "://localhost:" + getPort() + target);
+    }
+
+    public Integer getConnectionCount() {
+        return _connectionCount.get();
+    }
+
+    public Integer getRequestCount() {
+        return _requestCount.get();
+    }
+
+    public List<Request> getRequests() {
+        synchronized (_requests) {
+            return new ArrayList<Request>(_requests);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        _serverSocket.close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.softwareverde.http;
+
+import org.junit.Assert;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers shared by the tests that execute requests (typically against an HttpTestServer).
+ */
+public class HttpTestUtil {
+    public static final Long DEFAULT_TIMEOUT_MS = 5000L;
+
+    public interface Condition {
+        Boolean isMet() throws Exception;
+    }
+
+    /**
+     * Returns a GET request for the url.
+     */
+    public static HttpRequest newRequest(final String url) {
+        return newRequest(HttpMethod.GET, url);
+    }
+
+    public static HttpRequest newRequest(final HttpMethod method, final String url) {
+        final HttpRequest httpRequest = new HttpRequest();
+        httpRequest.setMethod(method);
+        httpRequest.setUrl(url);
+        return httpRequest;
+    }
+
+    /**
+     * Waits for the future to complete, and returns the exception it failed with, or null if it succeeded.
+     *  Fails the test if the future does not complete within DEFAULT_TIMEOUT_MS.
+     */
+    public static Throwable getFailure(final CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(DEFAULT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            return null;
+        }
+        catch (final ExecutionException exception) {
+            return exception.getCause();
+        }
+    }
+
+    /**
+     * Waits for the condition to be met, failing the test if it is not met within timeout milliseconds.
+     *  Used for outcomes recorded asynchronously (e.g. after a request's future completes).
+     */
+    public static void waitFor(final Condition condition, final Long timeout) throws Exception {
+        final long waitUntil = (System.currentTimeMillis() + timeout);
+        while (! condition.isMet()) {
+            Assert.assertTrue(System.currentTimeMillis() < waitUntil);
+            Thread.sleep(10L);
+        }
+    }
+
+    public static void waitFor(final Condition condition) throws Exception {
+        waitFor(condition, DEFAULT_TIMEOUT_MS);
+    }
+
+    protected HttpTestUtil() { }
+}
@@ -0,0 +1,263 @@
+package com.softwareverde.http;
+
+import com.softwareverde.http.connection.DeflaterPool;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+public class RequestBodyTests {
+    protected static byte[] _newBody(final Integer byteCount) {
+        final byte[] bytes = new byte[byteCount];
+        for (int i = 0; i < byteCount; ++i) {
+            bytes[i] = (byte) ((i * 31) ^ (i >> 7));
+        }
+        return bytes;
+    }
+
+    protected static byte[] _readAll(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1000];
+        int byteCount;
+        while ((byteCount = inputStream.read(buffer)) >= 0) {
+            byteArrayOutputStream.write(buffer, 0, byteCount);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Responds with the request's body.
+     *  NOTE: The server only dispatches a chunked request once it has read the final (zero-length) chunk.
+     */
+    protected static HttpTestServer.Handler _newEchoHandler() {
+        return new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                outputStream.write(("HTTP/1.1 200 OK\r\nContent-Length: " + request.body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                outputStream.write(request.body);
+                outputStream.flush();
+                return true;
+            }
+        };
+    }
+
+    protected static HttpTestServer _newEchoServer() throws Exception {
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/echo", _newEchoHandler());
+        httpTestServer.start();
+        return httpTestServer;
+    }
+
+    protected static HttpResponse _post(final HttpTestServer httpTestServer, final RequestBody requestBody) throws Exception {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(HttpMethod.POST, httpTestServer.getUrl("/echo"));
+        httpRequest.setRequestBody(requestBody);
+        return httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+    }
+
+    protected static RequestBody.Producer _newProducer(final byte[] body, final Integer writeByteCount) {
+        return new RequestBody.Producer() {
+            @Override
+            public void produce(final OutputStream outputStream) throws IOException {
+                for (int offset = 0; offset < body.length; offset += writeByteCount) {
+                    outputStream.write(body, offset, Math.min(writeByteCount, (body.length - offset)));
+                }
+            }
+        };
+    }
+
+    @Test
+    public void should_send_an_input_stream_of_unknown_length_as_chunks() throws Exception {
+        // Setup
+        final byte[] body = _newBody(200000);
+        final HttpTestServer httpTestServer = _newEchoServer();
+        try {
+            // Action
+            final HttpResponse httpResponse = _post(httpTestServer, RequestBody.fromInputStream(new ByteArrayInputStream(body), null));
+
+            // Assert
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+            Assert.assertNull(request.getHeader("Content-Length"));
+            Assert.assertArrayEquals(body, httpResponse.getRawResult().getBytes());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_send_an_input_stream_of_known_length_with_a_content_length() throws Exception {
+        // Setup
+        final byte[] body = _newBody(200000);
+        final HttpTestServer httpTestServer = _newEchoServer();
+        try {
+            // Action
+            final HttpResponse httpResponse = _post(httpTestServer, RequestBody.fromInputStream(new ByteArrayInputStream(body), (long) body.length));
+
+            // Assert
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertNull(request.getHeader("Transfer-Encoding"));
+            Assert.assertEquals(String.valueOf(body.length), request.getHeader("Content-Length"));
+            Assert.assertArrayEquals(body, httpResponse.getRawResult().getBytes());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_transfer_a_file_with_a_content_length() throws Exception {
+        // Setup
+        final byte[] body = _newBody(300000);
+        final Path path = Files.createTempFile("request-body", ".bin");
+        Files.write(path, body);
+
+        final HttpTestServer httpTestServer = _newEchoServer();
+        try {
+            // Action
+            final HttpResponse httpResponse = _post(httpTestServer, RequestBody.fromPath(path));
+
+            // Assert
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertNull(request.getHeader("Transfer-Encoding"));
+            Assert.assertEquals(String.valueOf(body.length), request.getHeader("Content-Length"));
+            Assert.assertArrayEquals(body, httpResponse.getRawResult().getBytes());
+        }
+        finally {
+            httpTestServer.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void should_send_a_compressed_file_as_chunks() throws Exception {
+        // Setup
+        final byte[] body = _newBody(300000);
+        final Path path = Files.createTempFile("request-body", ".bin");
+        Files.write(path, body);
+
+        final HttpTestServer httpTestServer = _newEchoServer();
+        try {
+            // Action
+            final HttpResponse httpResponse = _post(httpTestServer, RequestBody.gzip(RequestBody.fromPath(path), Deflater.BEST_SPEED, new DeflaterPool(1)));
+
+            // Assert
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+            Assert.assertNull(request.getHeader("Content-Length"));
+            Assert.assertArrayEquals(body, _readAll(new GZIPInputStream(new ByteArrayInputStream(httpResponse.getRawResult().getBytes()))));
+        }
+        finally {
+            httpTestServer.close();
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void should_send_a_produced_body_of_unknown_length_as_chunks() throws Exception {
+        // Setup
+        final byte[] body = _newBody(150000);
+        final HttpTestServer httpTestServer = _newEchoServer();
+        try {
+            // Action
+            final HttpResponse httpResponse = _post(httpTestServer, RequestBody.fromProducer(_newProducer(body, 1000), null));
+
+            // Assert
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+            Assert.assertNull(request.getHeader("Content-Length"));
+            Assert.assertArrayEquals(body, httpResponse.getRawResult().getBytes());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_send_a_produced_body_of_known_length_with_a_content_length() throws Exception {
+        // Setup
+        final byte[] body = _newBody(150000);
+        final HttpTestServer httpTestServer = _newEchoServer();
+        try {
+            // Action
+            final HttpResponse httpResponse = _post(httpTestServer, RequestBody.fromProducer(_newProducer(body, 1000), (long) body.length));
+
+            // Assert
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertNull(request.getHeader("Transfer-Encoding"));
+            Assert.assertEquals(String.valueOf(body.length), request.getHeader("Content-Length"));
+            Assert.assertArrayEquals(body, httpResponse.getRawResult().getBytes());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_fail_the_request_when_the_producer_throws() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = _newEchoServer();
+        try {
+            final IOException producerException = new IOException("Producer failed.");
+            final RequestBody.Producer producer = new RequestBody.Producer() {
+                @Override
+                public void produce(final OutputStream outputStream) throws IOException {
+                    outputStream.write(_newBody(5000));
+                    throw producerException;
+                }
+            };
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(HttpMethod.POST, httpTestServer.getUrl("/echo"));
+            httpRequest.setRequestBody(RequestBody.fromProducer(producer, null));
+
+            // Action
+            final Throwable failure = HttpTestUtil.getFailure(httpRequest.executeAsync());
+
+            // Assert
+            Assert.assertSame(producerException, failure);
+            Assert.assertEquals(Integer.valueOf(0), httpTestServer.getRequestCount()); // NOTE: The truncated body must not be terminated with the final chunk.
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_fail_the_request_when_the_producer_throws_an_unchecked_exception() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = _newEchoServer();
+        try {
+            final IllegalStateException producerException = new IllegalStateException("Producer failed.");
+            final RequestBody.Producer producer = new RequestBody.Producer() {
+                @Override
+                public void produce(final OutputStream outputStream) throws IOException {
+                    outputStream.write(_newBody(5000));
+                    throw producerException;
+                }
+            };
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(HttpMethod.POST, httpTestServer.getUrl("/echo"));
+            httpRequest.setRequestBody(RequestBody.fromProducer(producer, 10000L));
+
+            // Action
+            final Throwable failure = HttpTestUtil.getFailure(httpRequest.executeAsync());
+
+            // Assert
+            Assert.assertSame(producerException, failure);
+            Assert.assertEquals(Integer.valueOf(0), httpTestServer.getRequestCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.softwareverde.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class RequestTimeoutTests {
+    /**
+     * Returns a Handler that sends the body one byte at a time, waiting byteDelay milliseconds before each byte.
+     */
+    protected static HttpTestServer.Handler _newDrippingHandler(final String body, final Long byteDelay) {
+        return new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                final byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+                outputStream.write(("HTTP/1.1 200 OK\r\nContent-Length: " + bodyBytes.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+                outputStream.flush();
+                for (final byte b : bodyBytes) {
+                    Thread.sleep(byteDelay);
+                    outputStream.write(b);
+                    outputStream.flush();
+                }
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void should_fail_with_a_read_timeout_when_the_server_does_not_respond() throws Exception {
+        // Setup
+        final CountDownLatch respondLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/stalled", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                respondLatch.await();
+                return false;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/stalled"));
+            httpRequest.setReadTimeout(200L);
+
+            // Action
+            final Throwable failure = HttpTestUtil.getFailure(httpRequest.executeAsync());
+
+            // Assert
+            Assert.assertTrue(failure instanceof ReadTimeoutException);
+        }
+        finally {
+            respondLatch.countDown();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_not_fail_with_a_read_timeout_while_the_body_keeps_arriving() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/dripping", _newDrippingHandler("abcdef", 100L));
+        httpTestServer.start();
+
+        try {
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/dripping"));
+            httpRequest.setReadTimeout(400L);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals("abcdef", new String(httpResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_fail_when_the_deadline_passes_even_while_the_body_keeps_arriving() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/dripping", _newDrippingHandler("abcdefghijklmnopqrstuvwxyz", 100L));
+        httpTestServer.start();
+
+        try {
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/dripping"));
+            httpRequest.setReadTimeout(400L);
+            httpRequest.setDeadline(500L);
+
+            final long startTime = System.nanoTime();
+
+            // Action
+            final Throwable failure = HttpTestUtil.getFailure(httpRequest.executeAsync());
+            final long elapsed = (System.nanoTime() - startTime);
+
+            // Assert
+            Assert.assertTrue(failure instanceof DeadlineExceededException);
+            Assert.assertTrue(elapsed < TimeUnit.MILLISECONDS.toNanos(2000L));
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.softwareverde.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class ResponseBodyFileTests {
+    protected static byte[] _newBody(final Integer byteCount) {
+        final byte[] bytes = new byte[byteCount];
+        for (int i = 0; i < byteCount; ++i) {
+            bytes[i] = (byte) ((i * 31) ^ (i >> 7));
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the response head and then the body in slices of sliceByteCount bytes, flushing after each slice.
+     */
+    protected static void _writeResponse(final OutputStream outputStream, final String head, final byte[] body, final Integer offset, final Integer sliceByteCount) throws Exception {
+        outputStream.write(head.getBytes(StandardCharsets.US_ASCII));
+        outputStream.flush();
+        for (int sliceOffset = offset; sliceOffset < body.length; sliceOffset += sliceByteCount) {
+            outputStream.write(body, sliceOffset, Math.min(sliceByteCount, (body.length - sliceOffset)));
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * Returns a handler that honors "Range: bytes=N-" with a 206 (or ignores it with a 200, if honorsRange is false).
+     */
+    protected static HttpTestServer.Handler _newRangeHandler(final byte[] body, final Boolean honorsRange) {
+        return new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                final String range = request.getHeader("Range");
+                if ( honorsRange && (range != null) ) {
+                    final Integer offset = Integer.valueOf(range.substring("bytes=".length(), range.indexOf('-')));
+                    final String head = "HTTP/1.1 206 Partial Content\r\nContent-Range: bytes " + offset + "-" + (body.length - 1) + "/" + body.length + "\r\nContent-Length: " + (body.length - offset) + "\r\n\r\n";
+                    _writeResponse(outputStream, head, body, offset, 16384);
+                }
+                else {
+                    final String head = "HTTP/1.1 200 OK\r\nContent-Length: " + body.length + "\r\n\r\n";
+                    _writeResponse(outputStream, head, body, 0, 16384);
+                }
+                return true;
+            }
+        };
+    }
+
+    protected static HttpRequest _newRequest(final String url, final ResponseBodyFile responseBodyFile) {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(url);
+        httpRequest.setResponseBodyFile(responseBodyFile);
+        return httpRequest;
+    }
+
+    @Test
+    public void should_write_a_fixed_length_body_to_the_file() throws Exception {
+        // Setup
+        final byte[] body = _newBody(300000);
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/file", _newRangeHandler(body, true));
+        httpTestServer.start();
+
+        final Path path = Files.createTempFile("response-body", ".bin");
+        try {
+            final ResponseBodyFile responseBodyFile = new ResponseBodyFile(path);
+
+            // Action
+            final HttpResponse httpResponse = _newRequest(httpTestServer.getUrl("/file"), responseBodyFile).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals(path, httpResponse.getBodyFile());
+            Assert.assertArrayEquals(body, Files.readAllBytes(path));
+            Assert.assertNull(httpTestServer.getRequests().get(0).getHeader("Range"));
+        }
+        finally {
+            Files.deleteIfExists(path);
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_write_a_chunked_body_to_the_file() throws Exception {
+        // Setup
+        final byte[] body = _newBody(100000);
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/file", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                outputStream.write("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                for (int offset = 0; offset < body.length; offset += 7000) {
+                    final int chunkByteCount = Math.min(7000, (body.length - offset));
+                    outputStream.write((Integer.toHexString(chunkByteCount) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    outputStream.write(body, offset, chunkByteCount);
+                    outputStream.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+                }
+                outputStream.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                outputStream.flush();
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        final Path path = Files.createTempFile("response-body", ".bin");
+        try {
+            final ResponseBodyFile responseBodyFile = new ResponseBodyFile(path);
+
+            // Action
+            final HttpResponse httpResponse = _newRequest(httpTestServer.getUrl("/file"), responseBodyFile).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(path, httpResponse.getBodyFile());
+            Assert.assertArrayEquals(body, Files.readAllBytes(path));
+        }
+        finally {
+            Files.deleteIfExists(path);
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_resume_a_partial_file_with_a_range_request() throws Exception {
+        // Setup
+        final byte[] body = _newBody(200000);
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/file", _newRangeHandler(body, true));
+        httpTestServer.start();
+
+        final Path path = Files.createTempFile("response-body", ".bin");
+        try {
+            Files.write(path, Arrays.copyOf(body, 75000));
+
+            final ResponseBodyFile responseBodyFile = new ResponseBodyFile(path);
+            responseBodyFile.setResumesDownload(true);
+
+            // Action
+            final HttpResponse httpResponse = _newRequest(httpTestServer.getUrl("/file"), responseBodyFile).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(206), httpResponse.getResponseCode());
+            Assert.assertEquals("bytes=75000-", httpTestServer.getRequests().get(0).getHeader("Range"));
+            Assert.assertArrayEquals(body, Files.readAllBytes(path));
+        }
+        finally {
+            Files.deleteIfExists(path);
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_rewrite_the_file_when_the_server_ignores_the_range() throws Exception {
+        // Setup
+        final byte[] body = _newBody(50000);
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/file", _newRangeHandler(body, false));
+        httpTestServer.start();
+
+        final Path path = Files.createTempFile("response-body", ".bin");
+        try {
+            final byte[] previousContents = new byte[80000];
+            Arrays.fill(previousContents, (byte) 'x');
+            Files.write(path, previousContents);
+
+            final ResponseBodyFile responseBodyFile = new ResponseBodyFile(path);
+            responseBodyFile.setResumesDownload(true);
+
+            // Action
+            final HttpResponse httpResponse = _newRequest(httpTestServer.getUrl("/file"), responseBodyFile).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals("bytes=80000-", httpTestServer.getRequests().get(0).getHeader("Range"));
+            Assert.assertArrayEquals(body, Files.readAllBytes(path)); // NOTE: The previous (longer) contents are truncated.
+        }
+        finally {
+            Files.deleteIfExists(path);
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_report_monotonically_increasing_progress() throws Exception {
+        // Setup
+        final byte[] body = _newBody(1000000);
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/file", _newRangeHandler(body, true));
+        httpTestServer.start();
+
+        final Path path = Files.createTempFile("response-body", ".bin");
+        try {
+            Files.write(path, Arrays.copyOf(body, 100000));
+
+            final List<Long> byteCounts = new ArrayList<Long>();
+            final List<Long> totalByteCounts = new ArrayList<Long>();
+            final ResponseBodyFile responseBodyFile = new ResponseBodyFile(path);
+            responseBodyFile.setResumesDownload(true);
+            responseBodyFile.setProgressCallback(new ResponseBodyFile.ProgressCallback() {
+                @Override
+                public void onProgress(final Long byteCount, final Long totalByteCount) {
+                    synchronized (byteCounts) {
+                        byteCounts.add(byteCount);
+                        totalByteCounts.add(totalByteCount);
+                    }
+                }
+            });
+
+            // Action
+            _newRequest(httpTestServer.getUrl("/file"), responseBodyFile).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            synchronized (byteCounts) {
+                Assert.assertTrue(byteCounts.size() >= 2);
+                Assert.assertEquals(Long.valueOf(100000L), byteCounts.get(0));
+                Assert.assertEquals(Long.valueOf(body.length), byteCounts.get(byteCounts.size() - 1));
+                for (int i = 1; i < byteCounts.size(); ++i) {
+                    Assert.assertTrue(byteCounts.get(i) > byteCounts.get(i - 1));
+                }
+                for (final Long totalByteCount : totalByteCounts) {
+                    Assert.assertEquals(Long.valueOf(body.length), totalByteCount);
+                }
+            }
+            Assert.assertArrayEquals(body, Files.readAllBytes(path));
+        }
+        finally {
+            Files.deleteIfExists(path);
+            httpTestServer.close();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.softwareverde.http.breaker;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class CircuitBreakerTests {
+    protected static final Long FAST_CALL_DURATION = TimeUnit.MILLISECONDS.toNanos(1L);
+    protected static final Long SLOW_CALL_DURATION = TimeUnit.MILLISECONDS.toNanos(1000L);
+
+    /**
+     * Returns a policy that opens once half of (at least 4 of) the last 4 calls failed, or all of them took longer than 100ms.
+     *  The breaker remains open until the open duration is changed (e.g. to 0, to make it half-open).
+     */
+    protected static CircuitBreakerPolicy _newPolicy() {
+        final CircuitBreakerPolicy policy = new CircuitBreakerPolicy();
+        policy.setSlidingWindow(4, 4);
+        policy.setFailureRateThreshold(0.5D);
+        policy.setSlowCallThreshold(1.0D, 100L);
+        policy.setOpenDuration(60000L);
+        policy.setHalfOpenCallCount(2);
+        return policy;
+    }
+
+    protected static void _call(final CircuitBreaker circuitBreaker, final Long duration, final Boolean wasFailure) {
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onResult(duration, wasFailure);
+    }
+
+    protected static CircuitBreaker _newOpenCircuitBreaker(final CircuitBreakerPolicy policy) {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker("http://localhost", policy);
+        for (int i = 0; i < 4; ++i) {
+            _call(circuitBreaker, FAST_CALL_DURATION, true);
+        }
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+
+    @Test
+    public void should_open_once_the_minimum_calls_have_failed() {
+        // Setup
+        final CircuitBreaker circuitBreaker = new CircuitBreaker("http://localhost", _newPolicy());
+
+        // Action
+        _call(circuitBreaker, FAST_CALL_DURATION, true);
+        _call(circuitBreaker, FAST_CALL_DURATION, true);
+        _call(circuitBreaker, FAST_CALL_DURATION, true);
+        final CircuitBreaker.State stateBeforeMinimumCallCount = circuitBreaker.getState();
+        _call(circuitBreaker, FAST_CALL_DURATION, false);
+        final Boolean permitsCallWhileOpen = circuitBreaker.tryAcquirePermission();
+
+        // Assert
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, stateBeforeMinimumCallCount);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertFalse(permitsCallWhileOpen);
+        Assert.assertEquals(Long.valueOf(1L), circuitBreaker.getRejectedCount());
+        Assert.assertEquals(Long.valueOf(1L), circuitBreaker.getOpenedCount());
+    }
+
+    @Test
+    public void should_open_once_the_calls_are_slow() {
+        // Setup
+        final CircuitBreaker circuitBreaker = new CircuitBreaker("http://localhost", _newPolicy());
+
+        // Action
+        _call(circuitBreaker, SLOW_CALL_DURATION, false);
+        _call(circuitBreaker, SLOW_CALL_DURATION, false);
+        _call(circuitBreaker, SLOW_CALL_DURATION, false);
+        final Double slowCallRate = circuitBreaker.getSlowCallRate();
+        _call(circuitBreaker, SLOW_CALL_DURATION, false);
+
+        // Assert
+        Assert.assertEquals(Double.valueOf(1.0D), slowCallRate);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void should_only_count_the_calls_within_the_sliding_window() {
+        // Setup
+        final CircuitBreaker circuitBreaker = new CircuitBreaker("http://localhost", _newPolicy());
+        _call(circuitBreaker, FAST_CALL_DURATION, true);
+        for (int i = 0; i < 4; ++i) {
+            _call(circuitBreaker, FAST_CALL_DURATION, false);
+        }
+
+        // Action
+        final Double failureRateAfterOldestFailureLeftWindow = circuitBreaker.getFailureRate();
+        _call(circuitBreaker, FAST_CALL_DURATION, true);
+        final CircuitBreaker.State stateAfterOneFailure = circuitBreaker.getState();
+        _call(circuitBreaker, FAST_CALL_DURATION, true);
+
+        // Assert
+        Assert.assertEquals(Double.valueOf(0.0D), failureRateAfterOldestFailureLeftWindow);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, stateAfterOneFailure);
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void should_close_after_the_half_open_trial_calls_succeed() {
+        // Setup
+        final CircuitBreakerPolicy policy = _newPolicy();
+        final CircuitBreaker circuitBreaker = _newOpenCircuitBreaker(policy);
+        policy.setOpenDuration(0L);
+
+        // Action
+        final CircuitBreaker.State stateAfterOpenDuration = circuitBreaker.getState();
+        final Boolean permitsFirstTrialCall = circuitBreaker.tryAcquirePermission();
+        final Boolean permitsSecondTrialCall = circuitBreaker.tryAcquirePermission();
+        final Boolean permitsThirdTrialCall = circuitBreaker.tryAcquirePermission();
+        circuitBreaker.onResult(FAST_CALL_DURATION, false);
+        final CircuitBreaker.State stateAfterFirstTrialCall = circuitBreaker.getState();
+        circuitBreaker.onResult(FAST_CALL_DURATION, false);
+
+        // Assert
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, stateAfterOpenDuration);
+        Assert.assertTrue(permitsFirstTrialCall);
+        Assert.assertTrue(permitsSecondTrialCall);
+        Assert.assertFalse(permitsThirdTrialCall);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, stateAfterFirstTrialCall);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertNull(circuitBreaker.getFailureRate());
+    }
+
+    @Test
+    public void should_open_again_after_the_half_open_trial_calls_fail() {
+        // Setup
+        final CircuitBreakerPolicy policy = _newPolicy();
+        final CircuitBreaker circuitBreaker = _newOpenCircuitBreaker(policy);
+        policy.setOpenDuration(0L);
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        policy.setOpenDuration(60000L);
+
+        // Action
+        circuitBreaker.onResult(FAST_CALL_DURATION, false);
+        circuitBreaker.onResult(FAST_CALL_DURATION, true);
+
+        // Assert
+        Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertEquals(Long.valueOf(2L), circuitBreaker.getOpenedCount());
+        Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void should_release_the_trial_permission_of_an_ignored_call() {
+        // Setup
+        final CircuitBreakerPolicy policy = _newPolicy();
+        policy.setHalfOpenCallCount(1);
+        final CircuitBreaker circuitBreaker = _newOpenCircuitBreaker(policy);
+        policy.setOpenDuration(0L);
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+        final Boolean permitsCallBeforeIgnored = circuitBreaker.tryAcquirePermission();
+
+        // Action
+        circuitBreaker.onIgnored();
+        final Boolean permitsCallAfterIgnored = circuitBreaker.tryAcquirePermission();
+
+        // Assert
+        Assert.assertFalse(permitsCallBeforeIgnored);
+        Assert.assertTrue(permitsCallAfterIgnored);
+        Assert.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void should_ignore_outcomes_recorded_while_open_and_close_when_reset() {
+        // Setup
+        final CircuitBreaker circuitBreaker = _newOpenCircuitBreaker(_newPolicy());
+
+        // Action
+        circuitBreaker.onResult(FAST_CALL_DURATION, false);
+        final Double failureRateWhileOpen = circuitBreaker.getFailureRate();
+        circuitBreaker.reset();
+
+        // Assert
+        Assert.assertNull(failureRateWhileOpen);
+        Assert.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void should_maintain_a_circuit_breaker_per_origin() {
+        // Setup
+        final CircuitBreakerRegistry circuitBreakerRegistry = new CircuitBreakerRegistry(_newPolicy());
+        final CircuitBreaker circuitBreaker = circuitBreakerRegistry.getCircuitBreaker("http://example.com");
+
+        // Action
+        final CircuitBreaker sameCircuitBreaker = circuitBreakerRegistry.getCircuitBreaker("http://example.com");
+        final CircuitBreaker otherCircuitBreaker = circuitBreakerRegistry.getCircuitBreaker("https://example.com");
+        for (int i = 0; i < 4; ++i) {
+            _call(otherCircuitBreaker, FAST_CALL_DURATION, true);
+        }
+
+        // Assert
+        Assert.assertSame(circuitBreaker, sameCircuitBreaker);
+        Assert.assertNotSame(circuitBreaker, otherCircuitBreaker);
+        Assert.assertEquals(2, circuitBreakerRegistry.getCircuitBreakers().size());
+        Assert.assertEquals(Integer.valueOf(1), circuitBreakerRegistry.getOpenCircuitBreakerCount());
+    }
+
+    @Test
+    public void should_reject_requests_without_sending_them_once_the_origin_is_failing() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(503, "unavailable"));
+        httpTestServer.start();
+
+        try {
+            final CircuitBreakerRegistry circuitBreakerRegistry = new CircuitBreakerRegistry(_newPolicy());
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/"));
+            httpRequest.setCircuitBreakerRegistry(circuitBreakerRegistry);
+
+            for (int i = 0; i < 4; ++i) {
+                final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+                Assert.assertEquals(Integer.valueOf(503), httpResponse.getResponseCode());
+            }
+
+            // Action
+            final Throwable failure = HttpTestUtil.getFailure(httpRequest.executeAsync());
+
+            // Assert
+            Assert.assertTrue(failure instanceof CircuitBreakerOpenException);
+            Assert.assertEquals(Integer.valueOf(4), httpTestServer.getRequestCount());
+            Assert.assertEquals(CircuitBreaker.State.OPEN, circuitBreakerRegistry.getCircuitBreakers().get(0).getState());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+}
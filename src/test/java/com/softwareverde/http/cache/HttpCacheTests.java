@@ -0,0 +1,228 @@
+package com.softwareverde.http.cache;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class HttpCacheTests {
+    protected static String _get(final HttpCache httpCache, final String url, final String... headers) {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(url);
+        httpRequest.setHttpCache(httpCache);
+        for (int i = 0; i < headers.length; i += 2) {
+            httpRequest.setHeader(headers[i], headers[i + 1]);
+        }
+
+        final HttpResponse httpResponse = httpRequest.execute();
+        Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+        return new String(httpResponse.getRawResult().getBytes(), StandardCharsets.UTF_8);
+    }
+
+    protected static void _deleteDirectory(final Path directory) {
+        final File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+    @Test
+    public void should_serve_a_fresh_response_from_the_cache() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/fresh", HttpTestServer.newHandler(200, "cached", "Cache-Control: max-age=60"));
+        httpTestServer.start();
+
+        try {
+            final HttpCache httpCache = new HttpCache(1048576L);
+
+            // Action
+            final String firstBody = _get(httpCache, httpTestServer.getUrl("/fresh"));
+            final String secondBody = _get(httpCache, httpTestServer.getUrl("/fresh"));
+
+            // Assert
+            Assert.assertEquals("cached", firstBody);
+            Assert.assertEquals("cached", secondBody);
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getRequestCount());
+            Assert.assertEquals(Long.valueOf(1L), httpCache.getHitCount());
+            Assert.assertEquals(Long.valueOf(1L), httpCache.getMissCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_not_serve_a_response_that_is_not_stored() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/no-store", HttpTestServer.newHandler(200, "uncached", "Cache-Control: no-store"));
+        httpTestServer.start();
+
+        try {
+            final HttpCache httpCache = new HttpCache(1048576L);
+
+            // Action
+            _get(httpCache, httpTestServer.getUrl("/no-store"));
+            _get(httpCache, httpTestServer.getUrl("/no-store"));
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getRequestCount());
+            Assert.assertEquals(Long.valueOf(0L), httpCache.getHitCount());
+            Assert.assertEquals(Integer.valueOf(0), httpCache.getMemoryEntryCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_store_a_variant_per_vary_header_value() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/greeting", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                final String body = ("fr".equals(request.getHeader("Accept-Language")) ? "bonjour" : "hello");
+                HttpTestServer.writeResponse(outputStream, 200, body, "Cache-Control: max-age=60", "Vary: Accept-Language");
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final HttpCache httpCache = new HttpCache(1048576L);
+            final String url = httpTestServer.getUrl("/greeting");
+
+            // Action
+            final String englishBody = _get(httpCache, url, "Accept-Language", "en");
+            final String frenchBody = _get(httpCache, url, "Accept-Language", "fr");
+            final String cachedEnglishBody = _get(httpCache, url, "Accept-Language", "en");
+            final String cachedFrenchBody = _get(httpCache, url, "accept-language", "fr");
+
+            // Assert
+            Assert.assertEquals("hello", englishBody);
+            Assert.assertEquals("bonjour", frenchBody);
+            Assert.assertEquals("hello", cachedEnglishBody);
+            Assert.assertEquals("bonjour", cachedFrenchBody);
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getRequestCount());
+            Assert.assertEquals(Long.valueOf(2L), httpCache.getHitCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_revalidate_a_stale_response() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/etag", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                if ("\"v1\"".equals(request.getHeader("If-None-Match"))) {
+                    outputStream.write("HTTP/1.1 304 Not Modified\r\nETag: \"v1\"\r\nCache-Control: no-cache\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+                    outputStream.flush();
+                    return true;
+                }
+
+                HttpTestServer.writeResponse(outputStream, 200, "versioned", "ETag: \"v1\"", "Cache-Control: no-cache");
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final HttpCache httpCache = new HttpCache(1048576L);
+
+            // Action
+            final String firstBody = _get(httpCache, httpTestServer.getUrl("/etag"));
+            final String revalidatedBody = _get(httpCache, httpTestServer.getUrl("/etag"));
+
+            // Assert
+            Assert.assertEquals("versioned", firstBody);
+            Assert.assertEquals("versioned", revalidatedBody);
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getRequestCount());
+            Assert.assertEquals("\"v1\"", httpTestServer.getRequests().get(1).getHeader("If-None-Match"));
+            Assert.assertEquals(Long.valueOf(1L), httpCache.getRevalidationCount());
+            Assert.assertEquals(Long.valueOf(1L), httpCache.getNotModifiedCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_promote_an_entry_evicted_to_disk() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/a", HttpTestServer.newHandler(200, "first", "Cache-Control: max-age=60"));
+        httpTestServer.setHandler("/b", HttpTestServer.newHandler(200, "second", "Cache-Control: max-age=60"));
+        httpTestServer.start();
+
+        final Path directory = Files.createTempDirectory("http-cache");
+        try {
+            final HttpCache httpCache = new HttpCache(512L, directory, 1048576L); // NOTE: Memory holds a single entry.
+            httpCache.setMaxEntryByteCount(1024L);
+
+            _get(httpCache, httpTestServer.getUrl("/a"));
+            _get(httpCache, httpTestServer.getUrl("/b"));
+            final Integer diskEntryCountBeforePromotion = httpCache.getDiskEntryCount();
+
+            // Action
+            final String promotedBody = _get(httpCache, httpTestServer.getUrl("/a"));
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(1), diskEntryCountBeforePromotion);
+            Assert.assertEquals("first", promotedBody);
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getRequestCount());
+            Assert.assertEquals(Integer.valueOf(1), httpCache.getMemoryEntryCount());
+            Assert.assertEquals(Integer.valueOf(1), httpCache.getDiskEntryCount()); // NOTE: "/b" was evicted to disk by the promotion of "/a".
+        }
+        finally {
+            httpTestServer.close();
+            _deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void should_reuse_entries_left_on_disk_by_a_previous_cache() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/a", HttpTestServer.newHandler(200, "first", "Cache-Control: max-age=60"));
+        httpTestServer.setHandler("/b", HttpTestServer.newHandler(200, "second", "Cache-Control: max-age=60"));
+        httpTestServer.start();
+
+        final Path directory = Files.createTempDirectory("http-cache");
+        try {
+            final HttpCache previousHttpCache = new HttpCache(512L, directory, 1048576L);
+            previousHttpCache.setMaxEntryByteCount(1024L);
+            _get(previousHttpCache, httpTestServer.getUrl("/a"));
+            _get(previousHttpCache, httpTestServer.getUrl("/b"));
+
+            // Action
+            final HttpCache httpCache = new HttpCache(512L, directory, 1048576L);
+            httpCache.setMaxEntryByteCount(1024L);
+            final String body = _get(httpCache, httpTestServer.getUrl("/a"));
+
+            // Assert
+            Assert.assertEquals("first", body);
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getRequestCount());
+            Assert.assertEquals(Long.valueOf(1L), httpCache.getHitCount());
+        }
+        finally {
+            httpTestServer.close();
+            _deleteDirectory(directory);
+        }
+    }
+}
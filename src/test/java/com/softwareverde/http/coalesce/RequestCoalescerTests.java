@@ -0,0 +1,236 @@
+package com.softwareverde.http.coalesce;
+
+import com.softwareverde.http.DeadlineExceededException;
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import com.softwareverde.http.connection.ResponseHead;
+import com.softwareverde.http.intercept.NetworkInterceptor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RequestCoalescerTests {
+    protected static HttpRequest _newRequest(final RequestCoalescer requestCoalescer, final String url) {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(url);
+        httpRequest.setRequestCoalescer(requestCoalescer);
+        return httpRequest;
+    }
+
+    protected static void _waitForCoalescedCount(final RequestCoalescer requestCoalescer, final Long coalescedCount) throws Exception {
+        HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+            @Override
+            public Boolean isMet() {
+                return (requestCoalescer.getCoalescedCount() >= coalescedCount);
+            }
+        });
+    }
+
+    protected static String _getBody(final HttpResponse httpResponse) {
+        return new String(httpResponse.getRawResult().getBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void should_send_identical_concurrent_requests_once() throws Exception {
+        // Setup
+        final RequestCoalescer requestCoalescer = new RequestCoalescer();
+        final CountDownLatch respondLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/shared", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                respondLatch.await();
+                HttpTestServer.writeResponse(outputStream, 200, "shared");
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final String url = httpTestServer.getUrl("/shared");
+
+            // Action
+            final CompletableFuture<HttpResponse> firstFuture = _newRequest(requestCoalescer, url).executeAsync();
+            final CompletableFuture<HttpResponse> secondFuture = _newRequest(requestCoalescer, url).executeAsync();
+            _waitForCoalescedCount(requestCoalescer, 1L);
+            respondLatch.countDown();
+
+            final HttpResponse firstResponse = firstFuture.get(5L, TimeUnit.SECONDS);
+            final HttpResponse secondResponse = secondFuture.get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals("shared", _getBody(firstResponse));
+            Assert.assertEquals("shared", _getBody(secondResponse));
+            Assert.assertNotSame(firstResponse, secondResponse);
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getRequestCount());
+            Assert.assertEquals(Long.valueOf(1L), requestCoalescer.getRequestCount());
+            Assert.assertEquals(Integer.valueOf(0), requestCoalescer.getInFlightCount());
+        }
+        finally {
+            respondLatch.countDown();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_share_a_network_failure() throws Exception {
+        // Setup
+        final RequestCoalescer requestCoalescer = new RequestCoalescer();
+        final CountDownLatch respondLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/reset", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                respondLatch.await();
+                return false; // NOTE: Closes the connection without a response.
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final String url = httpTestServer.getUrl("/reset");
+
+            // Action
+            final CompletableFuture<HttpResponse> firstFuture = _newRequest(requestCoalescer, url).executeAsync();
+            final CompletableFuture<HttpResponse> secondFuture = _newRequest(requestCoalescer, url).executeAsync();
+            _waitForCoalescedCount(requestCoalescer, 1L);
+            respondLatch.countDown();
+
+            final Throwable firstFailure = HttpTestUtil.getFailure(firstFuture);
+            final Throwable secondFailure = HttpTestUtil.getFailure(secondFuture);
+
+            // Assert
+            Assert.assertTrue(firstFailure instanceof IOException);
+            Assert.assertSame(firstFailure, secondFailure);
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getRequestCount());
+        }
+        finally {
+            respondLatch.countDown();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_send_a_coalesced_request_when_the_in_flight_request_exceeds_its_own_deadline() throws Exception {
+        // Setup
+        final RequestCoalescer requestCoalescer = new RequestCoalescer();
+        final AtomicInteger requestCount = new AtomicInteger(0);
+        final CountDownLatch releaseFirstLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/slow", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                if (requestCount.incrementAndGet() == 1) {
+                    releaseFirstLatch.await();
+                    return false;
+                }
+
+                HttpTestServer.writeResponse(outputStream, 200, "resent");
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final String url = httpTestServer.getUrl("/slow");
+
+            final HttpRequest firstRequest = _newRequest(requestCoalescer, url);
+            firstRequest.setDeadline(250L);
+
+            // Action
+            final CompletableFuture<HttpResponse> firstFuture = firstRequest.executeAsync();
+            final CompletableFuture<HttpResponse> secondFuture = _newRequest(requestCoalescer, url).executeAsync();
+            _waitForCoalescedCount(requestCoalescer, 1L);
+
+            final Throwable firstFailure = HttpTestUtil.getFailure(firstFuture);
+            final HttpResponse secondResponse = secondFuture.get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertTrue(firstFailure instanceof DeadlineExceededException);
+            Assert.assertEquals("resent", _getBody(secondResponse));
+            Assert.assertEquals(2, requestCount.get());
+            Assert.assertEquals(Long.valueOf(2L), requestCoalescer.getRequestCount());
+        }
+        finally {
+            releaseFirstLatch.countDown();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_not_coalesce_requests_with_network_interceptors() throws Exception {
+        // Setup
+        final RequestCoalescer requestCoalescer = new RequestCoalescer();
+        final CountDownLatch respondLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/intercepted", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                respondLatch.await(5L, TimeUnit.SECONDS);
+                HttpTestServer.writeResponse(outputStream, 200, "sent");
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final String url = httpTestServer.getUrl("/intercepted");
+
+            final List<NetworkInterceptor> networkInterceptors = new ArrayList<NetworkInterceptor>(1);
+            networkInterceptors.add(new NetworkInterceptor() {
+                @Override
+                public ResponseHead intercept(final Chain chain) throws IOException {
+                    return chain.proceed();
+                }
+            });
+
+            final HttpRequest plainRequest = _newRequest(requestCoalescer, url);
+            final HttpRequest interceptedRequest = _newRequest(requestCoalescer, url);
+            interceptedRequest.setNetworkInterceptors(networkInterceptors);
+            final HttpRequest secondPlainRequest = _newRequest(requestCoalescer, url);
+
+            // Action
+            final CompletableFuture<HttpResponse> plainFuture = plainRequest.executeAsync();
+            final CompletableFuture<HttpResponse> interceptedFuture = interceptedRequest.executeAsync();
+            final CompletableFuture<HttpResponse> secondPlainFuture = secondPlainRequest.executeAsync();
+            _waitForCoalescedCount(requestCoalescer, 1L);
+            HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+                @Override
+                public Boolean isMet() {
+                    return httpTestServer.getRequestCount().equals(2);
+                }
+            });
+            respondLatch.countDown();
+
+            final HttpResponse plainResponse = plainFuture.get(5L, TimeUnit.SECONDS);
+            final HttpResponse interceptedResponse = interceptedFuture.get(5L, TimeUnit.SECONDS);
+            final HttpResponse secondPlainResponse = secondPlainFuture.get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals("sent", _getBody(plainResponse));
+            Assert.assertEquals("sent", _getBody(interceptedResponse));
+            Assert.assertEquals("sent", _getBody(secondPlainResponse));
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getRequestCount());
+            Assert.assertEquals(Long.valueOf(1L), requestCoalescer.getRequestCount());
+            Assert.assertEquals(Long.valueOf(1L), requestCoalescer.getCoalescedCount());
+        }
+        finally {
+            respondLatch.countDown();
+            httpTestServer.close();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.softwareverde.http.connection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+public class ContentDecodingInputStreamTests {
+    protected static byte[] _gzip(final byte[] bytes) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream)) {
+            gzipOutputStream.write(bytes);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    protected static byte[] _deflate(final byte[] bytes, final Boolean isRaw) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, isRaw);
+        try (final DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(byteArrayOutputStream, deflater)) {
+            deflaterOutputStream.write(bytes);
+        }
+        finally {
+            deflater.end();
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    protected static byte[] _concatenate(final byte[]... byteArrays) {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        for (final byte[] bytes : byteArrays) {
+            byteArrayOutputStream.write(bytes, 0, bytes.length);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    protected static byte[] _readAll(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1000];
+        int byteCount;
+        while ((byteCount = inputStream.read(buffer)) >= 0) {
+            byteArrayOutputStream.write(buffer, 0, byteCount);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    protected static byte[] _newBody(final Integer byteCount) {
+        final byte[] bytes = new byte[byteCount];
+        for (int i = 0; i < byteCount; ++i) {
+            bytes[i] = (byte) ((i * 31) ^ (i >> 7));
+        }
+        return bytes;
+    }
+
+    protected static IOException _readFailure(final byte[] encodedBody, final String contentEncoding) {
+        final ContentDecodingInputStream inputStream = new ContentDecodingInputStream(new ByteArrayInputStream(encodedBody), contentEncoding, new InflaterPool(1));
+        try {
+            _readAll(inputStream);
+            return null;
+        }
+        catch (final IOException exception) {
+            return exception;
+        }
+    }
+
+    @Test
+    public void should_decode_a_gzip_body_and_return_its_inflater() throws Exception {
+        // Setup
+        final byte[] body = _newBody(100000);
+        final InflaterPool inflaterPool = new InflaterPool(1);
+        final ContentDecodingInputStream inputStream = new ContentDecodingInputStream(new ByteArrayInputStream(_gzip(body)), " GZIP ", inflaterPool);
+
+        // Action
+        final byte[] decodedBody = _readAll(inputStream);
+
+        // Assert
+        Assert.assertArrayEquals(body, decodedBody);
+        Assert.assertEquals(Integer.valueOf(1), inflaterPool.getPooledInflaterCount());
+        Assert.assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void should_decode_concatenated_gzip_members() throws Exception {
+        // Setup
+        final byte[] firstBody = "Hello, ".getBytes(StandardCharsets.UTF_8);
+        final byte[] secondBody = _newBody(50000);
+        final byte[] encodedBody = _concatenate(_gzip(firstBody), _gzip(secondBody));
+        final ContentDecodingInputStream inputStream = new ContentDecodingInputStream(new ByteArrayInputStream(encodedBody), "gzip", new InflaterPool(1));
+
+        // Action
+        final byte[] decodedBody = _readAll(inputStream);
+
+        // Assert
+        Assert.assertArrayEquals(_concatenate(firstBody, secondBody), decodedBody);
+    }
+
+    @Test
+    public void should_decode_deflate_bodies_with_and_without_the_zlib_wrapper() throws Exception {
+        // Setup
+        final byte[] body = _newBody(20000);
+        final InflaterPool inflaterPool = new InflaterPool(2);
+
+        // Action
+        final byte[] zlibDecodedBody = _readAll(new ContentDecodingInputStream(new ByteArrayInputStream(_deflate(body, false)), "deflate", inflaterPool));
+        final byte[] rawDecodedBody = _readAll(new ContentDecodingInputStream(new ByteArrayInputStream(_deflate(body, true)), "deflate", inflaterPool));
+
+        // Assert
+        Assert.assertArrayEquals(body, zlibDecodedBody);
+        Assert.assertArrayEquals(body, rawDecodedBody);
+        Assert.assertEquals(Integer.valueOf(2), inflaterPool.getPooledInflaterCount());
+    }
+
+    @Test
+    public void should_decode_an_empty_body_to_an_empty_body() throws Exception {
+        // Setup
+        final ContentDecodingInputStream inputStream = new ContentDecodingInputStream(new ByteArrayInputStream(new byte[0]), "gzip", new InflaterPool(1));
+
+        // Action
+        final byte[] decodedBody = _readAll(inputStream);
+
+        // Assert
+        Assert.assertEquals(0, decodedBody.length);
+    }
+
+    @Test
+    public void should_fail_when_the_gzip_trailer_does_not_match() throws Exception {
+        // Setup
+        final byte[] encodedBody = _gzip(_newBody(1000));
+        final byte[] corruptCrcBody = Arrays.copyOf(encodedBody, encodedBody.length);
+        corruptCrcBody[corruptCrcBody.length - 8] ^= 0x01;
+        final byte[] corruptSizeBody = Arrays.copyOf(encodedBody, encodedBody.length);
+        corruptSizeBody[corruptSizeBody.length - 4] ^= 0x01;
+
+        // Action
+        final IOException crcFailure = _readFailure(corruptCrcBody, "gzip");
+        final IOException sizeFailure = _readFailure(corruptSizeBody, "gzip");
+
+        // Assert
+        Assert.assertTrue(crcFailure instanceof ZipException);
+        Assert.assertTrue(crcFailure.getMessage().contains("CRC"));
+        Assert.assertTrue(sizeFailure instanceof ZipException);
+        Assert.assertTrue(sizeFailure.getMessage().contains("size"));
+    }
+
+    @Test
+    public void should_fail_when_the_body_is_truncated_or_invalid() throws Exception {
+        // Setup
+        final byte[] encodedBody = _gzip(_newBody(1000));
+        final byte[] truncatedBody = Arrays.copyOf(encodedBody, (encodedBody.length / 2));
+        final byte[] invalidBody = "not compressed".getBytes(StandardCharsets.UTF_8);
+
+        // Action
+        final IOException truncatedFailure = _readFailure(truncatedBody, "gzip");
+        final IOException invalidFailure = _readFailure(invalidBody, "gzip");
+
+        // Assert
+        Assert.assertTrue(truncatedFailure instanceof EOFException);
+        Assert.assertTrue(invalidFailure instanceof ZipException);
+    }
+
+    @Test
+    public void should_only_support_gzip_and_deflate() {
+        // Action
+        final Boolean gzipIsSupported = ContentDecodingInputStream.isSupported("gzip");
+        final Boolean deflateIsSupported = ContentDecodingInputStream.isSupported(" Deflate");
+        final Boolean brotliIsSupported = ContentDecodingInputStream.isSupported("br");
+        final Boolean nullIsSupported = ContentDecodingInputStream.isSupported(null);
+
+        // Assert
+        Assert.assertTrue(gzipIsSupported);
+        Assert.assertTrue(deflateIsSupported);
+        Assert.assertFalse(brotliIsSupported);
+        Assert.assertFalse(nullIsSupported);
+    }
+}
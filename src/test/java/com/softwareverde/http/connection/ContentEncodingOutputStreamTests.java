@@ -0,0 +1,148 @@
+package com.softwareverde.http.connection;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+public class ContentEncodingOutputStreamTests {
+    protected static byte[] _readAll(final InputStream inputStream) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1000];
+        int byteCount;
+        while ((byteCount = inputStream.read(buffer)) >= 0) {
+            byteArrayOutputStream.write(buffer, 0, byteCount);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    protected static byte[] _readExactly(final InputStream inputStream, final Integer byteCount) throws IOException {
+        final byte[] bytes = new byte[byteCount];
+        int readByteCount = 0;
+        while (readByteCount < byteCount) {
+            final int count = inputStream.read(bytes, readByteCount, (byteCount - readByteCount));
+            if (count < 0) { break; }
+            readByteCount += count;
+        }
+        Assert.assertEquals(byteCount.intValue(), readByteCount);
+        return bytes;
+    }
+
+    protected static byte[] _newBody(final Integer byteCount) {
+        final byte[] bytes = new byte[byteCount];
+        for (int i = 0; i < byteCount; ++i) {
+            bytes[i] = (byte) ((i * 31) ^ (i >> 7));
+        }
+        return bytes;
+    }
+
+    protected static byte[] _encode(final byte[] body, final Integer writeByteCount, final DeflaterPool deflaterPool) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final ContentEncodingOutputStream outputStream = new ContentEncodingOutputStream(byteArrayOutputStream, Deflater.DEFAULT_COMPRESSION, deflaterPool);
+        for (int offset = 0; offset < body.length; offset += writeByteCount) {
+            outputStream.write(body, offset, Math.min(writeByteCount, (body.length - offset)));
+        }
+        outputStream.close();
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    @Test
+    public void should_encode_a_body_gzip_can_decode_and_return_its_deflater() throws Exception {
+        // Setup
+        final byte[] body = _newBody(200000);
+        final DeflaterPool deflaterPool = new DeflaterPool(1);
+
+        // Action
+        final byte[] encodedBody = _encode(body, 7000, deflaterPool);
+
+        // Assert
+        Assert.assertArrayEquals(body, _readAll(new GZIPInputStream(new ByteArrayInputStream(encodedBody))));
+        Assert.assertTrue(encodedBody.length < body.length);
+        Assert.assertEquals(Integer.valueOf(1), deflaterPool.getPooledDeflaterCount());
+    }
+
+    @Test
+    public void should_round_trip_through_the_content_decoding_input_stream() throws Exception {
+        // Setup
+        final byte[] body = _newBody(50000);
+        final byte[] encodedBody = _encode(body, 1, new DeflaterPool(1));
+
+        // Action
+        final byte[] decodedBody = _readAll(new ContentDecodingInputStream(new ByteArrayInputStream(encodedBody), ContentEncodingOutputStream.GZIP, new InflaterPool(1)));
+
+        // Assert
+        Assert.assertArrayEquals(body, decodedBody);
+    }
+
+    @Test
+    public void should_encode_an_empty_body_as_a_complete_gzip_member() throws Exception {
+        // Setup
+        final DeflaterPool deflaterPool = new DeflaterPool(1);
+
+        // Action
+        final byte[] encodedBody = _encode(new byte[0], 1, deflaterPool);
+
+        // Assert
+        Assert.assertTrue(encodedBody.length > 0);
+        Assert.assertEquals(0, _readAll(new GZIPInputStream(new ByteArrayInputStream(encodedBody))).length);
+    }
+
+    @Test
+    public void should_make_the_bytes_written_so_far_decodable_when_flushed() throws Exception {
+        // Setup
+        final byte[] body = _newBody(1000);
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final ContentEncodingOutputStream outputStream = new ContentEncodingOutputStream(byteArrayOutputStream, Deflater.BEST_SPEED, new DeflaterPool(1));
+        outputStream.write(body);
+
+        // Action
+        outputStream.flush();
+        final byte[] flushedBody = byteArrayOutputStream.toByteArray();
+        outputStream.close();
+
+        // Assert
+        final GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(flushedBody));
+        Assert.assertArrayEquals(body, _readExactly(gzipInputStream, body.length));
+    }
+
+    @Test
+    public void should_not_write_after_the_body_is_finished() throws Exception {
+        // Setup
+        final DeflaterPool deflaterPool = new DeflaterPool(1);
+        final ContentEncodingOutputStream outputStream = new ContentEncodingOutputStream(new ByteArrayOutputStream(), Deflater.DEFAULT_COMPRESSION, deflaterPool);
+        outputStream.write(_newBody(100));
+        outputStream.finish();
+
+        // Action
+        IOException writeException = null;
+        try {
+            outputStream.write(1);
+        }
+        catch (final IOException exception) {
+            writeException = exception;
+        }
+
+        // Assert
+        Assert.assertNotNull(writeException);
+        Assert.assertEquals(Integer.valueOf(1), deflaterPool.getPooledDeflaterCount());
+    }
+
+    @Test
+    public void should_return_the_deflater_when_released_without_finishing() {
+        // Setup
+        final DeflaterPool deflaterPool = new DeflaterPool(1);
+        final ContentEncodingOutputStream outputStream = new ContentEncodingOutputStream(new ByteArrayOutputStream(), Deflater.DEFAULT_COMPRESSION, deflaterPool);
+
+        // Action
+        outputStream.release();
+        outputStream.release();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), deflaterPool.getPooledDeflaterCount());
+    }
+}
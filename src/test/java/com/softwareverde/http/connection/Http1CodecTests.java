@@ -0,0 +1,121 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class Http1CodecTests {
+    protected static HttpTestServer.Handler _newRawHandler(final String response, final Boolean keepsConnectionOpen) {
+        return new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                outputStream.write(response.getBytes(StandardCharsets.US_ASCII));
+                outputStream.flush();
+                return keepsConnectionOpen;
+            }
+        };
+    }
+
+    @Test
+    public void should_read_a_chunked_body_and_reuse_the_connection() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/chunked", _newRawHandler("HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5;ext=1\r\nHello\r\n7\r\n, World\r\n0\r\nX-Trailer: value\r\n\r\n", true));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/chunked"));
+            httpRequest.setConnectionPool(connectionPool);
+
+            // Action
+            final HttpResponse firstResponse = httpRequest.execute();
+            final HttpResponse secondResponse = httpRequest.execute();
+
+            // Assert
+            Assert.assertEquals("Hello, World", new String(firstResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+            Assert.assertEquals("Hello, World", new String(secondResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getConnectionCount());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_read_a_fixed_length_body_and_reuse_the_connection() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/fixed", HttpTestServer.newHandler(200, "Hello, World"));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/fixed"));
+            httpRequest.setConnectionPool(connectionPool);
+
+            // Action
+            final HttpResponse firstResponse = httpRequest.execute();
+            final HttpResponse secondResponse = httpRequest.execute();
+
+            // Assert
+            Assert.assertEquals("Hello, World", new String(firstResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+            Assert.assertEquals("Hello, World", new String(secondResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getConnectionCount());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_read_a_close_delimited_body_without_reusing_the_connection() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/close", _newRawHandler("HTTP/1.1 200 OK\r\nConnection: close\r\n\r\nHello, World", false));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/close"));
+            httpRequest.setConnectionPool(connectionPool);
+
+            // Action
+            final HttpResponse firstResponse = httpRequest.execute();
+            final HttpResponse secondResponse = httpRequest.execute();
+
+            // Assert
+            Assert.assertEquals("Hello, World", new String(firstResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+            Assert.assertEquals("Hello, World", new String(secondResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getConnectionCount());
+            Assert.assertEquals(Integer.valueOf(0), connectionPool.getIdleConnectionCount());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_write_a_chunked_request_body_of_unknown_length() throws Exception {
+        // Setup
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // Action
+        final HttpBodyOutputStream bodyOutputStream = Http1Codec.newBodyOutputStream(outputStream, null);
+        bodyOutputStream.write("Hello".getBytes(StandardCharsets.US_ASCII));
+        bodyOutputStream.finish();
+
+        // Assert
+        Assert.assertEquals("5\r\nHello\r\n0\r\n\r\n", outputStream.toString("US-ASCII"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class Http1PipelineTests {
+    protected static final Integer REQUEST_COUNT = 6;
+
+    protected static HttpRequest _newRequest(final String url, final HttpConnectionPool connectionPool) {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(url);
+        httpRequest.setConnectionPool(connectionPool);
+        httpRequest.setPipeliningEnabled(true);
+        return httpRequest;
+    }
+
+    protected static String _getBody(final HttpResponse httpResponse) {
+        return new String(httpResponse.getRawResult().getBytes(), StandardCharsets.UTF_8);
+    }
+
+    protected static List<CompletableFuture<HttpResponse>> _executeRequests(final HttpTestServer httpTestServer, final HttpConnectionPool connectionPool) {
+        final List<CompletableFuture<HttpResponse>> responseFutures = new ArrayList<CompletableFuture<HttpResponse>>();
+        for (int i = 0; i < REQUEST_COUNT; ++i) {
+            responseFutures.add(_newRequest(httpTestServer.getUrl("/item?" + i), connectionPool).executeAsync());
+        }
+        return responseFutures;
+    }
+
+    /**
+     * Asserts each response carries the query of its own request, i.e. responses were matched to requests in order.
+     */
+    protected static void _assertResponsesMatchRequests(final List<CompletableFuture<HttpResponse>> responseFutures) throws Exception {
+        for (int i = 0; i < responseFutures.size(); ++i) {
+            final HttpResponse httpResponse = responseFutures.get(i).get(5L, TimeUnit.SECONDS);
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals(String.valueOf(i), _getBody(httpResponse));
+        }
+    }
+
+    /**
+     * Returns a handler that responds with the request's query, and then closes the connection after its responseCountPerConnection-th response;
+     *  the final response announces the close via "Connection: close" only if announcesClose is true.
+     */
+    protected static HttpTestServer.Handler _newClosingHandler(final Integer responseCountPerConnection, final Boolean announcesClose) {
+        final Map<Integer, Integer> responseCounts = new HashMap<Integer, Integer>();
+        return new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                final Integer responseCount;
+                synchronized (responseCounts) {
+                    final Integer previousResponseCount = responseCounts.get(request.connectionId);
+                    responseCount = ((previousResponseCount != null ? previousResponseCount : 0) + 1);
+                    responseCounts.put(request.connectionId, responseCount);
+                }
+
+                final Boolean keepsConnectionOpen = (responseCount < responseCountPerConnection);
+                if ( keepsConnectionOpen || (! announcesClose) ) {
+                    HttpTestServer.writeResponse(outputStream, 200, request.getQuery());
+                }
+                else {
+                    HttpTestServer.writeResponse(outputStream, 200, request.getQuery(), "Connection: close");
+                }
+                return keepsConnectionOpen;
+            }
+        };
+    }
+
+    @Test
+    public void should_pipeline_concurrent_requests_over_one_connection_in_order() throws Exception {
+        // Setup
+        final CountDownLatch respondLatch = new CountDownLatch(1);
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/item", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                respondLatch.await(5L, TimeUnit.SECONDS); // Holds the first response until every request has been written.
+                HttpTestServer.writeResponse(outputStream, 200, request.getQuery());
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            // Action
+            final List<CompletableFuture<HttpResponse>> responseFutures = _executeRequests(httpTestServer, connectionPool);
+            Thread.sleep(250L);
+            final Integer leasedCountWhilePipelining = connectionPool.getLeasedConnectionCount();
+            respondLatch.countDown();
+
+            // Assert
+            _assertResponsesMatchRequests(responseFutures);
+            Assert.assertEquals(Integer.valueOf(1), leasedCountWhilePipelining);
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getConnectionCount());
+            for (final HttpTestServer.Request request : httpTestServer.getRequests()) {
+                Assert.assertEquals(Integer.valueOf(1), request.connectionId);
+            }
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_resend_unanswered_requests_when_the_server_announces_a_close() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/item", _newClosingHandler(2, true));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            // Action
+            final List<CompletableFuture<HttpResponse>> responseFutures = _executeRequests(httpTestServer, connectionPool);
+
+            // Assert
+            _assertResponsesMatchRequests(responseFutures);
+            Assert.assertTrue(httpTestServer.getConnectionCount() > 1);
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_resend_unanswered_requests_when_the_server_closes_the_connection() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/item", _newClosingHandler(2, false));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            // Action
+            final List<CompletableFuture<HttpResponse>> responseFutures = _executeRequests(httpTestServer, connectionPool);
+
+            // Assert
+            _assertResponsesMatchRequests(responseFutures);
+            Assert.assertTrue(httpTestServer.getConnectionCount() > 1);
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.ConnectTimeoutException;
+import com.softwareverde.http.HttpHeaders;
+import com.softwareverde.http.HttpMethod;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import com.softwareverde.util.Container;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class HttpConnectionPoolTests {
+    protected static Route _getRoute(final HttpTestServer httpTestServer) {
+        return new Route(false, "localhost", httpTestServer.getPort(), true);
+    }
+
+    /**
+     * Sends a GET request for the path over the connection and reads its response; returns the body, and sets isReusable to whether the connection may be reused.
+     */
+    protected static String _exchange(final HttpConnection connection, final String path, final Container<Boolean> isReusable) throws Exception {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add("Host", connection.getRoute().getAuthority());
+
+        final OutputStream outputStream = connection.getOutputStream();
+        Http1Codec.writeRequestHead(outputStream, HttpMethod.GET, path, headers);
+        outputStream.flush();
+
+        final ResponseHead responseHead = Http1Codec.readResponseHead(connection.getInputStream());
+        final HttpBodyInputStream bodyInputStream = Http1Codec.newBodyInputStream(connection.getInputStream(), HttpMethod.GET, responseHead, new HttpBodyInputStream.CompletionCallback() {
+            @Override
+            public void onComplete(final Boolean connectionIsReusable) {
+                isReusable.value = connectionIsReusable;
+            }
+        });
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1024];
+        int byteCount;
+        while ((byteCount = bodyInputStream.read(buffer, 0, buffer.length)) >= 0) {
+            body.write(buffer, 0, byteCount);
+        }
+        bodyInputStream.close();
+        return body.toString("UTF-8");
+    }
+
+    protected static void _waitUntilStale(final HttpConnection connection) throws Exception {
+        HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+            @Override
+            public Boolean isMet() {
+                return connection.isStale();
+            }
+        });
+    }
+
+    /**
+     * Waits for the server to have accepted connectionCount connections; a lease may return before the server's accept-thread has counted its connection.
+     */
+    protected static void _waitForConnectionCount(final HttpTestServer httpTestServer, final Integer connectionCount) throws Exception {
+        HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+            @Override
+            public Boolean isMet() {
+                return httpTestServer.getConnectionCount().equals(connectionCount);
+            }
+        });
+    }
+
+    protected static HttpTestServer.Handler _newRawHandler(final String response, final Boolean keepsConnectionOpen) {
+        return new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                outputStream.write(response.getBytes(StandardCharsets.US_ASCII));
+                outputStream.flush();
+                return keepsConnectionOpen;
+            }
+        };
+    }
+
+    @Test
+    public void should_reuse_a_released_connection() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            final Route route = _getRoute(httpTestServer);
+            final Container<Boolean> isReusable = new Container<Boolean>();
+
+            // Action
+            final HttpConnection connection = connectionPool.lease(route);
+            final String firstBody = _exchange(connection, "/", isReusable);
+            connectionPool.release(connection, isReusable.value);
+            final Integer idleCountAfterRelease = connectionPool.getIdleConnectionCount();
+
+            final HttpConnection reusedConnection = connectionPool.lease(route);
+            final Integer leasedCountAfterReuse = connectionPool.getLeasedConnectionCount();
+            final String secondBody = _exchange(reusedConnection, "/", isReusable);
+            connectionPool.release(reusedConnection, isReusable.value);
+
+            // Assert
+            Assert.assertEquals("ok", firstBody);
+            Assert.assertEquals("ok", secondBody);
+            Assert.assertEquals(Integer.valueOf(1), idleCountAfterRelease);
+            Assert.assertEquals(Integer.valueOf(1), leasedCountAfterReuse);
+            Assert.assertSame(connection, reusedConnection);
+            Assert.assertTrue(reusedConnection.isReused());
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getConnectionCount());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_block_leases_beyond_max_connections_per_route() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 1, 60000L, 300000L);
+        try {
+            final Route route = _getRoute(httpTestServer);
+            final HttpConnection connection = connectionPool.lease(route);
+
+            final Container<HttpConnection> waitingConnection = new Container<HttpConnection>();
+            final Thread waitingThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        waitingConnection.value = connectionPool.lease(route);
+                    }
+                    catch (final Exception exception) { }
+                }
+            });
+
+            // Action
+            ConnectTimeoutException connectTimeoutException = null;
+            try {
+                connectionPool.lease(route, 100L);
+            }
+            catch (final ConnectTimeoutException exception) {
+                connectTimeoutException = exception;
+            }
+
+            waitingThread.start();
+            Thread.sleep(100L);
+            final Boolean wasWaiting = waitingThread.isAlive();
+
+            connectionPool.release(connection, true);
+            waitingThread.join(5000L);
+
+            // Assert
+            Assert.assertNotNull(connectTimeoutException);
+            Assert.assertTrue(wasWaiting);
+            Assert.assertSame(connection, waitingConnection.value);
+            Assert.assertEquals(Integer.valueOf(1), httpTestServer.getConnectionCount());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_evict_idle_connections() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 50L, 300000L);
+        try {
+            final Route route = _getRoute(httpTestServer);
+            final HttpConnection connection = connectionPool.lease(route);
+            connectionPool.release(connection, true);
+
+            // Action
+            final Integer idleCountBeforeEviction = connectionPool.getIdleConnectionCount();
+            Thread.sleep(100L);
+            connectionPool.evictExpiredConnections();
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(1), idleCountBeforeEviction);
+            Assert.assertEquals(Integer.valueOf(0), connectionPool.getIdleConnectionCount());
+            Assert.assertFalse(connection.isOpen());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_evict_idle_connections_without_another_lease() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 200L, 300000L);
+        try {
+            final Route route = _getRoute(httpTestServer);
+            final Container<Boolean> isReusable = new Container<Boolean>();
+
+            final HttpConnection connection = connectionPool.lease(route);
+            _exchange(connection, "/", isReusable);
+            connectionPool.release(connection, isReusable.value);
+            final Integer idleCountAfterRelease = connectionPool.getIdleConnectionCount();
+
+            // Action
+            HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+                @Override
+                public Boolean isMet() {
+                    return (! connection.isOpen());
+                }
+            });
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(1), idleCountAfterRelease);
+            Assert.assertEquals(Integer.valueOf(0), connectionPool.getIdleConnectionCount());
+            Assert.assertEquals(Integer.valueOf(0), connectionPool.getRouteCount());
+            Assert.assertTrue((System.currentTimeMillis() - connection.getLastUsedAt()) >= 200L);
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_not_reuse_a_connection_beyond_its_lifetime() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 50L);
+        try {
+            final Route route = _getRoute(httpTestServer);
+            final HttpConnection connection = connectionPool.lease(route);
+            connectionPool.release(connection, true);
+
+            // Action
+            Thread.sleep(100L);
+            connection.markUsed(); // NOTE: The connection has not been idle for longer than maxIdleTime, only open for longer than maxLifetime.
+            final HttpConnection newConnection = connectionPool.lease(route);
+
+            // Assert
+            Assert.assertNotSame(connection, newConnection);
+            Assert.assertFalse(connection.isOpen());
+            _waitForConnectionCount(httpTestServer, 2);
+            connectionPool.release(newConnection, false);
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_replace_a_connection_closed_by_the_server() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/close", _newRawHandler("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nok", false));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            final Route route = _getRoute(httpTestServer);
+            final Container<Boolean> isReusable = new Container<Boolean>();
+
+            final HttpConnection connection = connectionPool.lease(route);
+            final Boolean wasStaleWhileOpen = connection.isStale();
+            _exchange(connection, "/close", isReusable);
+            connectionPool.release(connection, isReusable.value);
+
+            // Action
+            _waitUntilStale(connection);
+            final HttpConnection newConnection = connectionPool.lease(route);
+
+            // Assert
+            Assert.assertFalse(wasStaleWhileOpen);
+            Assert.assertTrue(isReusable.value); // NOTE: The response did not indicate the server would close the connection.
+            Assert.assertNotSame(connection, newConnection);
+            Assert.assertFalse(newConnection.isStale());
+            _waitForConnectionCount(httpTestServer, 2);
+            connectionPool.release(newConnection, false);
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_detect_unsolicited_bytes_as_stale() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/extra", _newRawHandler("HTTP/1.1 200 OK\r\nContent-Length: 2\r\n\r\nokEXTRA", true));
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            final Route route = _getRoute(httpTestServer);
+            final Container<Boolean> isReusable = new Container<Boolean>();
+            final HttpConnection connection = connectionPool.lease(route);
+
+            // Action
+            final String body = _exchange(connection, "/extra", isReusable);
+            final long startTime = System.nanoTime();
+            final Boolean isStale = connection.isStale();
+            final long elapsedMs = ((System.nanoTime() - startTime) / 1000000L);
+
+            // Assert
+            Assert.assertEquals("ok", body);
+            Assert.assertTrue(isStale);
+            Assert.assertTrue(elapsedMs < 100L);
+            connectionPool.release(connection, false);
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.ConnectTimeoutException;
+import com.softwareverde.http.dns.DnsResolver;
+import com.softwareverde.http.dns.StaticDnsResolver;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HttpConnectorTests {
+    /**
+     * A listening socket that never completes a connection: its accept backlog is filled and never accepted, so further SYNs are dropped.
+     *  Used in place of an unroutable address, which may fail fast (or be routed) depending on the network.
+     */
+    protected static class BlackholeServer implements AutoCloseable {
+        protected final ServerSocket _serverSocket;
+        protected final List<Socket> _backlogSockets = new ArrayList<Socket>();
+
+        public BlackholeServer(final InetAddress address, final Integer port) throws IOException {
+            _serverSocket = new ServerSocket(port, 1, address);
+            while (true) {
+                final Socket socket = new Socket();
+                try {
+                    socket.connect(new InetSocketAddress(address, _serverSocket.getLocalPort()), 200);
+                    _backlogSockets.add(socket);
+                }
+                catch (final IOException exception) {
+                    socket.close();
+                    break;
+                }
+            }
+        }
+
+        public Integer getPort() {
+            return _serverSocket.getLocalPort();
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (final Socket socket : _backlogSockets) {
+                socket.close();
+            }
+            _serverSocket.close();
+        }
+    }
+
+    protected static InetAddress _getAddress(final String address) throws UnknownHostException {
+        return InetAddress.getByName(address); // NOTE: Literal addresses are not looked up.
+    }
+
+    protected static Route _getRoute(final String host, final Integer port) {
+        return new Route(false, host, port, true);
+    }
+
+    @Test
+    public void should_interleave_address_families_beginning_with_the_preferred_family() throws Exception {
+        // Setup
+        final List<InetAddress> addresses = Arrays.asList(
+            _getAddress("2001:db8::1"),
+            _getAddress("2001:db8::2"),
+            _getAddress("2001:db8::3"),
+            _getAddress("192.0.2.1"),
+            _getAddress("192.0.2.2")
+        );
+
+        // Action
+        final List<InetAddress> interleavedAddresses = HttpConnector._interleaveAddressFamilies(addresses);
+
+        // Assert
+        Assert.assertEquals(Arrays.asList(
+            _getAddress("2001:db8::1"),
+            _getAddress("192.0.2.1"),
+            _getAddress("2001:db8::2"),
+            _getAddress("192.0.2.2"),
+            _getAddress("2001:db8::3")
+        ), interleavedAddresses);
+    }
+
+    @Test
+    public void should_attempt_the_next_address_after_the_connection_attempt_delay() throws Exception {
+        // Setup
+        final InetAddress blackholeAddress = _getAddress("127.0.0.2");
+        final InetAddress liveAddress = _getAddress("127.0.0.1");
+
+        try (final BlackholeServer blackholeServer = new BlackholeServer(blackholeAddress, 0);
+             final ServerSocket liveServerSocket = new ServerSocket(blackholeServer.getPort(), 50, liveAddress)) {
+
+            final StaticDnsResolver dnsResolver = new StaticDnsResolver();
+            dnsResolver.addHost("dual.test", blackholeAddress, liveAddress);
+            final HttpConnector httpConnector = new HttpConnector(TlsContext.getDefault(), dnsResolver);
+
+            // Action
+            final long startedAt = System.nanoTime();
+            final HttpConnection connection = httpConnector.connect(_getRoute("dual.test", blackholeServer.getPort()), null, 5000L);
+            final long elapsedMs = ((System.nanoTime() - startedAt) / 1000000L);
+
+            // Assert
+            Assert.assertEquals(liveAddress, ((InetSocketAddress) connection.getSocket().getRemoteSocketAddress()).getAddress());
+            Assert.assertTrue(elapsedMs >= HttpConnector.DEFAULT_CONNECTION_ATTEMPT_DELAY_MS);
+            Assert.assertTrue(elapsedMs < 2000L);
+            connection.close();
+        }
+    }
+
+    @Test
+    public void should_stagger_each_attempt_by_the_connection_attempt_delay() throws Exception {
+        // Setup
+        final InetAddress firstBlackholeAddress = _getAddress("127.0.0.2");
+        final InetAddress secondBlackholeAddress = _getAddress("127.0.0.3");
+        final InetAddress liveAddress = _getAddress("127.0.0.1");
+
+        try (final BlackholeServer firstBlackholeServer = new BlackholeServer(firstBlackholeAddress, 0);
+             final BlackholeServer secondBlackholeServer = new BlackholeServer(secondBlackholeAddress, firstBlackholeServer.getPort());
+             final ServerSocket liveServerSocket = new ServerSocket(firstBlackholeServer.getPort(), 50, liveAddress)) {
+
+            final StaticDnsResolver dnsResolver = new StaticDnsResolver();
+            dnsResolver.addHost("multi.test", firstBlackholeAddress, secondBlackholeAddress, liveAddress);
+            final HttpConnector httpConnector = new HttpConnector(TlsContext.getDefault(), dnsResolver);
+            httpConnector.setConnectionAttemptDelay(150L);
+
+            // Action
+            final long startedAt = System.nanoTime();
+            final HttpConnection connection = httpConnector.connect(_getRoute("multi.test", firstBlackholeServer.getPort()), null, 5000L);
+            final long elapsedMs = ((System.nanoTime() - startedAt) / 1000000L);
+
+            // Assert
+            Assert.assertEquals(liveAddress, ((InetSocketAddress) connection.getSocket().getRemoteSocketAddress()).getAddress());
+            Assert.assertTrue(elapsedMs >= 300L);
+            Assert.assertTrue(elapsedMs < 2000L);
+            connection.close();
+        }
+    }
+
+    @Test
+    public void should_enforce_the_connect_timeout_around_resolution() throws Exception {
+        // Setup
+        final AtomicInteger lookupCount = new AtomicInteger(0);
+        final CountDownLatch resolveLatch = new CountDownLatch(1);
+        final DnsResolver dnsResolver = new DnsResolver() {
+            @Override
+            public List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+                lookupCount.incrementAndGet();
+                try {
+                    resolveLatch.await(5L, TimeUnit.SECONDS);
+                }
+                catch (final InterruptedException exception) { }
+                throw new UnknownHostException(hostname);
+            }
+        };
+        final HttpConnector httpConnector = new HttpConnector(TlsContext.getDefault(), dnsResolver);
+
+        try {
+            // Action
+            ConnectTimeoutException connectTimeoutException = null;
+            final long startedAt = System.nanoTime();
+            try {
+                httpConnector.connect(_getRoute("slow.test", 80), null, 200L);
+            }
+            catch (final ConnectTimeoutException exception) {
+                connectTimeoutException = exception;
+            }
+            final long elapsedMs = ((System.nanoTime() - startedAt) / 1000000L);
+
+            // Assert
+            Assert.assertNotNull(connectTimeoutException);
+            Assert.assertTrue(elapsedMs >= 200L);
+            Assert.assertTrue(elapsedMs < 2000L);
+            Assert.assertEquals(1, lookupCount.get());
+        }
+        finally {
+            resolveLatch.countDown();
+        }
+    }
+
+    @Test
+    public void should_report_a_failed_lookup_within_the_connect_timeout() throws Exception {
+        // Setup
+        final HttpConnector httpConnector = new HttpConnector(TlsContext.getDefault(), new StaticDnsResolver());
+
+        // Action
+        IOException failure = null;
+        try {
+            httpConnector.connect(_getRoute("missing.test", 80), null, 5000L);
+        }
+        catch (final IOException exception) {
+            failure = exception;
+        }
+
+        // Assert
+        Assert.assertTrue(failure instanceof UnknownHostException);
+    }
+}
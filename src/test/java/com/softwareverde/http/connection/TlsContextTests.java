@@ -0,0 +1,154 @@
+package com.softwareverde.http.connection;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TlsContextTests {
+    protected static final String CIPHER_SUITE = "TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256";
+
+    protected static HttpTestServer _newTlsServer(final Boolean keepsConnectionsOpen) throws Exception {
+        final HttpTestServer httpTestServer = new HttpTestServer(HttpTestServer.newServerSslContext());
+        httpTestServer.setHandler("/", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                if (keepsConnectionsOpen) {
+                    HttpTestServer.writeResponse(outputStream, 200, "ok");
+                }
+                else {
+                    HttpTestServer.writeResponse(outputStream, 200, "ok", "Connection: close");
+                }
+                return keepsConnectionsOpen;
+            }
+        });
+        httpTestServer.start();
+        return httpTestServer;
+    }
+
+    protected static IllegalArgumentException _setEnabledProtocols(final TlsContext tlsContext, final List<String> enabledProtocols) {
+        try {
+            tlsContext.setEnabledProtocols(enabledProtocols);
+            return null;
+        }
+        catch (final IllegalArgumentException exception) {
+            return exception;
+        }
+    }
+
+    protected static IllegalArgumentException _setEnabledCipherSuites(final TlsContext tlsContext, final List<String> enabledCipherSuites) {
+        try {
+            tlsContext.setEnabledCipherSuites(enabledCipherSuites);
+            return null;
+        }
+        catch (final IllegalArgumentException exception) {
+            return exception;
+        }
+    }
+
+    @Test
+    public void should_create_one_ssl_context_per_trust_configuration() throws Exception {
+        // Setup
+        final SSLContext providedSslContext = HttpTestServer.newClientSslContext();
+        final TlsContext tlsContext = new TlsContext(providedSslContext);
+
+        // Action
+        final SSLContext validatingSslContext = tlsContext._getSslContext(true);
+        final SSLContext naiveSslContext = tlsContext._getSslContext(false);
+
+        // Assert
+        Assert.assertSame(providedSslContext, validatingSslContext);
+        Assert.assertSame(validatingSslContext, tlsContext._getSslContext(true));
+        Assert.assertSame(naiveSslContext, tlsContext._getSslContext(false));
+        Assert.assertNotSame(validatingSslContext, naiveSslContext);
+    }
+
+    @Test
+    public void should_resume_the_session_when_reconnecting() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = _newTlsServer(false);
+        final TlsContext tlsContext = new TlsContext(HttpTestServer.newClientSslContext());
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(tlsContext), 4, 60000L, 300000L);
+        try {
+            final List<HttpResponse> httpResponses = new ArrayList<HttpResponse>();
+
+            // Action
+            for (int i = 0; i < 2; ++i) {
+                final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/"));
+                httpRequest.setConnectionPool(connectionPool);
+                httpResponses.add(httpRequest.executeAsync().get(5L, TimeUnit.SECONDS));
+            }
+
+            // Assert
+            for (final HttpResponse httpResponse : httpResponses) {
+                Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            }
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getConnectionCount());
+            Assert.assertEquals(Long.valueOf(2L), tlsContext.getHandshakeCount());
+            Assert.assertEquals(Long.valueOf(1L), tlsContext.getResumedHandshakeCount());
+            Assert.assertEquals(Long.valueOf(0L), tlsContext.getFailedHandshakeCount());
+            Assert.assertTrue(tlsContext.getHandshakeNanos() > 0L);
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_offer_only_the_enabled_protocols_and_cipher_suites() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = _newTlsServer(true);
+        final TlsContext tlsContext = new TlsContext(HttpTestServer.newClientSslContext());
+        tlsContext.setEnabledProtocols(Arrays.asList("TLSv1.2"));
+        tlsContext.setEnabledCipherSuites(Arrays.asList(CIPHER_SUITE));
+
+        final HttpConnector httpConnector = new HttpConnector(tlsContext);
+        final HttpConnection connection = httpConnector.connect(new Route(true, "localhost", httpTestServer.getPort(), true), null, 5000L);
+        try {
+            // Action
+            final SSLSession sslSession = ((SSLSocket) connection.getSocket()).getSession();
+
+            // Assert
+            Assert.assertEquals("TLSv1.2", sslSession.getProtocol());
+            Assert.assertEquals(CIPHER_SUITE, sslSession.getCipherSuite());
+            Assert.assertEquals(Arrays.asList("TLSv1.2"), tlsContext.getEnabledProtocols());
+            Assert.assertEquals(Arrays.asList(CIPHER_SUITE), tlsContext.getEnabledCipherSuites());
+        }
+        finally {
+            connection.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_reject_unsupported_protocols_and_cipher_suites() throws Exception {
+        // Setup
+        final TlsContext tlsContext = new TlsContext(null);
+        tlsContext.setEnabledProtocols(Arrays.asList("TLSv1.3", "TLSv1.2"));
+
+        // Action
+        final IllegalArgumentException unsupportedProtocolException = _setEnabledProtocols(tlsContext, Arrays.asList("TLSv1.2", "TLSv0.9"));
+        final IllegalArgumentException emptyProtocolsException = _setEnabledProtocols(tlsContext, new ArrayList<String>());
+        final IllegalArgumentException unsupportedCipherSuiteException = _setEnabledCipherSuites(tlsContext, Arrays.asList("TLS_NOT_A_CIPHER_SUITE"));
+
+        // Assert
+        Assert.assertNotNull(unsupportedProtocolException);
+        Assert.assertTrue(unsupportedProtocolException.getMessage().contains("TLSv0.9"));
+        Assert.assertNotNull(emptyProtocolsException);
+        Assert.assertNotNull(unsupportedCipherSuiteException);
+        Assert.assertEquals(Arrays.asList("TLSv1.3", "TLSv1.2"), tlsContext.getEnabledProtocols());
+        Assert.assertNull(tlsContext.getEnabledCipherSuites());
+    }
+}
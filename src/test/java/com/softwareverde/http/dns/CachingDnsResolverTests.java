@@ -0,0 +1,136 @@
+package com.softwareverde.http.dns;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CachingDnsResolverTests {
+    /**
+     * Resolves every hostname to 127.0.0.1, except hostnames beginning with "missing", which fail; records each lookup.
+     */
+    protected static class CountingDnsResolver implements DnsResolver {
+        public final List<String> lookups = new ArrayList<String>();
+
+        @Override
+        public synchronized List<InetAddress> resolve(final String hostname) throws UnknownHostException {
+            lookups.add(hostname);
+            if (hostname.startsWith("missing")) { throw new UnknownHostException(hostname); }
+
+            final List<InetAddress> addresses = new ArrayList<InetAddress>();
+            addresses.add(InetAddress.getByAddress(hostname, new byte[]{ 127, 0, 0, 1 }));
+            return addresses;
+        }
+
+        public synchronized Integer getLookupCount(final String hostname) {
+            int lookupCount = 0;
+            for (final String lookup : lookups) {
+                if (lookup.equals(hostname)) {
+                    lookupCount += 1;
+                }
+            }
+            return lookupCount;
+        }
+    }
+
+    protected static UnknownHostException _getFailure(final DnsResolver dnsResolver, final String hostname) {
+        try {
+            dnsResolver.resolve(hostname);
+            return null;
+        }
+        catch (final UnknownHostException exception) {
+            return exception;
+        }
+    }
+
+    @Test
+    public void should_cache_addresses_until_the_ttl_expires() throws Exception {
+        // Setup
+        final CountingDnsResolver countingDnsResolver = new CountingDnsResolver();
+        final CachingDnsResolver cachingDnsResolver = new CachingDnsResolver(countingDnsResolver, 200L, 200L);
+
+        // Action
+        final List<InetAddress> addresses = cachingDnsResolver.resolve("example.test");
+        cachingDnsResolver.resolve("EXAMPLE.test");
+        final Integer lookupCountWhileCached = countingDnsResolver.getLookupCount("example.test");
+
+        Thread.sleep(300L);
+        cachingDnsResolver.resolve("example.test");
+
+        // Assert
+        Assert.assertEquals("127.0.0.1", addresses.get(0).getHostAddress());
+        Assert.assertEquals(Integer.valueOf(1), lookupCountWhileCached);
+        Assert.assertEquals(Integer.valueOf(2), countingDnsResolver.getLookupCount("example.test"));
+        Assert.assertEquals(Long.valueOf(1L), cachingDnsResolver.getHitCount());
+        Assert.assertEquals(Long.valueOf(2L), cachingDnsResolver.getMissCount());
+    }
+
+    @Test
+    public void should_cache_failed_lookups_until_the_negative_ttl_expires() throws Exception {
+        // Setup
+        final CountingDnsResolver countingDnsResolver = new CountingDnsResolver();
+        final CachingDnsResolver cachingDnsResolver = new CachingDnsResolver(countingDnsResolver, 60000L, 200L);
+
+        // Action
+        final UnknownHostException firstFailure = _getFailure(cachingDnsResolver, "missing.test");
+        final UnknownHostException cachedFailure = _getFailure(cachingDnsResolver, "missing.test");
+        final Integer lookupCountWhileCached = countingDnsResolver.getLookupCount("missing.test");
+
+        Thread.sleep(300L);
+        final UnknownHostException expiredFailure = _getFailure(cachingDnsResolver, "missing.test");
+
+        // Assert
+        Assert.assertNotNull(firstFailure);
+        Assert.assertNotNull(cachedFailure);
+        Assert.assertNotNull(expiredFailure);
+        Assert.assertEquals(Integer.valueOf(1), lookupCountWhileCached);
+        Assert.assertEquals(Integer.valueOf(2), countingDnsResolver.getLookupCount("missing.test"));
+    }
+
+    @Test
+    public void should_evict_the_oldest_entry_once_full() throws Exception {
+        // Setup
+        final CountingDnsResolver countingDnsResolver = new CountingDnsResolver();
+        final CachingDnsResolver cachingDnsResolver = new CachingDnsResolver(countingDnsResolver, 60000L, 60000L, 2);
+
+        // Action
+        cachingDnsResolver.resolve("first.test");
+        cachingDnsResolver.resolve("second.test");
+        cachingDnsResolver.resolve("third.test");
+        final Integer entryCount = cachingDnsResolver.getEntryCount();
+
+        cachingDnsResolver.resolve("third.test");
+        cachingDnsResolver.resolve("second.test");
+        cachingDnsResolver.resolve("first.test");
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(2), entryCount);
+        Assert.assertEquals(Integer.valueOf(1), countingDnsResolver.getLookupCount("third.test"));
+        Assert.assertEquals(Integer.valueOf(1), countingDnsResolver.getLookupCount("second.test"));
+        Assert.assertEquals(Integer.valueOf(2), countingDnsResolver.getLookupCount("first.test"));
+    }
+
+    @Test
+    public void should_remove_expired_entries_before_evicting_fresh_entries() throws Exception {
+        // Setup
+        final CountingDnsResolver countingDnsResolver = new CountingDnsResolver();
+        final CachingDnsResolver cachingDnsResolver = new CachingDnsResolver(countingDnsResolver, 60000L, 100L, 2);
+
+        // Action
+        cachingDnsResolver.resolve("first.test");
+        _getFailure(cachingDnsResolver, "missing.test");
+        Thread.sleep(200L);
+        cachingDnsResolver.resolve("second.test");
+
+        cachingDnsResolver.resolve("first.test");
+        cachingDnsResolver.resolve("second.test");
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(2), cachingDnsResolver.getEntryCount());
+        Assert.assertEquals(Integer.valueOf(1), countingDnsResolver.getLookupCount("first.test"));
+        Assert.assertEquals(Integer.valueOf(1), countingDnsResolver.getLookupCount("second.test"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.softwareverde.http.hedge;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HedgePolicyTests {
+    @Test
+    public void should_cap_hedges_at_the_max_hedge_ratio() {
+        // Setup
+        final HedgePolicy hedgePolicy = new HedgePolicy(10L);
+        hedgePolicy.setMaxHedgeRatio(0.5D);
+
+        // Action
+        hedgePolicy.onRequest();
+        final Boolean hedgeAfterOneRequest = hedgePolicy.tryAcquireHedge();
+        hedgePolicy.onRequest();
+        final Boolean hedgeAfterTwoRequests = hedgePolicy.tryAcquireHedge();
+        final Boolean secondHedgeAfterTwoRequests = hedgePolicy.tryAcquireHedge();
+
+        // Assert
+        Assert.assertFalse(hedgeAfterOneRequest);
+        Assert.assertTrue(hedgeAfterTwoRequests);
+        Assert.assertFalse(secondHedgeAfterTwoRequests);
+        Assert.assertEquals(Long.valueOf(1L), hedgePolicy.getHedgeCount());
+    }
+
+    @Test
+    public void should_bound_the_accumulated_hedge_balance() {
+        // Setup
+        final HedgePolicy hedgePolicy = new HedgePolicy(10L);
+        hedgePolicy.setMaxHedgeRatio(0.1D);
+        for (int i = 0; i < 10000; ++i) {
+            hedgePolicy.onRequest();
+        }
+
+        // Action
+        int hedgeCount = 0;
+        while (hedgePolicy.tryAcquireHedge()) {
+            hedgeCount += 1;
+        }
+
+        // Assert
+        Assert.assertEquals((int) (0.1D * HedgePolicy.MAX_BALANCE_REQUEST_COUNT), hedgeCount);
+    }
+
+    @Test
+    public void should_use_the_percentile_delay_once_sampled() {
+        // Setup
+        final HedgePolicy hedgePolicy = new HedgePolicy(0.9D, 500L);
+        hedgePolicy.setMinSampleCount(100);
+
+        // Action
+        for (long latency = 1L; latency < 100L; ++latency) {
+            hedgePolicy.recordLatency(latency);
+        }
+        final Long initialDelay = hedgePolicy.getHedgeDelay();
+        hedgePolicy.recordLatency(100L);
+        final Long percentileDelay = hedgePolicy.getHedgeDelay();
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(500L), initialDelay);
+        Assert.assertEquals(Long.valueOf(90L), percentileDelay);
+    }
+
+    @Test
+    public void should_hedge_a_slow_request_without_modifying_its_headers() throws Exception {
+        // Setup
+        final AtomicInteger requestCount = new AtomicInteger(0);
+        final CountDownLatch releaseOriginalLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/slow", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                if (requestCount.incrementAndGet() == 1) { // NOTE: Usually the original attempt, though the hedge may arrive first.
+                    releaseOriginalLatch.await();
+                    return false;
+                }
+
+                HttpTestServer.writeResponse(outputStream, 200, "hedge");
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final HedgePolicy hedgePolicy = new HedgePolicy(50L);
+            hedgePolicy.setMaxHedgeRatio(1D);
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/slow"));
+            httpRequest.setHedgePolicy(hedgePolicy);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals(Long.valueOf(1L), hedgePolicy.getHedgeCount());
+
+            final List<HttpTestServer.Request> requests = httpTestServer.getRequests();
+            Assert.assertEquals(2, requests.size());
+            for (final HttpTestServer.Request request : requests) {
+                Assert.assertEquals("http://localhost", request.getHeader("Origin"));
+            }
+            Assert.assertFalse(httpRequest.getHeaderKeys().contains("Origin"));
+        }
+        finally {
+            releaseOriginalLatch.countDown();
+            httpTestServer.close();
+        }
+    }
+}
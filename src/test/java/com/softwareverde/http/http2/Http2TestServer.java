@@ -0,0 +1,321 @@
+package com.softwareverde.http.http2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal in-process HTTP/2 server (h2c with prior knowledge) used to exercise Http2Connection.
+ *  Supported paths:
+ *      /hello          responds with "Hello"
+ *      /echo           responds with the request's method, followed by the request body
+ *      /slow           responds with "Slow" after 250ms
+ *      /big?n=<count>  responds with <count> bytes
+ *  Response DATA honors the client's flow-control windows; request DATA is acknowledged as soon as it is received.
+ */
+public class Http2TestServer implements AutoCloseable {
+    protected static final byte[] CONNECTION_PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    protected static class Request {
+        public final int streamId;
+        public final Map<String, String> headers = new HashMap<String, String>();
+        public final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        public long sendWindow;
+
+        public Request(final int streamId, final long sendWindow) {
+            this.streamId = streamId;
+            this.sendWindow = sendWindow;
+        }
+    }
+
+    protected class ServerConnection implements Runnable {
+        protected final Socket _socket;
+        protected final InputStream _inputStream;
+        protected final OutputStream _outputStream;
+        protected final HpackEncoder _hpackEncoder = new HpackEncoder();
+        protected final HpackDecoder _hpackDecoder = new HpackDecoder(HpackHeaderTable.DEFAULT_MAX_SIZE, Integer.MAX_VALUE);
+        protected final Map<Integer, Request> _requests = new HashMap<Integer, Request>();
+
+        protected long _connectionSendWindow = Http2Connection.DEFAULT_WINDOW_SIZE;
+        protected long _initialSendWindow = Http2Connection.DEFAULT_WINDOW_SIZE;
+        protected int _openStreamCount = 0;
+
+        protected void _writeFrame(final int type, final int flags, final int streamId, final byte[] payload, final int offset, final int byteCount) throws IOException {
+            synchronized (_outputStream) {
+                Http2Frame.write(_outputStream, type, flags, streamId, payload, offset, byteCount);
+                _outputStream.flush();
+            }
+        }
+
+        protected void _writeWindowUpdate(final int streamId, final int windowIncrement) throws IOException {
+            final byte[] payload = new byte[4];
+            Http2Frame.writeInt(windowIncrement, payload, 0);
+            _writeFrame(Http2Frame.Type.WINDOW_UPDATE, 0, streamId, payload, 0, payload.length);
+        }
+
+        protected void _respond(final Request request) throws Exception {
+            final String path = request.headers.get(":path");
+            final byte[] responseBody;
+            if (path.equals("/hello")) {
+                responseBody = "Hello".getBytes(StandardCharsets.UTF_8);
+            }
+            else if (path.equals("/echo")) {
+                final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+                byteArrayOutputStream.write(request.headers.get(":method").getBytes(StandardCharsets.UTF_8));
+                byteArrayOutputStream.write(request.body.toByteArray());
+                responseBody = byteArrayOutputStream.toByteArray();
+            }
+            else if (path.equals("/slow")) {
+                Thread.sleep(250L);
+                responseBody = "Slow".getBytes(StandardCharsets.UTF_8);
+            }
+            else if (path.startsWith("/big?n=")) {
+                responseBody = new byte[Integer.parseInt(path.substring(7))];
+                for (int i = 0; i < responseBody.length; ++i) {
+                    responseBody[i] = (byte) i;
+                }
+            }
+            else {
+                responseBody = new byte[0];
+            }
+
+            final List<HpackHeaderField> headerFields = new ArrayList<HpackHeaderField>();
+            headerFields.add(new HpackHeaderField(":status", (responseBody.length > 0 ? "200" : "404")));
+            headerFields.add(new HpackHeaderField("content-length", String.valueOf(responseBody.length)));
+            headerFields.add(new HpackHeaderField("x-stream-id", String.valueOf(request.streamId)));
+
+            synchronized (_outputStream) {
+                final ByteArrayOutputStream headerBlock = new ByteArrayOutputStream();
+                _hpackEncoder.encode(headerFields, headerBlock);
+                final byte[] headerBlockBytes = headerBlock.toByteArray();
+                final int flags = (Http2Frame.Flag.END_HEADERS | (responseBody.length == 0 ? Http2Frame.Flag.END_STREAM : 0));
+                _writeFrame(Http2Frame.Type.HEADERS, flags, request.streamId, headerBlockBytes, 0, headerBlockBytes.length);
+            }
+
+            int offset = 0;
+            while (offset < responseBody.length) {
+                final int byteCount;
+                synchronized (this) {
+                    while ( (_connectionSendWindow <= 0) || (request.sendWindow <= 0) ) {
+                        wait();
+                    }
+                    byteCount = (int) Math.min(Math.min(_connectionSendWindow, request.sendWindow), Math.min(Http2Frame.DEFAULT_MAX_FRAME_SIZE, (responseBody.length - offset)));
+                    _connectionSendWindow -= byteCount;
+                    request.sendWindow -= byteCount;
+                }
+
+                final boolean isLastFrame = ((offset + byteCount) >= responseBody.length);
+                _writeFrame(Http2Frame.Type.DATA, (isLastFrame ? Http2Frame.Flag.END_STREAM : 0), request.streamId, responseBody, offset, byteCount);
+                offset += byteCount;
+            }
+
+            synchronized (this) {
+                _requests.remove(request.streamId);
+                _openStreamCount -= 1;
+            }
+        }
+
+        protected void _onRequestComplete(final Request request) {
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        _respond(request);
+                    }
+                    catch (final Exception exception) {
+                        _close();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        protected void _close() {
+            try {
+                _socket.close();
+            }
+            catch (final IOException exception) { }
+        }
+
+        public ServerConnection(final Socket socket) throws IOException {
+            _socket = socket;
+            _inputStream = new BufferedInputStream(socket.getInputStream());
+            _outputStream = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        @Override
+        public void run() {
+            try {
+                final byte[] preface = new byte[CONNECTION_PREFACE.length];
+                int prefaceByteCount = 0;
+                while (prefaceByteCount < preface.length) {
+                    final int byteCount = _inputStream.read(preface, prefaceByteCount, (preface.length - prefaceByteCount));
+                    if (byteCount < 0) { return; }
+                    prefaceByteCount += byteCount;
+                }
+
+                { // Send the server's settings...
+                    final byte[] payload = new byte[6];
+                    payload[1] = (byte) Http2Frame.Setting.MAX_CONCURRENT_STREAMS;
+                    Http2Frame.writeInt(_maxConcurrentStreams, payload, 2);
+                    _writeFrame(Http2Frame.Type.SETTINGS, 0, 0, payload, 0, payload.length);
+                }
+
+                int headerStreamId = 0;
+                int headerFlags = 0;
+                ByteArrayOutputStream headerBlock = null;
+                while (true) {
+                    final Http2Frame frame = Http2Frame.read(_inputStream, Http2Frame.DEFAULT_MAX_FRAME_SIZE);
+                    final int type = frame.getType();
+                    final int streamId = frame.getStreamId();
+
+                    if ( (type == Http2Frame.Type.HEADERS) || (type == Http2Frame.Type.CONTINUATION) ) {
+                        if (type == Http2Frame.Type.HEADERS) {
+                            headerStreamId = streamId;
+                            headerFlags = frame.getFlags();
+                            headerBlock = new ByteArrayOutputStream();
+                        }
+                        headerBlock.write(frame.getPayload(), frame.getContentOffset(), frame.getContentByteCount());
+                        if (! frame.hasFlag(Http2Frame.Flag.END_HEADERS)) { continue; }
+
+                        final Request request;
+                        synchronized (this) {
+                            request = new Request(headerStreamId, _initialSendWindow);
+                            _requests.put(headerStreamId, request);
+                            _openStreamCount += 1;
+                            _maxObservedConcurrentStreamCount.set(Math.max(_maxObservedConcurrentStreamCount.get(), _openStreamCount));
+                        }
+                        for (final HpackHeaderField headerField : _hpackDecoder.decode(headerBlock.toByteArray())) {
+                            request.headers.put(headerField.getName(), headerField.getValue());
+                        }
+                        headerBlock = null;
+
+                        if ((headerFlags & Http2Frame.Flag.END_STREAM) != 0) {
+                            _onRequestComplete(request);
+                        }
+                    }
+                    else if (type == Http2Frame.Type.DATA) {
+                        final Request request;
+                        synchronized (this) {
+                            request = _requests.get(streamId);
+                        }
+                        request.body.write(frame.getPayload(), frame.getContentOffset(), frame.getContentByteCount());
+
+                        if (frame.getPayload().length > 0) {
+                            _writeWindowUpdate(0, frame.getPayload().length);
+                            if (! frame.hasFlag(Http2Frame.Flag.END_STREAM)) {
+                                _writeWindowUpdate(streamId, frame.getPayload().length);
+                            }
+                        }
+
+                        if (frame.hasFlag(Http2Frame.Flag.END_STREAM)) {
+                            _onRequestComplete(request);
+                        }
+                    }
+                    else if (type == Http2Frame.Type.SETTINGS) {
+                        if (frame.hasFlag(Http2Frame.Flag.ACK)) { continue; }
+
+                        final byte[] payload = frame.getPayload();
+                        for (int i = 0; i < payload.length; i += 6) {
+                            final int identifier = (((payload[i] & 0xFF) << 8) | (payload[i + 1] & 0xFF));
+                            if (identifier == Http2Frame.Setting.INITIAL_WINDOW_SIZE) {
+                                synchronized (this) {
+                                    _initialSendWindow = Http2Frame.readInt(payload, (i + 2));
+                                }
+                            }
+                        }
+                        _writeFrame(Http2Frame.Type.SETTINGS, Http2Frame.Flag.ACK, 0, new byte[0], 0, 0);
+                    }
+                    else if (type == Http2Frame.Type.WINDOW_UPDATE) {
+                        final int windowIncrement = Http2Frame.readInt(frame.getPayload(), 0);
+                        synchronized (this) {
+                            if (streamId == 0) {
+                                _connectionSendWindow += windowIncrement;
+                            }
+                            else {
+                                final Request request = _requests.get(streamId);
+                                if (request != null) {
+                                    request.sendWindow += windowIncrement;
+                                }
+                            }
+                            notifyAll();
+                        }
+                    }
+                    else if (type == Http2Frame.Type.PING) {
+                        if (! frame.hasFlag(Http2Frame.Flag.ACK)) {
+                            _writeFrame(Http2Frame.Type.PING, Http2Frame.Flag.ACK, 0, frame.getPayload(), 0, frame.getPayload().length);
+                        }
+                    }
+                    else if (type == Http2Frame.Type.GOAWAY) {
+                        break;
+                    }
+                }
+            }
+            catch (final Exception exception) { }
+            finally {
+                _close();
+            }
+        }
+    }
+
+    protected final ServerSocket _serverSocket;
+    protected final Integer _maxConcurrentStreams;
+    protected final AtomicInteger _connectionCount = new AtomicInteger(0);
+    protected final AtomicInteger _maxObservedConcurrentStreamCount = new AtomicInteger(0);
+
+    public Http2TestServer(final Integer maxConcurrentStreams) throws IOException {
+        _serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        _maxConcurrentStreams = maxConcurrentStreams;
+    }
+
+    public void start() {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (! _serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = _serverSocket.accept();
+                        _connectionCount.incrementAndGet();
+
+                        final Thread connectionThread = new Thread(new ServerConnection(socket));
+                        connectionThread.setDaemon(true);
+                        connectionThread.start();
+                    }
+                    catch (final IOException exception) { }
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public Integer getPort() {
+        return _serverSocket.getLocalPort();
+    }
+
+    public Integer getConnectionCount() {
+        return _connectionCount.get();
+    }
+
+    public Integer getMaxObservedConcurrentStreamCount() {
+        return _maxObservedConcurrentStreamCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _serverSocket.close();
+    }
+}
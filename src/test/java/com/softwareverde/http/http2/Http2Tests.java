@@ -0,0 +1,181 @@
+package com.softwareverde.http.http2;
+
+import com.softwareverde.constable.bytearray.MutableByteArray;
+import com.softwareverde.http.HttpMethod;
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestUtil;
+import com.softwareverde.http.connection.HttpConnectionPool;
+import com.softwareverde.http.connection.HttpConnector;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class Http2Tests {
+    protected Http2TestServer _server;
+    protected HttpConnectionPool _connectionPool;
+
+    protected HttpRequest _newHttpRequest(final HttpMethod method, final String path) {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(method, "http://localhost:" + _server.getPort() + path);
+        httpRequest.setHttp2Mode(Http2Mode.PRIOR_KNOWLEDGE);
+        httpRequest.setConnectionPool(_connectionPool);
+        return httpRequest;
+    }
+
+    @Before
+    public void setup() throws Exception {
+        _server = new Http2TestServer(16);
+        _server.start();
+        _connectionPool = new HttpConnectionPool(new HttpConnector(), HttpConnectionPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE, HttpConnectionPool.DEFAULT_MAX_IDLE_TIME_MS, HttpConnectionPool.DEFAULT_MAX_LIFETIME_MS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        _connectionPool.close();
+        _server.close();
+    }
+
+    @Test
+    public void should_execute_request_over_h2c_with_prior_knowledge() {
+        // Setup
+        final HttpRequest httpRequest = _newHttpRequest(HttpMethod.GET, "/hello");
+
+        // Action
+        final HttpResponse httpResponse = httpRequest.execute();
+
+        // Assert
+        Assert.assertNotNull(httpResponse);
+        Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+        Assert.assertEquals("Hello", new String(httpResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+        Assert.assertEquals("1", HttpRequest.getHeaderValue("x-stream-id", httpResponse.getHeaders()));
+    }
+
+    @Test
+    public void should_multiplex_concurrent_requests_over_a_single_connection() {
+        // Setup
+        final int requestCount = 64;
+        final List<CompletableFuture<HttpResponse>> responseFutures = new ArrayList<CompletableFuture<HttpResponse>>();
+
+        // Action
+        for (int i = 0; i < requestCount; ++i) {
+            final HttpRequest httpRequest = _newHttpRequest(HttpMethod.GET, "/slow");
+            responseFutures.add(httpRequest.executeAsync());
+        }
+
+        // Assert
+        for (final CompletableFuture<HttpResponse> responseFuture : responseFutures) {
+            final HttpResponse httpResponse = responseFuture.join();
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals("Slow", new String(httpResponse.getRawResult().getBytes(), StandardCharsets.UTF_8));
+        }
+
+        Assert.assertEquals(Integer.valueOf(1), _server.getConnectionCount());
+        Assert.assertTrue(_server.getMaxObservedConcurrentStreamCount() > 1);
+        Assert.assertTrue(_server.getMaxObservedConcurrentStreamCount() <= 16); // SETTINGS_MAX_CONCURRENT_STREAMS
+    }
+
+    @Test
+    public void should_honor_flow_control_windows_for_large_bodies() {
+        // Setup
+        final byte[] requestBody = new byte[(1024 * 1024) + 1];
+        for (int i = 0; i < requestBody.length; ++i) {
+            requestBody[i] = (byte) (i * 31);
+        }
+
+        final HttpRequest uploadRequest = _newHttpRequest(HttpMethod.POST, "/echo");
+        uploadRequest.setRequestData(MutableByteArray.wrap(requestBody));
+
+        final int downloadByteCount = (4 * 1024 * 1024);
+        final HttpRequest downloadRequest = _newHttpRequest(HttpMethod.GET, "/big?n=" + downloadByteCount);
+
+        // Action
+        final HttpResponse uploadResponse = uploadRequest.execute();
+        final HttpResponse downloadResponse = downloadRequest.execute();
+
+        // Assert
+        final byte[] uploadResponseBody = uploadResponse.getRawResult().getBytes();
+        Assert.assertEquals(("POST".length() + requestBody.length), uploadResponseBody.length);
+        for (int i = 0; i < requestBody.length; ++i) {
+            Assert.assertEquals(requestBody[i], uploadResponseBody[i + "POST".length()]);
+        }
+
+        final byte[] downloadResponseBody = downloadResponse.getRawResult().getBytes();
+        Assert.assertEquals(downloadByteCount, downloadResponseBody.length);
+        for (int i = 0; i < downloadResponseBody.length; ++i) {
+            Assert.assertEquals((byte) i, downloadResponseBody[i]);
+        }
+
+        Assert.assertEquals(Integer.valueOf(1), _server.getConnectionCount());
+    }
+
+    @Test
+    public void should_stream_response_body_with_bounded_chunks() throws Exception {
+        // Setup
+        final int byteCount = (8 * 1024 * 1024);
+        final HttpRequest httpRequest = _newHttpRequest(HttpMethod.GET, "/big?n=" + byteCount);
+        httpRequest.setStreamsResponseBody(true);
+
+        final long[] readByteCount = new long[1];
+        final boolean[] isValid = new boolean[]{ true };
+
+        // Action
+        final HttpResponse httpResponse = httpRequest.execute();
+        httpResponse.readBody(new HttpResponse.BodyChunkCallback() {
+            @Override
+            public void onChunk(final ByteBuffer chunk) {
+                while (chunk.hasRemaining()) {
+                    isValid[0] = ( isValid[0] && (chunk.get() == (byte) readByteCount[0]) );
+                    readByteCount[0] += 1L;
+                }
+            }
+        });
+
+        // Assert
+        Assert.assertNull(httpResponse.getRawResult());
+        Assert.assertEquals(byteCount, readByteCount[0]);
+        Assert.assertTrue(isValid[0]);
+    }
+
+    @Test
+    public void should_round_trip_header_blocks_through_hpack() throws Exception {
+        // Setup
+        final HpackEncoder hpackEncoder = new HpackEncoder();
+        final HpackDecoder hpackDecoder = new HpackDecoder(HpackHeaderTable.DEFAULT_MAX_SIZE, Integer.MAX_VALUE);
+
+        final List<HpackHeaderField> headerFields = new ArrayList<HpackHeaderField>();
+        headerFields.add(new HpackHeaderField(":method", "GET"));
+        headerFields.add(new HpackHeaderField(":path", "/index.html?query=value"));
+        headerFields.add(new HpackHeaderField("user-agent", "softwareverde-http"));
+        headerFields.add(new HpackHeaderField("authorization", "Bearer 0123456789abcdef"));
+        headerFields.add(new HpackHeaderField("x-binary", "\u0000\u00FF~|}{"));
+
+        // Action
+        final ByteArrayOutputStream firstHeaderBlock = new ByteArrayOutputStream();
+        hpackEncoder.encode(headerFields, firstHeaderBlock);
+        final ByteArrayOutputStream secondHeaderBlock = new ByteArrayOutputStream();
+        hpackEncoder.encode(headerFields, secondHeaderBlock);
+
+        final List<HpackHeaderField> firstDecodedHeaderFields = hpackDecoder.decode(firstHeaderBlock.toByteArray());
+        final List<HpackHeaderField> secondDecodedHeaderFields = hpackDecoder.decode(secondHeaderBlock.toByteArray());
+
+        // Assert
+        for (final List<HpackHeaderField> decodedHeaderFields : new List[]{ firstDecodedHeaderFields, secondDecodedHeaderFields }) {
+            Assert.assertEquals(headerFields.size(), decodedHeaderFields.size());
+            for (int i = 0; i < headerFields.size(); ++i) {
+                Assert.assertEquals(headerFields.get(i).getName(), decodedHeaderFields.get(i).getName());
+                Assert.assertEquals(headerFields.get(i).getValue(), decodedHeaderFields.get(i).getValue());
+            }
+        }
+
+        // The second block references the dynamic table (except for the never-indexed authorization header).
+        Assert.assertTrue(secondHeaderBlock.size() < (firstHeaderBlock.size() / 2));
+    }
+}
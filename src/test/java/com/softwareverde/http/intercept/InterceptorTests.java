@@ -0,0 +1,343 @@
+package com.softwareverde.http.intercept;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import com.softwareverde.http.connection.ResponseHead;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+public class InterceptorTests {
+    protected static Interceptor _newRecordingInterceptor(final String name, final List<String> invocations) {
+        return new Interceptor() {
+            @Override
+            public CompletableFuture<HttpResponse> intercept(final Chain chain) {
+                invocations.add(name);
+                final HttpRequest httpRequest = chain.getRequest();
+                httpRequest.setHeader("X-Interceptor-" + name, name);
+                return chain.proceed(httpRequest);
+            }
+        };
+    }
+
+    @Test
+    public void should_run_application_interceptors_in_order() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        try {
+            final List<String> invocations = Collections.synchronizedList(new ArrayList<String>());
+            final List<Interceptor> interceptors = new ArrayList<Interceptor>(2);
+            interceptors.add(_newRecordingInterceptor("first", invocations));
+            interceptors.add(_newRecordingInterceptor("second", invocations));
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/"));
+            httpRequest.setInterceptors(interceptors);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals(2, invocations.size());
+            Assert.assertEquals("first", invocations.get(0));
+            Assert.assertEquals("second", invocations.get(1));
+
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertEquals("first", request.getHeader("X-Interceptor-first"));
+            Assert.assertEquals("second", request.getHeader("X-Interceptor-second"));
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_not_send_a_request_an_interceptor_short_circuits() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        try {
+            final HttpResponse cachedResponse = new HttpResponse();
+            final List<Interceptor> interceptors = new ArrayList<Interceptor>(1);
+            interceptors.add(new Interceptor() {
+                @Override
+                public CompletableFuture<HttpResponse> intercept(final Chain chain) {
+                    return CompletableFuture.completedFuture(cachedResponse);
+                }
+            });
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/"));
+            httpRequest.setInterceptors(interceptors);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertSame(cachedResponse, httpResponse);
+            Assert.assertEquals(Integer.valueOf(0), httpTestServer.getRequestCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_send_the_request_again_when_an_interceptor_proceeds_again() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", new HttpTestServer.Handler() {
+            protected Integer _requestCount = 0;
+
+            @Override
+            public synchronized Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                _requestCount += 1;
+                HttpTestServer.writeResponse(outputStream, (_requestCount == 1 ? 503 : 200), "");
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final List<Interceptor> interceptors = new ArrayList<Interceptor>(1);
+            interceptors.add(new Interceptor() {
+                @Override
+                public CompletableFuture<HttpResponse> intercept(final Chain chain) {
+                    return chain.proceed(chain.getRequest()).thenCompose(new Function<HttpResponse, CompletableFuture<HttpResponse>>() {
+                        @Override
+                        public CompletableFuture<HttpResponse> apply(final HttpResponse httpResponse) {
+                            if (httpResponse.getResponseCode() != 503) {
+                                return CompletableFuture.completedFuture(httpResponse);
+                            }
+                            return chain.proceed(chain.getRequest());
+                        }
+                    });
+                }
+            });
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/"));
+            httpRequest.setInterceptors(interceptors);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals(Integer.valueOf(2), httpTestServer.getRequestCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_fail_the_request_when_an_interceptor_throws_or_returns_null() throws Exception {
+        // Setup
+        final IllegalArgumentException interceptorException = new IllegalArgumentException("Interceptor failure.");
+
+        final HttpRequest throwingHttpRequest = HttpTestUtil.newRequest("http://localhost/");
+        throwingHttpRequest.setInterceptors(Collections.<Interceptor>singletonList(new Interceptor() {
+            @Override
+            public CompletableFuture<HttpResponse> intercept(final Chain chain) {
+                throw interceptorException;
+            }
+        }));
+
+        final HttpRequest nullHttpRequest = HttpTestUtil.newRequest("http://localhost/");
+        nullHttpRequest.setInterceptors(Collections.<Interceptor>singletonList(new Interceptor() {
+            @Override
+            public CompletableFuture<HttpResponse> intercept(final Chain chain) {
+                return null;
+            }
+        }));
+
+        // Action
+        final Throwable throwingFailure = HttpTestUtil.getFailure(throwingHttpRequest.executeAsync());
+        final Throwable nullFailure = HttpTestUtil.getFailure(nullHttpRequest.executeAsync());
+
+        // Assert
+        Assert.assertSame(interceptorException, throwingFailure);
+        Assert.assertTrue(nullFailure instanceof IllegalStateException);
+    }
+
+    @Test
+    public void should_cancel_the_execution_an_interceptor_proceeded_with() throws Exception {
+        // Setup
+        final CountDownLatch requestReceivedLatch = new CountDownLatch(1);
+        final CountDownLatch respondLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/slow", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                requestReceivedLatch.countDown();
+                respondLatch.await();
+                return false;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final List<Interceptor> interceptors = new ArrayList<Interceptor>(1);
+            interceptors.add(new Interceptor() {
+                @Override
+                public CompletableFuture<HttpResponse> intercept(final Chain chain) {
+                    return chain.proceed(chain.getRequest()).thenApply(new Function<HttpResponse, HttpResponse>() {
+                        @Override
+                        public HttpResponse apply(final HttpResponse httpResponse) {
+                            return httpResponse;
+                        }
+                    });
+                }
+            });
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/slow"));
+            httpRequest.setInterceptors(interceptors);
+
+            final CompletableFuture<HttpResponse> responseFuture = httpRequest.executeAsync();
+            requestReceivedLatch.await();
+            final Boolean wasExecuting = httpRequest.isExecuting();
+
+            // Action
+            responseFuture.cancel(true);
+
+            // Assert
+            Assert.assertTrue(wasExecuting);
+            Assert.assertTrue(responseFuture.isCancelled());
+            Assert.assertFalse(httpRequest.isExecuting());
+        }
+        finally {
+            respondLatch.countDown();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_let_network_interceptors_modify_the_headers_sent_and_received() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        try {
+            final List<String> observedHeaders = Collections.synchronizedList(new ArrayList<String>());
+            final List<NetworkInterceptor> networkInterceptors = new ArrayList<NetworkInterceptor>(1);
+            networkInterceptors.add(new NetworkInterceptor() {
+                @Override
+                public ResponseHead intercept(final Chain chain) throws IOException {
+                    observedHeaders.add(chain.getHeader("host"));
+                    observedHeaders.add(chain.getHeader("accept-encoding"));
+
+                    chain.setHeader("X-Network", "1");
+                    chain.removeHeader("Accept-Encoding");
+
+                    final ResponseHead responseHead = chain.proceed();
+                    responseHead.addHeader("X-Intercepted", "true");
+                    return responseHead;
+                }
+            });
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/"));
+            httpRequest.setNetworkInterceptors(networkInterceptors);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals("localhost:" + httpTestServer.getPort(), observedHeaders.get(0));
+            Assert.assertNotNull(observedHeaders.get(1));
+
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertEquals("1", request.getHeader("X-Network"));
+            Assert.assertNull(request.getHeader("Accept-Encoding"));
+
+            Assert.assertEquals("true", HttpRequest.getHeaderValue("x-intercepted", httpResponse.getHeaders()));
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_run_network_interceptors_for_each_redirect() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/redirect", HttpTestServer.newHandler(302, "", "Location: /target"));
+        httpTestServer.setHandler("/target", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        try {
+            final List<String> interceptedPaths = Collections.synchronizedList(new ArrayList<String>());
+            final List<NetworkInterceptor> networkInterceptors = new ArrayList<NetworkInterceptor>(1);
+            networkInterceptors.add(new NetworkInterceptor() {
+                @Override
+                public ResponseHead intercept(final Chain chain) throws IOException {
+                    interceptedPaths.add(chain.getUrl().getPath());
+                    return chain.proceed();
+                }
+            });
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/redirect"));
+            httpRequest.setFollowsRedirects(true);
+            httpRequest.setNetworkInterceptors(networkInterceptors);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals(2, interceptedPaths.size());
+            Assert.assertEquals("/redirect", interceptedPaths.get(0));
+            Assert.assertEquals("/target", interceptedPaths.get(1));
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_fail_the_request_when_a_network_interceptor_does_not_proceed() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        try {
+            final List<NetworkInterceptor> networkInterceptors = new ArrayList<NetworkInterceptor>(1);
+            networkInterceptors.add(new NetworkInterceptor() {
+                @Override
+                public ResponseHead intercept(final Chain chain) {
+                    return new ResponseHead("HTTP/1.1", 200, "OK");
+                }
+            });
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/"));
+            httpRequest.setNetworkInterceptors(networkInterceptors);
+
+            // Action
+            final Throwable failure = HttpTestUtil.getFailure(httpRequest.executeAsync());
+
+            // Assert
+            Assert.assertTrue(failure instanceof IllegalStateException);
+            Assert.assertEquals(Integer.valueOf(0), httpTestServer.getRequestCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+}
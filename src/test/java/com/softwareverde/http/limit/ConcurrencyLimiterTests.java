@@ -0,0 +1,238 @@
+package com.softwareverde.http.limit;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import com.softwareverde.http.retry.RetryBudget;
+import com.softwareverde.http.retry.RetryPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrencyLimiterTests {
+    protected static Runnable _newRecorder(final List<String> acquiredNames, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                acquiredNames.add(name);
+            }
+        };
+    }
+
+    protected static HttpResponse _newResponse(final Integer responseCode) {
+        return new HttpResponse() {{
+            _responseCode = responseCode;
+        }};
+    }
+
+    @Test
+    public void should_queue_attempts_beyond_the_limit_in_order() {
+        // Setup
+        final ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(1, null);
+        final List<String> acquiredNames = new ArrayList<String>();
+        final CompletableFuture<HttpResponse> firstFuture = new CompletableFuture<HttpResponse>();
+        final CompletableFuture<HttpResponse> secondFuture = new CompletableFuture<HttpResponse>();
+        final CompletableFuture<HttpResponse> thirdFuture = new CompletableFuture<HttpResponse>();
+
+        // Action
+        concurrencyLimiter.acquire("http://a:80", firstFuture, _newRecorder(acquiredNames, "first"));
+        concurrencyLimiter.acquire("http://b:80", secondFuture, _newRecorder(acquiredNames, "second"));
+        concurrencyLimiter.acquire("http://c:80", thirdFuture, _newRecorder(acquiredNames, "third"));
+        final Integer queuedCount = concurrencyLimiter.getQueuedCount();
+
+        firstFuture.complete(_newResponse(200));
+        final List<String> acquiredNamesAfterFirst = new ArrayList<String>(acquiredNames);
+
+        secondFuture.complete(_newResponse(200));
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(2), queuedCount);
+        Assert.assertEquals(2, acquiredNamesAfterFirst.size());
+        Assert.assertEquals("second", acquiredNamesAfterFirst.get(1));
+        Assert.assertEquals(3, acquiredNames.size());
+        Assert.assertEquals("third", acquiredNames.get(2));
+        Assert.assertEquals(Integer.valueOf(1), concurrencyLimiter.getActiveCount());
+    }
+
+    @Test
+    public void should_not_hold_up_an_origin_with_capacity_behind_a_saturated_origin() {
+        // Setup
+        final ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(null, 1);
+        final List<String> acquiredNames = new ArrayList<String>();
+        final CompletableFuture<HttpResponse> slowFuture = new CompletableFuture<HttpResponse>();
+        final CompletableFuture<HttpResponse> queuedSlowFuture = new CompletableFuture<HttpResponse>();
+        final CompletableFuture<HttpResponse> fastFuture = new CompletableFuture<HttpResponse>();
+
+        // Action
+        concurrencyLimiter.acquire("http://slow:80", slowFuture, _newRecorder(acquiredNames, "slow"));
+        concurrencyLimiter.acquire("http://slow:80", queuedSlowFuture, _newRecorder(acquiredNames, "queuedSlow"));
+        concurrencyLimiter.acquire("http://fast:80", fastFuture, _newRecorder(acquiredNames, "fast"));
+
+        // Assert
+        Assert.assertEquals(2, acquiredNames.size());
+        Assert.assertEquals("slow", acquiredNames.get(0));
+        Assert.assertEquals("fast", acquiredNames.get(1));
+        Assert.assertEquals(Integer.valueOf(1), concurrencyLimiter.getQueuedCount("http://slow:80"));
+        Assert.assertEquals(Integer.valueOf(0), concurrencyLimiter.getQueuedCount("http://fast:80"));
+    }
+
+    @Test
+    public void should_leave_the_queue_when_the_attempt_is_cancelled() {
+        // Setup
+        final ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(1, null);
+        final List<String> acquiredNames = new ArrayList<String>();
+        final CompletableFuture<HttpResponse> firstFuture = new CompletableFuture<HttpResponse>();
+        final CompletableFuture<HttpResponse> cancelledFuture = new CompletableFuture<HttpResponse>();
+
+        concurrencyLimiter.acquire("http://a:80", firstFuture, _newRecorder(acquiredNames, "first"));
+        concurrencyLimiter.acquire("http://a:80", cancelledFuture, _newRecorder(acquiredNames, "cancelled"));
+
+        // Action
+        cancelledFuture.cancel(false);
+        firstFuture.complete(_newResponse(200));
+
+        // Assert
+        Assert.assertEquals(1, acquiredNames.size());
+        Assert.assertEquals(Integer.valueOf(0), concurrencyLimiter.getQueuedCount());
+        Assert.assertEquals(Integer.valueOf(0), concurrencyLimiter.getActiveCount());
+    }
+
+    @Test
+    public void should_decrease_the_aimd_limit_when_the_server_is_overloaded() {
+        // Setup
+        final ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(new AimdLimit(10, 1, 20, null, 0.5D), null, null);
+        final Runnable noop = _newRecorder(new ArrayList<String>(), "noop");
+
+        // Action
+        final CompletableFuture<HttpResponse> tooManyRequestsFuture = new CompletableFuture<HttpResponse>();
+        concurrencyLimiter.acquire("http://a:80", tooManyRequestsFuture, noop);
+        tooManyRequestsFuture.complete(_newResponse(429));
+        final Integer limitAfter429 = concurrencyLimiter.getLimit();
+
+        final CompletableFuture<HttpResponse> serviceUnavailableFuture = new CompletableFuture<HttpResponse>();
+        concurrencyLimiter.acquire("http://a:80", serviceUnavailableFuture, noop);
+        serviceUnavailableFuture.complete(_newResponse(503));
+        final Integer limitAfter503 = concurrencyLimiter.getLimit();
+
+        final CompletableFuture<HttpResponse> failedFuture = new CompletableFuture<HttpResponse>();
+        concurrencyLimiter.acquire("http://a:80", failedFuture, noop);
+        failedFuture.completeExceptionally(new IOException("Connection reset."));
+        final Integer limitAfterFailure = concurrencyLimiter.getLimit();
+
+        final CompletableFuture<HttpResponse> cancelledFuture = new CompletableFuture<HttpResponse>();
+        concurrencyLimiter.acquire("http://a:80", cancelledFuture, noop);
+        cancelledFuture.cancel(false);
+        final Integer limitAfterCancellation = concurrencyLimiter.getLimit();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(5), limitAfter429);
+        Assert.assertEquals(Integer.valueOf(2), limitAfter503);
+        Assert.assertEquals(Integer.valueOf(1), limitAfterFailure);
+        Assert.assertEquals(Integer.valueOf(2), limitAfterCancellation); // NOTE: Cancellations are not drops, so the (utilized) limit grows.
+    }
+
+    @Test
+    public void should_increase_the_aimd_limit_only_while_utilized() {
+        // Setup
+        final AimdLimit aimdLimit = new AimdLimit(4, 1, 10, 1000L);
+
+        // Action
+        aimdLimit.onSample(10000000L, 1, false);
+        final Integer limitWhileIdle = aimdLimit.getLimit();
+
+        aimdLimit.onSample(10000000L, 2, false);
+        final Integer limitWhileUtilized = aimdLimit.getLimit();
+
+        aimdLimit.onSample(5000000000L, 4, false); // NOTE: Latency is in nanoseconds; the threshold is in milliseconds.
+        final Integer limitAfterSlowSample = aimdLimit.getLimit();
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(4), limitWhileIdle);
+        Assert.assertEquals(Integer.valueOf(5), limitWhileUtilized);
+        Assert.assertEquals(Integer.valueOf(4), limitAfterSlowSample);
+    }
+
+    @Test
+    public void should_decrease_the_gradient_limit_as_latency_rises() {
+        // Setup
+        final GradientLimit gradientLimit = new GradientLimit(20, 1, 100);
+        for (int i = 0; i < 50; ++i) {
+            gradientLimit.onSample(10000000L, 20, false);
+        }
+        final Integer steadyLimit = gradientLimit.getLimit();
+
+        // Action
+        for (int i = 0; i < 10; ++i) {
+            gradientLimit.onSample(100000000L, 20, false);
+        }
+        final Integer congestedLimit = gradientLimit.getLimit();
+
+        // Assert
+        Assert.assertTrue(congestedLimit < steadyLimit);
+        Assert.assertTrue(congestedLimit >= 1);
+    }
+
+    @Test
+    public void should_release_the_permit_while_a_retry_backs_off() throws Exception {
+        // Setup
+        final AtomicInteger flakyRequestCount = new AtomicInteger(0);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/flaky", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                if (flakyRequestCount.incrementAndGet() == 1) {
+                    HttpTestServer.writeResponse(outputStream, 503, "Unavailable", "Retry-After: 1");
+                }
+                else {
+                    HttpTestServer.writeResponse(outputStream, 200, "OK");
+                }
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(null, 1);
+            final String origin = ConcurrencyLimiter.getOrigin(httpTestServer.getUrl("/"));
+
+            final RetryPolicy retryPolicy = new RetryPolicy(2);
+            retryPolicy.setRetryBudget(new RetryBudget(RetryBudget.DEFAULT_RETRY_RATIO, RetryBudget.DEFAULT_MIN_RETRIES_PER_SECOND));
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/flaky"));
+            httpRequest.setConcurrencyLimiter(concurrencyLimiter);
+            httpRequest.setRetryPolicy(retryPolicy);
+
+            // Action
+            final CompletableFuture<HttpResponse> responseFuture = httpRequest.executeAsync();
+
+            HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+                @Override
+                public Boolean isMet() {
+                    return ( (flakyRequestCount.get() >= 1) && (concurrencyLimiter.getActiveCount(origin) == 0) );
+                }
+            });
+            final Boolean wasBackingOff = (! responseFuture.isDone());
+            final Integer activeCountWhileBackingOff = concurrencyLimiter.getActiveCount(origin);
+
+            final HttpResponse httpResponse = responseFuture.get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertTrue(wasBackingOff);
+            Assert.assertEquals(Integer.valueOf(0), activeCountWhileBackingOff);
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals(2, flakyRequestCount.get());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+}
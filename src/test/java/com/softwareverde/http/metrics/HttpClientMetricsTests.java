@@ -0,0 +1,121 @@
+package com.softwareverde.http.metrics;
+
+import com.softwareverde.http.HttpMethod;
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import com.softwareverde.http.connection.HttpConnectionPool;
+import com.softwareverde.http.connection.HttpConnector;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+public class HttpClientMetricsTests {
+    protected static HttpRequest _newRequest(final String url, final HttpConnectionPool connectionPool, final HttpClientMetrics metrics) {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(url);
+        httpRequest.setConnectionPool(connectionPool);
+        httpRequest.setMetrics(metrics);
+        return httpRequest;
+    }
+
+    protected static Tags _getRequestTags(final String status) {
+        return Tags.of("method", "GET", "host", "localhost", "status", status);
+    }
+
+    /**
+     * Waits for the in-flight requests to be recorded, since a request's future may complete before its metrics are recorded.
+     */
+    protected static void _waitForInFlightCount(final HttpClientMetrics metrics, final Integer inFlightCount) throws Exception {
+        HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+            @Override
+            public Boolean isMet() {
+                return metrics.getInFlightCount().equals(inFlightCount);
+            }
+        });
+    }
+
+    @Test
+    public void should_time_requests_by_method_host_and_status_class() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/ok", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.setHandler("/missing", HttpTestServer.newHandler(404, "missing"));
+        httpTestServer.setHandler("/reset", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) {
+                return false; // NOTE: Closes the connection without a response.
+            }
+        });
+        httpTestServer.start();
+
+        final HttpConnectionPool connectionPool = new HttpConnectionPool(new HttpConnector(), 4, 60000L, 300000L);
+        try {
+            final MetricsRegistry metricsRegistry = new MetricsRegistry();
+            final HttpClientMetrics metrics = new HttpClientMetrics(metricsRegistry);
+            metrics.bindConnectionPool("test", connectionPool);
+
+            // Action
+            _newRequest(httpTestServer.getUrl("/ok"), connectionPool, metrics).executeAsync().get(5L, TimeUnit.SECONDS);
+            _newRequest(httpTestServer.getUrl("/ok"), connectionPool, metrics).executeAsync().get(5L, TimeUnit.SECONDS);
+            _newRequest(httpTestServer.getUrl("/missing"), connectionPool, metrics).executeAsync().get(5L, TimeUnit.SECONDS);
+            HttpTestUtil.getFailure(_newRequest(httpTestServer.getUrl("/reset"), connectionPool, metrics).executeAsync());
+            _waitForInFlightCount(metrics, 0);
+
+            // Assert
+            Assert.assertEquals(Long.valueOf(2L), metricsRegistry.findTimer(HttpClientMetrics.REQUESTS, _getRequestTags("2xx")).getCount());
+            Assert.assertEquals(Long.valueOf(1L), metricsRegistry.findTimer(HttpClientMetrics.REQUESTS, _getRequestTags("4xx")).getCount());
+            Assert.assertEquals(Long.valueOf(1L), metricsRegistry.findTimer(HttpClientMetrics.REQUESTS, _getRequestTags(HttpClientMetrics.STATUS_ERROR)).getCount());
+
+            Assert.assertEquals(Double.valueOf(0D), metricsRegistry.findGauge(HttpClientMetrics.REQUESTS_IN_FLIGHT, Tags.EMPTY).getValue());
+            Assert.assertEquals(Double.valueOf(0D), metricsRegistry.findGauge(HttpClientMetrics.REQUESTS_QUEUED, Tags.EMPTY).getValue());
+            Assert.assertEquals(Double.valueOf(0D), metricsRegistry.findGauge(HttpClientMetrics.CONNECTIONS_LEASED, Tags.of("pool", "test")).getValue());
+        }
+        finally {
+            connectionPool.close();
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_count_a_request_as_in_flight_until_it_completes() throws Exception {
+        // Setup
+        final MetricsRegistry metricsRegistry = new MetricsRegistry();
+        final HttpClientMetrics metrics = new HttpClientMetrics(metricsRegistry);
+
+        // Action
+        final HttpClientMetrics.RequestTracker requestTracker = metrics.onRequestQueued(HttpMethod.GET, "http://LOCALHOST:8080/path");
+        final Integer queuedCountBeforeStart = metrics.getQueuedCount();
+        requestTracker.onStarted();
+        requestTracker.onStarted();
+        final Integer queuedCountAfterStart = metrics.getQueuedCount();
+        final Integer inFlightCountBeforeCompletion = metrics.getInFlightCount();
+        requestTracker.onComplete(null, new CompletionException(new CancellationException()));
+        requestTracker.onComplete(null, new CancellationException());
+
+        // Assert
+        Assert.assertEquals(Integer.valueOf(1), queuedCountBeforeStart);
+        Assert.assertEquals(Integer.valueOf(0), queuedCountAfterStart);
+        Assert.assertEquals(Integer.valueOf(1), inFlightCountBeforeCompletion);
+        Assert.assertEquals(Integer.valueOf(0), metrics.getInFlightCount());
+        Assert.assertEquals(Long.valueOf(1L), metricsRegistry.findTimer(HttpClientMetrics.REQUESTS, _getRequestTags(HttpClientMetrics.STATUS_CANCELLED)).getCount());
+    }
+
+    @Test
+    public void should_describe_status_classes_and_hosts() {
+        // Action
+        final String successStatus = HttpClientMetrics.getStatusClass(204);
+        final String invalidStatus = HttpClientMetrics.getStatusClass(999);
+        final String host = HttpClientMetrics.getHost("https://Example.COM:8443/path?query");
+        final String invalidHost = HttpClientMetrics.getHost("not a url");
+
+        // Assert
+        Assert.assertEquals("2xx", successStatus);
+        Assert.assertEquals("unknown", invalidStatus);
+        Assert.assertEquals("example.com", host);
+        Assert.assertEquals("unknown", invalidHost);
+    }
+}
@@ -0,0 +1,122 @@
+package com.softwareverde.http.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class MetricsRegistryTests {
+    protected static class RecordingMetricsBridge implements MetricsBridge {
+        public final List<MeterId> registeredMeterIds = Collections.synchronizedList(new ArrayList<MeterId>());
+
+        @Override
+        public void onCounterRegistered(final Counter counter) {
+            registeredMeterIds.add(counter.getId());
+        }
+
+        @Override
+        public void onTimerRegistered(final Timer timer) {
+            registeredMeterIds.add(timer.getId());
+        }
+
+        @Override
+        public void onGaugeRegistered(final Gauge gauge) {
+            registeredMeterIds.add(gauge.getId());
+        }
+    }
+
+    protected static Gauge.ValueFunction _newConstantValueFunction(final Double value) {
+        return new Gauge.ValueFunction() {
+            @Override
+            public Double getValue() {
+                return value;
+            }
+        };
+    }
+
+    @Test
+    public void should_identify_meters_by_name_and_tags_regardless_of_tag_order() {
+        // Setup
+        final MetricsRegistry metricsRegistry = new MetricsRegistry();
+        final Counter counter = metricsRegistry.getCounter("requests", Tags.of("method", "GET", "host", "example.com"));
+
+        // Action
+        final Counter sameCounter = metricsRegistry.getCounter("requests", Tags.of("host", "example.com", "method", "GET"));
+        final Counter otherCounter = metricsRegistry.getCounter("requests", Tags.of("host", "example.com", "method", "POST"));
+        sameCounter.increment();
+        otherCounter.increment(2L);
+
+        // Assert
+        Assert.assertSame(counter, sameCounter);
+        Assert.assertNotSame(counter, otherCounter);
+        Assert.assertEquals(Long.valueOf(1L), counter.getCount());
+        Assert.assertSame(otherCounter, metricsRegistry.findCounter("requests", Tags.of("method", "POST", "host", "example.com")));
+        Assert.assertNull(metricsRegistry.findCounter("requests", Tags.EMPTY));
+        Assert.assertEquals("host=example.com,method=GET", counter.getId().getTags().toString());
+    }
+
+    @Test
+    public void should_reject_tags_without_a_value_for_each_key() {
+        // Action
+        IllegalArgumentException oddTagsException = null;
+        try {
+            Tags.of("method", "GET", "host");
+        }
+        catch (final IllegalArgumentException exception) {
+            oddTagsException = exception;
+        }
+
+        IllegalArgumentException nullTagException = null;
+        try {
+            Tags.of("method", null);
+        }
+        catch (final IllegalArgumentException exception) {
+            nullTagException = exception;
+        }
+
+        // Assert
+        Assert.assertNotNull(oddTagsException);
+        Assert.assertNotNull(nullTagException);
+    }
+
+    @Test
+    public void should_keep_the_first_gauge_registered_with_a_name_and_tags() {
+        // Setup
+        final MetricsRegistry metricsRegistry = new MetricsRegistry();
+        final Gauge gauge = metricsRegistry.registerGauge("connections", Tags.of("pool", "default"), _newConstantValueFunction(1D));
+
+        // Action
+        final Gauge sameGauge = metricsRegistry.registerGauge("connections", Tags.of("pool", "default"), _newConstantValueFunction(2D));
+
+        // Assert
+        Assert.assertSame(gauge, sameGauge);
+        Assert.assertEquals(Double.valueOf(1D), sameGauge.getValue());
+        Assert.assertEquals(1, metricsRegistry.getGauges().size());
+    }
+
+    @Test
+    public void should_notify_bridges_of_existing_and_new_meters_once() {
+        // Setup
+        final MetricsRegistry metricsRegistry = new MetricsRegistry();
+        metricsRegistry.getCounter("counter", Tags.EMPTY);
+        metricsRegistry.registerGauge("gauge", Tags.EMPTY, _newConstantValueFunction(0D));
+
+        final RecordingMetricsBridge metricsBridge = new RecordingMetricsBridge();
+
+        // Action
+        metricsRegistry.addBridge(metricsBridge);
+        metricsRegistry.getTimer("timer", Tags.EMPTY);
+        metricsRegistry.getTimer("timer", Tags.EMPTY);
+        metricsRegistry.getCounter("counter", Tags.EMPTY);
+        metricsRegistry.removeBridge(metricsBridge);
+        metricsRegistry.getCounter("removed", Tags.EMPTY);
+
+        // Assert
+        Assert.assertEquals(3, metricsBridge.registeredMeterIds.size());
+        Assert.assertTrue(metricsBridge.registeredMeterIds.contains(new MeterId("counter", Tags.EMPTY)));
+        Assert.assertTrue(metricsBridge.registeredMeterIds.contains(new MeterId("gauge", Tags.EMPTY)));
+        Assert.assertEquals(new MeterId("timer", Tags.EMPTY), metricsBridge.registeredMeterIds.get(2));
+    }
+}
@@ -0,0 +1,85 @@
+package com.softwareverde.http.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimerTests {
+    protected static Timer _newTimer() {
+        return new Timer(new MeterId("timer", Tags.EMPTY));
+    }
+
+    protected static void _assertWithin(final Long expectedValue, final Long value, final Double tolerance) {
+        final double difference = Math.abs(value - expectedValue);
+        Assert.assertTrue((expectedValue + " ~ " + value), (difference <= (expectedValue * tolerance)));
+    }
+
+    @Test
+    public void should_report_percentiles_within_the_histograms_precision() {
+        // Setup
+        final Timer timer = _newTimer();
+
+        // Action
+        for (long duration = 1L; duration <= 1000000L; ++duration) {
+            timer.record(duration * 1000L);
+        }
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(1000000L), timer.getCount());
+        Assert.assertEquals(Long.valueOf(1000000000L), timer.getMaxDuration());
+        _assertWithin(500000000L, timer.getPercentile(0.5D), 0.016D);
+        _assertWithin(990000000L, timer.getPercentile(0.99D), 0.016D);
+        _assertWithin(999000000L, timer.getPercentile(0.999D), 0.016D);
+        Assert.assertEquals(Long.valueOf(1000000000L), timer.getPercentile(1.0D));
+        _assertWithin(500000500L, timer.getMeanDuration().longValue(), 0.000001D);
+    }
+
+    @Test
+    public void should_count_small_durations_exactly() {
+        // Setup
+        final Timer timer = _newTimer();
+
+        // Action
+        timer.record(5L);
+        timer.record(10L);
+        timer.record(100L);
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(5L), timer.getPercentile(0.1D));
+        Assert.assertEquals(Long.valueOf(10L), timer.getPercentile(0.5D));
+        Assert.assertEquals(Long.valueOf(100L), timer.getPercentile(0.9D));
+        Assert.assertEquals(Long.valueOf(115L), timer.getTotalDuration());
+    }
+
+    @Test
+    public void should_bound_negative_and_untrackable_durations() {
+        // Setup
+        final Timer timer = _newTimer();
+        final Long untrackableDuration = (Timer.MAX_TRACKABLE_DURATION * 4L);
+
+        // Action
+        timer.record(-10L);
+        timer.record(untrackableDuration);
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(0L), timer.getPercentile(0.5D));
+        Assert.assertEquals(untrackableDuration, timer.getMaxDuration());
+        Assert.assertEquals(untrackableDuration, timer.getTotalDuration());
+        Assert.assertTrue(timer.getPercentile(1.0D) <= untrackableDuration);
+        Assert.assertTrue(timer.getPercentile(1.0D) >= Timer.MAX_TRACKABLE_DURATION);
+    }
+
+    @Test
+    public void should_not_report_a_percentile_or_mean_until_a_duration_is_recorded() {
+        // Setup
+        final Timer timer = _newTimer();
+
+        // Action
+        final Long percentile = timer.getPercentile(0.99D);
+        final Double meanDuration = timer.getMeanDuration();
+
+        // Assert
+        Assert.assertNull(percentile);
+        Assert.assertNull(meanDuration);
+        Assert.assertEquals(Long.valueOf(0L), timer.getCount());
+    }
+}
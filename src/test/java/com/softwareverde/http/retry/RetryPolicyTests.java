@@ -0,0 +1,244 @@
+package com.softwareverde.http.retry;
+
+import com.softwareverde.http.ConnectTimeoutException;
+import com.softwareverde.http.DeadlineExceededException;
+import com.softwareverde.http.ExecutorHttpClientEngine;
+import com.softwareverde.http.HttpClientEngine;
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RetryPolicyTests {
+    protected static Map<String, List<String>> _newHeaders(final String key, final String value) {
+        final List<String> values = new ArrayList<String>(1);
+        values.add(value);
+
+        final Map<String, List<String>> headers = new HashMap<String, List<String>>();
+        headers.put(key, values);
+        return headers;
+    }
+
+    @Test
+    public void should_parse_retry_after_as_seconds() {
+        // Setup
+        final RetryPolicy retryPolicy = new RetryPolicy();
+
+        // Action
+        final Long retryAfter = retryPolicy.getRetryAfter(_newHeaders("retry-after", " 3 "));
+        final Long negativeRetryAfter = retryPolicy.getRetryAfter(_newHeaders("Retry-After", "-5"));
+        final Long invalidRetryAfter = retryPolicy.getRetryAfter(_newHeaders("Retry-After", "soon"));
+        final Long missingRetryAfter = retryPolicy.getRetryAfter(new HashMap<String, List<String>>());
+
+        // Assert
+        Assert.assertEquals(Long.valueOf(3000L), retryAfter);
+        Assert.assertEquals(Long.valueOf(0L), negativeRetryAfter);
+        Assert.assertNull(invalidRetryAfter);
+        Assert.assertNull(missingRetryAfter);
+    }
+
+    @Test
+    public void should_parse_retry_after_as_an_http_date() {
+        // Setup
+        final RetryPolicy retryPolicy = new RetryPolicy();
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        final String futureDate = DateTimeFormatter.RFC_1123_DATE_TIME.format(now.plusSeconds(120L));
+        final String pastDate = DateTimeFormatter.RFC_1123_DATE_TIME.format(now.minusSeconds(120L));
+
+        // Action
+        final Long futureRetryAfter = retryPolicy.getRetryAfter(_newHeaders("Retry-After", futureDate));
+        final Long pastRetryAfter = retryPolicy.getRetryAfter(_newHeaders("Retry-After", pastDate));
+
+        // Assert
+        Assert.assertTrue(futureRetryAfter > 110000L);
+        Assert.assertTrue(futureRetryAfter <= 120000L);
+        Assert.assertEquals(Long.valueOf(0L), pastRetryAfter);
+    }
+
+    @Test
+    public void should_only_retry_non_idempotent_requests_that_were_never_sent() {
+        // Setup
+        final RetryPolicy retryPolicy = new RetryPolicy();
+        final IOException readFailure = new IOException("Connection reset.");
+
+        // Action
+        final Boolean retriesIdempotentReadFailure = retryPolicy.isRetryableException(readFailure, true);
+        final Boolean retriesNonIdempotentReadFailure = retryPolicy.isRetryableException(readFailure, false);
+        final Boolean retriesNonIdempotentConnectFailure = retryPolicy.isRetryableException(new ConnectException("Connection refused."), false);
+        final Boolean retriesNonIdempotentConnectTimeout = retryPolicy.isRetryableException(new ConnectTimeoutException("Connect timed out."), false);
+        final Boolean retriesDeadline = retryPolicy.isRetryableException(new DeadlineExceededException("Deadline exceeded."), true);
+
+        retryPolicy.setRetriesNonIdempotentRequests(true);
+        final Boolean retriesNonIdempotentReadFailureWhenEnabled = retryPolicy.isRetryableException(readFailure, false);
+
+        // Assert
+        Assert.assertTrue(retriesIdempotentReadFailure);
+        Assert.assertFalse(retriesNonIdempotentReadFailure);
+        Assert.assertTrue(retriesNonIdempotentConnectFailure);
+        Assert.assertTrue(retriesNonIdempotentConnectTimeout);
+        Assert.assertFalse(retriesDeadline);
+        Assert.assertTrue(retriesNonIdempotentReadFailureWhenEnabled);
+    }
+
+    @Test
+    public void should_bound_the_backoff() {
+        // Setup
+        final RetryPolicy retryPolicy = new RetryPolicy();
+        retryPolicy.setBackoff(100L, 400L, 2D);
+
+        // Action
+        long maxBackoff = 0L;
+        for (int i = 0; i < 1000; ++i) {
+            maxBackoff = Math.max(maxBackoff, retryPolicy.getBackoff(10));
+        }
+        final Long firstBackoff = retryPolicy.getBackoff(1);
+
+        // Assert
+        Assert.assertTrue(maxBackoff <= 400L);
+        Assert.assertTrue(firstBackoff <= 100L);
+    }
+
+    @Test
+    public void should_deny_retries_once_the_budget_is_exhausted() {
+        // Setup
+        final RetryBudget retryBudget = new RetryBudget(0.5D, 0);
+
+        // Action
+        final Boolean retryBeforeRequests = retryBudget.tryAcquireRetry();
+        retryBudget.onRequest();
+        retryBudget.onRequest();
+        final Boolean firstRetry = retryBudget.tryAcquireRetry();
+        final Boolean secondRetry = retryBudget.tryAcquireRetry();
+
+        // Assert
+        Assert.assertFalse(retryBeforeRequests);
+        Assert.assertTrue(firstRetry);
+        Assert.assertFalse(secondRetry);
+        Assert.assertEquals(Long.valueOf(1L), retryBudget.getRetryCount());
+        Assert.assertEquals(Long.valueOf(2L), retryBudget.getExhaustedCount());
+    }
+
+    @Test
+    public void should_permit_the_minimum_retries_per_second_without_requests() {
+        // Setup
+        final RetryBudget retryBudget = new RetryBudget(0D, 2);
+
+        // Action
+        final Boolean firstRetry = retryBudget.tryAcquireRetry();
+        final Boolean secondRetry = retryBudget.tryAcquireRetry();
+        final Boolean thirdRetry = retryBudget.tryAcquireRetry();
+
+        // Assert
+        Assert.assertTrue(firstRetry);
+        Assert.assertTrue(secondRetry);
+        Assert.assertFalse(thirdRetry);
+    }
+
+    @Test
+    public void should_stop_retrying_after_the_max_attempt_count() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/unavailable", HttpTestServer.newHandler(503, "Unavailable", "Retry-After: 0"));
+        httpTestServer.start();
+
+        try {
+            final RetryPolicy retryPolicy = new RetryPolicy(3);
+            retryPolicy.setRetryBudget(new RetryBudget(RetryBudget.DEFAULT_RETRY_RATIO, RetryBudget.DEFAULT_MIN_RETRIES_PER_SECOND));
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/unavailable"));
+            httpRequest.setRetryPolicy(retryPolicy);
+
+            // Action
+            final HttpResponse httpResponse = httpRequest.executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(503), httpResponse.getResponseCode());
+            Assert.assertEquals(Integer.valueOf(3), httpTestServer.getRequestCount());
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_fail_a_retry_instead_of_blocking_the_timer_when_the_engine_is_saturated() throws Exception {
+        // Setup
+        final AtomicInteger requestCount = new AtomicInteger(0);
+        final CountDownLatch releaseEngineLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/flaky", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                requestCount.incrementAndGet();
+                HttpTestServer.writeResponse(outputStream, 503, "Unavailable", "Retry-After: 1");
+                return true;
+            }
+        });
+        httpTestServer.start();
+
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        try {
+            final HttpClientEngine engine = new ExecutorHttpClientEngine(executorService, 1, HttpClientEngine.RejectionPolicy.BLOCK);
+
+            final RetryPolicy retryPolicy = new RetryPolicy(2);
+            retryPolicy.setRetryBudget(new RetryBudget(RetryBudget.DEFAULT_RETRY_RATIO, RetryBudget.DEFAULT_MIN_RETRIES_PER_SECOND));
+
+            final HttpRequest httpRequest = HttpTestUtil.newRequest(httpTestServer.getUrl("/flaky"));
+            httpRequest.setEngine(engine);
+            httpRequest.setRetryPolicy(retryPolicy);
+
+            // Action
+            final CompletableFuture<HttpResponse> responseFuture = httpRequest.executeAsync();
+
+            HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+                @Override
+                public Boolean isMet() {
+                    return (requestCount.get() >= 1);
+                }
+            });
+
+            // Occupy the engine's only permit (once the first attempt releases it) until the retry has been dispatched.
+            engine.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        releaseEngineLatch.await();
+                    }
+                    catch (final InterruptedException exception) { }
+                }
+            });
+
+            final Throwable failure = HttpTestUtil.getFailure(responseFuture);
+
+            // Assert
+            Assert.assertTrue(failure instanceof RejectedExecutionException);
+            Assert.assertEquals(1, requestCount.get());
+        }
+        finally {
+            releaseEngineLatch.countDown();
+            executorService.shutdown();
+            httpTestServer.close();
+        }
+    }
+}
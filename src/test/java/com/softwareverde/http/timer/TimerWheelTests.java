@@ -0,0 +1,134 @@
+package com.softwareverde.http.timer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TimerWheelTests {
+    protected static Runnable _newCountDownTask(final CountDownLatch countDownLatch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                countDownLatch.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void should_run_a_task_no_sooner_than_its_delay() throws Exception {
+        // Setup
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        final List<Long> runTimes = Collections.synchronizedList(new ArrayList<Long>());
+        final List<Boolean> ranOnTimerThread = Collections.synchronizedList(new ArrayList<Boolean>());
+
+        try (final TimerWheel timerWheel = new TimerWheel(10L, 16)) {
+            final long scheduledAt = System.nanoTime();
+
+            // Action
+            final TimerWheel.Timeout timeout = timerWheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    runTimes.add(System.nanoTime() - scheduledAt);
+                    ranOnTimerThread.add(TimerWheel.isTimerThread());
+                    countDownLatch.countDown();
+                }
+            }, 50L);
+
+            // Assert
+            Assert.assertTrue(countDownLatch.await(5L, TimeUnit.SECONDS));
+            Assert.assertTrue(runTimes.get(0) >= TimeUnit.MILLISECONDS.toNanos(50L));
+            Assert.assertTrue(ranOnTimerThread.get(0));
+            Assert.assertFalse(TimerWheel.isTimerThread());
+            Assert.assertTrue(timeout.isExpired());
+            Assert.assertFalse(timeout.cancel());
+            Assert.assertEquals(Integer.valueOf(0), timerWheel.getTimeoutCount());
+        }
+    }
+
+    @Test
+    public void should_run_a_task_whose_delay_spans_more_than_one_rotation() throws Exception {
+        // Setup
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        try (final TimerWheel timerWheel = new TimerWheel(10L, 4)) {
+            final long scheduledAt = System.nanoTime();
+
+            // Action
+            timerWheel.schedule(_newCountDownTask(countDownLatch), 200L);
+
+            // Assert
+            Assert.assertTrue(countDownLatch.await(5L, TimeUnit.SECONDS));
+            Assert.assertTrue((System.nanoTime() - scheduledAt) >= TimeUnit.MILLISECONDS.toNanos(200L));
+        }
+    }
+
+    @Test
+    public void should_not_run_a_cancelled_task() throws Exception {
+        // Setup
+        final CountDownLatch cancelledLatch = new CountDownLatch(1);
+        final CountDownLatch laterLatch = new CountDownLatch(1);
+
+        try (final TimerWheel timerWheel = new TimerWheel(10L, 16)) {
+            final TimerWheel.Timeout cancelledTimeout = timerWheel.schedule(_newCountDownTask(cancelledLatch), 50L);
+            timerWheel.schedule(_newCountDownTask(laterLatch), 100L);
+
+            // Action
+            final Boolean wasCancelled = cancelledTimeout.cancel();
+            final Boolean wasCancelledAgain = cancelledTimeout.cancel();
+
+            // Assert
+            Assert.assertTrue(wasCancelled);
+            Assert.assertFalse(wasCancelledAgain);
+            Assert.assertTrue(cancelledTimeout.isCancelled());
+            Assert.assertTrue(laterLatch.await(5L, TimeUnit.SECONDS));
+            Assert.assertEquals(1L, cancelledLatch.getCount());
+            Assert.assertFalse(cancelledTimeout.isExpired());
+            Assert.assertEquals(Integer.valueOf(0), timerWheel.getTimeoutCount());
+        }
+    }
+
+    @Test
+    public void should_continue_running_tasks_after_a_task_fails() throws Exception {
+        // Setup
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        try (final TimerWheel timerWheel = new TimerWheel(10L, 16)) {
+            timerWheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    throw new RuntimeException("Task failure.");
+                }
+            }, 0L);
+
+            // Action
+            timerWheel.schedule(_newCountDownTask(countDownLatch), 50L);
+
+            // Assert
+            Assert.assertTrue(countDownLatch.await(5L, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void should_not_schedule_tasks_once_closed() {
+        // Setup
+        final TimerWheel timerWheel = new TimerWheel(10L, 16);
+        timerWheel.close();
+
+        // Action
+        IllegalStateException scheduleException = null;
+        try {
+            timerWheel.schedule(_newCountDownTask(new CountDownLatch(1)), 10L);
+        }
+        catch (final IllegalStateException exception) {
+            scheduleException = exception;
+        }
+
+        // Assert
+        Assert.assertNotNull(scheduleException);
+    }
+}
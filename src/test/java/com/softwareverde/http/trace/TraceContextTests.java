@@ -0,0 +1,93 @@
+package com.softwareverde.http.trace;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TraceContextTests {
+    protected static final String TRACE_PARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    protected static Boolean _isLowerCaseHex(final String value, final Integer characterCount) {
+        return ( (value.length() == characterCount) && value.matches("[0-9a-f]+") );
+    }
+
+    @Test
+    public void should_parse_and_format_a_traceparent() {
+        // Action
+        final TraceContext traceContext = TraceContext.fromHeaders(" " + TRACE_PARENT.toUpperCase() + " ", " vendor=value ");
+
+        // Assert
+        Assert.assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", traceContext.getTraceId());
+        Assert.assertEquals("00f067aa0ba902b7", traceContext.getSpanId());
+        Assert.assertTrue(traceContext.isSampled());
+        Assert.assertEquals("vendor=value", traceContext.getTraceState());
+        Assert.assertEquals(TRACE_PARENT, traceContext.toTraceParent());
+    }
+
+    @Test
+    public void should_parse_an_unsampled_traceparent_without_a_tracestate() {
+        // Action
+        final TraceContext traceContext = TraceContext.fromHeaders("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00", "  ");
+
+        // Assert
+        Assert.assertFalse(traceContext.isSampled());
+        Assert.assertNull(traceContext.getTraceState());
+    }
+
+    @Test
+    public void should_accept_fields_appended_by_a_future_version() {
+        // Action
+        final TraceContext traceContext = TraceContext.fromHeaders("cc-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-future", null);
+
+        // Assert
+        Assert.assertNotNull(traceContext);
+        Assert.assertEquals(TRACE_PARENT, traceContext.toTraceParent());
+    }
+
+    @Test
+    public void should_reject_an_invalid_traceparent() {
+        // Setup
+        final String[] invalidTraceParents = {
+            "",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra",
+            "ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01",
+            "0-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01",
+            "00-00000000000000000000000000000000-00f067aa0ba902b7-01",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01",
+            "00-4bf92f3577b34da6a3ce929d0e0e473-00f067aa0ba902b7-01",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902bz-01",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-1"
+        };
+
+        // Action / Assert
+        Assert.assertNull(TraceContext.fromHeaders(null, "vendor=value"));
+        for (final String invalidTraceParent : invalidTraceParents) {
+            Assert.assertNull(TraceContext.fromHeaders(invalidTraceParent, null));
+        }
+    }
+
+    @Test
+    public void should_create_root_and_child_contexts() {
+        // Setup
+        final TraceContext rootContext = TraceContext.newRootContext(true);
+        final TraceContext unsampledRootContext = TraceContext.newRootContext(false);
+        final TraceContext parentContext = TraceContext.fromHeaders(TRACE_PARENT, "vendor=value");
+
+        // Action
+        final TraceContext childContext = parentContext.newChildContext();
+
+        // Assert
+        Assert.assertTrue(_isLowerCaseHex(rootContext.getTraceId(), 32));
+        Assert.assertTrue(_isLowerCaseHex(rootContext.getSpanId(), 16));
+        Assert.assertTrue(rootContext.isSampled());
+        Assert.assertFalse(unsampledRootContext.isSampled());
+        Assert.assertFalse(rootContext.getTraceId().equals(unsampledRootContext.getTraceId()));
+        Assert.assertNotNull(TraceContext.fromHeaders(rootContext.toTraceParent(), null));
+
+        Assert.assertEquals(parentContext.getTraceId(), childContext.getTraceId());
+        Assert.assertFalse(parentContext.getSpanId().equals(childContext.getSpanId()));
+        Assert.assertTrue(_isLowerCaseHex(childContext.getSpanId(), 16));
+        Assert.assertEquals(parentContext.getTraceFlags(), childContext.getTraceFlags());
+        Assert.assertEquals("vendor=value", childContext.getTraceState());
+    }
+}
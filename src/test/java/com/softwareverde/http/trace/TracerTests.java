@@ -0,0 +1,202 @@
+package com.softwareverde.http.trace;
+
+import com.softwareverde.http.HttpRequest;
+import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
+import com.softwareverde.http.HttpTestUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class TracerTests {
+    protected static class RecordingSpan implements Span {
+        public final String name;
+        public final TraceContext parentContext;
+        public final TraceContext context;
+        public final Map<String, String> attributes = Collections.synchronizedMap(new HashMap<String, String>());
+        public volatile Throwable error = null;
+        public volatile Integer endCount = 0;
+
+        public RecordingSpan(final String name, final TraceContext parentContext) {
+            this.name = name;
+            this.parentContext = parentContext;
+            this.context = (parentContext != null ? parentContext.newChildContext() : TraceContext.newRootContext(true));
+        }
+
+        @Override
+        public TraceContext getContext() {
+            return this.context;
+        }
+
+        @Override
+        public void setAttribute(final String key, final String value) {
+            this.attributes.put(key, value);
+        }
+
+        @Override
+        public void setError(final Throwable exception) {
+            this.error = exception;
+        }
+
+        @Override
+        public synchronized void end() {
+            this.endCount += 1;
+        }
+    }
+
+    protected static class RecordingTracer implements Tracer {
+        public final List<RecordingSpan> spans = Collections.synchronizedList(new ArrayList<RecordingSpan>());
+        public volatile TraceContext currentContext = null;
+
+        @Override
+        public TraceContext getCurrentContext() {
+            return this.currentContext;
+        }
+
+        @Override
+        public Span startSpan(final String name, final TraceContext parentContext) {
+            final RecordingSpan span = new RecordingSpan(name, parentContext);
+            this.spans.add(span);
+            return span;
+        }
+    }
+
+    protected static HttpRequest _newRequest(final String url, final Tracer tracer) {
+        final HttpRequest httpRequest = HttpTestUtil.newRequest(url);
+        httpRequest.setTracer(tracer);
+        return httpRequest;
+    }
+
+    /**
+     * Waits for the span to end, since a request's future may complete before its span is ended.
+     */
+    protected static void _waitForSpanToEnd(final RecordingSpan span) throws Exception {
+        HttpTestUtil.waitFor(new HttpTestUtil.Condition() {
+            @Override
+            public Boolean isMet() {
+                return (span.endCount > 0);
+            }
+        });
+    }
+
+    @Test
+    public void should_propagate_the_span_of_the_exchange_to_the_server() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        try {
+            final RecordingTracer tracer = new RecordingTracer();
+            tracer.currentContext = TraceContext.fromHeaders("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01", "vendor=value");
+
+            // Action
+            final HttpResponse httpResponse = _newRequest(httpTestServer.getUrl("/"), tracer).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            Assert.assertEquals(Integer.valueOf(200), httpResponse.getResponseCode());
+            Assert.assertEquals(1, tracer.spans.size());
+
+            final RecordingSpan span = tracer.spans.get(0);
+            _waitForSpanToEnd(span);
+            Assert.assertEquals("HTTP GET", span.name);
+            Assert.assertSame(tracer.currentContext, span.parentContext);
+            Assert.assertEquals("200", span.attributes.get("http.status_code"));
+            Assert.assertEquals("GET", span.attributes.get("http.method"));
+            Assert.assertNull(span.error);
+            Assert.assertEquals(Integer.valueOf(1), span.endCount);
+
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertEquals(span.context.toTraceParent(), request.getHeader(TraceContext.TRACE_PARENT_HEADER));
+            Assert.assertEquals("vendor=value", request.getHeader(TraceContext.TRACE_STATE_HEADER));
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_begin_a_trace_when_there_is_no_current_span() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        try {
+            final RecordingTracer tracer = new RecordingTracer();
+
+            // Action
+            _newRequest(httpTestServer.getUrl("/"), tracer).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            final RecordingSpan span = tracer.spans.get(0);
+            Assert.assertNull(span.parentContext);
+
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            final TraceContext propagatedContext = TraceContext.fromHeaders(request.getHeader(TraceContext.TRACE_PARENT_HEADER), request.getHeader(TraceContext.TRACE_STATE_HEADER));
+            Assert.assertEquals(span.context.getTraceId(), propagatedContext.getTraceId());
+            Assert.assertEquals(span.context.getSpanId(), propagatedContext.getSpanId());
+            Assert.assertNull(request.getHeader(TraceContext.TRACE_STATE_HEADER));
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_record_the_failure_of_an_exchange_on_its_span() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) {
+                return false; // NOTE: Closes the connection without a response.
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final RecordingTracer tracer = new RecordingTracer();
+
+            // Action
+            final Throwable failure = HttpTestUtil.getFailure(_newRequest(httpTestServer.getUrl("/"), tracer).executeAsync());
+
+            // Assert
+            final RecordingSpan span = tracer.spans.get(0);
+            _waitForSpanToEnd(span);
+            Assert.assertNotNull(failure);
+            Assert.assertSame(failure, span.error);
+            Assert.assertEquals(Integer.valueOf(1), span.endCount);
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+
+    @Test
+    public void should_not_add_trace_headers_without_a_tracer() throws Exception {
+        // Setup
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/", HttpTestServer.newHandler(200, "ok"));
+        httpTestServer.start();
+
+        try {
+            // Action
+            _newRequest(httpTestServer.getUrl("/"), null).executeAsync().get(5L, TimeUnit.SECONDS);
+
+            // Assert
+            final HttpTestServer.Request request = httpTestServer.getRequests().get(0);
+            Assert.assertNull(request.getHeader(TraceContext.TRACE_PARENT_HEADER));
+        }
+        finally {
+            httpTestServer.close();
+        }
+    }
+}
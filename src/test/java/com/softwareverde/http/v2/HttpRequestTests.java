@@ -3,10 +3,17 @@ package com.softwareverde.http.v2;
 import com.softwareverde.http.HttpMethod;
 import com.softwareverde.http.HttpRequest;
 import com.softwareverde.http.HttpResponse;
+import com.softwareverde.http.HttpTestServer;
 import com.softwareverde.util.Container;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class HttpRequestTests {
     @Test
     public void should_cancel_request() throws Exception {
@@ -45,4 +52,57 @@ public class HttpRequestTests {
         // Assert
         Assert.assertNull(responseContainer.value);
     }
+
+    @Test
+    public void should_cancel_async_request() throws Exception {
+        // Setup
+        final CountDownLatch requestReceivedLatch = new CountDownLatch(1);
+        final CountDownLatch releaseResponseLatch = new CountDownLatch(1);
+
+        final HttpTestServer httpTestServer = new HttpTestServer();
+        httpTestServer.setHandler("/stall", new HttpTestServer.Handler() {
+            @Override
+            public Boolean respond(final HttpTestServer.Request request, final OutputStream outputStream) throws Exception {
+                requestReceivedLatch.countDown();
+                releaseResponseLatch.await();
+                return false;
+            }
+        });
+        httpTestServer.start();
+
+        try {
+            final HttpRequest httpRequest = new HttpRequest();
+            httpRequest.setMethod(HttpMethod.GET);
+            httpRequest.setUrl(httpTestServer.getUrl("/stall"));
+
+            // Action
+            final CompletableFuture<HttpResponse> responseFuture = httpRequest.executeAsync();
+
+            Assert.assertTrue(requestReceivedLatch.await(5L, TimeUnit.SECONDS));
+            Assert.assertTrue(httpRequest.isExecuting());
+            responseFuture.cancel(true);
+
+            Exception exception = null;
+            try {
+                responseFuture.get(5L, TimeUnit.SECONDS);
+            }
+            catch (final CancellationException cancellationException) {
+                exception = cancellationException;
+            }
+
+            final long timeoutAt = (System.currentTimeMillis() + 5000L);
+            while ( httpRequest.isExecuting() && (System.currentTimeMillis() < timeoutAt) ) {
+                Thread.sleep(10L); // NOTE: The execution thread exits once its connection is closed by the cancellation.
+            }
+
+            // Assert
+            Assert.assertNotNull(exception);
+            Assert.assertTrue(responseFuture.isCancelled());
+            Assert.assertFalse(httpRequest.isExecuting());
+        }
+        finally {
+            releaseResponseLatch.countDown();
+            httpTestServer.close();
+        }
+    }
 }